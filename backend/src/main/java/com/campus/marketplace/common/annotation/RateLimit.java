@@ -107,6 +107,10 @@ public @interface RateLimit {
      */
     enum Algorithm {
         SLIDING_WINDOW,
-        TOKEN_BUCKET
+        TOKEN_BUCKET,
+        /**
+         * 滑动窗口计数器：当前与上一个固定窗口计数按重叠比例加权，每个键 O(1) 内存、一次 Redis 往返
+         */
+        SLIDING_WINDOW_COUNTER
     }
 }
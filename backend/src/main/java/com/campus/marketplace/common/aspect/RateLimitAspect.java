@@ -3,7 +3,9 @@ package com.campus.marketplace.common.aspect;
 import com.campus.marketplace.common.annotation.RateLimit;
 import com.campus.marketplace.common.exception.BusinessException;
 import com.campus.marketplace.common.exception.ErrorCode;
+import com.campus.marketplace.common.component.RateLimitLeasePool;
 import com.campus.marketplace.common.component.RateLimitRuleManager;
+import com.campus.marketplace.common.utils.RedisScriptRegistry;
 import com.campus.marketplace.common.utils.SecurityUtil;
 import com.campus.marketplace.repository.UserRepository;
 import jakarta.servlet.http.HttpServletRequest;
@@ -33,6 +35,12 @@ import java.util.concurrent.TimeUnit;
  * 3. 定期清理过期数据（时间窗口外的请求）
  * 4. 统计时间窗口内的请求次数，超过阈值则拒绝
  * 
+ * 滑动窗口计数器（SLIDING_WINDOW_COUNTER）：当前与上一个固定窗口的计数按重叠比例加权，
+ * 每个键只有两个计数器，一次 Lua 调用完成判定与计数
+ * 
+ * 本地预过滤（rate-limit.local.enabled）：滑动窗口额度按批租到本节点，
+ * 大部分请求在本地放行/拒绝，只在租约用尽或过期时访问 Redis，见 {@link RateLimitLeasePool}
+ * 
  * @author BaSui 😎
  * @date 2025-10-27
  */
@@ -45,6 +53,8 @@ public class RateLimitAspect {
     private final StringRedisTemplate redisTemplate;
     private final RateLimitRuleManager ruleManager;
     private final UserRepository userRepository;
+    private final RedisScriptRegistry scriptRegistry;
+    private final RateLimitLeasePool leasePool;
 
     /**
      * 限流键前缀
@@ -81,6 +91,10 @@ public class RateLimitAspect {
         try {
             if (rateLimit.algorithm() == RateLimit.Algorithm.TOKEN_BUCKET) {
                 return applyTokenBucket(joinPoint, rateLimit, limitKey, currentTimeMs, response);
+            } else if (rateLimit.algorithm() == RateLimit.Algorithm.SLIDING_WINDOW_COUNTER) {
+                return applySlidingWindowCounter(joinPoint, rateLimit, limitKey, currentTimeMs, response);
+            } else if (leasePool.isEnabled()) {
+                return applyLeasedSlidingWindow(joinPoint, rateLimit, limitKey, currentTimeMs, response);
             } else {
                 return applySlidingWindow(joinPoint, rateLimit, limitKey, currentTimeMs, response);
             }
@@ -219,6 +233,64 @@ public class RateLimitAspect {
         return joinPoint.proceed();
     }
 
+    private Object applyLeasedSlidingWindow(ProceedingJoinPoint joinPoint,
+                                            RateLimit rateLimit,
+                                            String limitKey,
+                                            long currentTimeMs,
+                                            HttpServletResponse response) throws Throwable {
+        long timeWindowMs = rateLimit.timeUnit().toMillis(rateLimit.timeWindow());
+        long windowStartMs = currentTimeMs - timeWindowMs;
+
+        RateLimitLeasePool.Decision decision = leasePool.acquire(limitKey, rateLimit.maxRequests(),
+                timeWindowMs, currentTimeMs);
+        if (!decision.allowed()) {
+            log.warn("🚫 接口限流触发(SW): key={}, max={}", limitKey, rateLimit.maxRequests());
+            setRateLimitHeaders(response, rateLimit.maxRequests(), 0L,
+                    secondsUntilReset(currentTimeMs, windowStartMs, timeWindowMs));
+            throw new BusinessException(ErrorCode.TOO_MANY_REQUESTS);
+        }
+
+        setRateLimitHeaders(response, rateLimit.maxRequests(), decision.remaining(),
+                secondsUntilReset(currentTimeMs, windowStartMs, timeWindowMs));
+
+        return joinPoint.proceed();
+    }
+
+    private Object applySlidingWindowCounter(ProceedingJoinPoint joinPoint,
+                                             RateLimit rateLimit,
+                                             String limitKey,
+                                             long currentTimeMs,
+                                             HttpServletResponse response) throws Throwable {
+        long timeWindowMs = rateLimit.timeUnit().toMillis(rateLimit.timeWindow());
+        long windowIndex = currentTimeMs / timeWindowMs;
+        long resetSeconds = (long) Math.ceil((timeWindowMs - currentTimeMs % timeWindowMs) / 1000.0);
+
+        // Lua 原子脚本（见 lua/rate_limit_sliding_counter.lua）
+        java.util.List<?> result = scriptRegistry.execute(
+                redisTemplate,
+                RedisScriptRegistry.RATE_LIMIT_SLIDING_COUNTER,
+                java.util.List.of(limitKey + ":swc:" + windowIndex, limitKey + ":swc:" + (windowIndex - 1)),
+                String.valueOf(currentTimeMs),
+                String.valueOf(timeWindowMs),
+                String.valueOf(rateLimit.maxRequests())
+        );
+        if (result == null || result.size() < 2) {
+            // 脚本失败时放行
+            return joinPoint.proceed();
+        }
+
+        long estimated = toLong(result.get(1));
+        if (toLong(result.get(0)) == 0) {
+            log.warn("🚫 接口限流触发(SWC): key={}, count={}, max={}", limitKey, estimated, rateLimit.maxRequests());
+            setRateLimitHeaders(response, rateLimit.maxRequests(), 0L, resetSeconds);
+            throw new BusinessException(ErrorCode.TOO_MANY_REQUESTS);
+        }
+
+        setRateLimitHeaders(response, rateLimit.maxRequests(),
+                Math.max(0, rateLimit.maxRequests() - estimated), resetSeconds);
+        return joinPoint.proceed();
+    }
+
     private Object applyTokenBucket(ProceedingJoinPoint joinPoint,
                                     RateLimit rateLimit,
                                     String limitKey,
@@ -232,49 +304,10 @@ public class RateLimitAspect {
         // 使用 Redis HASH 存储：{ tokens, ts }
         String tbKey = limitKey + ":tb";
 
-        // Lua 原子脚本（Token Bucket）
-        String script = """
-                local key = KEYS[1]
-                local now = tonumber(ARGV[1])
-                local capacity = tonumber(ARGV[2])
-                local refill = tonumber(ARGV[3])
-                local interval = tonumber(ARGV[4])
-                local data = redis.call('HMGET', key, 'tokens', 'ts')
-                local tokens = tonumber(data[1])
-                local ts = tonumber(data[2])
-                if tokens == nil or ts == nil then
-                  tokens = capacity
-                  ts = now
-                else
-                  if now > ts then
-                    local elapsed = now - ts
-                    local refillCount = math.floor(elapsed / interval)
-                    if refillCount > 0 then
-                      tokens = math.min(capacity, tokens + refillCount * refill)
-                      ts = ts + refillCount * interval
-                    end
-                  end
-                end
-                if tokens <= 0 then
-                  redis.call('HMSET', key, 'tokens', tokens, 'ts', ts)
-                  return {-1, ts}
-                else
-                  tokens = tokens - 1
-                  redis.call('HMSET', key, 'tokens', tokens, 'ts', ts)
-                  return {tokens, ts}
-                end
-                """;
-
-        org.springframework.data.redis.core.script.DefaultRedisScript<java.util.List<Object>> redisScript =
-                new org.springframework.data.redis.core.script.DefaultRedisScript<>();
-        redisScript.setScriptText(script);
-        // 泛型在运行期会被擦除，使用 List.class 作为结果类型
-        @SuppressWarnings("unchecked")
-        Class<java.util.List<Object>> listClass = (Class<java.util.List<Object>>) (Class<?>) java.util.List.class;
-        redisScript.setResultType(listClass);
-
-        java.util.List<Object> result = redisTemplate.execute(
-                redisScript,
+        // Lua 原子脚本（Token Bucket，见 lua/rate_limit_token_bucket.lua）
+        java.util.List<?> result = scriptRegistry.execute(
+                redisTemplate,
+                RedisScriptRegistry.RATE_LIMIT_TOKEN_BUCKET,
                 java.util.Collections.singletonList(tbKey),
                 String.valueOf(nowMs),
                 String.valueOf(capacity),
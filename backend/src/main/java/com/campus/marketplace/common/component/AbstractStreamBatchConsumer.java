@@ -0,0 +1,318 @@
+package com.campus.marketplace.common.component;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.stream.Consumer;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.PendingMessage;
+import org.springframework.data.redis.connection.stream.PendingMessages;
+import org.springframework.data.redis.connection.stream.ReadOffset;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.connection.stream.StreamReadOptions;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Redis Stream 消费组批量落库基类
+ *
+ * - 每轮按批读取消息，解析后在一个事务内调用 {@link #persist} 写库，事务提交后再 XACK + XDEL；
+ * - 整批落库失败时逐条重试，成功的照常确认，失败的留在 PEL；连续多条失败视为数据库不可用，剩余消息不再逐条重试；
+ * - 落库失败或进程崩溃时消息留在 PEL，空闲超过 {@link #claimIdleMs()} 后由任一节点通过 XCLAIM 接管重做，
+ *   因此 {@link #persist} 必须幂等（通常以 Stream 消息 ID 作为唯一键）；
+ * - 投递次数达到 {@link #maxDeliveries()} 的消息转入死信 Stream（{@link #deadLetterKey()}，保留原字段并附带原消息 ID），
+ *   不再阻塞后续落库；
+ * - 认领与读取分别捕获异常，一个阶段失败不影响另一个；Stream 被删除导致 NOGROUP 时下一轮重建消费组；
+ * - 子类声明 @Scheduled 方法并调用 {@link #drain()}。
+ *
+ * @param <T> 解析后的消息类型
+ * @author BaSui
+ * @date 2026-10-16
+ */
+@Slf4j
+public abstract class AbstractStreamBatchConsumer<T> {
+
+    /**
+     * 逐条重试时连续失败达到该条数即停止，剩余消息留待重新认领
+     */
+    static final int MAX_CONSECUTIVE_RECORD_FAILURES = 3;
+
+    /**
+     * 死信 Stream 中记录原消息 ID 的字段
+     */
+    public static final String DEAD_LETTER_ID_FIELD = "id";
+
+    protected final RedisTemplate<String, String> redisTemplate;
+    protected final TransactionTemplate transactionTemplate;
+    private final String consumerName = "persister-" + UUID.randomUUID();
+
+    private volatile boolean groupReady;
+
+    protected AbstractStreamBatchConsumer(RedisTemplate<String, String> redisTemplate,
+                                          PlatformTransactionManager transactionManager) {
+        this.redisTemplate = redisTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * 是否消费（关闭时 drain 直接返回）
+     */
+    protected abstract boolean isEnabled();
+
+    protected abstract String streamKey();
+
+    protected abstract String consumerGroup();
+
+    protected abstract int batchSize();
+
+    protected abstract long claimIdleMs();
+
+    /**
+     * 单条消息最多投递次数，达到后转入死信 Stream
+     */
+    protected abstract int maxDeliveries();
+
+    /**
+     * 日志中的消息名称，如"优惠券领取记录"
+     */
+    protected abstract String description();
+
+    /**
+     * 死信 Stream
+     */
+    protected String deadLetterKey() {
+        return deadLetterKey(streamKey());
+    }
+
+    public static String deadLetterKey(String streamKey) {
+        return streamKey + ":dlq";
+    }
+
+    /**
+     * 解析消息，无法解析时返回 null（消息会被确认丢弃）
+     */
+    abstract T parse(MapRecord<String, Object, Object> record);
+
+    /**
+     * 在事务内幂等写库
+     *
+     * @return 实际写入条数
+     */
+    abstract int persist(List<T> batch);
+
+    public void drain() {
+        if (!isEnabled()) {
+            return;
+        }
+        try {
+            ensureGroup();
+        } catch (RuntimeException e) {
+            log.error("{}消费组初始化失败: {}", description(), e.getMessage(), e);
+            return;
+        }
+        try {
+            reclaimStale();
+        } catch (RuntimeException e) {
+            onFailure("重新认领", e);
+        }
+        try {
+            int processed;
+            do {
+                processed = poll(ReadOffset.lastConsumed());
+            } while (processed >= batchSize());
+        } catch (RuntimeException e) {
+            onFailure("落库", e);
+        }
+    }
+
+    /**
+     * @return 读取条数；逐条重试被中断（数据库不可用）时返回 0，本轮不再继续读取
+     */
+    int poll(ReadOffset offset) {
+        List<MapRecord<String, Object, Object>> records = redisTemplate.opsForStream().read(
+                Consumer.from(consumerGroup(), consumerName),
+                StreamReadOptions.empty().count(batchSize()),
+                StreamOffset.create(streamKey(), offset));
+        if (records == null || records.isEmpty()) {
+            return 0;
+        }
+        return handle(records) ? records.size() : 0;
+    }
+
+    /**
+     * 落库并确认
+     *
+     * @return false 表示逐条重试因连续失败被中断
+     */
+    boolean handle(List<MapRecord<String, Object, Object>> records) {
+        List<MapRecord<String, Object, Object>> parsedRecords = new ArrayList<>(records.size());
+        List<T> batch = new ArrayList<>(records.size());
+        List<RecordId> done = new ArrayList<>(records.size());
+        for (MapRecord<String, Object, Object> record : records) {
+            T parsed = parseOrNull(record);
+            if (parsed != null) {
+                parsedRecords.add(record);
+                batch.add(parsed);
+            } else {
+                done.add(record.getId());
+            }
+        }
+        boolean healthy = true;
+        if (!batch.isEmpty()) {
+            try {
+                Integer persisted = transactionTemplate.execute(status -> persist(batch));
+                log.debug("{}落库: read={}, persisted={}", description(), records.size(), persisted);
+                parsedRecords.forEach(record -> done.add(record.getId()));
+            } catch (RuntimeException e) {
+                log.warn("{}整批落库失败，逐条重试: count={}, error={}", description(), batch.size(), e.getMessage());
+                healthy = persistOneByOne(parsedRecords, batch, done);
+            }
+        }
+        acknowledge(done.toArray(RecordId[]::new));
+        return healthy;
+    }
+
+    private boolean persistOneByOne(List<MapRecord<String, Object, Object>> records, List<T> batch,
+                                    List<RecordId> done) {
+        int consecutiveFailures = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            T item = batch.get(i);
+            RecordId id = records.get(i).getId();
+            try {
+                transactionTemplate.execute(status -> persist(List.of(item)));
+                done.add(id);
+                consecutiveFailures = 0;
+            } catch (RuntimeException e) {
+                log.error("{}单条落库失败，留待重新认领: id={}, error={}", description(), id, e.getMessage());
+                if (++consecutiveFailures >= MAX_CONSECUTIVE_RECORD_FAILURES) {
+                    log.error("{}连续{}条落库失败，停止本轮逐条重试", description(), consecutiveFailures);
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private void acknowledge(RecordId[] ids) {
+        if (ids.length == 0) {
+            return;
+        }
+        redisTemplate.opsForStream().acknowledge(streamKey(), consumerGroup(), ids);
+        redisTemplate.opsForStream().delete(streamKey(), ids);
+    }
+
+    private T parseOrNull(MapRecord<String, Object, Object> record) {
+        try {
+            return parse(record);
+        } catch (RuntimeException e) {
+            log.error("丢弃无法解析的{}: id={}, value={}", description(), record.getId(), record.getValue());
+            return null;
+        }
+    }
+
+    private void reclaimStale() {
+        PendingMessages pending = redisTemplate.opsForStream().pending(streamKey(), consumerGroup(),
+                Range.unbounded(), batchSize());
+        if (pending == null || pending.isEmpty()) {
+            return;
+        }
+        Duration minIdle = Duration.ofMillis(claimIdleMs());
+        List<RecordId> stale = new ArrayList<>();
+        List<RecordId> poison = new ArrayList<>();
+        for (PendingMessage message : pending) {
+            if (message.getElapsedTimeSinceLastDelivery().compareTo(minIdle) < 0) {
+                continue;
+            }
+            (message.getTotalDeliveryCount() >= maxDeliveries() ? poison : stale).add(message.getId());
+        }
+        if (!poison.isEmpty()) {
+            deadLetter(claim(minIdle, poison));
+        }
+        if (!stale.isEmpty()) {
+            List<MapRecord<String, Object, Object>> claimed = claim(minIdle, stale);
+            if (!claimed.isEmpty()) {
+                log.warn("重新处理超时未确认的{}: count={}", description(), claimed.size());
+                handle(claimed);
+            }
+        }
+    }
+
+    private List<MapRecord<String, Object, Object>> claim(Duration minIdle, List<RecordId> ids) {
+        List<MapRecord<String, Object, Object>> claimed = redisTemplate.opsForStream().claim(
+                streamKey(), consumerGroup(), consumerName, minIdle, ids.toArray(RecordId[]::new));
+        if (claimed == null) {
+            return List.of();
+        }
+        // 已被删除的消息 XCLAIM 返回空值
+        return claimed.stream().filter(record -> record.getValue() != null).toList();
+    }
+
+    /**
+     * 转入死信 Stream 后确认并删除原消息
+     */
+    private void deadLetter(List<MapRecord<String, Object, Object>> records) {
+        if (records.isEmpty()) {
+            return;
+        }
+        for (MapRecord<String, Object, Object> record : records) {
+            Map<String, String> fields = new LinkedHashMap<>();
+            record.getValue().forEach((field, value) -> fields.put(String.valueOf(field), String.valueOf(value)));
+            fields.put(DEAD_LETTER_ID_FIELD, record.getId().getValue());
+            redisTemplate.opsForStream().add(StreamRecords.newRecord().in(deadLetterKey()).ofMap(fields));
+        }
+        log.error("{}超过最大投递次数，转入死信: stream={}, ids={}", description(), deadLetterKey(),
+                records.stream().map(record -> record.getId().getValue()).toList());
+        acknowledge(records.stream().map(MapRecord::getId).toArray(RecordId[]::new));
+    }
+
+    private void onFailure(String phase, RuntimeException e) {
+        if (causeContains(e, "NOGROUP")) {
+            // Stream 键被删除或淘汰，下一轮重建消费组
+            groupReady = false;
+        }
+        log.error("{}{}失败: {}", description(), phase, e.getMessage(), e);
+    }
+
+    private void ensureGroup() {
+        if (groupReady) {
+            return;
+        }
+        createGroup(redisTemplate, streamKey(), consumerGroup());
+        groupReady = true;
+    }
+
+    /**
+     * 创建消费组（Stream 不存在时一并创建），已存在时忽略
+     */
+    static void createGroup(RedisTemplate<String, String> redisTemplate, String streamKey, String group) {
+        byte[] key = streamKey.getBytes(StandardCharsets.UTF_8);
+        try {
+            redisTemplate.execute((RedisCallback<String>) connection -> connection.streamCommands()
+                    .xGroupCreate(key, group, ReadOffset.from("0"), true));
+        } catch (RuntimeException e) {
+            if (!causeContains(e, "BUSYGROUP")) {
+                throw e;
+            }
+        }
+    }
+
+    private static boolean causeContains(Throwable e, String code) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t.getMessage() != null && t.getMessage().contains(code)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
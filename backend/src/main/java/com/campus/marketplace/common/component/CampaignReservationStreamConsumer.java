@@ -0,0 +1,153 @@
+package com.campus.marketplace.common.component;
+
+import com.campus.marketplace.common.config.properties.CampaignStockProperties;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.sql.Array;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 秒杀预留记录落库（Redis Stream 消费组）
+ *
+ * - 每轮读取一批预留记录，一条 INSERT ... SELECT unnest(...) 写入预留明细，Stream 消息 ID 作为 reservation_id，
+ *   ON CONFLICT DO NOTHING 保证重复投递幂等；
+ * - 实际插入的行按活动聚合后一次性扣减 stock_remaining 并累加 participation_count；
+ * - 消费组读取、提交后确认与超时认领见 {@link AbstractStreamBatchConsumer}。
+ *
+ * @author BaSui
+ * @date 2026-10-16
+ */
+@Component
+public class CampaignReservationStreamConsumer
+        extends AbstractStreamBatchConsumer<CampaignReservationStreamConsumer.Reservation> {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO t_campaign_stock_reservation (reservation_id, campaign_id, quantity, reserved_at, created_at) " +
+            "SELECT r.reservation_id, r.campaign_id, r.quantity, r.reserved_at, ? " +
+            "FROM unnest(?::varchar[], ?::bigint[], ?::int[], ?::timestamp[]) " +
+            "AS r(reservation_id, campaign_id, quantity, reserved_at) " +
+            "ON CONFLICT (reservation_id) DO NOTHING " +
+            "RETURNING campaign_id, quantity";
+
+    private static final String APPLY_SQL =
+            "UPDATE t_marketing_campaign SET stock_remaining = GREATEST(COALESCE(stock_remaining, 0) - ?, 0), " +
+            "participation_count = COALESCE(participation_count, 0) + ?, updated_at = ? WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CampaignStockEngine stockEngine;
+    private final CampaignStockProperties properties;
+
+    /**
+     * 解析后的预留记录
+     */
+    record Reservation(String reservationId, long campaignId, int quantity, LocalDateTime reservedAt) {
+    }
+
+    public CampaignReservationStreamConsumer(@Qualifier("customStringRedisTemplate") RedisTemplate<String, String> redisTemplate,
+                                             JdbcTemplate jdbcTemplate,
+                                             PlatformTransactionManager transactionManager,
+                                             CampaignStockEngine stockEngine,
+                                             CampaignStockProperties properties) {
+        super(redisTemplate, transactionManager);
+        this.jdbcTemplate = jdbcTemplate;
+        this.stockEngine = stockEngine;
+        this.properties = properties;
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${campaign.stock.poll-interval-ms:500}")
+    public void drain() {
+        super.drain();
+    }
+
+    @Override
+    protected boolean isEnabled() {
+        return stockEngine.isEnabled();
+    }
+
+    @Override
+    protected String streamKey() {
+        return properties.getStreamKey();
+    }
+
+    @Override
+    protected String consumerGroup() {
+        return properties.getConsumerGroup();
+    }
+
+    @Override
+    protected int batchSize() {
+        return properties.getBatchSize();
+    }
+
+    @Override
+    protected long claimIdleMs() {
+        return properties.getClaimIdleMs();
+    }
+
+    @Override
+    protected int maxDeliveries() {
+        return properties.getMaxDeliveries();
+    }
+
+    @Override
+    protected String description() {
+        return "秒杀预留记录";
+    }
+
+    @Override
+    Reservation parse(MapRecord<String, Object, Object> record) {
+        Map<Object, Object> value = record.getValue();
+        return new Reservation(record.getId().getValue(),
+                Long.parseLong(value.get("c").toString()),
+                Integer.parseInt(value.get("q").toString()),
+                CouponClaimEngine.toDateTime(Long.parseLong(value.get("t").toString())));
+    }
+
+    @Override
+    int persist(List<Reservation> reservations) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<long[]> inserted = jdbcTemplate.query(con -> {
+            var ps = con.prepareStatement(INSERT_SQL);
+            Array reservationIds = con.createArrayOf("varchar",
+                    reservations.stream().map(Reservation::reservationId).toArray());
+            Array campaignIds = con.createArrayOf("bigint",
+                    reservations.stream().map(Reservation::campaignId).toArray());
+            Array quantities = con.createArrayOf("integer",
+                    reservations.stream().map(Reservation::quantity).toArray());
+            Array reservedAts = con.createArrayOf("timestamp",
+                    reservations.stream().map(r -> Timestamp.valueOf(r.reservedAt())).toArray());
+            ps.setTimestamp(1, now);
+            ps.setArray(2, reservationIds);
+            ps.setArray(3, campaignIds);
+            ps.setArray(4, quantities);
+            ps.setArray(5, reservedAts);
+            return ps;
+        }, (rs, rowNum) -> new long[]{rs.getLong(1), rs.getInt(2)});
+
+        // campaignId -> {扣减数量, 预留次数}
+        Map<Long, long[]> totals = new HashMap<>();
+        for (long[] row : inserted) {
+            long[] total = totals.computeIfAbsent(row[0], id -> new long[2]);
+            total[0] += row[1];
+            total[1]++;
+        }
+        if (!totals.isEmpty()) {
+            List<Object[]> args = new ArrayList<>(totals.size());
+            totals.forEach((campaignId, total) -> args.add(new Object[]{total[0], total[1], now, campaignId}));
+            jdbcTemplate.batchUpdate(APPLY_SQL, args);
+        }
+        return inserted.size();
+    }
+}
@@ -0,0 +1,272 @@
+package com.campus.marketplace.common.component;
+
+import com.campus.marketplace.common.config.properties.CampaignStockProperties;
+import com.campus.marketplace.common.entity.MarketingCampaign;
+import com.campus.marketplace.common.utils.RedisScriptRegistry;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.Limit;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * 秒杀库存预留引擎（本地过滤 + Redis 原子脚本 + Stream 异步落库）
+ *
+ * - 本地缓存活动状态（campaign.stock.meta-cache-seconds），本节点状态变更时立即失效，热路径不再查库；
+ * - 库存与进行中标记放在同一个 Hash 中，由 lua/campaign_stock_reserve.lua 一次完成状态/时间窗/库存校验、
+ *   扣减与 XADD 预留记录，其他节点暂停活动后脚本同样会拒绝；
+ * - 库存归零后本地打售罄标记（campaign.stock.sold-out-ttl-seconds），之后的请求直接返回，不再访问 Redis；
+ * - 预留记录由 {@link CampaignReservationStreamConsumer} 批量落库并扣减数据库库存；
+ * - Redis 键丢失后重新加载时，以数据库剩余库存减去 Stream（含 PEL）与死信中尚未落库的预留数量，防止超卖；
+ * - app.redis.mode=memory 时引擎关闭，扣减回退为原有实现。
+ *
+ * @author BaSui
+ * @date 2026-10-16
+ */
+@Slf4j
+@Component
+public class CampaignStockEngine {
+
+    private static final long TTL_MARGIN_SECONDS = 86400;
+
+    private static final int SCAN_PAGE_SIZE = 1000;
+
+    /**
+     * 数据库剩余库存减去给定预留中尚未落库的数量（同一条语句内读取，快照一致）
+     */
+    private static final String AVAILABLE_STOCK_SQL =
+            "SELECT c.stock_remaining - COALESCE((SELECT SUM(r.quantity) " +
+            "FROM unnest(?::varchar[], ?::int[]) AS r(reservation_id, quantity) " +
+            "WHERE NOT EXISTS (SELECT 1 FROM t_campaign_stock_reservation s " +
+            "WHERE s.reservation_id = r.reservation_id)), 0) " +
+            "FROM t_marketing_campaign c WHERE c.id = ?";
+
+    /**
+     * 预留结果
+     */
+    public enum Status {
+        RESERVED, SOLD_OUT, NOT_RUNNING, NOT_LOADED
+    }
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final JdbcTemplate jdbcTemplate;
+    private final RedisScriptRegistry scriptRegistry;
+    private final CampaignStockProperties properties;
+    private final boolean enabled;
+    private final Cache<Long, String> statusCache;
+    private final Cache<Long, Boolean> soldOut;
+    private final Map<Status, Counter> counters = new EnumMap<>(Status.class);
+    private final Counter soldOutShortCircuits;
+
+    public CampaignStockEngine(@Qualifier("customStringRedisTemplate") RedisTemplate<String, String> redisTemplate,
+                               JdbcTemplate jdbcTemplate,
+                               RedisScriptRegistry scriptRegistry,
+                               CampaignStockProperties properties,
+                               MeterRegistry meterRegistry,
+                               @Value("${app.redis.mode:redis}") String redisMode) {
+        this.redisTemplate = redisTemplate;
+        this.jdbcTemplate = jdbcTemplate;
+        this.scriptRegistry = scriptRegistry;
+        this.properties = properties;
+        this.enabled = properties.isEnabled() && "redis".equalsIgnoreCase(redisMode);
+        this.statusCache = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(properties.getMetaCacheSeconds()))
+                .maximumSize(10_000)
+                .build();
+        this.soldOut = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(properties.getSoldOutTtlSeconds()))
+                .maximumSize(10_000)
+                .build();
+        for (Status status : Status.values()) {
+            counters.put(status, Counter.builder("campaign.stock.reserve")
+                    .tag("result", status.name().toLowerCase())
+                    .register(meterRegistry));
+        }
+        this.soldOutShortCircuits = Counter.builder("campaign.stock.reserve")
+                .tag("result", "sold_out_local")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 活动状态（本地缓存，未命中时由 loader 查库）
+     */
+    public String cachedStatus(Long campaignId, Function<Long, String> loader) {
+        return statusCache.get(campaignId, loader);
+    }
+
+    /**
+     * 失效本地状态缓存
+     */
+    public void invalidate(Long campaignId) {
+        statusCache.invalidate(campaignId);
+    }
+
+    /**
+     * 原子预留（命中本地售罄标记时直接返回 SOLD_OUT，不访问 Redis）
+     *
+     * @return NOT_LOADED 表示活动尚未加载，调用方需 {@link #load} 后重试
+     */
+    public Status reserve(Long campaignId, int quantity) {
+        if (soldOut.getIfPresent(campaignId) != null) {
+            soldOutShortCircuits.increment();
+            return Status.SOLD_OUT;
+        }
+        List<?> reply = scriptRegistry.execute(redisTemplate, RedisScriptRegistry.CAMPAIGN_STOCK_RESERVE,
+                List.of(metaKey(campaignId), properties.getStreamKey()),
+                String.valueOf(System.currentTimeMillis()), String.valueOf(campaignId), String.valueOf(quantity));
+        Status status = toStatus(reply == null || reply.isEmpty() ? -1L : ((Number) reply.get(0)).longValue());
+        if ((status == Status.RESERVED || status == Status.SOLD_OUT) && ((Number) reply.get(1)).longValue() <= 0) {
+            soldOut.put(campaignId, Boolean.TRUE);
+            log.info("秒杀活动库存售罄，本地标记: campaignId={}", campaignId);
+        }
+        counters.get(status).increment();
+        return status;
+    }
+
+    /**
+     * 按数据库状态加载活动（已加载时不覆盖）
+     *
+     * 库存取数据库剩余库存减去尚未落库的预留：键不存在期间脚本拒绝预留，扫描后不会再产生该活动的新记录；
+     * 先扫主 Stream 再扫死信，转入死信的记录先 XADD 后 XDEL，不会两边都漏掉
+     *
+     * @return 本次是否执行了加载
+     */
+    public boolean load(MarketingCampaign campaign) {
+        long stock = availableStock(campaign);
+        long endMillis = toMillis(campaign.getEndTime());
+        long ttlSeconds = Math.max(0, (endMillis - System.currentTimeMillis()) / 1000) + TTL_MARGIN_SECONDS;
+        Long loaded = scriptRegistry.execute(redisTemplate, RedisScriptRegistry.CAMPAIGN_STOCK_LOAD,
+                List.of(metaKey(campaign.getId())),
+                String.valueOf(stock),
+                "RUNNING".equals(campaign.getStatus()) ? "1" : "0",
+                String.valueOf(toMillis(campaign.getStartTime())),
+                String.valueOf(endMillis),
+                String.valueOf(ttlSeconds));
+        boolean done = loaded != null && loaded == 1L;
+        if (done) {
+            log.info("秒杀活动库存加载: campaignId={}, dbStock={}, stock={}", campaign.getId(),
+                    campaign.getStockRemaining(), stock);
+        }
+        return done;
+    }
+
+    private long availableStock(MarketingCampaign campaign) {
+        Map<String, Integer> pending = new LinkedHashMap<>();
+        collectReservations(properties.getStreamKey(), campaign.getId(), false, pending);
+        collectReservations(AbstractStreamBatchConsumer.deadLetterKey(properties.getStreamKey()),
+                campaign.getId(), true, pending);
+        if (pending.isEmpty()) {
+            return campaign.getStockRemaining();
+        }
+        List<Long> rows = jdbcTemplate.query(con -> {
+            var ps = con.prepareStatement(AVAILABLE_STOCK_SQL);
+            ps.setArray(1, con.createArrayOf("varchar", pending.keySet().toArray()));
+            ps.setArray(2, con.createArrayOf("integer", pending.values().toArray()));
+            ps.setLong(3, campaign.getId());
+            return ps;
+        }, (rs, rowNum) -> rs.getLong(1));
+        long stock = rows.isEmpty() ? campaign.getStockRemaining() - sum(pending) : rows.get(0);
+        log.info("秒杀活动加载时扣除在途预留: campaignId={}, pendingRecords={}, stock={}",
+                campaign.getId(), pending.size(), stock);
+        return Math.max(stock, 0);
+    }
+
+    /**
+     * 分页扫描 Stream，收集该活动的预留（预留 ID -> 数量），死信中的原消息 ID 取自 id 字段
+     */
+    private void collectReservations(String streamKey, Long campaignId, boolean deadLetter,
+                                     Map<String, Integer> pending) {
+        String campaign = String.valueOf(campaignId);
+        Range<String> range = Range.unbounded();
+        while (true) {
+            List<MapRecord<String, Object, Object>> page = redisTemplate.opsForStream()
+                    .range(streamKey, range, Limit.limit().count(SCAN_PAGE_SIZE));
+            if (page == null || page.isEmpty()) {
+                return;
+            }
+            for (MapRecord<String, Object, Object> record : page) {
+                Map<Object, Object> value = record.getValue();
+                if (!campaign.equals(String.valueOf(value.get("c")))) {
+                    continue;
+                }
+                String id = deadLetter
+                        ? String.valueOf(value.get(AbstractStreamBatchConsumer.DEAD_LETTER_ID_FIELD))
+                        : record.getId().getValue();
+                pending.put(id, Integer.parseInt(String.valueOf(value.get("q"))));
+            }
+            if (page.size() < SCAN_PAGE_SIZE) {
+                return;
+            }
+            // 含起点（兼容 6.2 之前不支持排他区间的 XRANGE），重复的一条按预留 ID 去重
+            range = Range.rightUnbounded(Range.Bound.inclusive(page.get(page.size() - 1).getId().getValue()));
+        }
+    }
+
+    private static long sum(Map<String, Integer> pending) {
+        return pending.values().stream().mapToLong(Integer::longValue).sum();
+    }
+
+    /**
+     * 活动状态变更：失效本地缓存并同步 Redis 进行中标记（未加载时忽略），恢复进行中时清除售罄标记
+     */
+    public void statusChanged(Long campaignId, boolean running) {
+        statusCache.invalidate(campaignId);
+        if (running) {
+            soldOut.invalidate(campaignId);
+        }
+        if (!enabled) {
+            return;
+        }
+        scriptRegistry.execute(redisTemplate, RedisScriptRegistry.HASH_UPDATE_IF_EXISTS, List.of(metaKey(campaignId)),
+                "running", running ? "1" : "0");
+    }
+
+    /**
+     * 活动结束后清理 Redis 与本地状态（未落库的预留记录仍由消费者处理）
+     */
+    public void evict(Long campaignId) {
+        statusCache.invalidate(campaignId);
+        soldOut.invalidate(campaignId);
+        if (enabled) {
+            redisTemplate.delete(metaKey(campaignId));
+        }
+    }
+
+    String metaKey(Long campaignId) {
+        return properties.getKeyPrefix() + campaignId;
+    }
+
+    private static Status toStatus(long code) {
+        return switch ((int) code) {
+            case 1 -> Status.RESERVED;
+            case 0 -> Status.SOLD_OUT;
+            case -3 -> Status.NOT_RUNNING;
+            default -> Status.NOT_LOADED;
+        };
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
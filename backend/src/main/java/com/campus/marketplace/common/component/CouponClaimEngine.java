@@ -0,0 +1,213 @@
+package com.campus.marketplace.common.component;
+
+import com.campus.marketplace.common.config.properties.CouponClaimProperties;
+import com.campus.marketplace.common.entity.Coupon;
+import com.campus.marketplace.common.utils.RedisScriptRegistry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 优惠券领取引擎（Redis 原子脚本 + Stream 异步落库）
+ *
+ * - 每张券一个 Hash 保存剩余库存、有效期、启用状态与每人限领数，另一个 Hash 保存用户已领数量；
+ * - 领取由一段 Lua 脚本（lua/coupon_claim.lua）原子完成：校验有效期/启用状态/库存/限领 → 扣库存 → 累加用户计数 → XADD 领取记录，
+ *   扣减与领取记录同生共死，不存在"扣了库存却丢了记录"的中间态，也不会超发；
+ * - 首次领取时从数据库按已落库的领取记录初始化（库存 = 发行量 - 已领记录数），后续领取不再访问数据库；
+ * - 领取记录由 {@link CouponClaimStreamConsumer} 批量落库，{@link CouponClaimReconciler} 定期对账；
+ * - 领取记录的持久性依赖 Redis 开启 AOF；app.redis.mode=memory 时引擎关闭，回退为数据库领取。
+ *
+ * @author BaSui
+ * @date 2026-10-16
+ */
+@Slf4j
+@Component
+public class CouponClaimEngine {
+
+    private static final long TTL_MARGIN_SECONDS = 86400;
+
+    /**
+     * 不限领标记（limitPerUser 为 null）；0 与数据库直领一致，表示不可领取
+     */
+    static final int NO_LIMIT = -1;
+
+    /**
+     * 领取结果
+     */
+    public enum Status {
+        CLAIMED, NOT_LOADED, SOLD_OUT, LIMIT_REACHED, NOT_STARTED, EXPIRED, INACTIVE
+    }
+
+    /**
+     * @param status   领取结果
+     * @param expireAt 券结束时间（领取记录的过期时间）
+     */
+    public record ClaimResult(Status status, LocalDateTime expireAt) {
+    }
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final RedisScriptRegistry scriptRegistry;
+    private final CouponClaimProperties properties;
+    private final boolean enabled;
+    private final Map<Status, Counter> counters = new EnumMap<>(Status.class);
+
+    public CouponClaimEngine(@Qualifier("customStringRedisTemplate") RedisTemplate<String, String> redisTemplate,
+                             RedisScriptRegistry scriptRegistry,
+                             CouponClaimProperties properties,
+                             MeterRegistry meterRegistry,
+                             @Value("${app.redis.mode:redis}") String redisMode) {
+        this.redisTemplate = redisTemplate;
+        this.scriptRegistry = scriptRegistry;
+        this.properties = properties;
+        this.enabled = properties.isEnabled() && "redis".equalsIgnoreCase(redisMode);
+        for (Status status : Status.values()) {
+            counters.put(status, Counter.builder("coupon.claim")
+                    .tag("result", status.name().toLowerCase())
+                    .register(meterRegistry));
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 原子领取
+     *
+     * @return NOT_LOADED 表示券尚未加载，调用方需 {@link #load} 后重试
+     */
+    public ClaimResult claim(Long userId, Long couponId) {
+        long now = System.currentTimeMillis();
+        List<?> reply = scriptRegistry.execute(redisTemplate, RedisScriptRegistry.COUPON_CLAIM,
+                List.of(metaKey(couponId), usersKey(couponId), properties.getStreamKey()),
+                String.valueOf(now), String.valueOf(userId), String.valueOf(couponId));
+        Status status = toStatus(reply == null || reply.isEmpty() ? -1L : ((Number) reply.get(0)).longValue());
+        LocalDateTime expireAt = status == Status.NOT_LOADED ? null
+                : toDateTime(((Number) reply.get(1)).longValue());
+        counters.get(status).increment();
+        return new ClaimResult(status, expireAt);
+    }
+
+    /**
+     * 按数据库状态加载券（已加载时不覆盖）
+     *
+     * @param coupon        券
+     * @param claimedByUser 已落库的各用户领取数量
+     * @return 本次是否执行了加载
+     */
+    public boolean load(Coupon coupon, Map<Long, Long> claimedByUser) {
+        long claimed = claimedByUser.values().stream().mapToLong(Long::longValue).sum();
+        long stock = Math.max(0, coupon.getTotalCount() - claimed);
+        long endMillis = toMillis(coupon.getEndTime());
+        long ttlSeconds = Math.max(0, (endMillis - System.currentTimeMillis()) / 1000) + TTL_MARGIN_SECONDS;
+
+        List<String> args = new ArrayList<>(7 + claimedByUser.size() * 2);
+        args.add(String.valueOf(stock));
+        args.add(String.valueOf(toMillis(coupon.getStartTime())));
+        args.add(String.valueOf(endMillis));
+        args.add(Boolean.TRUE.equals(coupon.getIsActive()) ? "1" : "0");
+        args.add(String.valueOf(coupon.getLimitPerUser() == null ? NO_LIMIT : coupon.getLimitPerUser()));
+        args.add(String.valueOf(ttlSeconds));
+        args.add(String.valueOf(coupon.getId()));
+        claimedByUser.forEach((userId, count) -> {
+            args.add(String.valueOf(userId));
+            args.add(String.valueOf(count));
+        });
+
+        Long loaded = scriptRegistry.execute(redisTemplate, RedisScriptRegistry.COUPON_LOAD,
+                List.of(metaKey(coupon.getId()), usersKey(coupon.getId()), loadedKey()), args.toArray());
+        boolean done = loaded != null && loaded == 1L;
+        if (done) {
+            log.info("优惠券领取引擎加载: couponId={}, stock={}, claimed={}", coupon.getId(), stock, claimed);
+        }
+        return done;
+    }
+
+    /**
+     * 同步启用状态（未加载时忽略，下次加载会读取数据库最新值）
+     */
+    public void updateActive(Long couponId, boolean active) {
+        scriptRegistry.execute(redisTemplate, RedisScriptRegistry.HASH_UPDATE_IF_EXISTS, List.of(metaKey(couponId)),
+                "active", active ? "1" : "0");
+    }
+
+    /**
+     * 修正剩余库存（仅对账使用）
+     */
+    public void updateStock(Long couponId, long stock) {
+        scriptRegistry.execute(redisTemplate, RedisScriptRegistry.HASH_UPDATE_IF_EXISTS, List.of(metaKey(couponId)),
+                "stock", String.valueOf(stock));
+    }
+
+    /**
+     * 剩余库存，未加载时返回 null
+     */
+    public Long remainingStock(Long couponId) {
+        Object stock = redisTemplate.opsForHash().get(metaKey(couponId), "stock");
+        return stock == null ? null : Long.parseLong(stock.toString());
+    }
+
+    /**
+     * 已加载的券ID
+     */
+    public Set<Long> loadedCouponIds() {
+        Set<String> members = redisTemplate.opsForSet().members(loadedKey());
+        if (members == null) {
+            return Set.of();
+        }
+        return members.stream().map(Long::valueOf).collect(Collectors.toSet());
+    }
+
+    /**
+     * 券 Hash 已过期时从已加载集合移除
+     */
+    public void forget(Long couponId) {
+        redisTemplate.opsForSet().remove(loadedKey(), String.valueOf(couponId));
+    }
+
+    String metaKey(Long couponId) {
+        return properties.getKeyPrefix() + couponId;
+    }
+
+    String usersKey(Long couponId) {
+        return properties.getKeyPrefix() + couponId + ":users";
+    }
+
+    String loadedKey() {
+        return properties.getKeyPrefix() + "loaded";
+    }
+
+    private static Status toStatus(long code) {
+        return switch ((int) code) {
+            case 1 -> Status.CLAIMED;
+            case 0 -> Status.SOLD_OUT;
+            case -2 -> Status.LIMIT_REACHED;
+            case -3 -> Status.NOT_STARTED;
+            case -4 -> Status.EXPIRED;
+            case -5 -> Status.INACTIVE;
+            default -> Status.NOT_LOADED;
+        };
+    }
+
+    static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    static LocalDateTime toDateTime(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+    }
+}
@@ -0,0 +1,98 @@
+package com.campus.marketplace.common.component;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Array;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 优惠券领取计数对账
+ *
+ * - 以已落库的领取记录为准，一条 UPDATE 修正引擎中各券的 received_count；
+ * - Redis 已领数（发行量 - 剩余库存）少于已落库记录数说明 Redis 丢过写入（如主从切换），
+ *   此时把剩余库存下调到 发行量 - 已落库数，防止继续超发；多出的部分是尚未落库的在途记录，属正常现象。
+ *
+ * @author BaSui
+ * @date 2026-10-16
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CouponClaimReconciler {
+
+    private static final String SYNC_RECEIVED_SQL =
+            "UPDATE t_coupon c SET received_count = r.cnt, updated_at = ? " +
+            "FROM (SELECT coupon_id, count(*) AS cnt FROM t_coupon_user_relation " +
+            "WHERE coupon_id = ANY(?) GROUP BY coupon_id) r " +
+            "WHERE c.id = r.coupon_id AND c.received_count <> r.cnt " +
+            "RETURNING c.id";
+
+    private static final String SELECT_COUNTS_SQL =
+            "SELECT c.id, c.total_count, c.received_count FROM t_coupon c WHERE c.id = ANY(?)";
+
+    private final CouponClaimEngine claimEngine;
+    private final JdbcTemplate jdbcTemplate;
+
+    record CouponCounts(long couponId, long totalCount, long receivedCount) {
+    }
+
+    @Scheduled(fixedDelayString = "${coupon.claim.reconcile-interval-ms:60000}")
+    public void reconcile() {
+        if (!claimEngine.isEnabled()) {
+            return;
+        }
+        try {
+            Set<Long> couponIds = claimEngine.loadedCouponIds();
+            if (couponIds.isEmpty()) {
+                return;
+            }
+            Long[] ids = couponIds.toArray(Long[]::new);
+            List<Long> synced = jdbcTemplate.query(con -> {
+                var ps = con.prepareStatement(SYNC_RECEIVED_SQL);
+                Array array = con.createArrayOf("bigint", ids);
+                ps.setTimestamp(1, Timestamp.valueOf(LocalDateTime.now()));
+                ps.setArray(2, array);
+                return ps;
+            }, (rs, rowNum) -> rs.getLong(1));
+            if (!synced.isEmpty()) {
+                log.info("优惠券领取计数已按领取记录修正: couponIds={}", synced);
+            }
+
+            List<CouponCounts> counts = jdbcTemplate.query(con -> {
+                var ps = con.prepareStatement(SELECT_COUNTS_SQL);
+                ps.setArray(1, con.createArrayOf("bigint", ids));
+                return ps;
+            }, (rs, rowNum) -> new CouponCounts(rs.getLong(1), rs.getLong(2), rs.getLong(3)));
+            for (CouponCounts coupon : counts) {
+                checkStock(coupon);
+            }
+        } catch (Exception e) {
+            log.error("优惠券领取计数对账失败: {}", e.getMessage(), e);
+        }
+    }
+
+    void checkStock(CouponCounts coupon) {
+        Long remaining = claimEngine.remainingStock(coupon.couponId());
+        if (remaining == null) {
+            claimEngine.forget(coupon.couponId());
+            return;
+        }
+        long claimedInRedis = coupon.totalCount() - remaining;
+        long inFlight = claimedInRedis - coupon.receivedCount();
+        if (inFlight < 0) {
+            long corrected = Math.max(0, coupon.totalCount() - coupon.receivedCount());
+            claimEngine.updateStock(coupon.couponId(), corrected);
+            log.warn("优惠券 Redis 库存高于数据库剩余量，已下调: couponId={}, redisStock={}, corrected={}",
+                    coupon.couponId(), remaining, corrected);
+        } else if (inFlight > 0) {
+            log.debug("优惠券存在未落库的领取记录: couponId={}, inFlight={}", coupon.couponId(), inFlight);
+        }
+    }
+}
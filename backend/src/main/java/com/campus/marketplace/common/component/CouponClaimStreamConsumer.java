@@ -0,0 +1,151 @@
+package com.campus.marketplace.common.component;
+
+import com.campus.marketplace.common.config.properties.CouponClaimProperties;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.sql.Array;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 优惠券领取记录落库（Redis Stream 消费组）
+ *
+ * - 每轮读取一批领取记录，一条 INSERT ... SELECT unnest(...) 批量写入领取关系，Stream 消息 ID 作为 claim_id，
+ *   ON CONFLICT DO NOTHING 保证重复投递幂等；实际插入的行按券聚合后累加 received_count；
+ * - 消费组读取、提交后确认与超时认领见 {@link AbstractStreamBatchConsumer}，
+ *   未确认消息空闲超过 coupon.claim.claim-idle-ms 后被重新认领。
+ *
+ * @author BaSui
+ * @date 2026-10-16
+ */
+@Component
+public class CouponClaimStreamConsumer extends AbstractStreamBatchConsumer<CouponClaimStreamConsumer.Claim> {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO t_coupon_user_relation (claim_id, coupon_id, user_id, status, receive_time, expire_time, " +
+            "created_at, updated_at, deleted) " +
+            "SELECT c.claim_id, c.coupon_id, c.user_id, 'AVAILABLE', c.receive_time, c.expire_time, ?, ?, false " +
+            "FROM unnest(?::varchar[], ?::bigint[], ?::bigint[], ?::timestamp[], ?::timestamp[]) " +
+            "AS c(claim_id, coupon_id, user_id, receive_time, expire_time) " +
+            "ON CONFLICT (claim_id) DO NOTHING " +
+            "RETURNING coupon_id";
+
+    private static final String INCREMENT_RECEIVED_SQL =
+            "UPDATE t_coupon SET received_count = received_count + ?, updated_at = ? WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CouponClaimEngine claimEngine;
+    private final CouponClaimProperties properties;
+
+    /**
+     * 解析后的领取记录
+     */
+    record Claim(String claimId, long couponId, long userId, LocalDateTime receiveTime, LocalDateTime expireTime) {
+    }
+
+    public CouponClaimStreamConsumer(@Qualifier("customStringRedisTemplate") RedisTemplate<String, String> redisTemplate,
+                                     JdbcTemplate jdbcTemplate,
+                                     PlatformTransactionManager transactionManager,
+                                     CouponClaimEngine claimEngine,
+                                     CouponClaimProperties properties) {
+        super(redisTemplate, transactionManager);
+        this.jdbcTemplate = jdbcTemplate;
+        this.claimEngine = claimEngine;
+        this.properties = properties;
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${coupon.claim.poll-interval-ms:500}")
+    public void drain() {
+        super.drain();
+    }
+
+    @Override
+    protected boolean isEnabled() {
+        return claimEngine.isEnabled();
+    }
+
+    @Override
+    protected String streamKey() {
+        return properties.getStreamKey();
+    }
+
+    @Override
+    protected String consumerGroup() {
+        return properties.getConsumerGroup();
+    }
+
+    @Override
+    protected int batchSize() {
+        return properties.getBatchSize();
+    }
+
+    @Override
+    protected long claimIdleMs() {
+        return properties.getClaimIdleMs();
+    }
+
+    @Override
+    protected int maxDeliveries() {
+        return properties.getMaxDeliveries();
+    }
+
+    @Override
+    protected String description() {
+        return "优惠券领取记录";
+    }
+
+    @Override
+    Claim parse(MapRecord<String, Object, Object> record) {
+        Map<Object, Object> value = record.getValue();
+        return new Claim(record.getId().getValue(),
+                Long.parseLong(value.get("c").toString()),
+                Long.parseLong(value.get("u").toString()),
+                CouponClaimEngine.toDateTime(Long.parseLong(value.get("t").toString())),
+                CouponClaimEngine.toDateTime(Long.parseLong(value.get("e").toString())));
+    }
+
+    @Override
+    int persist(List<Claim> claims) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Long> insertedCouponIds = jdbcTemplate.query(con -> {
+            var ps = con.prepareStatement(INSERT_SQL);
+            Array claimIds = con.createArrayOf("varchar", claims.stream().map(Claim::claimId).toArray());
+            Array couponIds = con.createArrayOf("bigint", claims.stream().map(Claim::couponId).toArray());
+            Array userIds = con.createArrayOf("bigint", claims.stream().map(Claim::userId).toArray());
+            Array receiveTimes = con.createArrayOf("timestamp",
+                    claims.stream().map(c -> Timestamp.valueOf(c.receiveTime())).toArray());
+            Array expireTimes = con.createArrayOf("timestamp",
+                    claims.stream().map(c -> Timestamp.valueOf(c.expireTime())).toArray());
+            ps.setTimestamp(1, now);
+            ps.setTimestamp(2, now);
+            ps.setArray(3, claimIds);
+            ps.setArray(4, couponIds);
+            ps.setArray(5, userIds);
+            ps.setArray(6, receiveTimes);
+            ps.setArray(7, expireTimes);
+            return ps;
+        }, (rs, rowNum) -> rs.getLong(1));
+
+        Map<Long, Integer> increments = new HashMap<>();
+        for (Long couponId : insertedCouponIds) {
+            increments.merge(couponId, 1, Integer::sum);
+        }
+        if (!increments.isEmpty()) {
+            List<Object[]> args = new ArrayList<>(increments.size());
+            increments.forEach((couponId, delta) -> args.add(new Object[]{delta, now, couponId}));
+            jdbcTemplate.batchUpdate(INCREMENT_RECEIVED_SQL, args);
+        }
+        return insertedCouponIds.size();
+    }
+}
@@ -0,0 +1,110 @@
+package com.campus.marketplace.common.component;
+
+import com.campus.marketplace.common.config.properties.OrderProperties;
+import com.campus.marketplace.common.exception.BusinessException;
+import com.campus.marketplace.common.exception.ErrorCode;
+import com.campus.marketplace.common.utils.RedisUtil;
+import com.campus.marketplace.event.OrderCancelledEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 商品抢购闸门（乐观下单模式）
+ *
+ * - 下单事务开始前先用 SET NX 抢占 goods:reserve:{goodsId}，抢占失败直接拒绝，
+ *   不借数据库连接、不进入事务、不排队等待商品行锁；
+ * - 抢占成功后再进入下单事务，事务失败立即释放抢占（按令牌校验，只删自己的）；下单成功后把令牌换成订单号；
+ * - 抢占有效期 = 待支付超时 + 余量，订单取消提交后（{@link OrderCancelledEvent}）按订单号比较后释放，
+ *   迟到的旧订单取消不会释放其他买家的新抢占；支付成功后商品已售出、抢占自然过期；
+ * - 抢占只是快速拒绝，互斥的最终保证是下单事务中商品 APPROVED → LOCKED 的条件更新；
+ * - 关闭 order.timeout.optimistic-placement 时直接放行，由下单事务中的行锁保证互斥。
+ *
+ * @author BaSui
+ * @date 2026-10-16
+ */
+@Slf4j
+@Component
+public class GoodsPurchaseGate {
+
+    static final String KEY_PREFIX = "goods:reserve:";
+    private static final long TTL_MARGIN_MINUTES = 5;
+
+    private final RedisUtil redisUtil;
+    private final OrderProperties orderProperties;
+    private final Counter won;
+    private final Counter lost;
+
+    public GoodsPurchaseGate(RedisUtil redisUtil, OrderProperties orderProperties, MeterRegistry meterRegistry) {
+        this.redisUtil = redisUtil;
+        this.orderProperties = orderProperties;
+        this.won = Counter.builder("order.placement.reservation").tag("result", "won").register(meterRegistry);
+        this.lost = Counter.builder("order.placement.reservation").tag("result", "lost").register(meterRegistry);
+    }
+
+    /**
+     * 抢占商品后执行下单
+     *
+     * @param goodsId 商品ID
+     * @param placer  下单逻辑（事务方法），返回订单号
+     * @return 订单号
+     */
+    public String place(Long goodsId, Supplier<String> placer) {
+        if (!orderProperties.isOptimisticPlacement() || goodsId == null) {
+            return placer.get();
+        }
+        String key = KEY_PREFIX + goodsId;
+        String token = UUID.randomUUID().toString();
+        long ttlMinutes = Math.max(1, orderProperties.getMinutes()) + TTL_MARGIN_MINUTES;
+        if (!Boolean.TRUE.equals(redisUtil.setIfAbsent(key, token, ttlMinutes, TimeUnit.MINUTES))) {
+            lost.increment();
+            log.debug("商品已被抢占，拒绝下单: goodsId={}", goodsId);
+            throw new BusinessException(ErrorCode.GOODS_ALREADY_SOLD);
+        }
+        won.increment();
+        String orderNo;
+        try {
+            orderNo = placer.get();
+        } catch (RuntimeException e) {
+            releaseIfOwner(key, token);
+            throw e;
+        }
+        try {
+            if (!redisUtil.replaceIfEquals(key, token, orderNo)) {
+                log.warn("商品抢占已失效，未能记录订单号: goodsId={}, orderNo={}", goodsId, orderNo);
+            }
+        } catch (Exception e) {
+            log.warn("记录商品抢占订单号失败: goodsId={}, orderNo={}, error={}", goodsId, orderNo, e.getMessage());
+        }
+        return orderNo;
+    }
+
+    /**
+     * 订单取消提交后释放商品抢占（仅当抢占仍属于该订单），允许其他买家重新下单
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderCancelled(OrderCancelledEvent event) {
+        if (event.getGoodsId() == null || event.getOrderNo() == null || !orderProperties.isOptimisticPlacement()) {
+            return;
+        }
+        try {
+            redisUtil.deleteIfEquals(KEY_PREFIX + event.getGoodsId(), event.getOrderNo());
+        } catch (Exception e) {
+            log.warn("释放商品抢占失败: goodsId={}, error={}", event.getGoodsId(), e.getMessage());
+        }
+    }
+
+    private void releaseIfOwner(String key, String token) {
+        try {
+            redisUtil.deleteIfEquals(key, token);
+        } catch (Exception e) {
+            log.warn("释放商品抢占失败: key={}, error={}", key, e.getMessage());
+        }
+    }
+}
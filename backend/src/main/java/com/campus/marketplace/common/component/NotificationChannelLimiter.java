@@ -0,0 +1,75 @@
+package com.campus.marketplace.common.component;
+
+import com.campus.marketplace.common.config.properties.NotificationQueueProperties;
+import com.campus.marketplace.common.enums.NotificationChannel;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+/**
+ * 通知渠道并发限制
+ *
+ * - 每个渠道一个信号量，容量取 notifications.queue.channel-concurrency，
+ *   队列消费改为并发后避免邮件、WebPush 等慢渠道被瞬间打满；
+ * - 等待许可时线程阻塞，调用方运行在虚拟线程上，不占用平台线程；
+ * - 批量扇出通过 {@link #runAsync} 为每次发送起一个虚拟线程，并发度仍由渠道信号量约束。
+ *
+ * @author BaSui
+ * @date 2026-10-16
+ */
+@Slf4j
+@Component
+public class NotificationChannelLimiter {
+
+    private final Map<NotificationChannel, Semaphore> permits = new EnumMap<>(NotificationChannel.class);
+    private final ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor();
+
+    public NotificationChannelLimiter(NotificationQueueProperties properties) {
+        for (NotificationChannel channel : NotificationChannel.values()) {
+            int limit = properties.getChannelConcurrency().getOrDefault(channel, properties.getMaxInFlight());
+            permits.put(channel, new Semaphore(Math.max(1, limit)));
+        }
+    }
+
+    /**
+     * 持有渠道许可执行发送
+     */
+    public void run(NotificationChannel channel, Runnable send) {
+        Semaphore semaphore = permits.get(channel);
+        try {
+            semaphore.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("等待通知渠道许可被中断: " + channel, e);
+        }
+        try {
+            send.run();
+        } finally {
+            semaphore.release();
+        }
+    }
+
+    /**
+     * 在虚拟线程上持有渠道许可异步发送，发送异常只记录日志
+     */
+    public void runAsync(NotificationChannel channel, Runnable send) {
+        senders.execute(() -> {
+            try {
+                run(channel, send);
+            } catch (Exception e) {
+                log.warn("通知异步发送失败: channel={}, err={}", channel, e.getMessage());
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        senders.shutdown();
+    }
+}
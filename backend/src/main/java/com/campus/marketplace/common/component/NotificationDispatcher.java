@@ -1,33 +1,51 @@
 package com.campus.marketplace.common.component;
 
+import com.campus.marketplace.common.config.properties.NotificationQueueProperties;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.AllArgsConstructor;
 import lombok.Data;
-import lombok.RequiredArgsConstructor;
+import lombok.NoArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.RedisOperations;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 /**
  * Notification Dispatcher
  *
+ * 通知以 JSON 写入 Redis Stream（字段 {@value #PAYLOAD_FIELD}），由 {@link NotificationQueueConsumer} 通过消费组读取发送。
+ *
  * @author BaSui
  * @date 2025-10-29
  */
 
 @Slf4j
 @Component
-@RequiredArgsConstructor
 public class NotificationDispatcher {
 
-    private final RedisTemplate<String, Object> redisTemplate;
+    /**
+     * Stream 消息中存放通知 JSON 的字段名
+     */
+    public static final String PAYLOAD_FIELD = "job";
+
+    private final RedisTemplate<String, String> redisTemplate;
     private final ObjectMapper objectMapper;
+    private final NotificationQueueProperties properties;
 
-    @Value("${notifications.queue.key:notifications:queue}")
-    private String queueKey;
+    public NotificationDispatcher(@Qualifier("customStringRedisTemplate") RedisTemplate<String, String> redisTemplate,
+                                  ObjectMapper objectMapper,
+                                  NotificationQueueProperties properties) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+    }
 
     public void enqueueTemplate(Long receiverId,
                                 String templateCode,
@@ -39,13 +57,57 @@ public class NotificationDispatcher {
         try {
             Job job = new Job(receiverId, templateCode, params, type, relatedId, relatedType, link, 0);
             String json = objectMapper.writeValueAsString(job);
-            redisTemplate.opsForList().leftPush(queueKey, json);
+            append(json);
         } catch (Exception e) {
             log.error("入队通知失败: userId={}, tpl={}", receiverId, templateCode, e);
         }
     }
 
+    /**
+     * 写入一条已序列化的通知（重试回填复用）
+     */
+    public void append(String json) {
+        redisTemplate.opsForStream().add(StreamRecords.newRecord()
+                .in(properties.getStreamKey())
+                .ofMap(Map.of(PAYLOAD_FIELD, json)));
+    }
+
+    /**
+     * 批量入队：序列化后通过一次 pipeline 写入 Stream
+     */
+    public void enqueueAll(List<Job> jobs) {
+        if (jobs.isEmpty()) {
+            return;
+        }
+        List<String> payloads = new ArrayList<>(jobs.size());
+        for (Job job : jobs) {
+            try {
+                payloads.add(objectMapper.writeValueAsString(job));
+            } catch (Exception e) {
+                log.error("序列化通知失败: userId={}, tpl={}", job.getReceiverId(), job.getTemplateCode(), e);
+            }
+        }
+        try {
+            redisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public <K, V> Object execute(RedisOperations<K, V> operations) {
+                    RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+                    for (String payload : payloads) {
+                        ops.opsForStream().add(StreamRecords.newRecord()
+                                .in(properties.getStreamKey())
+                                .ofMap(Map.of(PAYLOAD_FIELD, payload)));
+                    }
+                    return null;
+                }
+            });
+        } catch (Exception e) {
+            log.error("批量入队通知失败: count={}", payloads.size(), e);
+        }
+    }
+
     @Data
+    @NoArgsConstructor
     @AllArgsConstructor
     public static class Job {
         private Long receiverId;
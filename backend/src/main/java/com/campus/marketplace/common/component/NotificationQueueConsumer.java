@@ -1,65 +1,248 @@
 package com.campus.marketplace.common.component;
 
+import com.campus.marketplace.common.config.properties.NotificationQueueProperties;
 import com.campus.marketplace.common.enums.NotificationType;
+import com.campus.marketplace.common.utils.RedisScriptRegistry;
 import com.campus.marketplace.service.NotificationService;
 import com.campus.marketplace.service.AuditLogService;
 import com.campus.marketplace.common.enums.AuditActionType;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.Limit;
+import org.springframework.data.redis.connection.stream.Consumer;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.PendingMessagesSummary;
+import org.springframework.data.redis.connection.stream.ReadOffset;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.connection.stream.StreamReadOptions;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Notification Queue Consumer
  *
+ * - 通知 Stream 由消费组读取：单个读取线程循环 XREADGROUP（阻塞 notifications.queue.block-ms），
+ *   每条消息交给虚拟线程并发发送，同时处理数达到 max-in-flight 时暂停读取；各渠道并发由 {@link NotificationChannelLimiter} 限制；
+ * - 发送成功或转入重试集合后才 XACK + XDEL，进程在读取与发送之间崩溃时消息留在 PEL，
+ *   空闲超过 claim-idle-ms 后由任一节点通过 XAUTOCLAIM（lua/notification_autoclaim.lua）接管；
+ * - 本节点已读取但仍在等待处理名额或正在发送的消息记入 in-flight 集合，每 claim-idle-ms/3
+ *   （包括读取线程等待名额期间）XCLAIM JUSTID 给自己重置空闲时间（lua/notification_touch.lua），
+ *   积压再久也不会被其他节点接管重发；本节点接管时同样跳过集合中的消息；
+ * - 队列指标：notifications.queue.depth（Stream 长度）、notifications.queue.pending（已读未确认）、
+ *   notifications.queue.lag.ms（最早一条消息的等待时长），处理结果计入 notifications.queue.jobs{result}。
+ *
  * @author BaSui
  * @date 2025-10-29
  */
 
 @Slf4j
 @Component
-@RequiredArgsConstructor
 public class NotificationQueueConsumer {
 
-    private final RedisTemplate<String, Object> redisTemplate;
+    /**
+     * 队列指标的最短刷新间隔（毫秒）
+     */
+    private static final long METRICS_REFRESH_MS = 1000;
+
+    private final RedisTemplate<String, String> redisTemplate;
     private final ObjectMapper objectMapper;
     private final NotificationService notificationService;
     private final AuditLogService auditLogService;
-
-    @Value("${notifications.queue.key:notifications:queue}")
-    private String queueKey;
+    private final NotificationDispatcher dispatcher;
+    private final RedisScriptRegistry scriptRegistry;
+    private final NotificationQueueProperties properties;
+    private final String consumerName = "sender-" + UUID.randomUUID();
+    private final Semaphore inFlight;
+    /**
+     * 本节点已读取、尚未确认的消息 ID
+     */
+    private final Set<String> inFlightIds = ConcurrentHashMap.newKeySet();
+    private final ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor();
+    private final AtomicLong depth = new AtomicLong();
+    private final AtomicLong pending = new AtomicLong();
+    private final AtomicLong lagMs = new AtomicLong();
+    private final Counter sent;
+    private final Counter retried;
+    private final Counter dropped;
 
     @Value("${notifications.retry.key:notifications:retry}")
     private String retryKey;
 
-    @Value("${notifications.batch.size:50}")
-    private int batchSize;
-
     @Value("${notifications.retry.maxAttempts:5}")
     private int maxAttempts;
 
-    // 轮询队列
-    @Scheduled(fixedDelayString = "${notifications.consumer.poll-interval-ms:2000}")
-    public void consume() {
-        try {
-            List<String> entries = new ArrayList<>();
-            for (int i = 0; i < batchSize; i++) {
-                Object v = redisTemplate.opsForList().rightPop(queueKey);
-                if (v == null) break;
-                entries.add(v.toString());
-            }
-            for (String json : entries) {
-                handle(json);
+    private volatile boolean running;
+    private volatile boolean groupReady;
+    private Thread reader;
+    private String claimCursor = "0-0";
+    private long nextClaimAtMs;
+    private long nextMetricsAtMs;
+    private long nextTouchAtMs;
+
+    public NotificationQueueConsumer(@Qualifier("customStringRedisTemplate") RedisTemplate<String, String> redisTemplate,
+                                     ObjectMapper objectMapper,
+                                     NotificationService notificationService,
+                                     AuditLogService auditLogService,
+                                     NotificationDispatcher dispatcher,
+                                     RedisScriptRegistry scriptRegistry,
+                                     NotificationQueueProperties properties,
+                                     MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.notificationService = notificationService;
+        this.auditLogService = auditLogService;
+        this.dispatcher = dispatcher;
+        this.scriptRegistry = scriptRegistry;
+        this.properties = properties;
+        this.inFlight = new Semaphore(properties.getMaxInFlight());
+        Gauge.builder("notifications.queue.depth", depth, AtomicLong::get).register(meterRegistry);
+        Gauge.builder("notifications.queue.pending", pending, AtomicLong::get).register(meterRegistry);
+        Gauge.builder("notifications.queue.lag.ms", lagMs, AtomicLong::get).register(meterRegistry);
+        this.sent = Counter.builder("notifications.queue.jobs").tag("result", "sent").register(meterRegistry);
+        this.retried = Counter.builder("notifications.queue.jobs").tag("result", "retry").register(meterRegistry);
+        this.dropped = Counter.builder("notifications.queue.jobs").tag("result", "dropped").register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!properties.isEnabled() || running) {
+            return;
+        }
+        running = true;
+        reader = Thread.ofVirtual().name("notification-stream-reader").start(this::readLoop);
+        log.info("通知队列消费启动: stream={}, group={}, consumer={}", properties.getStreamKey(),
+                properties.getConsumerGroup(), consumerName);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (reader != null) {
+            reader.interrupt();
+        }
+        workers.shutdown();
+        if (!workers.awaitTermination(10, TimeUnit.SECONDS)) {
+            log.warn("通知发送未在关闭前完成，未确认的消息将由其他节点接管");
+        }
+    }
+
+    private void readLoop() {
+        while (running) {
+            try {
+                pollOnce();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                if (!running) {
+                    return;
+                }
+                log.error("通知队列消费失败: {}", e.getMessage(), e);
+                try {
+                    Thread.sleep(properties.getBlockMs());
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
             }
+        }
+    }
+
+    /**
+     * 一轮读取：按需接管超时消息、刷新队列指标，然后阻塞读取新消息并分发
+     *
+     * @return 本轮分发的消息数
+     */
+    int pollOnce() throws InterruptedException {
+        ensureGroup();
+        long now = System.currentTimeMillis();
+        int dispatched = 0;
+        if (now >= nextClaimAtMs) {
+            nextClaimAtMs = now + properties.getClaimIdleMs() / 2;
+            dispatched += reclaimStale();
+        }
+        if (now >= nextMetricsAtMs) {
+            nextMetricsAtMs = now + METRICS_REFRESH_MS;
+            refreshMetrics(now);
+        }
+        if (now >= nextTouchAtMs) {
+            touchInFlight();
+        }
+        List<MapRecord<String, Object, Object>> records = redisTemplate.opsForStream().read(
+                Consumer.from(properties.getConsumerGroup(), consumerName),
+                StreamReadOptions.empty().count(properties.getBatchSize())
+                        .block(Duration.ofMillis(properties.getBlockMs())),
+                StreamOffset.create(properties.getStreamKey(), ReadOffset.lastConsumed()));
+        if (records == null) {
+            return dispatched;
+        }
+        for (MapRecord<String, Object, Object> record : records) {
+            inFlightIds.add(record.getId().getValue());
+        }
+        for (MapRecord<String, Object, Object> record : records) {
+            Object payload = record.getValue().get(NotificationDispatcher.PAYLOAD_FIELD);
+            dispatch(record.getId().getValue(), payload == null ? "" : payload.toString());
+        }
+        return dispatched + records.size();
+    }
+
+    private void dispatch(String id, String json) throws InterruptedException {
+        // 等待名额期间按间隔续期，已读取的消息不会因本节点积压被接管
+        while (!inFlight.tryAcquire(touchIntervalMs(), TimeUnit.MILLISECONDS)) {
+            touchInFlight();
+        }
+        try {
+            workers.execute(() -> {
+                try {
+                    process(id, json);
+                } finally {
+                    inFlight.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            inFlight.release();
+            inFlightIds.remove(id);
+            throw e;
+        }
+    }
+
+    /**
+     * 发送一条通知并确认：发送失败转入重试集合，无法解析时直接丢弃；确认失败的消息稍后被重新认领
+     */
+    void process(String id, String json) {
+        try {
+            handle(json);
+            RecordId recordId = RecordId.of(id);
+            redisTemplate.opsForStream().acknowledge(properties.getStreamKey(), properties.getConsumerGroup(), recordId);
+            redisTemplate.opsForStream().delete(properties.getStreamKey(), recordId);
         } catch (Exception e) {
-            log.error("通知队列消费失败: {}", e.getMessage(), e);
+            log.error("通知确认失败，等待重新认领: id={}, error={}", id, e.getMessage());
+        } finally {
+            inFlightIds.remove(id);
         }
     }
 
@@ -70,8 +253,8 @@ public class NotificationQueueConsumer {
             long now = Instant.now().toEpochMilli();
             var due = redisTemplate.opsForZSet().rangeByScore(retryKey, 0, now);
             if (due == null || due.isEmpty()) return;
-            for (Object json : due) {
-                redisTemplate.opsForList().leftPush(queueKey, json.toString());
+            for (String json : due) {
+                dispatcher.append(json);
                 redisTemplate.opsForZSet().remove(retryKey, json);
             }
         } catch (Exception e) {
@@ -80,12 +263,21 @@ public class NotificationQueueConsumer {
     }
 
     private void handle(String json) {
+        NotificationDispatcher.Job job;
+        try {
+            job = objectMapper.readValue(json, NotificationDispatcher.Job.class);
+        } catch (Exception e) {
+            dropped.increment();
+            log.error("丢弃无法解析的通知: payload={}", json);
+            return;
+        }
         try {
-            NotificationDispatcher.Job job = objectMapper.readValue(json, NotificationDispatcher.Job.class);
             notificationService.sendTemplateNotification(job.getReceiverId(), job.getTemplateCode(), job.getParams(),
                     NotificationType.valueOf(job.getType()), job.getRelatedId(), job.getRelatedType(), job.getLink());
+            sent.increment();
         } catch (Exception e) {
             log.warn("通知发送失败，准备重试: {}", e.getMessage());
+            retried.increment();
             enqueueRetry(json);
         }
     }
@@ -113,4 +305,80 @@ public class NotificationQueueConsumer {
             log.error("加入重试队列失败: {}", ex.getMessage(), ex);
         }
     }
+
+    /**
+     * XAUTOCLAIM 接管其他消费者（含已崩溃节点）超时未确认的消息，游标跨轮次推进
+     */
+    private int reclaimStale() throws InterruptedException {
+        List<?> reply = scriptRegistry.execute(redisTemplate, RedisScriptRegistry.NOTIFICATION_AUTOCLAIM,
+                List.of(properties.getStreamKey()),
+                properties.getConsumerGroup(),
+                consumerName,
+                String.valueOf(properties.getClaimIdleMs()),
+                claimCursor,
+                String.valueOf(properties.getBatchSize()),
+                NotificationDispatcher.PAYLOAD_FIELD);
+        if (reply == null || reply.isEmpty()) {
+            return 0;
+        }
+        claimCursor = String.valueOf(reply.get(0));
+        int claimed = (reply.size() - 1) / 2;
+        if (claimed > 0) {
+            log.warn("重新处理超时未确认的通知: count={}", claimed);
+        }
+        int dispatched = 0;
+        for (int i = 1; i + 1 < reply.size(); i += 2) {
+            String id = String.valueOf(reply.get(i));
+            // 本节点仍在排队或发送中的消息（续期失败时也可能超时）不重复分发
+            if (inFlightIds.add(id)) {
+                dispatch(id, String.valueOf(reply.get(i + 1)));
+                dispatched++;
+            }
+        }
+        return dispatched;
+    }
+
+    /**
+     * 将本节点仍在处理中的消息 XCLAIM 给自己，重置空闲时间
+     */
+    void touchInFlight() {
+        nextTouchAtMs = System.currentTimeMillis() + touchIntervalMs();
+        if (inFlightIds.isEmpty()) {
+            return;
+        }
+        List<String> args = new ArrayList<>(inFlightIds.size() + 2);
+        args.add(properties.getConsumerGroup());
+        args.add(consumerName);
+        args.addAll(inFlightIds);
+        try {
+            scriptRegistry.execute(redisTemplate, RedisScriptRegistry.NOTIFICATION_TOUCH,
+                    List.of(properties.getStreamKey()), args.toArray());
+        } catch (Exception e) {
+            log.warn("通知续期失败: count={}, error={}", args.size() - 2, e.getMessage());
+        }
+    }
+
+    private long touchIntervalMs() {
+        return Math.max(1, properties.getClaimIdleMs() / 3);
+    }
+
+    private void refreshMetrics(long nowMs) {
+        String streamKey = properties.getStreamKey();
+        Long size = redisTemplate.opsForStream().size(streamKey);
+        depth.set(size == null ? 0 : size);
+        PendingMessagesSummary summary = redisTemplate.opsForStream().pending(streamKey, properties.getConsumerGroup());
+        pending.set(summary == null ? 0 : summary.getTotalPendingMessages());
+        List<MapRecord<String, Object, Object>> oldest = redisTemplate.opsForStream()
+                .range(streamKey, Range.unbounded(), Limit.limit().count(1));
+        lagMs.set(oldest == null || oldest.isEmpty() ? 0
+                : Math.max(0, nowMs - oldest.get(0).getId().getTimestamp()));
+    }
+
+    private void ensureGroup() {
+        if (groupReady) {
+            return;
+        }
+        AbstractStreamBatchConsumer.createGroup(redisTemplate, properties.getStreamKey(), properties.getConsumerGroup());
+        groupReady = true;
+    }
 }
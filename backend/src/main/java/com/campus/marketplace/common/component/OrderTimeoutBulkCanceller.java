@@ -0,0 +1,142 @@
+package com.campus.marketplace.common.component;
+
+import com.campus.marketplace.common.enums.NotificationType;
+import com.campus.marketplace.event.GoodsChangedEvent;
+import com.campus.marketplace.event.OrderCancelledEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Array;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 超时订单批量取消（集合式 SQL，分块提交）
+ *
+ * - 每块一条 UPDATE ... RETURNING：子查询按 ID 取至多 chunkSize 条超时待支付订单（SKIP LOCKED 跳过正被支付/取消的行），
+ *   一次完成状态迁移并带回商品与买卖双方 ID；
+ * - 同一事务内一条 UPDATE 把仍处于 LOCKED 的商品批量回退为 APPROVED；
+ * - 提交后发布商品变更与订单取消事件，通知任务通过一次 pipeline 批量入队；
+ * - 每块独立事务（REQUIRES_NEW），锁持有时间与 WAL 量只和块大小有关，与积压总量无关。
+ *
+ * @author BaSui
+ * @date 2026-10-16
+ */
+@Slf4j
+@Component
+public class OrderTimeoutBulkCanceller {
+
+    private static final String CANCEL_CHUNK_SQL =
+            "UPDATE t_order SET status = 'CANCELLED', updated_at = ? " +
+            "WHERE id IN (SELECT id FROM t_order WHERE status = 'PENDING_PAYMENT' AND created_at < ? AND deleted = false " +
+            "ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED) " +
+            "AND status = 'PENDING_PAYMENT' " +
+            "RETURNING id, order_no, goods_id, buyer_id, seller_id";
+
+    private static final String REVERT_GOODS_SQL =
+            "UPDATE t_goods SET status = 'APPROVED', updated_at = ? " +
+            "WHERE id = ANY(?) AND status = 'LOCKED' RETURNING id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate chunkTransaction;
+    private final NotificationDispatcher notificationDispatcher;
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * 被取消的订单行
+     */
+    record CancelledOrder(long id, String orderNo, long goodsId, long buyerId, long sellerId) {
+    }
+
+    /**
+     * 单块处理结果
+     */
+    record ChunkResult(List<CancelledOrder> orders, List<Long> revertedGoodsIds) {
+    }
+
+    public OrderTimeoutBulkCanceller(JdbcTemplate jdbcTemplate,
+                                     PlatformTransactionManager transactionManager,
+                                     NotificationDispatcher notificationDispatcher,
+                                     ApplicationEventPublisher eventPublisher) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.chunkTransaction = new TransactionTemplate(transactionManager);
+        this.chunkTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.notificationDispatcher = notificationDispatcher;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * 分块取消创建时间早于 threshold 的待支付订单
+     *
+     * @param threshold 创建时间阈值
+     * @param chunkSize 每块订单数
+     * @return 取消的订单总数
+     */
+    public int cancelExpired(LocalDateTime threshold, int chunkSize) {
+        int size = Math.max(1, chunkSize);
+        int total = 0;
+        while (true) {
+            ChunkResult chunk = chunkTransaction.execute(status -> cancelChunk(threshold, size));
+            if (chunk == null || chunk.orders().isEmpty()) {
+                break;
+            }
+            afterCommit(chunk);
+            total += chunk.orders().size();
+            log.info("超时订单分块取消: chunk={}, revertedGoods={}, total={}",
+                    chunk.orders().size(), chunk.revertedGoodsIds().size(), total);
+            if (chunk.orders().size() < size) {
+                break;
+            }
+        }
+        return total;
+    }
+
+    ChunkResult cancelChunk(LocalDateTime threshold, int chunkSize) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<CancelledOrder> orders = jdbcTemplate.query(CANCEL_CHUNK_SQL,
+                (rs, rowNum) -> new CancelledOrder(rs.getLong("id"), rs.getString("order_no"),
+                        rs.getLong("goods_id"), rs.getLong("buyer_id"), rs.getLong("seller_id")),
+                now, Timestamp.valueOf(threshold), chunkSize);
+        if (orders.isEmpty()) {
+            return new ChunkResult(List.of(), List.of());
+        }
+        Long[] goodsIds = orders.stream().map(CancelledOrder::goodsId).distinct().toArray(Long[]::new);
+        List<Long> reverted = jdbcTemplate.query(con -> {
+            var ps = con.prepareStatement(REVERT_GOODS_SQL);
+            Array array = con.createArrayOf("bigint", goodsIds);
+            ps.setTimestamp(1, now);
+            ps.setArray(2, array);
+            return ps;
+        }, (rs, rowNum) -> rs.getLong(1));
+        return new ChunkResult(orders, reverted);
+    }
+
+    private void afterCommit(ChunkResult chunk) {
+        for (Long goodsId : chunk.revertedGoodsIds()) {
+            eventPublisher.publishEvent(new GoodsChangedEvent(this, goodsId, GoodsChangedEvent.ChangeType.STATUS_CHANGED));
+        }
+        List<NotificationDispatcher.Job> jobs = new ArrayList<>(chunk.orders().size() * 2);
+        String type = NotificationType.ORDER_CANCELLED.name();
+        for (CancelledOrder order : chunk.orders()) {
+            eventPublisher.publishEvent(new OrderCancelledEvent(this, order.id(), order.orderNo(), order.goodsId()));
+            Map<String, Object> params = new HashMap<>();
+            params.put("orderNo", order.orderNo());
+            params.put("reason", "超时未支付");
+            String link = "/orders/" + order.orderNo();
+            jobs.add(new NotificationDispatcher.Job(order.buyerId(), "ORDER_TIMEOUT_CANCELLED", params,
+                    type, order.id(), "ORDER", link, 0));
+            jobs.add(new NotificationDispatcher.Job(order.sellerId(), "ORDER_TIMEOUT_CANCELLED_SELLER", params,
+                    type, order.id(), "ORDER", link, 0));
+        }
+        notificationDispatcher.enqueueAll(jobs);
+    }
+}
@@ -0,0 +1,190 @@
+package com.campus.marketplace.common.component;
+
+import com.campus.marketplace.common.config.properties.OrderProperties;
+import com.campus.marketplace.common.enums.OrderStatus;
+import com.campus.marketplace.common.utils.RedisUtil;
+import com.campus.marketplace.repository.OrderRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 订单超时延时队列（Redis ZSET）
+ *
+ * - 成员为 "订单ID:截止时间戳"，分数为截止时间戳，到期订单按截止时间升序出队；
+ * - 出队以 ZREM 返回值为准认领，多实例并发消费时同一订单只会被一个实例处理；
+ * - 订单支付/取消后不主动出队，到期时由取消逻辑按订单当前状态跳过；
+ * - 启动时从数据库重建全部待支付订单，保证 Redis 数据丢失后不漏取消。
+ *
+ * @author BaSui
+ * @date 2026-10-16
+ */
+@Slf4j
+@Component
+public class OrderTimeoutQueue {
+
+    static final String QUEUE_KEY = "order:timeout:queue";
+    private static final long RETRY_DELAY_MILLIS = TimeUnit.SECONDS.toMillis(30);
+    private static final int RECOVER_BATCH_SIZE = 500;
+
+    private final RedisUtil redis;
+    private final OrderRepository orderRepository;
+    private final OrderProperties orderProperties;
+
+    private final Counter cancelled;
+    private final Counter skipped;
+    private final Counter failed;
+    private final Timer lag;
+
+    /**
+     * 已认领的到期订单
+     *
+     * @param orderId        订单ID
+     * @param deadlineMillis 截止时间戳（毫秒）
+     */
+    public record DueOrder(long orderId, long deadlineMillis) {
+    }
+
+    public OrderTimeoutQueue(RedisUtil redis, OrderRepository orderRepository,
+                             OrderProperties orderProperties, MeterRegistry meterRegistry) {
+        this.redis = redis;
+        this.orderRepository = orderRepository;
+        this.orderProperties = orderProperties;
+        this.cancelled = Counter.builder("order.timeout.processed").tag("result", "cancelled").register(meterRegistry);
+        this.skipped = Counter.builder("order.timeout.processed").tag("result", "skipped").register(meterRegistry);
+        this.failed = Counter.builder("order.timeout.processed").tag("result", "failed").register(meterRegistry);
+        this.lag = Timer.builder("order.timeout.lag")
+                .description("订单实际取消时间与截止时间的差值")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        Gauge.builder("order.timeout.queue.size", this, OrderTimeoutQueue::pendingSize)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 按订单创建时间登记超时截止时间
+     */
+    public void schedule(Long orderId, LocalDateTime createdAt) {
+        if (orderId == null) {
+            return;
+        }
+        LocalDateTime base = createdAt != null ? createdAt : LocalDateTime.now();
+        schedule(orderId, toMillis(base.plusMinutes(timeoutMinutes())));
+    }
+
+    public void schedule(long orderId, long deadlineMillis) {
+        redis.zAdd(QUEUE_KEY, member(orderId, deadlineMillis), deadlineMillis);
+    }
+
+    /**
+     * 认领已到期的订单（按截止时间升序，最多 limit 条）
+     */
+    public List<DueOrder> claimDue(int limit) {
+        long now = System.currentTimeMillis();
+        Set<Object> members = redis.zRangeByScore(QUEUE_KEY, 0, now, 0, limit);
+        if (members == null || members.isEmpty()) {
+            return List.of();
+        }
+        List<DueOrder> claimed = new ArrayList<>(members.size());
+        for (Object member : members) {
+            Long removed = redis.zRemove(QUEUE_KEY, member);
+            if (removed == null || removed == 0) {
+                continue;
+            }
+            DueOrder due = parse(member.toString());
+            if (due != null) {
+                claimed.add(due);
+            }
+        }
+        return claimed;
+    }
+
+    public void markCancelled(DueOrder due) {
+        cancelled.increment();
+        lag.record(Math.max(0, System.currentTimeMillis() - due.deadlineMillis()), TimeUnit.MILLISECONDS);
+    }
+
+    public void markSkipped() {
+        skipped.increment();
+    }
+
+    /**
+     * 处理失败：计数并延后重新入队
+     */
+    public void markFailed(DueOrder due) {
+        failed.increment();
+        redis.zAdd(QUEUE_KEY, member(due.orderId(), due.deadlineMillis()),
+                System.currentTimeMillis() + RETRY_DELAY_MILLIS);
+    }
+
+    /**
+     * 启动时从数据库重建待支付订单的超时队列（成员幂等，多实例重复执行无副作用）
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void recoverPendingOrders() {
+        try {
+            List<Object[]> rows = orderRepository.findIdAndCreatedAtByStatus(OrderStatus.PENDING_PAYMENT);
+            long minutes = timeoutMinutes();
+            Map<Object, Double> batch = new HashMap<>();
+            for (Object[] row : rows) {
+                long orderId = ((Number) row[0]).longValue();
+                LocalDateTime createdAt = row[1] != null ? (LocalDateTime) row[1] : LocalDateTime.now();
+                long deadline = toMillis(createdAt.plusMinutes(minutes));
+                batch.put(member(orderId, deadline), (double) deadline);
+                if (batch.size() >= RECOVER_BATCH_SIZE) {
+                    redis.zAddAll(QUEUE_KEY, batch);
+                    batch.clear();
+                }
+            }
+            redis.zAddAll(QUEUE_KEY, batch);
+            log.info("订单超时队列重建完成: pending={}", rows.size());
+        } catch (Exception e) {
+            log.error("订单超时队列重建失败，依赖兜底扫描任务: {}", e.getMessage(), e);
+        }
+    }
+
+    long pendingSize() {
+        try {
+            Long size = redis.zSize(QUEUE_KEY);
+            return size != null ? size : 0L;
+        } catch (Exception e) {
+            return 0L;
+        }
+    }
+
+    private long timeoutMinutes() {
+        return Math.max(1, orderProperties.getMinutes());
+    }
+
+    private static String member(long orderId, long deadlineMillis) {
+        return orderId + ":" + deadlineMillis;
+    }
+
+    private static DueOrder parse(String member) {
+        int sep = member.indexOf(':');
+        try {
+            return new DueOrder(Long.parseLong(member.substring(0, sep)), Long.parseLong(member.substring(sep + 1)));
+        } catch (RuntimeException e) {
+            log.warn("忽略无法解析的超时队列成员: {}", member);
+            return null;
+        }
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
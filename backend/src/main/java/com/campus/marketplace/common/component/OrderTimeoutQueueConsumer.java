@@ -0,0 +1,68 @@
+package com.campus.marketplace.common.component;
+
+import com.campus.marketplace.service.OrderService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 订单超时延时队列消费者
+ *
+ * 每秒认领到期订单，逐单在独立事务中取消；单轮最多处理 maxPerRound 条，积压时下一轮继续。
+ *
+ * @author BaSui
+ * @date 2026-10-16
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OrderTimeoutQueueConsumer {
+
+    private final OrderTimeoutQueue timeoutQueue;
+    private final OrderService orderService;
+
+    @Value("${order.timeout.queue.batch-size:100}")
+    private int batchSize = 100;
+
+    @Value("${order.timeout.queue.max-per-round:1000}")
+    private int maxPerRound = 1000;
+
+    @Scheduled(fixedDelayString = "${order.timeout.queue.poll-interval-ms:1000}")
+    public void drain() {
+        int processed = 0;
+        try {
+            while (processed < maxPerRound) {
+                List<OrderTimeoutQueue.DueOrder> due = timeoutQueue.claimDue(batchSize);
+                for (OrderTimeoutQueue.DueOrder order : due) {
+                    handle(order);
+                }
+                processed += due.size();
+                if (due.size() < batchSize) {
+                    break;
+                }
+            }
+        } catch (Exception e) {
+            log.error("订单超时队列消费失败: {}", e.getMessage(), e);
+        }
+        if (processed > 0) {
+            log.info("订单超时队列本轮处理完成: count={}", processed);
+        }
+    }
+
+    private void handle(OrderTimeoutQueue.DueOrder order) {
+        try {
+            if (orderService.cancelTimeoutOrder(order.orderId())) {
+                timeoutQueue.markCancelled(order);
+            } else {
+                timeoutQueue.markSkipped();
+            }
+        } catch (Exception e) {
+            log.warn("超时订单取消失败，稍后重试: orderId={}, error={}", order.orderId(), e.getMessage());
+            timeoutQueue.markFailed(order);
+        }
+    }
+}
@@ -13,6 +13,9 @@ import java.util.concurrent.TimeUnit;
 /**
  * Order Timeout Scheduler
  *
+ * 超时取消主要由 {@link OrderTimeoutQueueConsumer} 按截止时间驱动，本任务作为兜底扫描，
+ * 处理延时队列丢失或重试仍失败的订单。
+ *
  * @author BaSui
  * @date 2025-10-29
  */
@@ -28,7 +31,7 @@ public class OrderTimeoutScheduler {
 
     private static final String LOCK_KEY = "lock:order:cancel-timeout";
 
-    @Scheduled(fixedDelayString = "${order.timeout.cancel.interval:300000}") // 默认5分钟
+    @Scheduled(fixedDelayString = "${order.timeout.cancel.interval:1800000}") // 兜底扫描，默认30分钟
     public void cancelTimeoutOrdersJob() {
         try (DistributedLockManager.LockHandle lock = lockManager.tryLock(LOCK_KEY, 1, 30, TimeUnit.SECONDS)) {
             if (!lock.acquired()) {
@@ -13,9 +13,10 @@ import org.springframework.stereotype.Component;
 import java.util.List;
 
 /**
- * 热门榜单刷新任务
+ * 热门榜单刷新与推荐预计算任务
  *
  * - 定时按校区刷新热门榜单，结果写入 Redis
+ * - 每日全量预计算活跃用户推荐，并定时增量刷新有新行为的用户
  * - 使用 RecommendService 内部的分布式锁保障幂等
  *
  * @author BaSui
@@ -54,4 +55,29 @@ public class RecommendScheduler {
             log.error("热门榜单刷新任务失败", e);
         }
     }
+
+    /**
+     * 每日凌晨全量预计算活跃用户推荐
+     */
+    @Scheduled(cron = "${recommend.precompute.cron:0 30 3 * * ?}")
+    public void precomputeRecommendationsJob() {
+        try {
+            recommendService.precomputeRecommendations();
+        } catch (Exception e) {
+            log.error("推荐预计算任务失败", e);
+        }
+    }
+
+    /**
+     * 每10分钟增量刷新有新行为用户的预计算推荐
+     */
+    @Scheduled(fixedDelayString = "${recommend.precompute.incremental.interval.ms:600000}",
+            initialDelayString = "${recommend.precompute.incremental.interval.ms:600000}")
+    public void refreshChangedRecommendationsJob() {
+        try {
+            recommendService.refreshChangedRecommendations();
+        } catch (Exception e) {
+            log.error("推荐增量刷新任务失败", e);
+        }
+    }
 }
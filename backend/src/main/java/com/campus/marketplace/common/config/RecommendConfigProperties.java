@@ -45,6 +45,26 @@ public class RecommendConfigProperties {
      */
     private ParamsConfig params = new ParamsConfig();
 
+    /**
+     * 协同过滤离线计算配置
+     */
+    private CfConfig cf = new CfConfig();
+
+    /**
+     * 推荐结果预计算配置
+     */
+    private PrecomputeConfig precompute = new PrecomputeConfig();
+
+    /**
+     * 相似商品索引配置
+     */
+    private ItemSimilarityConfig itemSimilarity = new ItemSimilarityConfig();
+
+    /**
+     * 实时热度榜配置
+     */
+    private LeaderboardConfig leaderboard = new LeaderboardConfig();
+
     /**
      * 算法权重配置
      */
@@ -91,4 +111,163 @@ public class RecommendConfigProperties {
          */
         private Integer refreshInterval = 3600;
     }
+
+    /**
+     * 协同过滤离线计算配置
+     */
+    @Data
+    public static class CfConfig {
+        /**
+         * 行为回看天数
+         */
+        private Integer lookbackDays = 30;
+
+        /**
+         * 每个用户保留的相似用户数
+         */
+        private Integer topK = 20;
+
+        /**
+         * 相似度下限
+         */
+        private Double minSimilarity = 0.1;
+
+        /**
+         * 交互用户数超过该值的商品不参与共现展开（0 表示不限制）
+         */
+        private Integer maxItemUsers = 5000;
+
+        /**
+         * 并行度（0 表示 CPU 核数）
+         */
+        private Integer parallelism = 0;
+
+        /**
+         * 每批写回的用户数
+         */
+        private Integer writeBatchSize = 500;
+
+        /**
+         * 在线推荐时参与打分的相似用户数
+         */
+        private Integer neighborLimit = 20;
+
+        /**
+         * 每个用户缓存的候选商品数
+         */
+        private Integer candidateLimit = 100;
+
+        /**
+         * 候选列表缓存时长（秒）
+         */
+        private Long candidateCacheTtl = 1800L;
+    }
+
+    /**
+     * 推荐结果预计算配置
+     */
+    @Data
+    public static class PrecomputeConfig {
+        /**
+         * 活跃用户判定窗口（天）
+         */
+        private Integer activeDays = 7;
+
+        /**
+         * 单次预计算的最大用户数（增量刷新超出部分顺延到下一轮）
+         */
+        private Integer maxUsers = 1000;
+
+        /**
+         * 每个用户预计算的推荐条数
+         */
+        private Integer size = 20;
+
+        /**
+         * 并发计算的用户数上限
+         */
+        private Integer concurrency = 16;
+
+        /**
+         * 每批写入 Redis 的用户数
+         */
+        private Integer writeBatchSize = 200;
+
+        /**
+         * 预计算结果保留时长（秒）
+         */
+        private Long ttl = 86400L;
+
+        /**
+         * 超过该时长（秒）的预计算结果计为陈旧
+         */
+        private Long staleAfter = 3600L;
+
+        /**
+         * 预计算结果中仍在售商品的最低占比，低于该比例时用实时结果补足
+         */
+        private Double minServeRatio = 0.5;
+    }
+
+    /**
+     * 相似商品索引配置
+     */
+    @Data
+    public static class ItemSimilarityConfig {
+        /**
+         * 是否启用内存索引（关闭时回落到数据库扫描）
+         */
+        private Boolean enabled = true;
+
+        /**
+         * 标题 MinHash 签名长度
+         */
+        private Integer signatureSize = 32;
+
+        /**
+         * 相似度阈值
+         */
+        private Double minScore = 0.3;
+
+        /**
+         * 删除标记占比超过该值时重建
+         */
+        private Double tombstoneThreshold = 0.3;
+    }
+
+    /**
+     * 实时热度榜配置
+     */
+    @Data
+    public static class LeaderboardConfig {
+        /**
+         * 是否启用实时热度榜（关闭时热榜仅按定时刷新结果）
+         */
+        private Boolean enabled = true;
+
+        /**
+         * 热度半衰期（小时）
+         */
+        private Integer halfLifeHours = 24;
+
+        /**
+         * 滚动窗口长度（小时）
+         */
+        private Integer windowHours = 168;
+
+        /**
+         * 浏览权重
+         */
+        private Double viewWeight = 1.0;
+
+        /**
+         * 收藏权重
+         */
+        private Double favoriteWeight = 3.0;
+
+        /**
+         * 下单权重
+         */
+        private Double orderWeight = 5.0;
+    }
 }
@@ -0,0 +1,73 @@
+package com.campus.marketplace.common.config.properties;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 秒杀库存预留配置
+ *
+ * 使用示例：
+ * - campaign.stock.enabled=true                       // 扣减走本地缓存 + Redis 原子脚本 + Stream 异步落库（memory 模式下自动关闭）
+ * - campaign.stock.key-prefix=campaign:flash:         // 活动库存/状态 Hash 键前缀
+ * - campaign.stock.stream-key=campaign:reserve:stream // 预留记录 Stream
+ * - campaign.stock.meta-cache-seconds=5               // 本地活动元数据缓存时长（秒）
+ * - campaign.stock.sold-out-ttl-seconds=30            // 本地售罄标记保留时长（秒）
+ * - campaign.stock.batch-size=500                     // 单批落库条数
+ * - campaign.stock.poll-interval-ms=500               // Stream 消费间隔（毫秒）
+ *
+ * @author BaSui
+ * @date 2026-10-16
+ */
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "campaign.stock")
+public class CampaignStockProperties {
+
+    /**
+     * 是否启用秒杀预留流水线
+     */
+    private boolean enabled = true;
+
+    /**
+     * 活动库存/状态 Hash 键前缀
+     */
+    private String keyPrefix = "campaign:flash:";
+
+    /**
+     * 预留记录 Stream
+     */
+    private String streamKey = "campaign:reserve:stream";
+
+    /**
+     * Stream 消费组
+     */
+    private String consumerGroup = "campaign-reserve-persister";
+
+    /**
+     * 本地活动元数据缓存时长（秒），本节点状态变更时立即失效，其他节点最迟在该时长后感知
+     */
+    private long metaCacheSeconds = 5;
+
+    /**
+     * 本地售罄标记保留时长（秒），期间请求不再访问 Redis
+     */
+    private long soldOutTtlSeconds = 30;
+
+    /**
+     * 单批落库条数
+     */
+    private int batchSize = 500;
+
+    /**
+     * 消费者空闲超过该时长（毫秒）的未确认消息会被重新认领
+     */
+    private long claimIdleMs = 60000;
+
+    /**
+     * 单条消息最多投递次数，达到后转入死信 Stream（{stream-key}:dlq）
+     */
+    private int maxDeliveries = 5;
+}
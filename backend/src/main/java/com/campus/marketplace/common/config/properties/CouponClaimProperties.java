@@ -0,0 +1,62 @@
+package com.campus.marketplace.common.config.properties;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 优惠券领取引擎配置
+ *
+ * 使用示例：
+ * - coupon.claim.enabled=true                 // 领取走 Redis 原子脚本 + Stream 异步落库（memory 模式下自动关闭）
+ * - coupon.claim.key-prefix=coupon:claim:     // 库存/限领计数键前缀
+ * - coupon.claim.stream-key=coupon:claim:stream // 领取记录 Stream
+ * - coupon.claim.batch-size=500               // 单批落库条数
+ * - coupon.claim.poll-interval-ms=500         // Stream 消费间隔（毫秒）
+ * - coupon.claim.reconcile-interval-ms=60000  // 领取计数对账间隔（毫秒）
+ *
+ * @author BaSui
+ * @date 2026-10-16
+ */
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "coupon.claim")
+public class CouponClaimProperties {
+
+    /**
+     * 是否启用 Redis 领取引擎
+     */
+    private boolean enabled = true;
+
+    /**
+     * 库存/限领计数键前缀
+     */
+    private String keyPrefix = "coupon:claim:";
+
+    /**
+     * 领取记录 Stream
+     */
+    private String streamKey = "coupon:claim:stream";
+
+    /**
+     * Stream 消费组
+     */
+    private String consumerGroup = "coupon-claim-persister";
+
+    /**
+     * 单批落库条数
+     */
+    private int batchSize = 500;
+
+    /**
+     * 消费者空闲超过该时长（毫秒）的未确认消息会被重新认领
+     */
+    private long claimIdleMs = 60000;
+
+    /**
+     * 单条消息最多投递次数，达到后转入死信 Stream（{stream-key}:dlq）
+     */
+    private int maxDeliveries = 5;
+}
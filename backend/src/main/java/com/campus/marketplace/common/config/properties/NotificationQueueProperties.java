@@ -0,0 +1,72 @@
+package com.campus.marketplace.common.config.properties;
+
+import com.campus.marketplace.common.enums.NotificationChannel;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * 通知队列（Redis Stream）配置
+ *
+ * 使用示例：
+ * - notifications.queue.stream-key=notifications:stream      // 通知 Stream
+ * - notifications.queue.consumer-group=notification-senders  // 消费组，多节点共享
+ * - notifications.queue.batch-size=50                         // 单次 XREADGROUP 最多读取条数
+ * - notifications.queue.block-ms=2000                         // XREADGROUP 阻塞等待时长（毫秒）
+ * - notifications.queue.claim-idle-ms=300000                  // 未确认消息空闲超过该时长后被 XAUTOCLAIM 接管
+ * - notifications.queue.max-in-flight=256                     // 本节点同时处理的通知上限（虚拟线程）
+ * - notifications.queue.channel-concurrency.EMAIL=8           // 各渠道同时发送上限
+ *
+ * @author BaSui
+ * @date 2026-10-16
+ */
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "notifications.queue")
+public class NotificationQueueProperties {
+
+    /**
+     * 是否启动 Stream 消费
+     */
+    private boolean enabled = true;
+
+    private String streamKey = "notifications:stream";
+
+    private String consumerGroup = "notification-senders";
+
+    /**
+     * 单次 XREADGROUP 最多读取条数
+     */
+    private int batchSize = 50;
+
+    /**
+     * XREADGROUP 阻塞等待时长（毫秒）
+     */
+    private long blockMs = 2000;
+
+    /**
+     * 未确认消息空闲超过该时长后被任一节点接管（毫秒）
+     *
+     * 处理中的消息每 1/3 间隔续期一次，该值需明显长于单次续期往返与最慢一次发送（如 SMTP 超时），
+     * 否则存活节点的消息也可能被接管重发
+     */
+    private long claimIdleMs = 300_000;
+
+    /**
+     * 本节点同时处理的通知上限，达到上限时暂停读取
+     */
+    private int maxInFlight = 256;
+
+    /**
+     * 各渠道同时发送上限，未配置的渠道使用 maxInFlight
+     */
+    private Map<NotificationChannel, Integer> channelConcurrency = new EnumMap<>(Map.of(
+            NotificationChannel.IN_APP, 64,
+            NotificationChannel.EMAIL, 8,
+            NotificationChannel.WEB_PUSH, 16));
+}
@@ -12,6 +12,9 @@ import org.springframework.stereotype.Component;
  * - order.timeout.minutes=30           // 待支付超时分钟数
  * - order.timeout.reminder.lead-minutes=5  // 超时前提醒的提前分钟数
  * - order.timeout.reminder.interval=300000 // 提醒任务轮询间隔（毫秒）
+ * - order.timeout.bulk-cancel=true           // 兜底扫描使用集合式 SQL 分块取消
+ * - order.timeout.bulk-chunk-size=500        // 每块取消的订单数
+ * - order.timeout.optimistic-placement=false // 乐观下单：事务外 Redis 抢占商品，替代行级写锁
  *
  * @author BaSui
  * @date 2025-11-11
@@ -36,5 +39,19 @@ public class OrderProperties {
      * 提醒任务轮询间隔（毫秒）
      */
     private long reminderInterval = 600000; // 默认10分钟
-}
 
+    /**
+     * 兜底扫描是否使用集合式 SQL 分块取消（false 时逐单实体更新）
+     */
+    private boolean bulkCancel = true;
+
+    /**
+     * 分块取消时每块订单数
+     */
+    private int bulkChunkSize = 500;
+
+    /**
+     * 乐观下单模式：下单事务前通过 Redis SET NX 抢占商品，抢占失败直接拒绝，事务内不再加行级写锁
+     */
+    private boolean optimisticPlacement = false;
+}
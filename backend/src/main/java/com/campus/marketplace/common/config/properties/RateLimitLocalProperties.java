@@ -0,0 +1,50 @@
+package com.campus.marketplace.common.config.properties;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 限流本地预过滤层配置
+ *
+ * 使用示例：
+ * - rate-limit.local.enabled=true            // 滑动窗口限流走本地额度租约（关闭时每个请求 4 次 Redis 调用）
+ * - rate-limit.local.lease-size=20           // 单次租约最多占用的额度
+ * - rate-limit.local.lease-ttl-ms=1000       // 本地租约/拒绝结果有效期（毫秒）
+ * - rate-limit.local.min-limit-for-lease=50  // 窗口阈值低于该值时每次只租 1 个额度，避免多节点预占挤掉小额度
+ *
+ * @author BaSui
+ * @date 2026-10-16
+ */
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "rate-limit.local")
+public class RateLimitLocalProperties {
+
+    /**
+     * 是否启用本地预过滤层
+     */
+    private boolean enabled = true;
+
+    /**
+     * 单次租约最多占用的额度
+     */
+    private int leaseSize = 20;
+
+    /**
+     * 本地租约/拒绝结果有效期（毫秒），同时不超过限流窗口
+     */
+    private long leaseTtlMs = 1000;
+
+    /**
+     * 窗口阈值低于该值时每次只租 1 个额度
+     */
+    private int minLimitForLease = 50;
+
+    /**
+     * 本地最多保留的限流键数量
+     */
+    private long maxKeys = 100_000;
+}
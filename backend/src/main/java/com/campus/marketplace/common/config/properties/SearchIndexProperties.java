@@ -0,0 +1,51 @@
+package com.campus.marketplace.common.config.properties;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 内存检索索引配置
+ *
+ * 使用示例：
+ * - search.index.enabled=true                      // 启用内存倒排索引（默认关闭，走数据库 FTS）
+ * - search.index.consistency-check-interval=600000 // 一致性校验间隔（毫秒）
+ * - search.index.drift-threshold=0.01              // 索引与数据库文档数偏差超过 1% 时重建
+ * - search.index.tombstone-threshold=0.3           // 删除标记占比超过 30% 时重建压缩
+ * - search.index.shadow-sample-rate=0.01           // 1% 的查询同时走数据库 FTS 做结果比对
+ *
+ * @author BaSui
+ * @date 2026-10-16
+ */
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "search.index")
+public class SearchIndexProperties {
+
+    /**
+     * 是否启用内存索引
+     */
+    private boolean enabled = false;
+
+    /**
+     * 一致性校验间隔（毫秒）
+     */
+    private long consistencyCheckInterval = 600000;
+
+    /**
+     * 文档数偏差阈值（比例）
+     */
+    private double driftThreshold = 0.01;
+
+    /**
+     * 删除标记占比阈值（比例）
+     */
+    private double tombstoneThreshold = 0.3;
+
+    /**
+     * 影子比对采样率（0~1）
+     */
+    private double shadowSampleRate = 0.01;
+}
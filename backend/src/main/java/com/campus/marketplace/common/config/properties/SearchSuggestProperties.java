@@ -0,0 +1,45 @@
+package com.campus.marketplace.common.config.properties;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 搜索建议配置
+ *
+ * 使用示例：
+ * - search.suggest.enabled=true            // 启用内存前缀树补全（关闭时走数据库前缀查询）
+ * - search.suggest.refresh-interval=300000 // 前缀树刷新间隔（毫秒）
+ * - search.suggest.max-keywords=20000      // 载入前缀树的热词上限
+ * - search.suggest.top-k=10                // 每个前缀保留的候选数
+ *
+ * @author BaSui
+ * @date 2026-10-16
+ */
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "search.suggest")
+public class SearchSuggestProperties {
+
+    /**
+     * 是否启用内存前缀树
+     */
+    private boolean enabled = true;
+
+    /**
+     * 刷新间隔（毫秒）
+     */
+    private long refreshInterval = 300000;
+
+    /**
+     * 载入的热词上限
+     */
+    private int maxKeywords = 20000;
+
+    /**
+     * 每个前缀保留的候选数
+     */
+    private int topK = 10;
+}
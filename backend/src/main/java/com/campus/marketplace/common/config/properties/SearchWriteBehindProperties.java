@@ -0,0 +1,45 @@
+package com.campus.marketplace.common.config.properties;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 搜索行为异步落库配置
+ *
+ * 使用示例：
+ * - search.write-behind.flush-interval=1000      // 刷盘间隔（毫秒）
+ * - search.write-behind.queue-capacity=10000     // 搜索日志/历史队列容量，满时丢弃并计数
+ * - search.write-behind.batch-size=500           // 单批 JDBC 写入条数
+ * - search.write-behind.max-pending-keywords=10000 // 单个周期内最多聚合的不同关键词数
+ *
+ * @author BaSui
+ * @date 2026-10-16
+ */
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "search.write-behind")
+public class SearchWriteBehindProperties {
+
+    /**
+     * 刷盘间隔（毫秒）
+     */
+    private long flushInterval = 1000;
+
+    /**
+     * 日志/历史队列容量
+     */
+    private int queueCapacity = 10000;
+
+    /**
+     * 单批写入条数
+     */
+    private int batchSize = 500;
+
+    /**
+     * 单周期聚合的关键词上限
+     */
+    private int maxPendingKeywords = 10000;
+}
@@ -0,0 +1,62 @@
+package com.campus.marketplace.common.config.properties;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.util.UUID;
+
+/**
+ * WebSocket 集群路由配置
+ *
+ * 使用示例：
+ * - websocket.cluster.enabled=true               // 是否跨节点转发推送
+ * - websocket.cluster.node-id=app-1              // 本节点 ID，默认 主机名-进程号
+ * - websocket.cluster.route-key-prefix=ws:route: // 会话归属键前缀：Hash {prefix}{endpoint}:{userId}，字段为节点 ID
+ * - websocket.cluster.channel-prefix=ws:node:    // 节点频道前缀：{prefix}{nodeId}
+ * - websocket.cluster.route-ttl-seconds=300      // 会话归属过期时间，心跳续期
+ *
+ * @author BaSui
+ * @date 2026-10-16
+ */
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "websocket.cluster")
+public class WebSocketClusterProperties {
+
+    /**
+     * 是否跨节点转发推送，关闭时只投递本节点会话
+     */
+    private boolean enabled = true;
+
+    /**
+     * 本节点 ID，多节点部署时必须唯一
+     */
+    private String nodeId = defaultNodeId();
+
+    private String routeKeyPrefix = "ws:route:";
+
+    private String channelPrefix = "ws:node:";
+
+    /**
+     * 会话归属过期时间（秒），与在线状态一致，由心跳续期
+     */
+    private long routeTtlSeconds = 300;
+
+    public void setNodeId(String nodeId) {
+        if (nodeId != null && !nodeId.isBlank()) {
+            this.nodeId = nodeId;
+        }
+    }
+
+    private static String defaultNodeId() {
+        try {
+            return InetAddress.getLocalHost().getHostName() + "-" + ProcessHandle.current().pid();
+        } catch (Exception e) {
+            return UUID.randomUUID().toString();
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.campus.marketplace.common.config.properties;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * WebSocket 出站队列配置
+ *
+ * 使用示例：
+ * - websocket.outbound.queue-capacity=256        // 每个会话最多排队的帧数
+ * - websocket.outbound.send-time-limit-ms=10000  // 单帧发送超过该时长视为慢消费者，发送完成后断开
+ * - websocket.outbound.overflow-policy=CLOSE     // 队列满时：CLOSE 断开连接 / DROP_OLDEST 丢弃最早的帧
+ *
+ * @author BaSui
+ * @date 2026-10-16
+ */
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "websocket.outbound")
+public class WebSocketOutboundProperties {
+
+    /**
+     * 每个会话最多排队的帧数
+     */
+    private int queueCapacity = 256;
+
+    /**
+     * 单帧发送时长上限（毫秒）
+     */
+    private long sendTimeLimitMs = 10_000;
+
+    private OverflowPolicy overflowPolicy = OverflowPolicy.CLOSE;
+
+    /**
+     * 队列满时的处理方式
+     */
+    public enum OverflowPolicy {
+        /**
+         * 断开慢连接，客户端重连后拉取未读消息
+         */
+        CLOSE,
+        /**
+         * 丢弃最早排队的帧，保留最新推送
+         */
+        DROP_OLDEST
+    }
+}
@@ -53,4 +53,9 @@ public class SearchFilterDTO {
      * 排序方向（ASC/DESC）
      */
     private String sortDirection;
+
+    /**
+     * keyset 游标：上一页最后一条商品ID（传入后忽略页码，按游标续查）
+     */
+    private Long lastId;
 }
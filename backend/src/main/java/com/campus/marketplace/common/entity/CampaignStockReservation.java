@@ -0,0 +1,51 @@
+package com.campus.marketplace.common.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * 秒杀预留明细
+ *
+ * 由 CampaignReservationStreamConsumer 通过 JDBC 批量写入，声明实体以便 ddl-auto 环境（dev 关闭 Flyway）同样建表，
+ * 结构与 V20261016_04__campaign_stock_reservation.sql 保持一致。
+ *
+ * @author BaSui
+ * @date 2026-10-16
+ */
+@Entity
+@Table(name = "t_campaign_stock_reservation", indexes = {
+        @Index(name = "idx_campaign_reservation_campaign", columnList = "campaign_id")
+}, uniqueConstraints = {
+        @UniqueConstraint(name = "uk_campaign_reservation_id", columnNames = {"reservation_id"})
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CampaignStockReservation {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * 预留流水号（Stream 消息 ID，落库幂等键）
+     */
+    @Column(name = "reservation_id", nullable = false, length = 64)
+    private String reservationId;
+
+    @Column(name = "campaign_id", nullable = false)
+    private Long campaignId;
+
+    @Column(name = "quantity", nullable = false)
+    private Integer quantity;
+
+    @Column(name = "reserved_at", nullable = false)
+    private LocalDateTime reservedAt;
+
+    @Column(name = "created_at", nullable = false, columnDefinition = "TIMESTAMP DEFAULT CURRENT_TIMESTAMP")
+    private LocalDateTime createdAt;
+}
@@ -68,4 +68,10 @@ public class CouponUserRelation extends BaseEntity {
      */
     @Column(name = "expire_time", nullable = false)
     private LocalDateTime expireTime;
+
+    /**
+     * 领取流水号（领取引擎 Stream 消息ID，落库幂等键；数据库直领时为空）
+     */
+    @Column(name = "claim_id", length = 64, unique = true)
+    private String claimId;
 }
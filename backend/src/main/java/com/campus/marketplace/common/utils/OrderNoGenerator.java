@@ -0,0 +1,130 @@
+package com.campus.marketplace.common.utils;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 订单号生成器（Redis 租约分配节点号 + 无锁序列）
+ *
+ * - 启动时从随机起点探测 order:no:worker:{id}，SET NX 成功即占用该节点号，值为本节点令牌；
+ * - 独立线程定时续约（lua/compare_and_pexpire.lua 原子比较令牌后续期，不受共享 @Scheduled 线程排队影响），
+ *   发现租约已被其他节点占用（例如长时间 GC 导致过期）时立即重新申请，保证同一时刻节点号唯一；
+ * - 本地记录租约到期时间（以发起续约前的时间计算，偏保守），续约迟迟不成功、租约已到期时 next() 直接失败，
+ *   不会在节点号可能已被他人占用期间继续发号；
+ * - 节点号全部占满或 Redis 不可用时启动失败，避免带着可能重复的节点号对外服务。
+ *
+ * @author BaSui
+ * @date 2026-10-16
+ */
+@Slf4j
+@Component
+public class OrderNoGenerator {
+
+    static final String WORKER_KEY_PREFIX = "order:no:worker:";
+
+    private final RedisUtil redisUtil;
+    private final OrderNoSequence sequence = new OrderNoSequence();
+    private final String nodeToken = UUID.randomUUID().toString();
+
+    @Value("${order.no.worker-lease-seconds:60}")
+    private long leaseSeconds = 60;
+
+    @Value("${order.no.worker-renew-interval-ms:20000}")
+    private long renewIntervalMs = 20000;
+
+    private volatile int workerId = -1;
+
+    /**
+     * 本节点认定的租约到期时间（毫秒）
+     */
+    private volatile long leaseExpiresAt;
+
+    private ScheduledExecutorService renewer;
+
+    public OrderNoGenerator(RedisUtil redisUtil) {
+        this.redisUtil = redisUtil;
+    }
+
+    @PostConstruct
+    public void init() {
+        workerId = acquireWorkerId();
+        log.info("订单号节点号租约获取成功: workerId={}", workerId);
+        renewer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "order-no-lease-renewer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        renewer.scheduleWithFixedDelay(this::renewLease, renewIntervalMs, renewIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 生成订单号
+     *
+     * @throws IllegalStateException 节点号租约已到期且尚未续上
+     */
+    public String next() {
+        if (System.currentTimeMillis() >= leaseExpiresAt) {
+            throw new IllegalStateException("订单号节点号租约已过期，暂停生成订单号: workerId=" + workerId);
+        }
+        return sequence.next(workerId);
+    }
+
+    public int workerId() {
+        return workerId;
+    }
+
+    /**
+     * 续约节点号租约（间隔为租约时长的 1/3）
+     */
+    public void renewLease() {
+        int current = workerId;
+        try {
+            long startedAt = System.currentTimeMillis();
+            if (redisUtil.expireIfEquals(WORKER_KEY_PREFIX + current, nodeToken, leaseSeconds, TimeUnit.SECONDS)) {
+                leaseExpiresAt = startedAt + TimeUnit.SECONDS.toMillis(leaseSeconds);
+                return;
+            }
+            log.warn("订单号节点号租约已丢失，重新申请: workerId={}", current);
+            workerId = acquireWorkerId();
+            log.info("订单号节点号重新分配: {} -> {}", current, workerId);
+        } catch (Exception e) {
+            log.error("订单号节点号续约失败: workerId={}, error={}", current, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void release() {
+        if (renewer != null) {
+            renewer.shutdownNow();
+        }
+        try {
+            redisUtil.deleteIfEquals(WORKER_KEY_PREFIX + workerId, nodeToken);
+        } catch (Exception e) {
+            log.debug("释放订单号节点号失败: {}", e.getMessage());
+        }
+    }
+
+    private int acquireWorkerId() {
+        int slots = OrderNoSequence.MAX_WORKER_ID + 1;
+        int start = ThreadLocalRandom.current().nextInt(slots);
+        for (int i = 0; i < slots; i++) {
+            int candidate = (start + i) % slots;
+            long startedAt = System.currentTimeMillis();
+            if (Boolean.TRUE.equals(redisUtil.setIfAbsent(WORKER_KEY_PREFIX + candidate, nodeToken,
+                    leaseSeconds, TimeUnit.SECONDS))) {
+                leaseExpiresAt = startedAt + TimeUnit.SECONDS.toMillis(leaseSeconds);
+                return candidate;
+            }
+        }
+        throw new IllegalStateException("订单号节点号已全部占用，无法分配");
+    }
+}
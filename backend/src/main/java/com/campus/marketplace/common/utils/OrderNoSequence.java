@@ -0,0 +1,128 @@
+package com.campus.marketplace.common.utils;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * 订单号序列（无锁，单节点内严格递增）
+ *
+ * - 格式：ORD + yyyyMMddHHmmssSSS + 4 位节点号 + 4 位毫秒内序号，共 28 位，前缀可直接读出下单时间；
+ * - 状态为一个 AtomicLong：高位毫秒时间戳、低 12 位序号，CAS 推进，不加锁；
+ * - 同一毫秒序号用尽或时钟回拨时借用下一毫秒（逻辑时钟只增不减），不自旋等待也不抛异常；
+ * - 节点号由外部保证全局唯一（见 {@link OrderNoGenerator}），因此跨节点不会重复；
+ * - 日期前缀按秒缓存，每次调用除结果字符串外只使用线程本地缓冲区。
+ *
+ * @author BaSui
+ * @date 2026-10-16
+ */
+public final class OrderNoSequence {
+
+    public static final String PREFIX = "ORD";
+    public static final int MAX_WORKER_ID = 1023;
+    public static final int LENGTH = 28;
+
+    static final int SEQUENCE_BITS = 12;
+    static final long MAX_SEQUENCE = (1L << SEQUENCE_BITS) - 1;
+
+    private static final int DATE_OFFSET = 3;
+    private static final int MILLIS_OFFSET = DATE_OFFSET + 14;
+    private static final int WORKER_OFFSET = MILLIS_OFFSET + 3;
+    private static final int SEQUENCE_OFFSET = WORKER_OFFSET + 4;
+
+    private static final ThreadLocal<char[]> BUFFER = ThreadLocal.withInitial(() -> {
+        char[] buffer = new char[LENGTH];
+        PREFIX.getChars(0, PREFIX.length(), buffer, 0);
+        return buffer;
+    });
+
+    private final AtomicLong state = new AtomicLong();
+    private final LongSupplier clock;
+    private final ZoneId zone;
+    private volatile SecondPrefix secondPrefix = new SecondPrefix(Long.MIN_VALUE, new char[14]);
+
+    /**
+     * 某一秒的 yyyyMMddHHmmss 字符缓存
+     */
+    private record SecondPrefix(long epochSecond, char[] digits) {
+    }
+
+    public OrderNoSequence() {
+        this(System::currentTimeMillis, ZoneId.systemDefault());
+    }
+
+    public OrderNoSequence(LongSupplier clock, ZoneId zone) {
+        this.clock = clock;
+        this.zone = zone;
+    }
+
+    /**
+     * 生成下一个订单号
+     *
+     * @param workerId 节点号（0 ~ {@value #MAX_WORKER_ID}）
+     */
+    public String next(int workerId) {
+        if (workerId < 0 || workerId > MAX_WORKER_ID) {
+            throw new IllegalArgumentException("workerId 超出范围: " + workerId);
+        }
+        long packed = nextPacked();
+        long millis = packed >>> SEQUENCE_BITS;
+        int sequence = (int) (packed & MAX_SEQUENCE);
+
+        char[] buffer = BUFFER.get();
+        char[] date = prefixOf(millis / 1000);
+        System.arraycopy(date, 0, buffer, DATE_OFFSET, date.length);
+        writeDigits(buffer, MILLIS_OFFSET, 3, (int) (millis % 1000));
+        writeDigits(buffer, WORKER_OFFSET, 4, workerId);
+        writeDigits(buffer, SEQUENCE_OFFSET, 4, sequence);
+        return new String(buffer);
+    }
+
+    /**
+     * CAS 推进 (毫秒, 序号)，返回打包后的状态
+     */
+    long nextPacked() {
+        while (true) {
+            long current = state.get();
+            long lastMillis = current >>> SEQUENCE_BITS;
+            long now = clock.getAsLong();
+            long next;
+            if (now > lastMillis) {
+                next = now << SEQUENCE_BITS;
+            } else if ((current & MAX_SEQUENCE) < MAX_SEQUENCE) {
+                next = current + 1;
+            } else {
+                next = (lastMillis + 1) << SEQUENCE_BITS;
+            }
+            if (state.compareAndSet(current, next)) {
+                return next;
+            }
+        }
+    }
+
+    private char[] prefixOf(long epochSecond) {
+        SecondPrefix cached = secondPrefix;
+        if (cached.epochSecond() == epochSecond) {
+            return cached.digits();
+        }
+        LocalDateTime time = LocalDateTime.ofInstant(Instant.ofEpochSecond(epochSecond), zone);
+        char[] digits = new char[14];
+        writeDigits(digits, 0, 4, time.getYear());
+        writeDigits(digits, 4, 2, time.getMonthValue());
+        writeDigits(digits, 6, 2, time.getDayOfMonth());
+        writeDigits(digits, 8, 2, time.getHour());
+        writeDigits(digits, 10, 2, time.getMinute());
+        writeDigits(digits, 12, 2, time.getSecond());
+        secondPrefix = new SecondPrefix(epochSecond, digits);
+        return digits;
+    }
+
+    private static void writeDigits(char[] target, int offset, int width, int value) {
+        for (int i = offset + width - 1; i >= offset; i--) {
+            target[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+}
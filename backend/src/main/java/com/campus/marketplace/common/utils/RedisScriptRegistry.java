@@ -0,0 +1,152 @@
+package com.campus.marketplace.common.utils;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lua 脚本注册表
+ *
+ * - 所有脚本放在 classpath:lua/{name}.lua，启动时一次性读取并计算 SHA1，运行期复用同一个 {@link RedisScript} 实例；
+ * - 应用就绪后对 Redis 执行 SCRIPT LOAD 预热，调用走 EVALSHA；Redis 重启或 SCRIPT FLUSH 后
+ *   首次调用收到 NOSCRIPT 时由 Spring 的脚本执行器自动回退 EVAL 并重新缓存；
+ * - 每个脚本一个计时器 redis.script{script, result}，记录调用次数与耗时；
+ * - 新增脚本：在 lua 目录放置脚本文件，并在下方声明对应的 {@link Script} 常量。
+ *
+ * @author BaSui
+ * @date 2026-10-16
+ */
+@Slf4j
+@Component
+public class RedisScriptRegistry {
+
+    public static final Script<List> RATE_LIMIT_TOKEN_BUCKET = new Script<>("rate_limit_token_bucket", List.class);
+    public static final Script<List> RATE_LIMIT_LEASE = new Script<>("rate_limit_lease", List.class);
+    public static final Script<List> RATE_LIMIT_SLIDING_COUNTER = new Script<>("rate_limit_sliding_counter", List.class);
+    public static final Script<Long> CAMPAIGN_STOCK_DEDUCT = new Script<>("campaign_stock_deduct", Long.class);
+    public static final Script<List> CAMPAIGN_STOCK_RESERVE = new Script<>("campaign_stock_reserve", List.class);
+    public static final Script<Long> CAMPAIGN_STOCK_LOAD = new Script<>("campaign_stock_load", Long.class);
+    public static final Script<List> COUPON_CLAIM = new Script<>("coupon_claim", List.class);
+    public static final Script<Long> COUPON_LOAD = new Script<>("coupon_load", Long.class);
+    public static final Script<Long> HASH_UPDATE_IF_EXISTS = new Script<>("hash_update_if_exists", Long.class);
+    public static final Script<List> NOTIFICATION_AUTOCLAIM = new Script<>("notification_autoclaim", List.class);
+    public static final Script<Long> NOTIFICATION_TOUCH = new Script<>("notification_touch", Long.class);
+    public static final Script<Long> WS_PRESENCE_CLAIM = new Script<>("ws_presence_claim", Long.class);
+    public static final Script<Long> WS_PRESENCE_RELEASE = new Script<>("ws_presence_release", Long.class);
+    public static final Script<Long> COMPARE_AND_DELETE = new Script<>("compare_and_delete", Long.class);
+    public static final Script<Long> COMPARE_AND_REPLACE = new Script<>("compare_and_replace", Long.class);
+    public static final Script<Long> COMPARE_AND_PEXPIRE = new Script<>("compare_and_pexpire", Long.class);
+
+    private static final List<Script<?>> SCRIPTS = List.of(RATE_LIMIT_TOKEN_BUCKET, RATE_LIMIT_LEASE,
+            RATE_LIMIT_SLIDING_COUNTER, CAMPAIGN_STOCK_DEDUCT, CAMPAIGN_STOCK_RESERVE, CAMPAIGN_STOCK_LOAD,
+            COUPON_CLAIM, COUPON_LOAD, HASH_UPDATE_IF_EXISTS, NOTIFICATION_AUTOCLAIM, NOTIFICATION_TOUCH,
+            WS_PRESENCE_CLAIM, WS_PRESENCE_RELEASE, COMPARE_AND_DELETE, COMPARE_AND_REPLACE,
+            COMPARE_AND_PEXPIRE);
+
+    /**
+     * 脚本声明
+     *
+     * @param name       脚本名（对应 lua/{name}.lua）
+     * @param resultType 返回值类型（Long / List / Boolean / String）
+     */
+    public record Script<T>(String name, Class<T> resultType) {
+    }
+
+    private final Map<String, RedisScript<?>> scripts = new ConcurrentHashMap<>();
+    private final Map<String, Timer> successTimers = new ConcurrentHashMap<>();
+    private final Map<String, Timer> errorTimers = new ConcurrentHashMap<>();
+    private final ObjectProvider<RedisConnectionFactory> connectionFactoryProvider;
+    private final boolean useRedis;
+
+    public RedisScriptRegistry(MeterRegistry meterRegistry,
+                               ObjectProvider<RedisConnectionFactory> connectionFactoryProvider,
+                               @Value("${app.redis.mode:redis}") String redisMode) {
+        this.connectionFactoryProvider = connectionFactoryProvider;
+        this.useRedis = "redis".equalsIgnoreCase(redisMode);
+        for (Script<?> script : SCRIPTS) {
+            scripts.put(script.name(), new DefaultRedisScript<>(readScript(script.name()), script.resultType()));
+            successTimers.put(script.name(), Timer.builder("redis.script")
+                    .tag("script", script.name()).tag("result", "success").register(meterRegistry));
+            errorTimers.put(script.name(), Timer.builder("redis.script")
+                    .tag("script", script.name()).tag("result", "error").register(meterRegistry));
+        }
+        log.info("Lua 脚本注册完成: count={}", scripts.size());
+    }
+
+    /**
+     * 执行脚本
+     *
+     * @param template 调用方使用的模板（决定参数与返回值的序列化方式）
+     * @param script   脚本声明
+     * @param keys     KEYS
+     * @param args     ARGV
+     */
+    @SuppressWarnings("unchecked")
+    public <K, T> T execute(RedisOperations<K, ?> template, Script<T> script, List<K> keys, Object... args) {
+        RedisScript<T> redisScript = (RedisScript<T>) scripts.get(script.name());
+        if (redisScript == null) {
+            throw new IllegalArgumentException("未注册的 Lua 脚本: " + script.name());
+        }
+        long start = System.nanoTime();
+        try {
+            T result = template.execute(redisScript, keys, args);
+            successTimers.get(script.name()).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return result;
+        } catch (RuntimeException e) {
+            errorTimers.get(script.name()).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw e;
+        }
+    }
+
+    /**
+     * 应用就绪后 SCRIPT LOAD 预热，失败不影响启动（首次调用会回退 EVAL）
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void preload() {
+        RedisConnectionFactory connectionFactory = connectionFactoryProvider.getIfAvailable();
+        if (!useRedis || connectionFactory == null) {
+            return;
+        }
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            for (Map.Entry<String, RedisScript<?>> entry : scripts.entrySet()) {
+                String sha = connection.scriptingCommands()
+                        .scriptLoad(entry.getValue().getScriptAsString().getBytes(StandardCharsets.UTF_8));
+                if (!entry.getValue().getSha1().equals(sha)) {
+                    log.warn("Lua 脚本 SHA 不一致: script={}, local={}, redis={}", entry.getKey(),
+                            entry.getValue().getSha1(), sha);
+                }
+            }
+            log.info("Lua 脚本已预加载到 Redis: count={}", scripts.size());
+        } catch (Exception e) {
+            log.warn("Lua 脚本预加载失败，首次调用将回退 EVAL: {}", e.getMessage());
+        }
+    }
+
+    private static String readScript(String name) {
+        ClassPathResource resource = new ClassPathResource("lua/" + name + ".lua");
+        try {
+            return resource.getContentAsString(StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("读取 Lua 脚本失败: " + name, e);
+        }
+    }
+}
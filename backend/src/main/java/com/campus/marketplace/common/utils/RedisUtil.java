@@ -1,8 +1,13 @@
 package com.campus.marketplace.common.utils;
 
 import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.DefaultTypedTuple;
+import org.springframework.data.redis.core.RedisOperations;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.ZSetOperations;
 import org.springframework.stereotype.Component;
 
 import java.util.ArrayList;
@@ -15,6 +20,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.concurrent.ConcurrentMap;
@@ -37,13 +43,17 @@ import java.util.stream.Collectors;
 public class RedisUtil {
 
     private final RedisTemplate<String, Object> redisTemplate;
+    private final RedisScriptRegistry scriptRegistry;
     private final boolean useRedis;
 
     private final ConcurrentMap<String, ValueWrapper> store = new ConcurrentHashMap<>();
 
+    @Autowired
     public RedisUtil(ObjectProvider<RedisTemplate<String, Object>> redisTemplateProvider,
+                     RedisScriptRegistry scriptRegistry,
                      @Value("${app.redis.mode:redis}") String redisMode) {
         this.redisTemplate = redisTemplateProvider.getIfAvailable();
+        this.scriptRegistry = scriptRegistry;
         this.useRedis = this.redisTemplate != null && "redis".equalsIgnoreCase(redisMode);
     }
 
@@ -69,6 +79,51 @@ public class RedisUtil {
         setValue(key, value, System.currentTimeMillis() + unit.toMillis(timeout));
     }
 
+    /**
+     * 批量写入（同一过期时间），Redis 模式下通过 pipeline 一次往返提交
+     */
+    public void setAll(Map<String, ?> values, long timeout, TimeUnit unit) {
+        if (values.isEmpty()) {
+            return;
+        }
+        if (isRedisEnabled()) {
+            redisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public <K, V> Object execute(RedisOperations<K, V> operations) {
+                    RedisOperations<String, Object> ops = (RedisOperations<String, Object>) operations;
+                    values.forEach((key, value) -> ops.opsForValue().set(key, value, timeout, unit));
+                    return null;
+                }
+            });
+            return;
+        }
+        long expireAt = System.currentTimeMillis() + unit.toMillis(timeout);
+        values.forEach((key, value) -> setValue(key, value, expireAt));
+    }
+
+    /**
+     * 键不存在时写入（SET NX PX），返回是否写入成功
+     */
+    public Boolean setIfAbsent(String key, Object value, long timeout, TimeUnit unit) {
+        if (isRedisEnabled()) {
+            return redisTemplate.opsForValue().setIfAbsent(key, value, timeout, unit);
+        }
+        long expireAt = System.currentTimeMillis() + unit.toMillis(timeout);
+        boolean[] written = {false};
+        store.compute(key, (k, existing) -> {
+            if (existing != null && !existing.expired()) {
+                return existing;
+            }
+            written[0] = true;
+            ValueWrapper created = new ValueWrapper();
+            created.value = value;
+            created.expireAt = expireAt;
+            return created;
+        });
+        return written[0];
+    }
+
     public Object get(String key) {
         if (isRedisEnabled()) {
             return redisTemplate.opsForValue().get(key);
@@ -84,6 +139,59 @@ public class RedisUtil {
         return store.remove(key) != null;
     }
 
+    /**
+     * 仅当当前值等于 expected 时删除，返回是否删除
+     */
+    public boolean deleteIfEquals(String key, Object expected) {
+        if (isRedisEnabled()) {
+            Long deleted = scriptRegistry.execute(redisTemplate, RedisScriptRegistry.COMPARE_AND_DELETE,
+                    List.of(key), expected);
+            return deleted != null && deleted > 0;
+        }
+        ValueWrapper wrapper = getWrapper(key);
+        return wrapper != null && Objects.equals(wrapper.value, expected) && store.remove(key, wrapper);
+    }
+
+    /**
+     * 仅当当前值等于 expected 时替换为 value（保留过期时间），返回是否替换
+     */
+    public boolean replaceIfEquals(String key, Object expected, Object value) {
+        if (isRedisEnabled()) {
+            Long replaced = scriptRegistry.execute(redisTemplate, RedisScriptRegistry.COMPARE_AND_REPLACE,
+                    List.of(key), expected, value);
+            return replaced != null && replaced == 1L;
+        }
+        boolean[] replaced = {false};
+        store.computeIfPresent(key, (k, existing) -> {
+            if (existing.expired() || !Objects.equals(existing.value, expected)) {
+                return existing;
+            }
+            replaced[0] = true;
+            ValueWrapper updated = new ValueWrapper();
+            updated.value = value;
+            updated.expireAt = existing.expireAt;
+            return updated;
+        });
+        return replaced[0];
+    }
+
+    /**
+     * 仅当当前值等于 expected 时重设过期时间，返回是否续期
+     */
+    public boolean expireIfEquals(String key, Object expected, long timeout, TimeUnit unit) {
+        if (isRedisEnabled()) {
+            Long renewed = scriptRegistry.execute(redisTemplate, RedisScriptRegistry.COMPARE_AND_PEXPIRE,
+                    List.of(key), expected, unit.toMillis(timeout));
+            return renewed != null && renewed == 1L;
+        }
+        ValueWrapper wrapper = getWrapper(key);
+        if (wrapper == null || !Objects.equals(wrapper.value, expected)) {
+            return false;
+        }
+        wrapper.expireAt = System.currentTimeMillis() + unit.toMillis(timeout);
+        return true;
+    }
+
     public Long delete(Collection<String> keys) {
         if (isRedisEnabled()) {
             return redisTemplate.delete(keys);
@@ -287,6 +395,51 @@ public class RedisUtil {
         return !Objects.equals(previous, score);
     }
 
+    /**
+     * 批量写入有序集合成员（Redis 模式下单条 ZADD）
+     */
+    public void zAddAll(String key, Map<Object, Double> members) {
+        if (members.isEmpty()) {
+            return;
+        }
+        if (isRedisEnabled()) {
+            Set<ZSetOperations.TypedTuple<Object>> tuples = new HashSet<>(members.size() * 2);
+            members.forEach((member, score) -> tuples.add(new DefaultTypedTuple<>(member, score)));
+            redisTemplate.opsForZSet().add(key, tuples);
+            return;
+        }
+        getOrCreateZSet(key).putAll(members);
+    }
+
+    /**
+     * 整体替换有序集合：先写入临时键，再 RENAME 覆盖目标键（同一 pipeline 一次往返），
+     * 读方只会看到旧集合或完整的新集合；成员为空时直接删除目标键
+     */
+    public void zReplace(String key, Map<Object, Double> members, long timeout, TimeUnit unit) {
+        if (members.isEmpty()) {
+            delete(key);
+            return;
+        }
+        if (isRedisEnabled()) {
+            String tempKey = key + ":tmp:" + UUID.randomUUID();
+            Set<ZSetOperations.TypedTuple<Object>> tuples = new HashSet<>(members.size() * 2);
+            members.forEach((member, score) -> tuples.add(new DefaultTypedTuple<>(member, score)));
+            redisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public <K, V> Object execute(RedisOperations<K, V> operations) {
+                    RedisOperations<String, Object> ops = (RedisOperations<String, Object>) operations;
+                    ops.opsForZSet().add(tempKey, tuples);
+                    ops.expire(tempKey, timeout, unit);
+                    ops.rename(tempKey, key);
+                    return null;
+                }
+            });
+            return;
+        }
+        setValue(key, new ConcurrentHashMap<>(members), System.currentTimeMillis() + unit.toMillis(timeout));
+    }
+
     public Double zIncrementScore(String key, Object value, double delta) {
         if (isRedisEnabled()) {
             return redisTemplate.opsForZSet().incrementScore(key, value, delta);
@@ -297,6 +450,34 @@ public class RedisUtil {
         return newScore;
     }
 
+    /**
+     * 对多个有序集合中的同一成员批量累加分数并刷新过期时间（Redis 模式下一次 pipeline）
+     */
+    public void zIncrementAll(Map<String, Double> deltas, Object member, long timeout, TimeUnit unit) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        if (isRedisEnabled()) {
+            redisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public <K, V> Object execute(RedisOperations<K, V> operations) {
+                    RedisOperations<String, Object> ops = (RedisOperations<String, Object>) operations;
+                    deltas.forEach((key, delta) -> {
+                        ops.opsForZSet().incrementScore(key, member, delta);
+                        ops.expire(key, timeout, unit);
+                    });
+                    return null;
+                }
+            });
+            return;
+        }
+        deltas.forEach((key, delta) -> {
+            zIncrementScore(key, member, delta);
+            expire(key, timeout, unit);
+        });
+    }
+
     public Set<Object> zRange(String key, long start, long end) {
         if (isRedisEnabled()) {
             return redisTemplate.opsForZSet().range(key, start, end);
@@ -311,6 +492,35 @@ public class RedisUtil {
         return zRangeInternal(key, start, end, true);
     }
 
+    /**
+     * 按分数区间升序分页读取成员
+     */
+    public Set<Object> zRangeByScore(String key, double min, double max, long offset, long count) {
+        if (isRedisEnabled()) {
+            return redisTemplate.opsForZSet().rangeByScore(key, min, max, offset, count);
+        }
+        Map<Object, Double> map = getZSet(key);
+        if (map == null || map.isEmpty()) {
+            return Collections.emptySet();
+        }
+        LinkedHashSet<Object> result = new LinkedHashSet<>();
+        map.entrySet().stream()
+                .filter(entry -> entry.getValue() >= min && entry.getValue() <= max)
+                .sorted(Map.Entry.comparingByValue())
+                .skip(offset)
+                .limit(count)
+                .forEach(entry -> result.add(entry.getKey()));
+        return result;
+    }
+
+    public Long zSize(String key) {
+        if (isRedisEnabled()) {
+            return redisTemplate.opsForZSet().zCard(key);
+        }
+        Map<Object, Double> map = getZSet(key);
+        return map == null ? 0L : (long) map.size();
+    }
+
     public Long zRemove(String key, Object... values) {
         if (isRedisEnabled()) {
             return redisTemplate.opsForZSet().remove(key, values);
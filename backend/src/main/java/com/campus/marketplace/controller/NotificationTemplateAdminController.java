@@ -43,7 +43,9 @@ public class NotificationTemplateAdminController {
     @PreAuthorize("hasAuthority(T(com.campus.marketplace.common.security.PermissionCodes).SYSTEM_RATE_LIMIT_MANAGE)")
     @Operation(summary = "创建或更新")
     public ApiResponse<NotificationTemplate> save(@RequestBody NotificationTemplate tpl) {
-        return ApiResponse.success(repository.save(tpl));
+        NotificationTemplate saved = repository.save(tpl);
+        templateService.invalidate();
+        return ApiResponse.success(saved);
     }
 
     @DeleteMapping("/{id}")
@@ -51,6 +53,7 @@ public class NotificationTemplateAdminController {
     @Operation(summary = "删除")
     public ApiResponse<Void> delete(@Parameter(description = "模板ID", example = "3001") @PathVariable Long id) {
         repository.deleteById(id);
+        templateService.invalidate();
         return ApiResponse.success();
     }
 
@@ -1,5 +1,6 @@
 package com.campus.marketplace.controller;
 
+import com.campus.marketplace.common.component.GoodsPurchaseGate;
 import com.campus.marketplace.common.dto.request.CreateOrderRequest;
 import com.campus.marketplace.common.dto.request.PayOrderRequest;
 import com.campus.marketplace.common.dto.response.ApiResponse;
@@ -35,6 +36,7 @@ import org.springframework.web.bind.annotation.*;
 public class OrderController {
 
     private final OrderService orderService;
+    private final GoodsPurchaseGate purchaseGate;
 
     /**
      * 创建订单
@@ -66,7 +68,7 @@ public class OrderController {
     )
     public ApiResponse<String> createOrder(@Valid @RequestBody CreateOrderRequest request) {
         log.info("收到创建订单请求: goodsId={}", request.goodsId());
-        String orderNo = orderService.createOrder(request);
+        String orderNo = purchaseGate.place(request.goodsId(), () -> orderService.createOrder(request));
         return ApiResponse.success(orderNo);
     }
 
@@ -77,7 +77,8 @@ public class SearchController {
         @Parameter(description = "排序字段") @RequestParam(defaultValue = "createdAt") String sortBy,
         @Parameter(description = "排序方向") @RequestParam(defaultValue = "DESC") String sortDirection,
         @Parameter(description = "页码") @RequestParam(defaultValue = "0") int page,
-        @Parameter(description = "每页数量") @RequestParam(defaultValue = "20") int size
+        @Parameter(description = "每页数量") @RequestParam(defaultValue = "20") int size,
+        @Parameter(description = "游标：上一页最后一条商品ID（keyset 分页）") @RequestParam(required = false) Long lastId
     ) {
         Long userId = getCurrentUserIdOrNull();
         
@@ -87,6 +88,7 @@ public class SearchController {
             .categoryId(categoryId)
             .sortBy(sortBy)
             .sortDirection(sortDirection)
+            .lastId(lastId)
             .build();
 
         Pageable pageable = PageRequest.of(page, size);
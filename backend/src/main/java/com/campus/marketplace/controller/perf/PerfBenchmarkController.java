@@ -0,0 +1,134 @@
+package com.campus.marketplace.controller.perf;
+
+import com.campus.marketplace.common.dto.response.ApiResponse;
+import com.campus.marketplace.service.perf.BenchmarkReport;
+import com.campus.marketplace.service.perf.CouponClaimBenchmarkService;
+import com.campus.marketplace.service.perf.NotificationTemplateBenchmarkService;
+import com.campus.marketplace.service.perf.OrderNoBenchmarkService;
+import com.campus.marketplace.service.perf.OrderPlacementBenchmarkService;
+import com.campus.marketplace.service.perf.RateLimitBenchmarkService;
+import com.campus.marketplace.service.perf.RecommendBenchmarkService;
+import com.campus.marketplace.service.perf.SearchBenchmarkService;
+import com.campus.marketplace.service.perf.WebSocketSessionBenchmarkService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * 性能基准测试控制器，仅在 perf Profile 下启用。
+ */
+@Slf4j
+@Profile("perf")
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/perf/benchmark")
+@Tag(name = "性能基准测试", description = "压测专用基准测试入口")
+public class PerfBenchmarkController {
+
+    private final SearchBenchmarkService searchBenchmarkService;
+    private final RecommendBenchmarkService recommendBenchmarkService;
+    private final OrderNoBenchmarkService orderNoBenchmarkService;
+    private final OrderPlacementBenchmarkService orderPlacementBenchmarkService;
+    private final CouponClaimBenchmarkService couponClaimBenchmarkService;
+    private final RateLimitBenchmarkService rateLimitBenchmarkService;
+    private final NotificationTemplateBenchmarkService notificationTemplateBenchmarkService;
+    private final WebSocketSessionBenchmarkService webSocketSessionBenchmarkService;
+
+    @PostMapping("/search/goods")
+    @PreAuthorize("hasRole('SUPER_ADMIN')")
+    @Operation(summary = "商品检索规模化基准", description = "逐级补齐检索数据集并测量各规模下的检索延迟")
+    public ApiResponse<List<BenchmarkReport>> benchmarkGoodsSearch(
+            @RequestParam(name = "sizes", defaultValue = "10000,100000,1000000") List<Integer> sizes,
+            @RequestParam(name = "iterations", defaultValue = "200") int iterations) {
+        List<BenchmarkReport> reports = searchBenchmarkService.benchmarkGoodsSearch(sizes, iterations);
+        log.info("商品检索基准测试完成: sizes={}, scenarios={}", sizes, reports.size());
+        return ApiResponse.success(reports);
+    }
+
+    @PostMapping("/recommend/user-similarity")
+    @PreAuthorize("hasRole('SUPER_ADMIN')")
+    @Operation(summary = "用户相似度计算基准", description = "基于合成行为数据测量稀疏矩阵构建与 Top-K 相似度计算耗时")
+    public ApiResponse<List<BenchmarkReport>> benchmarkUserSimilarity(
+            @RequestParam(name = "users", defaultValue = "10000,50000,200000") List<Integer> users,
+            @RequestParam(name = "iterations", defaultValue = "3") int iterations) {
+        List<BenchmarkReport> reports = recommendBenchmarkService.benchmarkUserSimilarity(users, iterations);
+        log.info("用户相似度基准测试完成: users={}, scenarios={}", users, reports.size());
+        return ApiResponse.success(reports);
+    }
+
+    @PostMapping("/order/order-no")
+    @PreAuthorize("hasRole('SUPER_ADMIN')")
+    @Operation(summary = "订单号生成基准", description = "对比旧格式化实现与无锁序列实现的多线程吞吐与重复数")
+    public ApiResponse<List<BenchmarkReport>> benchmarkOrderNo(
+            @RequestParam(name = "threads", defaultValue = "1,8,32") List<Integer> threads,
+            @RequestParam(name = "perThread", defaultValue = "100000") int perThread) {
+        List<BenchmarkReport> reports = orderNoBenchmarkService.benchmarkOrderNo(threads, perThread);
+        log.info("订单号基准测试完成: threads={}, scenarios={}", threads, reports.size());
+        return ApiResponse.success(reports);
+    }
+
+    @PostMapping("/order/placement-contention")
+    @PreAuthorize("hasRole('SUPER_ADMIN')")
+    @Operation(summary = "下单抢购争用基准", description = "数百买家抢同一商品，对比行锁排队与 Redis 抢占闸门的买家响应耗时")
+    public ApiResponse<List<BenchmarkReport>> benchmarkPlacementContention(
+            @RequestParam(name = "buyers", defaultValue = "100,300,500") List<Integer> buyers,
+            @RequestParam(name = "holdMillis", defaultValue = "20") int holdMillis) {
+        List<BenchmarkReport> reports = orderPlacementBenchmarkService.benchmarkContention(buyers, holdMillis);
+        log.info("下单争用基准测试完成: buyers={}, scenarios={}", buyers, reports.size());
+        return ApiResponse.success(reports);
+    }
+
+    @PostMapping("/coupon/claim")
+    @PreAuthorize("hasRole('SUPER_ADMIN')")
+    @Operation(summary = "优惠券领取引擎压测", description = "多线程对合成券发起领取，统计吞吐、耗时分布与超发数")
+    public ApiResponse<List<BenchmarkReport>> benchmarkCouponClaim(
+            @RequestParam(name = "threads", defaultValue = "16,64") List<Integer> threads,
+            @RequestParam(name = "stock", defaultValue = "1000") int stock,
+            @RequestParam(name = "attempts", defaultValue = "20000") int attempts) {
+        List<BenchmarkReport> reports = couponClaimBenchmarkService.benchmarkClaim(threads, stock, attempts);
+        log.info("优惠券领取压测完成: threads={}, stock={}, attempts={}", threads, stock, attempts);
+        return ApiResponse.success(reports);
+    }
+
+    @PostMapping("/rate-limit/algorithms")
+    @PreAuthorize("hasRole('SUPER_ADMIN')")
+    @Operation(summary = "限流算法对比压测", description = "按固定速率分别压测滑动窗口、令牌桶与滑动窗口计数器，统计耗时分布与单键内存")
+    public ApiResponse<List<BenchmarkReport>> benchmarkRateLimitAlgorithms(
+            @RequestParam(name = "targetRps", defaultValue = "10000") int targetRps,
+            @RequestParam(name = "durationSeconds", defaultValue = "5") int durationSeconds,
+            @RequestParam(name = "threads", defaultValue = "32") int threads) {
+        List<BenchmarkReport> reports = rateLimitBenchmarkService.benchmarkAlgorithms(targetRps, durationSeconds, threads);
+        log.info("限流算法压测完成: targetRps={}, durationSeconds={}, threads={}", targetRps, durationSeconds, threads);
+        return ApiResponse.success(reports);
+    }
+
+    @PostMapping("/notification/template-render")
+    @PreAuthorize("hasRole('SUPER_ADMIN')")
+    @Operation(summary = "通知模板渲染基准", description = "在订单类模板上对比旧渲染路径与编译缓存渲染的单次耗时")
+    public ApiResponse<List<BenchmarkReport>> benchmarkTemplateRender(
+            @RequestParam(name = "iterations", defaultValue = "100000") int iterations) {
+        List<BenchmarkReport> reports = notificationTemplateBenchmarkService.benchmarkRender(iterations);
+        log.info("通知模板渲染基准完成: iterations={}, scenarios={}", iterations, reports.size());
+        return ApiResponse.success(reports);
+    }
+
+    @PostMapping("/websocket/sessions")
+    @PreAuthorize("hasRole('SUPER_ADMIN')")
+    @Operation(summary = "WebSocket 会话注册表基准", description = "按每用户多设备登记大量连接，统计每连接常驻内存与登记、查询、注销耗时")
+    public ApiResponse<List<BenchmarkReport>> benchmarkWebSocketSessions(
+            @RequestParam(name = "connections", defaultValue = "100000") int connections,
+            @RequestParam(name = "devicesPerUser", defaultValue = "2") int devicesPerUser) {
+        List<BenchmarkReport> reports = webSocketSessionBenchmarkService.benchmarkRegistry(connections, devicesPerUser);
+        log.info("WebSocket 会话注册表基准完成: connections={}, devicesPerUser={}", connections, devicesPerUser);
+        return ApiResponse.success(reports);
+    }
+}
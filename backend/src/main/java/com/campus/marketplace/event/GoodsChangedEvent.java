@@ -0,0 +1,58 @@
+package com.campus.marketplace.event;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * 商品变更事件
+ *
+ * 商品发布、审核、修改、上下架、删除后触发，
+ * 供内存检索索引等派生数据做增量更新（监听方按 goodsId 回查最新状态）
+ *
+ * @author BaSui
+ * @date 2026-10-16
+ */
+@Getter
+public class GoodsChangedEvent extends ApplicationEvent {
+
+    /**
+     * 变更类型
+     */
+    public enum ChangeType {
+        CREATED,
+        APPROVED,
+        REJECTED,
+        UPDATED,
+        STATUS_CHANGED,
+        DELETED
+    }
+
+    /**
+     * 商品ID
+     */
+    private final Long goodsId;
+
+    /**
+     * 变更类型
+     */
+    private final ChangeType changeType;
+
+    /**
+     * 构造商品变更事件
+     *
+     * @param source     事件源
+     * @param goodsId    商品ID
+     * @param changeType 变更类型
+     */
+    public GoodsChangedEvent(Object source, Long goodsId, ChangeType changeType) {
+        super(source);
+        this.goodsId = goodsId;
+        this.changeType = changeType;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("GoodsChangedEvent[goodsId=%d, changeType=%s, timestamp=%d]",
+            goodsId, changeType, getTimestamp());
+    }
+}
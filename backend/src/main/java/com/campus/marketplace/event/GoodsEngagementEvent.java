@@ -0,0 +1,61 @@
+package com.campus.marketplace.event;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * 商品互动事件
+ *
+ * 商品被浏览、收藏、下单后触发，供商品热度榜等实时统计消费
+ *
+ * @author BaSui
+ * @date 2026-10-16
+ */
+@Getter
+public class GoodsEngagementEvent extends ApplicationEvent {
+
+    /**
+     * 互动类型
+     */
+    public enum EngagementType {
+        VIEW,
+        FAVORITE,
+        ORDER
+    }
+
+    /**
+     * 商品ID
+     */
+    private final Long goodsId;
+
+    /**
+     * 商品所属校区ID（可为空）
+     */
+    private final Long campusId;
+
+    /**
+     * 互动类型
+     */
+    private final EngagementType engagementType;
+
+    /**
+     * 构造商品互动事件
+     *
+     * @param source         事件源
+     * @param goodsId        商品ID
+     * @param campusId       商品所属校区ID
+     * @param engagementType 互动类型
+     */
+    public GoodsEngagementEvent(Object source, Long goodsId, Long campusId, EngagementType engagementType) {
+        super(source);
+        this.goodsId = goodsId;
+        this.campusId = campusId;
+        this.engagementType = engagementType;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("GoodsEngagementEvent[goodsId=%d, campusId=%s, engagementType=%s, timestamp=%d]",
+            goodsId, campusId, engagementType, getTimestamp());
+    }
+}
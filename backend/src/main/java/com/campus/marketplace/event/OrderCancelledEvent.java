@@ -0,0 +1,52 @@
+package com.campus.marketplace.event;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * 订单取消事件
+ *
+ * 待支付订单被买卖双方取消或超时取消后触发，供释放商品抢占等后续处理消费
+ *
+ * @author BaSui
+ * @date 2026-10-16
+ */
+@Getter
+public class OrderCancelledEvent extends ApplicationEvent {
+
+    /**
+     * 订单ID
+     */
+    private final Long orderId;
+
+    /**
+     * 订单号
+     */
+    private final String orderNo;
+
+    /**
+     * 商品ID
+     */
+    private final Long goodsId;
+
+    /**
+     * 构造订单取消事件
+     *
+     * @param source  事件源
+     * @param orderId 订单ID
+     * @param orderNo 订单号
+     * @param goodsId 商品ID
+     */
+    public OrderCancelledEvent(Object source, Long orderId, String orderNo, Long goodsId) {
+        super(source);
+        this.orderId = orderId;
+        this.orderNo = orderNo;
+        this.goodsId = goodsId;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("OrderCancelledEvent[orderId=%d, orderNo=%s, goodsId=%d, timestamp=%d]",
+            orderId, orderNo, goodsId, getTimestamp());
+    }
+}
@@ -0,0 +1,37 @@
+package com.campus.marketplace.event;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * 帖子变更事件
+ *
+ * 帖子发布、审核、编辑、删除后触发，供内存检索索引做增量更新
+ *
+ * @author BaSui
+ * @date 2026-10-16
+ */
+@Getter
+public class PostChangedEvent extends ApplicationEvent {
+
+    /**
+     * 帖子ID
+     */
+    private final Long postId;
+
+    /**
+     * 构造帖子变更事件
+     *
+     * @param source 事件源
+     * @param postId 帖子ID
+     */
+    public PostChangedEvent(Object source, Long postId) {
+        super(source);
+        this.postId = postId;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("PostChangedEvent[postId=%d, timestamp=%d]", postId, getTimestamp());
+    }
+}
@@ -0,0 +1,62 @@
+package com.campus.marketplace.recommend;
+
+import java.util.Arrays;
+
+/**
+ * 推荐候选ID列表的紧凑编码（逗号分隔字符串）
+ *
+ * 整个列表作为单个 String 值读写，一次往返即可取回全部候选，
+ * 也避免逐个元素序列化带来的类型信息开销。
+ *
+ * @author BaSui
+ * @date 2026-10-16
+ */
+public final class CandidateIdCodec {
+
+    private CandidateIdCodec() {
+    }
+
+    public static String encode(long[] ids) {
+        StringBuilder sb = new StringBuilder(ids.length * 8);
+        for (int i = 0; i < ids.length; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append(ids[i]);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 解码缓存值
+     *
+     * @return 缓存未命中或格式非法时返回 null；空列表表示“已计算但无候选”
+     */
+    public static long[] decode(Object cached) {
+        if (!(cached instanceof String text)) {
+            return null;
+        }
+        if (text.isEmpty()) {
+            return new long[0];
+        }
+        long[] ids = new long[8];
+        int count = 0;
+        int start = 0;
+        try {
+            while (start <= text.length()) {
+                int end = text.indexOf(',', start);
+                if (end < 0) {
+                    end = text.length();
+                }
+                if (count == ids.length) {
+                    ids = Arrays.copyOf(ids, count << 1);
+                }
+                ids[count++] = Long.parseLong(text, start, end, 10);
+                start = end + 1;
+            }
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        return Arrays.copyOf(ids, count);
+    }
+}
@@ -0,0 +1,66 @@
+package com.campus.marketplace.recommend;
+
+import com.campus.marketplace.common.entity.Goods;
+import com.campus.marketplace.common.enums.GoodsStatus;
+import com.campus.marketplace.event.GoodsChangedEvent;
+import com.campus.marketplace.event.GoodsEngagementEvent;
+import com.campus.marketplace.repository.GoodsRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * 商品热度榜更新监听器
+ *
+ * 互动事件在事务提交后异步累加热度；商品不再在售时从榜单移除
+ *
+ * @author BaSui
+ * @date 2026-10-16
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class GoodsPopularityEventListener {
+
+    private final GoodsPopularityLeaderboard leaderboard;
+    private final GoodsRepository goodsRepository;
+
+    /**
+     * 处理商品互动事件
+     *
+     * @param event 商品互动事件
+     */
+    @Async
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onGoodsEngagement(GoodsEngagementEvent event) {
+        try {
+            leaderboard.record(event.getGoodsId(), event.getCampusId(), event.getEngagementType());
+        } catch (Exception e) {
+            log.warn("商品热度累加失败: {}", event, e);
+        }
+    }
+
+    /**
+     * 处理商品变更事件
+     *
+     * @param event 商品变更事件
+     */
+    @Async
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onGoodsChanged(GoodsChangedEvent event) {
+        if (event.getChangeType() == GoodsChangedEvent.ChangeType.CREATED
+                || event.getChangeType() == GoodsChangedEvent.ChangeType.APPROVED) {
+            return;
+        }
+        try {
+            Goods goods = goodsRepository.findById(event.getGoodsId()).orElse(null);
+            if (goods == null || goods.getStatus() != GoodsStatus.APPROVED) {
+                leaderboard.remove(event.getGoodsId(), goods != null ? goods.getCampusId() : null);
+            }
+        } catch (Exception e) {
+            log.warn("商品热度榜移除失败: {}", event, e);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.campus.marketplace.recommend;
+
+import com.campus.marketplace.common.config.RecommendConfigProperties;
+import com.campus.marketplace.common.utils.RedisUtil;
+import com.campus.marketplace.event.GoodsEngagementEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 商品实时热度榜（Redis ZSET，指数时间衰减）
+ *
+ * - 每次互动按 weight × e^(λ·(t - t0)) 做 ZINCRBY，λ = ln2 / 半衰期：
+ *   新事件的增量按时间指数放大，等价于旧分数按时间指数衰减，无需定期重算全部分数；
+ * - t0 取时间窗口起点，窗口滚动避免指数溢出：事件同时写入当前窗口与下一窗口（各自以窗口起点为基准），
+ *   切换窗口时新窗口已累计了上一窗口内的全部事件，旧窗口随 TTL 自然淘汰；
+ * - 全局榜与校区榜各一份：goods:pop:{global|campusId}:{窗口序号}。
+ *
+ * @author BaSui
+ * @date 2026-10-16
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class GoodsPopularityLeaderboard {
+
+    private static final String KEY_PREFIX = "goods:pop:";
+
+    private final RedisUtil redis;
+    private final RecommendConfigProperties properties;
+
+    /**
+     * 记录一次互动
+     */
+    public void record(Long goodsId, Long campusId, GoodsEngagementEvent.EngagementType type) {
+        RecommendConfigProperties.LeaderboardConfig config = properties.getLeaderboard();
+        double weight = weightOf(config, type);
+        if (!Boolean.TRUE.equals(config.getEnabled()) || goodsId == null || weight <= 0) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        long windowMillis = windowMillis(config);
+        long window = now / windowMillis;
+        double lambda = Math.log(2) / TimeUnit.HOURS.toMillis(config.getHalfLifeHours());
+
+        Map<String, Double> deltas = new HashMap<>();
+        for (String scope : scopes(campusId)) {
+            for (long w = window; w <= window + 1; w++) {
+                deltas.put(key(scope, w), weight * Math.exp(lambda * (now - w * windowMillis)));
+            }
+        }
+        redis.zIncrementAll(deltas, goodsId, windowMillis * 2 + TimeUnit.HOURS.toMillis(1), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 读取当前热度榜前 N 名商品ID
+     */
+    public List<Long> top(Long campusId, int size) {
+        RecommendConfigProperties.LeaderboardConfig config = properties.getLeaderboard();
+        if (!Boolean.TRUE.equals(config.getEnabled()) || size <= 0) {
+            return List.of();
+        }
+        long window = System.currentTimeMillis() / windowMillis(config);
+        Set<Object> members = redis.zReverseRange(key(scopeOf(campusId), window), 0, size - 1);
+        if (members == null || members.isEmpty()) {
+            return List.of();
+        }
+        List<Long> ids = new ArrayList<>(members.size());
+        for (Object member : members) {
+            if (member instanceof Number number) {
+                ids.add(number.longValue());
+            } else if (member instanceof String text) {
+                ids.add(Long.parseLong(text));
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * 商品下架/售出/删除后从榜单移除
+     */
+    public void remove(Long goodsId, Long campusId) {
+        RecommendConfigProperties.LeaderboardConfig config = properties.getLeaderboard();
+        long window = System.currentTimeMillis() / windowMillis(config);
+        for (String scope : scopes(campusId)) {
+            for (long w = window; w <= window + 1; w++) {
+                redis.zRemove(key(scope, w), goodsId);
+            }
+        }
+    }
+
+    private static List<String> scopes(Long campusId) {
+        return campusId == null ? List.of("global") : List.of("global", campusId.toString());
+    }
+
+    private static String scopeOf(Long campusId) {
+        return campusId == null ? "global" : campusId.toString();
+    }
+
+    private static String key(String scope, long window) {
+        return KEY_PREFIX + scope + ":" + window;
+    }
+
+    private static long windowMillis(RecommendConfigProperties.LeaderboardConfig config) {
+        return TimeUnit.HOURS.toMillis(config.getWindowHours());
+    }
+
+    private static double weightOf(RecommendConfigProperties.LeaderboardConfig config,
+                                   GoodsEngagementEvent.EngagementType type) {
+        return switch (type) {
+            case VIEW -> config.getViewWeight();
+            case FAVORITE -> config.getFavoriteWeight();
+            case ORDER -> config.getOrderWeight();
+        };
+    }
+}
@@ -0,0 +1,39 @@
+package com.campus.marketplace.recommend;
+
+import com.campus.marketplace.event.GoodsChangedEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * 相似商品索引增量更新监听器
+ *
+ * 在业务事务提交后异步回查商品最新状态并更新内存索引
+ *
+ * @author BaSui
+ * @date 2026-10-16
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ItemSimilarityEventListener {
+
+    private final ItemSimilarityService itemSimilarityService;
+
+    /**
+     * 处理商品变更事件
+     *
+     * @param event 商品变更事件
+     */
+    @Async
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onGoodsChanged(GoodsChangedEvent event) {
+        try {
+            itemSimilarityService.reindexGoods(event.getGoodsId());
+        } catch (Exception e) {
+            log.error("相似商品索引增量更新失败: {}", event, e);
+        }
+    }
+}
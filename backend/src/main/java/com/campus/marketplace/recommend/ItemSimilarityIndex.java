@@ -0,0 +1,294 @@
+package com.campus.marketplace.recommend;
+
+import com.campus.marketplace.search.ConcurrentBitmap;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 商品相似度内存索引（全量暴力 Top-K）
+ *
+ * - 每个商品的特征：分类ID、价格、标题词元 MinHash 签名，按列存放在原始类型数组中；
+ * - 相似度 = 0.5 × 同分类 + 0.3 × 价格接近度 + 0.2 × 标题 Jaccard（由 MinHash 签名一致率估计）；
+ * - 查询时顺序扫描全部商品，先用分类/价格得分上界剪枝，再比较签名，扫描过程不分配对象；
+ * - 写操作串行（synchronized），更新 = 旧槽位打删除标记 + 追加新槽位，读操作无锁。
+ *
+ * @author BaSui
+ * @date 2026-10-16
+ */
+public final class ItemSimilarityIndex {
+
+    private static final double CATEGORY_WEIGHT = 0.5;
+    private static final double PRICE_WEIGHT = 0.3;
+    private static final double TITLE_WEIGHT = 0.2;
+
+    private final int signatureSize;
+    private final long[] seeds;
+    private final Map<Long, Integer> slotById = new HashMap<>();
+    private final ConcurrentBitmap live = new ConcurrentBitmap(1024);
+
+    private volatile Columns columns;
+    private volatile int slotCount;
+
+    /**
+     * 查询结果（按相似度降序）
+     */
+    public record Neighbors(long[] ids, float[] scores) {
+    }
+
+    /**
+     * 列式特征存储，扩容时整体替换
+     */
+    private record Columns(long[] ids, long[] categories, float[] prices, int[] signatures, boolean[] hasTitle) {
+
+        static Columns allocate(int capacity, int signatureSize) {
+            return new Columns(new long[capacity], new long[capacity], new float[capacity],
+                    new int[capacity * signatureSize], new boolean[capacity]);
+        }
+
+        Columns grow(int capacity, int signatureSize) {
+            return new Columns(Arrays.copyOf(ids, capacity), Arrays.copyOf(categories, capacity),
+                    Arrays.copyOf(prices, capacity), Arrays.copyOf(signatures, capacity * signatureSize),
+                    Arrays.copyOf(hasTitle, capacity));
+        }
+
+        int capacity() {
+            return ids.length;
+        }
+    }
+
+    public ItemSimilarityIndex(int signatureSize) {
+        if (signatureSize <= 0) {
+            throw new IllegalArgumentException("signatureSize 必须为正数");
+        }
+        this.signatureSize = signatureSize;
+        this.seeds = new long[signatureSize];
+        long seed = 0x2545F4914F6CDD1DL;
+        for (int i = 0; i < signatureSize; i++) {
+            seed = mix64(seed + 0x9E3779B97F4A7C15L);
+            seeds[i] = seed | 1L;
+        }
+        this.columns = Columns.allocate(1024, signatureSize);
+    }
+
+    /**
+     * 新增或替换商品特征
+     *
+     * @param id          商品ID
+     * @param categoryId  分类ID（可为空）
+     * @param price       价格
+     * @param titleTokens 标题词元
+     */
+    public synchronized void upsert(long id, Long categoryId, double price, Collection<String> titleTokens) {
+        removeInternal(id);
+
+        int slot = slotCount;
+        Columns current = columns;
+        if (slot >= current.capacity()) {
+            current = current.grow(current.capacity() << 1, signatureSize);
+            columns = current;
+        }
+        current.ids()[slot] = id;
+        current.categories()[slot] = categoryId != null ? categoryId : Long.MIN_VALUE;
+        current.prices()[slot] = (float) price;
+        current.hasTitle()[slot] = !titleTokens.isEmpty();
+        writeSignature(titleTokens, current.signatures(), slot * signatureSize);
+
+        slotById.put(id, slot);
+        live.set(slot);
+        // 最后发布槽位数，读线程看到新槽位时以上写入均已可见
+        slotCount = slot + 1;
+    }
+
+    public synchronized void remove(long id) {
+        removeInternal(id);
+    }
+
+    private void removeInternal(long id) {
+        Integer previous = slotById.remove(id);
+        if (previous != null) {
+            live.clear(previous);
+        }
+    }
+
+    public synchronized boolean contains(long id) {
+        return slotById.containsKey(id);
+    }
+
+    /**
+     * 存活商品数
+     */
+    public synchronized int size() {
+        return slotById.size();
+    }
+
+    /**
+     * 已分配槽位数（含删除标记）
+     */
+    public int slotCount() {
+        return slotCount;
+    }
+
+    /**
+     * 查询与指定商品最相似的 Top-K 商品
+     *
+     * @param id       目标商品ID
+     * @param k        返回条数
+     * @param minScore 相似度下限（不含）
+     * @return 目标商品不在索引中时返回 null
+     */
+    public Neighbors similarTo(long id, int k, double minScore) {
+        int target;
+        synchronized (this) {
+            Integer slot = slotById.get(id);
+            if (slot == null) {
+                return null;
+            }
+            target = slot;
+        }
+        int count = slotCount;
+        Columns c = columns;
+        if (k <= 0) {
+            return new Neighbors(new long[0], new float[0]);
+        }
+
+        long targetCategory = c.categories()[target];
+        double targetPrice = c.prices()[target];
+        boolean targetHasTitle = c.hasTitle()[target];
+        int targetBase = target * signatureSize;
+        int[] signatures = c.signatures();
+
+        // 定长最小堆：堆顶为当前第 K 名
+        int[] heapSlots = new int[k];
+        float[] heapScores = new float[k];
+        int heapSize = 0;
+
+        for (int slot = 0; slot < count; slot++) {
+            if (slot == target || !live.get(slot)) {
+                continue;
+            }
+            double score = c.categories()[slot] == targetCategory && targetCategory != Long.MIN_VALUE
+                    ? CATEGORY_WEIGHT : 0d;
+            score += PRICE_WEIGHT * priceSimilarity(targetPrice, c.prices()[slot]);
+
+            boolean compareTitle = targetHasTitle && c.hasTitle()[slot];
+            double upperBound = score + (compareTitle ? TITLE_WEIGHT : 0d);
+            double floor = heapSize == k ? Math.max(minScore, heapScores[0]) : minScore;
+            if (upperBound <= floor) {
+                continue;
+            }
+            if (compareTitle) {
+                int base = slot * signatureSize;
+                int matches = 0;
+                for (int i = 0; i < signatureSize; i++) {
+                    if (signatures[targetBase + i] == signatures[base + i]) {
+                        matches++;
+                    }
+                }
+                score += TITLE_WEIGHT * matches / signatureSize;
+            }
+            if (score <= floor) {
+                continue;
+            }
+            if (heapSize < k) {
+                heapSlots[heapSize] = slot;
+                heapScores[heapSize] = (float) score;
+                siftUp(heapSlots, heapScores, heapSize++);
+            } else {
+                heapSlots[0] = slot;
+                heapScores[0] = (float) score;
+                siftDown(heapSlots, heapScores, heapSize);
+            }
+        }
+
+        // 依次弹出堆顶，倒序填充即为降序
+        long[] ids = new long[heapSize];
+        float[] scores = new float[heapSize];
+        for (int i = heapSize - 1; i >= 0; i--) {
+            ids[i] = c.ids()[heapSlots[0]];
+            scores[i] = heapScores[0];
+            heapSize--;
+            heapSlots[0] = heapSlots[heapSize];
+            heapScores[0] = heapScores[heapSize];
+            siftDown(heapSlots, heapScores, heapSize);
+        }
+        return new Neighbors(ids, scores);
+    }
+
+    /**
+     * 价格接近度：1 - min(1, |差价| / 均价)
+     */
+    static double priceSimilarity(double a, double b) {
+        double avg = (a + b) / 2.0;
+        if (avg <= 0) {
+            return a == b ? 1d : 0d;
+        }
+        return 1.0 - Math.min(1.0, Math.abs(a - b) / avg);
+    }
+
+    private void writeSignature(Collection<String> tokens, int[] target, int offset) {
+        Arrays.fill(target, offset, offset + signatureSize, Integer.MAX_VALUE);
+        for (String token : tokens) {
+            long base = mix64(token.hashCode() * 0xC2B2AE3D27D4EB4FL + token.length());
+            for (int i = 0; i < signatureSize; i++) {
+                int h = (int) (mix64(base ^ seeds[i]) >>> 33);
+                if (h < target[offset + i]) {
+                    target[offset + i] = h;
+                }
+            }
+        }
+    }
+
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private static boolean less(float[] scores, int[] slots, int a, int b) {
+        // 同分时槽位大（较新）的排在前面，堆顶保留较旧的以便被替换
+        return scores[a] < scores[b] || (scores[a] == scores[b] && slots[a] < slots[b]);
+    }
+
+    private static void siftUp(int[] slots, float[] scores, int index) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (!less(scores, slots, index, parent)) {
+                break;
+            }
+            swap(slots, scores, index, parent);
+            index = parent;
+        }
+    }
+
+    private static void siftDown(int[] slots, float[] scores, int size) {
+        int index = 0;
+        while (true) {
+            int left = (index << 1) + 1;
+            if (left >= size) {
+                break;
+            }
+            int smallest = left;
+            int right = left + 1;
+            if (right < size && less(scores, slots, right, left)) {
+                smallest = right;
+            }
+            if (!less(scores, slots, smallest, index)) {
+                break;
+            }
+            swap(slots, scores, index, smallest);
+            index = smallest;
+        }
+    }
+
+    private static void swap(int[] slots, float[] scores, int a, int b) {
+        int slot = slots[a];
+        slots[a] = slots[b];
+        slots[b] = slot;
+        float score = scores[a];
+        scores[a] = scores[b];
+        scores[b] = score;
+    }
+}
@@ -0,0 +1,184 @@
+package com.campus.marketplace.recommend;
+
+import com.campus.marketplace.common.config.RecommendConfigProperties;
+import com.campus.marketplace.search.SearchTokenizer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 相似商品索引服务
+ *
+ * - 启动后异步全量构建 {@link ItemSimilarityIndex}，定时重建以回收删除标记；
+ * - 商品审核通过/上下架/删除后按 goodsId 回查最新状态增量更新；
+ * - 未启用或未就绪时返回 empty，调用方回落到数据库扫描。
+ *
+ * @author BaSui
+ * @date 2026-10-16
+ */
+@Slf4j
+@Component
+public class ItemSimilarityService {
+
+    private static final String GOODS_SELECT =
+            "SELECT g.id, g.category_id, g.price, g.title FROM t_goods g " +
+            "WHERE g.status = 'APPROVED' AND g.deleted = false";
+
+    private static final int FETCH_SIZE = 2000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SearchTokenizer tokenizer;
+    private final RecommendConfigProperties properties;
+    private final Timer queryTimer;
+
+    private volatile ItemSimilarityIndex index;
+    private volatile boolean ready;
+
+    /**
+     * 重建期间发生变更的商品，切换后回放
+     */
+    private volatile Set<Long> pending;
+
+    public ItemSimilarityService(JdbcTemplate jdbcTemplate,
+                                 SearchTokenizer tokenizer,
+                                 RecommendConfigProperties properties,
+                                 MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.tokenizer = tokenizer;
+        this.properties = properties;
+        this.index = new ItemSimilarityIndex(properties.getItemSimilarity().getSignatureSize());
+        this.queryTimer = Timer.builder("recommend.item.similarity.query")
+                .description("相似商品索引查询耗时")
+                .register(meterRegistry);
+        Gauge.builder("recommend.item.similarity.documents", this, s -> s.index.size())
+                .register(meterRegistry);
+    }
+
+    /**
+     * 应用启动后异步构建索引
+     */
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        if (!isEnabled()) {
+            return;
+        }
+        try {
+            rebuild();
+        } catch (Exception e) {
+            log.error("相似商品索引构建失败，继续使用数据库扫描", e);
+        }
+    }
+
+    /**
+     * 定时全量重建（回收删除标记）
+     */
+    @Scheduled(fixedDelayString = "${recommend.item-similarity.rebuild.interval.ms:3600000}",
+            initialDelayString = "${recommend.item-similarity.rebuild.interval.ms:3600000}")
+    public void scheduledRebuild() {
+        if (!isReady()) {
+            return;
+        }
+        ItemSimilarityIndex current = index;
+        int slots = current.slotCount();
+        if (slots > 0 && (slots - current.size()) > slots * properties.getItemSimilarity().getTombstoneThreshold()) {
+            try {
+                rebuild();
+            } catch (Exception e) {
+                log.error("相似商品索引重建失败", e);
+            }
+        }
+    }
+
+    /**
+     * 全量重建（新索引构建完成后原子切换）
+     */
+    public synchronized void rebuild() {
+        long start = System.currentTimeMillis();
+        pending = ConcurrentHashMap.newKeySet();
+        try {
+            ItemSimilarityIndex rebuilt = new ItemSimilarityIndex(properties.getItemSimilarity().getSignatureSize());
+            jdbcTemplate.query(connection -> {
+                var statement = connection.prepareStatement(GOODS_SELECT);
+                statement.setFetchSize(FETCH_SIZE);
+                return statement;
+            }, rs -> {
+                upsert(rs, rebuilt);
+            });
+            index = rebuilt;
+        } finally {
+            Set<Long> toReplay = pending;
+            pending = null;
+            toReplay.forEach(this::reindexGoods);
+        }
+        ready = true;
+        log.info("相似商品索引构建完成: goods={}, costMs={}", index.size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * 增量更新单个商品（不再上架时移除）
+     */
+    public void reindexGoods(Long goodsId) {
+        if (!isEnabled() || goodsId == null) {
+            return;
+        }
+        Set<Long> replay = pending;
+        if (replay != null) {
+            replay.add(goodsId);
+        }
+        ItemSimilarityIndex target = index;
+        boolean[] found = new boolean[1];
+        jdbcTemplate.query(GOODS_SELECT + " AND g.id = ?", rs -> {
+            found[0] = true;
+            upsert(rs, target);
+        }, goodsId);
+        if (!found[0]) {
+            target.remove(goodsId);
+        }
+    }
+
+    /**
+     * 查询相似商品ID（按相似度降序）
+     *
+     * @return 索引未启用/未就绪，或商品不在索引中时返回 empty
+     */
+    public Optional<long[]> similarTo(Long goodsId, int size) {
+        if (!isReady() || goodsId == null) {
+            return Optional.empty();
+        }
+        ItemSimilarityIndex.Neighbors neighbors = queryTimer.record(() ->
+                index.similarTo(goodsId, size, properties.getItemSimilarity().getMinScore()));
+        return neighbors == null ? Optional.empty() : Optional.of(neighbors.ids());
+    }
+
+    public boolean isReady() {
+        return isEnabled() && ready;
+    }
+
+    private boolean isEnabled() {
+        return Boolean.TRUE.equals(properties.getItemSimilarity().getEnabled());
+    }
+
+    private void upsert(ResultSet rs, ItemSimilarityIndex target) throws SQLException {
+        long rawCategoryId = rs.getLong("category_id");
+        Long categoryId = rs.wasNull() ? null : rawCategoryId;
+        BigDecimal price = rs.getBigDecimal("price");
+        target.upsert(rs.getLong("id"), categoryId,
+                price != null ? price.doubleValue() : 0d,
+                tokenizer.tokenize(rs.getString("title")));
+    }
+}
@@ -0,0 +1,126 @@
+package com.campus.marketplace.recommend;
+
+import java.util.Arrays;
+
+/**
+ * 商品ID → 累计得分的原始类型哈希表（开放寻址 + 线性探测）
+ *
+ * - 只支持累加与按分数取 Top-N，满足候选打分场景，不支持删除；
+ * - 键值均为原始类型数组，累加过程中不产生装箱对象；
+ * - 非线程安全，仅在单次请求内使用。
+ *
+ * @author BaSui
+ * @date 2026-10-16
+ */
+public final class LongDoubleScoreMap {
+
+    private static final long EMPTY = Long.MIN_VALUE;
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private long[] keys;
+    private double[] values;
+    private int size;
+    private int mask;
+
+    public LongDoubleScoreMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(8, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        allocate(capacity);
+    }
+
+    /**
+     * 对指定键累加得分（键不存在时插入）
+     */
+    public void add(long key, double delta) {
+        if (key == EMPTY) {
+            throw new IllegalArgumentException("不支持的键: " + key);
+        }
+        int slot = indexOf(key);
+        if (keys[slot] == key) {
+            values[slot] += delta;
+            return;
+        }
+        keys[slot] = key;
+        values[slot] = delta;
+        if (++size > keys.length * LOAD_FACTOR) {
+            rehash();
+        }
+    }
+
+    /**
+     * 读取得分，键不存在返回 0
+     */
+    public double get(long key) {
+        int slot = indexOf(key);
+        return keys[slot] == key ? values[slot] : 0d;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 按得分降序取前 N 个键（同分按键升序，保证结果稳定）
+     */
+    public long[] topKeys(int limit) {
+        int n = Math.min(limit, size);
+        if (n <= 0) {
+            return new long[0];
+        }
+        long[] candidates = new long[size];
+        double[] scores = new double[size];
+        int count = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) {
+                candidates[count] = keys[i];
+                scores[count] = values[i];
+                count++;
+            }
+        }
+        Integer[] order = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> {
+            int cmp = Double.compare(scores[b], scores[a]);
+            return cmp != 0 ? cmp : Long.compare(candidates[a], candidates[b]);
+        });
+        long[] result = new long[n];
+        for (int i = 0; i < n; i++) {
+            result[i] = candidates[order[i]];
+        }
+        return result;
+    }
+
+    private int indexOf(long key) {
+        int slot = mix(key) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void rehash() {
+        long[] oldKeys = keys;
+        double[] oldValues = values;
+        allocate(oldKeys.length << 1);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = indexOf(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new double[capacity];
+        Arrays.fill(keys, EMPTY);
+        mask = capacity - 1;
+    }
+
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
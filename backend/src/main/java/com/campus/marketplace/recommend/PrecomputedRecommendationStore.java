@@ -0,0 +1,147 @@
+package com.campus.marketplace.recommend;
+
+import com.campus.marketplace.common.config.RecommendConfigProperties;
+import com.campus.marketplace.common.utils.RedisUtil;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 预计算推荐结果存储（Redis）
+ *
+ * - 键：混合推荐 recommend:pre:{userId}，个性化推荐 recommend:pre:personal:{userId}，
+ *   值：“计算时间戳毫秒:商品ID列表”（ID 列表见 {@link CandidateIdCodec}）；
+ * - 批量写入走 pipeline，读取为单次 GET；
+ * - 读取时记录命中率与结果年龄，超过 staleAfter 的结果仍返回，但计入陈旧指标；
+ * - 增量刷新水位同样存 Redis，任一节点接手调度都从同一水位继续。
+ *
+ * @author BaSui
+ * @date 2026-10-16
+ */
+@Slf4j
+@Component
+public class PrecomputedRecommendationStore {
+
+    private static final String WATERMARK_KEY = "recommend:precompute:watermark";
+
+    /**
+     * 预计算结果类型
+     */
+    public enum Kind {
+        /** 混合推荐（getHybridRecommendations） */
+        HYBRID("recommend:pre:"),
+        /** 个性化推荐（getPersonalRecommendations） */
+        PERSONAL("recommend:pre:personal:");
+
+        private final String keyPrefix;
+
+        Kind(String keyPrefix) {
+            this.keyPrefix = keyPrefix;
+        }
+    }
+
+    private final RedisUtil redis;
+    private final RecommendConfigProperties properties;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter staleHits;
+    private final DistributionSummary age;
+
+    public PrecomputedRecommendationStore(RedisUtil redis,
+                                          RecommendConfigProperties properties,
+                                          MeterRegistry meterRegistry) {
+        this.redis = redis;
+        this.properties = properties;
+        this.hits = Counter.builder("recommend.precomputed.reads").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("recommend.precomputed.reads").tag("result", "miss").register(meterRegistry);
+        this.staleHits = Counter.builder("recommend.precomputed.reads").tag("result", "stale").register(meterRegistry);
+        this.age = DistributionSummary.builder("recommend.precomputed.age")
+                .description("读取时预计算结果的年龄")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 读取用户的预计算推荐
+     *
+     * @return 未预计算、已过期或读取失败时返回 empty
+     */
+    public Optional<long[]> read(Kind kind, Long userId) {
+        Object cached;
+        try {
+            cached = redis.get(kind.keyPrefix + userId);
+        } catch (Exception e) {
+            log.warn("读取预计算推荐失败: kind={}, userId={}", kind, userId);
+            misses.increment();
+            return Optional.empty();
+        }
+        if (!(cached instanceof String value) || value.indexOf(':') < 0) {
+            misses.increment();
+            return Optional.empty();
+        }
+        int split = value.indexOf(':');
+        long[] ids = CandidateIdCodec.decode(value.substring(split + 1));
+        if (ids == null) {
+            misses.increment();
+            return Optional.empty();
+        }
+        long ageSeconds;
+        try {
+            ageSeconds = Math.max(0L, (System.currentTimeMillis() - Long.parseLong(value, 0, split, 10)) / 1000);
+        } catch (NumberFormatException e) {
+            misses.increment();
+            return Optional.empty();
+        }
+        age.record(ageSeconds);
+        if (ageSeconds > properties.getPrecompute().getStaleAfter()) {
+            staleHits.increment();
+        } else {
+            hits.increment();
+        }
+        return Optional.of(ids);
+    }
+
+    /**
+     * 批量写入预计算结果（一次 pipeline）
+     */
+    public void writeAll(Kind kind, Map<Long, long[]> recommendations) {
+        if (recommendations.isEmpty()) {
+            return;
+        }
+        String computedAt = Long.toString(System.currentTimeMillis());
+        Map<String, String> values = new HashMap<>(recommendations.size() * 2);
+        recommendations.forEach((userId, ids) ->
+                values.put(kind.keyPrefix + userId, computedAt + ":" + CandidateIdCodec.encode(ids)));
+        redis.setAll(values, properties.getPrecompute().getTtl(), TimeUnit.SECONDS);
+    }
+
+    /**
+     * 读取增量刷新水位（上次预计算开始时间）
+     *
+     * @return 从未写入或读取失败时返回 empty
+     */
+    public Optional<LocalDateTime> readWatermark() {
+        try {
+            Object value = redis.get(WATERMARK_KEY);
+            return value instanceof String text ? Optional.of(LocalDateTime.parse(text)) : Optional.empty();
+        } catch (Exception e) {
+            log.warn("读取推荐预计算水位失败: {}", e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * 推进增量刷新水位
+     */
+    public void writeWatermark(LocalDateTime watermark) {
+        redis.set(WATERMARK_KEY, watermark.toString());
+    }
+}
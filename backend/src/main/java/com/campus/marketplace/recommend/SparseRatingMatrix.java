@@ -0,0 +1,222 @@
+package com.campus.marketplace.recommend;
+
+import java.util.Arrays;
+
+/**
+ * 用户-商品行为稀疏矩阵（CSR + 转置 CSC）
+ *
+ * - 行 = 用户，列 = 商品，值 = 行为权重之和；
+ * - 用户/商品 ID 映射为稠密下标，全部使用原始类型数组，不产生装箱对象；
+ * - 同时保留按商品分组的倒排（商品 → 用户），用于基于共现生成候选用户对。
+ *
+ * @author BaSui
+ * @date 2026-10-16
+ */
+public final class SparseRatingMatrix {
+
+    private final long[] userIds;
+    private final long[] itemIds;
+    private final int[] rowPtr;
+    private final int[] cols;
+    private final float[] values;
+    private final int[] colPtr;
+    private final int[] rows;
+    private final float[] colValues;
+    private final double[] rowNorms;
+
+    private SparseRatingMatrix(long[] userIds, long[] itemIds, int[] rowPtr, int[] cols, float[] values) {
+        this.userIds = userIds;
+        this.itemIds = itemIds;
+        this.rowPtr = rowPtr;
+        this.cols = cols;
+        this.values = values;
+
+        int nnz = cols.length;
+        this.colPtr = new int[itemIds.length + 1];
+        for (int p = 0; p < nnz; p++) {
+            colPtr[cols[p] + 1]++;
+        }
+        for (int c = 0; c < itemIds.length; c++) {
+            colPtr[c + 1] += colPtr[c];
+        }
+        this.rows = new int[nnz];
+        this.colValues = new float[nnz];
+        int[] cursor = Arrays.copyOf(colPtr, itemIds.length);
+        for (int r = 0; r < userIds.length; r++) {
+            for (int p = rowPtr[r]; p < rowPtr[r + 1]; p++) {
+                int slot = cursor[cols[p]]++;
+                rows[slot] = r;
+                colValues[slot] = values[p];
+            }
+        }
+
+        this.rowNorms = new double[userIds.length];
+        for (int r = 0; r < userIds.length; r++) {
+            double sum = 0;
+            for (int p = rowPtr[r]; p < rowPtr[r + 1]; p++) {
+                sum += (double) values[p] * values[p];
+            }
+            rowNorms[r] = Math.sqrt(sum);
+        }
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public int userCount() {
+        return userIds.length;
+    }
+
+    public int itemCount() {
+        return itemIds.length;
+    }
+
+    public int nonZeros() {
+        return cols.length;
+    }
+
+    public long userId(int row) {
+        return userIds[row];
+    }
+
+    public long itemId(int col) {
+        return itemIds[col];
+    }
+
+    /**
+     * 用户ID → 行号，不存在返回负数
+     */
+    public int rowOf(long userId) {
+        return Arrays.binarySearch(userIds, userId);
+    }
+
+    int rowStart(int row) {
+        return rowPtr[row];
+    }
+
+    int rowEnd(int row) {
+        return rowPtr[row + 1];
+    }
+
+    int col(int position) {
+        return cols[position];
+    }
+
+    float value(int position) {
+        return values[position];
+    }
+
+    int colStart(int col) {
+        return colPtr[col];
+    }
+
+    int colEnd(int col) {
+        return colPtr[col + 1];
+    }
+
+    int colRow(int position) {
+        return rows[position];
+    }
+
+    float colValue(int position) {
+        return colValues[position];
+    }
+
+    double rowNorm(int row) {
+        return rowNorms[row];
+    }
+
+    /**
+     * 流式构建器：逐条追加 (用户, 商品, 权重)，重复项在构建时合并
+     */
+    public static final class Builder {
+
+        private long[] users = new long[1024];
+        private long[] items = new long[1024];
+        private float[] weights = new float[1024];
+        private int size;
+
+        private Builder() {
+        }
+
+        public Builder add(long userId, long itemId, float weight) {
+            if (size == users.length) {
+                int capacity = size << 1;
+                users = Arrays.copyOf(users, capacity);
+                items = Arrays.copyOf(items, capacity);
+                weights = Arrays.copyOf(weights, capacity);
+            }
+            users[size] = userId;
+            items[size] = itemId;
+            weights[size] = weight;
+            size++;
+            return this;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public SparseRatingMatrix build() {
+            long[] userIds = distinctSorted(users, size);
+            long[] itemIds = distinctSorted(items, size);
+
+            // 1. 按行计数排序
+            int[] rowPtr = new int[userIds.length + 1];
+            int[] rowOfEntry = new int[size];
+            for (int k = 0; k < size; k++) {
+                int row = Arrays.binarySearch(userIds, users[k]);
+                rowOfEntry[k] = row;
+                rowPtr[row + 1]++;
+            }
+            for (int r = 0; r < userIds.length; r++) {
+                rowPtr[r + 1] += rowPtr[r];
+            }
+            // 列号放高 32 位、权重位放低 32 位（权重非负，位序与数值序一致），行内一次排序即可按列有序
+            long[] packed = new long[size];
+            int[] cursor = Arrays.copyOf(rowPtr, userIds.length);
+            for (int k = 0; k < size; k++) {
+                int col = Arrays.binarySearch(itemIds, items[k]);
+                packed[cursor[rowOfEntry[k]]++] = ((long) col << 32) | (Float.floatToIntBits(weights[k]) & 0xFFFFFFFFL);
+            }
+
+            // 2. 行内排序并合并同一商品的多条行为
+            int[] cols = new int[size];
+            float[] values = new float[size];
+            int[] compactPtr = new int[userIds.length + 1];
+            int nnz = 0;
+            for (int r = 0; r < userIds.length; r++) {
+                Arrays.sort(packed, rowPtr[r], rowPtr[r + 1]);
+                int lastCol = -1;
+                for (int p = rowPtr[r]; p < rowPtr[r + 1]; p++) {
+                    int col = (int) (packed[p] >>> 32);
+                    float weight = Float.intBitsToFloat((int) packed[p]);
+                    if (col == lastCol) {
+                        values[nnz - 1] += weight;
+                    } else {
+                        cols[nnz] = col;
+                        values[nnz] = weight;
+                        nnz++;
+                        lastCol = col;
+                    }
+                }
+                compactPtr[r + 1] = nnz;
+            }
+            return new SparseRatingMatrix(userIds, itemIds, compactPtr,
+                    Arrays.copyOf(cols, nnz), Arrays.copyOf(values, nnz));
+        }
+
+        private static long[] distinctSorted(long[] source, int length) {
+            long[] sorted = Arrays.copyOf(source, length);
+            Arrays.sort(sorted);
+            int unique = 0;
+            for (int i = 0; i < sorted.length; i++) {
+                if (i == 0 || sorted[i] != sorted[i - 1]) {
+                    sorted[unique++] = sorted[i];
+                }
+            }
+            return Arrays.copyOf(sorted, unique);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.campus.marketplace.recommend;
+
+import com.campus.marketplace.common.config.RecommendConfigProperties;
+import com.campus.marketplace.common.enums.BehaviorType;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * 用户相似度离线计算
+ *
+ * 流程：一次流式读取行为日志 → 构建稀疏矩阵 → 并行计算 Top-K → 按批删除旧数据并批量插入。
+ *
+ * @author BaSui
+ * @date 2026-10-16
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UserSimilarityCalculator {
+
+    private static final String BEHAVIOR_SQL =
+            "SELECT user_id, target_id, behavior_type FROM t_user_behavior_log " +
+            "WHERE target_type = 'GOODS' AND target_id IS NOT NULL AND deleted = false AND created_at >= ?";
+
+    private static final String DELETE_SQL = "DELETE FROM t_user_similarity WHERE user_id IN (:userIds)";
+
+    private static final String INSERT_SQL =
+            "INSERT INTO t_user_similarity (user_id, similar_user_id, similarity_score, common_behavior_count, " +
+            "last_calculated_at, created_at, updated_at, deleted) VALUES (?, ?, ?, ?, ?, ?, ?, false)";
+
+    private static final int FETCH_SIZE = 5000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final RecommendConfigProperties recommendConfigProperties;
+
+    /**
+     * 计算结果摘要
+     */
+    public record Summary(int users, int items, int nonZeros, long pairs, long loadMs, long computeMs, long writeMs) {
+    }
+
+    /**
+     * 全量重算用户相似度
+     */
+    public Summary recalculate() {
+        RecommendConfigProperties.CfConfig cf = recommendConfigProperties.getCf();
+
+        long start = System.currentTimeMillis();
+        SparseRatingMatrix matrix = loadMatrix(LocalDateTime.now().minusDays(cf.getLookbackDays()));
+        long loaded = System.currentTimeMillis();
+
+        UserSimilarityEngine.Neighbors[] neighbors = compute(matrix, cf);
+        long computed = System.currentTimeMillis();
+
+        long pairs = write(matrix, neighbors, cf.getWriteBatchSize());
+        long written = System.currentTimeMillis();
+
+        return new Summary(matrix.userCount(), matrix.itemCount(), matrix.nonZeros(), pairs,
+                loaded - start, computed - loaded, written - computed);
+    }
+
+    /**
+     * 流式读取行为日志构建矩阵
+     */
+    SparseRatingMatrix loadMatrix(LocalDateTime since) {
+        Map<String, Float> weights = new HashMap<>();
+        for (BehaviorType type : BehaviorType.values()) {
+            weights.put(type.name(), (float) type.getWeight());
+        }
+        SparseRatingMatrix.Builder builder = SparseRatingMatrix.builder();
+        jdbcTemplate.query(connection -> {
+            var statement = connection.prepareStatement(BEHAVIOR_SQL);
+            statement.setFetchSize(FETCH_SIZE);
+            statement.setTimestamp(1, Timestamp.valueOf(since));
+            return statement;
+        }, rs -> {
+            Float weight = weights.get(rs.getString("behavior_type"));
+            if (weight != null) {
+                builder.add(rs.getLong("user_id"), rs.getLong("target_id"), weight);
+            }
+        });
+        return builder.build();
+    }
+
+    private UserSimilarityEngine.Neighbors[] compute(SparseRatingMatrix matrix, RecommendConfigProperties.CfConfig cf) {
+        int parallelism = cf.getParallelism() > 0 ? cf.getParallelism() : Runtime.getRuntime().availableProcessors();
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            return UserSimilarityEngine.computeTopK(matrix,
+                    new UserSimilarityEngine.Options(cf.getTopK(), cf.getMinSimilarity(), cf.getMaxItemUsers()), pool);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * 按批写回：每批用户在同一事务内删除旧数据并插入新数据，读侧不会看到空窗
+     */
+    private long write(SparseRatingMatrix matrix, UserSimilarityEngine.Neighbors[] neighbors, int batchSize) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        long pairs = 0;
+        for (int from = 0; from < neighbors.length; from += batchSize) {
+            int to = Math.min(neighbors.length, from + batchSize);
+            List<Long> userIds = new ArrayList<>(to - from);
+            List<Object[]> rows = new ArrayList<>();
+            for (int u = from; u < to; u++) {
+                long userId = matrix.userId(u);
+                userIds.add(userId);
+                UserSimilarityEngine.Neighbors list = neighbors[u];
+                for (int i = 0; i < list.size(); i++) {
+                    rows.add(new Object[]{userId, matrix.userId(list.rows()[i]), (double) list.scores()[i],
+                            list.commonItems()[i], now, now, now});
+                }
+            }
+            transactionTemplate.executeWithoutResult(status -> {
+                namedParameterJdbcTemplate.update(DELETE_SQL, Map.of("userIds", userIds));
+                if (!rows.isEmpty()) {
+                    jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+                }
+            });
+            pairs += rows.size();
+        }
+        return pairs;
+    }
+}
@@ -0,0 +1,264 @@
+package com.campus.marketplace.recommend;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * 基于用户的协同过滤相似度引擎（余弦相似度 Top-K）
+ *
+ * - 候选用户只来自商品共现：沿 用户→商品→用户 两跳展开，不再枚举全部用户对；
+ * - 每个工作线程复用一份稠密累加区（长度 = 用户数），只重置被触达的槽位；
+ * - 每个用户维护定长小顶堆保留 Top-K；
+ * - 按行区间拆分为 ForkJoin 任务并行计算。
+ *
+ * @author BaSui
+ * @date 2026-10-16
+ */
+public final class UserSimilarityEngine {
+
+    private static final int SPLIT_THRESHOLD = 64;
+
+    private UserSimilarityEngine() {
+    }
+
+    /**
+     * 单个用户的相似用户列表（按相似度降序）
+     *
+     * @param rows        相似用户行号
+     * @param scores      相似度
+     * @param commonItems 共同交互的商品数
+     */
+    public record Neighbors(int[] rows, float[] scores, int[] commonItems) {
+
+        static final Neighbors EMPTY = new Neighbors(new int[0], new float[0], new int[0]);
+
+        public int size() {
+            return rows.length;
+        }
+    }
+
+    /**
+     * 计算参数
+     *
+     * @param topK          每个用户保留的相似用户数
+     * @param minSimilarity 相似度下限（不含）
+     * @param maxItemUsers  交互用户数超过该值的商品不参与共现展开（0 表示不限制），避免爆款商品把计算量放大为 O(U²)
+     */
+    public record Options(int topK, double minSimilarity, int maxItemUsers) {
+    }
+
+    /**
+     * 计算所有用户的 Top-K 相似用户
+     *
+     * @return 按行号索引的相似用户列表
+     */
+    public static Neighbors[] computeTopK(SparseRatingMatrix matrix, Options options, ForkJoinPool pool) {
+        Neighbors[] result = new Neighbors[matrix.userCount()];
+        ThreadLocal<Workspace> workspaces = ThreadLocal.withInitial(
+                () -> new Workspace(matrix.userCount(), options.topK()));
+        pool.invoke(new RowTask(matrix, options, result, workspaces, 0, matrix.userCount()));
+        return result;
+    }
+
+    /**
+     * 计算单个用户的 Top-K 相似用户
+     */
+    static Neighbors computeRow(SparseRatingMatrix matrix, Options options, Workspace workspace, int u) {
+        double normU = matrix.rowNorm(u);
+        if (normU == 0) {
+            return Neighbors.EMPTY;
+        }
+        double[] dot = workspace.dot;
+        int[] common = workspace.common;
+        int[] touched = workspace.touched;
+        int touchedCount = 0;
+
+        for (int p = matrix.rowStart(u); p < matrix.rowEnd(u); p++) {
+            int col = matrix.col(p);
+            int start = matrix.colStart(col);
+            int end = matrix.colEnd(col);
+            if (options.maxItemUsers() > 0 && end - start > options.maxItemUsers()) {
+                continue;
+            }
+            double weight = matrix.value(p);
+            for (int q = start; q < end; q++) {
+                int v = matrix.colRow(q);
+                if (v == u) {
+                    continue;
+                }
+                if (common[v] == 0) {
+                    touched[touchedCount++] = v;
+                }
+                dot[v] += weight * matrix.colValue(q);
+                common[v]++;
+            }
+        }
+
+        TopK top = workspace.top;
+        top.reset();
+        for (int i = 0; i < touchedCount; i++) {
+            int v = touched[i];
+            double normV = matrix.rowNorm(v);
+            double similarity = normV == 0 ? 0 : dot[v] / (normU * normV);
+            if (similarity > options.minSimilarity()) {
+                top.offer(v, (float) similarity, common[v]);
+            }
+            dot[v] = 0;
+            common[v] = 0;
+        }
+        return top.drainDescending();
+    }
+
+    /**
+     * 线程私有的计算区
+     */
+    static final class Workspace {
+
+        private final double[] dot;
+        private final int[] common;
+        private final int[] touched;
+        private final TopK top;
+
+        Workspace(int users, int topK) {
+            this.dot = new double[users];
+            this.common = new int[users];
+            this.touched = new int[users];
+            this.top = new TopK(topK);
+        }
+    }
+
+    /**
+     * 定长小顶堆（按相似度）
+     */
+    static final class TopK {
+
+        private final int capacity;
+        private final int[] rows;
+        private final float[] scores;
+        private final int[] commons;
+        private int size;
+
+        TopK(int capacity) {
+            this.capacity = capacity;
+            this.rows = new int[capacity];
+            this.scores = new float[capacity];
+            this.commons = new int[capacity];
+        }
+
+        void reset() {
+            size = 0;
+        }
+
+        void offer(int row, float score, int common) {
+            if (capacity == 0) {
+                return;
+            }
+            if (size < capacity) {
+                rows[size] = row;
+                scores[size] = score;
+                commons[size] = common;
+                siftUp(size++);
+            } else if (score > scores[0]) {
+                rows[0] = row;
+                scores[0] = score;
+                commons[0] = common;
+                siftDown(0);
+            }
+        }
+
+        Neighbors drainDescending() {
+            if (size == 0) {
+                return Neighbors.EMPTY;
+            }
+            int n = size;
+            int[] outRows = new int[n];
+            float[] outScores = new float[n];
+            int[] outCommons = new int[n];
+            for (int i = n - 1; i >= 0; i--) {
+                outRows[i] = rows[0];
+                outScores[i] = scores[0];
+                outCommons[i] = commons[0];
+                size--;
+                if (size > 0) {
+                    rows[0] = rows[size];
+                    scores[0] = scores[size];
+                    commons[0] = commons[size];
+                    siftDown(0);
+                }
+            }
+            return new Neighbors(outRows, outScores, outCommons);
+        }
+
+        private void siftUp(int index) {
+            while (index > 0) {
+                int parent = (index - 1) >>> 1;
+                if (scores[parent] <= scores[index]) {
+                    return;
+                }
+                swap(parent, index);
+                index = parent;
+            }
+        }
+
+        private void siftDown(int index) {
+            while (true) {
+                int left = (index << 1) + 1;
+                if (left >= size) {
+                    return;
+                }
+                int smallest = left + 1 < size && scores[left + 1] < scores[left] ? left + 1 : left;
+                if (scores[index] <= scores[smallest]) {
+                    return;
+                }
+                swap(index, smallest);
+                index = smallest;
+            }
+        }
+
+        private void swap(int a, int b) {
+            int row = rows[a];
+            rows[a] = rows[b];
+            rows[b] = row;
+            float score = scores[a];
+            scores[a] = scores[b];
+            scores[b] = score;
+            int common = commons[a];
+            commons[a] = commons[b];
+            commons[b] = common;
+        }
+    }
+
+    private static final class RowTask extends RecursiveAction {
+
+        private final SparseRatingMatrix matrix;
+        private final Options options;
+        private final Neighbors[] result;
+        private final ThreadLocal<Workspace> workspaces;
+        private final int from;
+        private final int to;
+
+        private RowTask(SparseRatingMatrix matrix, Options options, Neighbors[] result,
+                        ThreadLocal<Workspace> workspaces, int from, int to) {
+            this.matrix = matrix;
+            this.options = options;
+            this.result = result;
+            this.workspaces = workspaces;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= SPLIT_THRESHOLD) {
+                Workspace workspace = workspaces.get();
+                for (int u = from; u < to; u++) {
+                    result[u] = computeRow(matrix, options, workspace, u);
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new RowTask(matrix, options, result, workspaces, from, mid),
+                    new RowTask(matrix, options, result, workspaces, mid, to));
+        }
+    }
+}
@@ -5,6 +5,8 @@ import com.campus.marketplace.common.enums.CouponStatus;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -34,6 +36,14 @@ public interface CouponUserRelationRepository extends JpaRepository<CouponUserRe
      */
     long countByUserIdAndCouponId(Long userId, Long couponId);
 
+    /**
+     * 按用户统计某优惠券的领取数量（领取引擎加载使用）
+     *
+     * @return [userId, count]
+     */
+    @Query("SELECT r.userId, COUNT(r) FROM CouponUserRelation r WHERE r.couponId = :couponId GROUP BY r.userId")
+    List<Object[]> countByCouponIdGroupByUser(@Param("couponId") Long couponId);
+
     /**
      * 查询用户特定状态的优惠券
      */
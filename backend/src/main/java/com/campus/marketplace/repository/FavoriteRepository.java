@@ -8,6 +8,8 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -53,4 +55,11 @@ public interface FavoriteRepository extends JpaRepository<Favorite, Long> {
             "from Favorite f where f.userId = :userId and f.goods.categoryId is not null " +
             "group by f.goods.categoryId order by cnt desc")
     java.util.List<Object[]> findTopCategoryIdsByUserFavorites(@Param("userId") Long userId);
+
+    /**
+     * 批量查询多个用户的收藏（用户ID, 商品ID）对
+     * 返回 Object[]{userId(Long), goodsId(Long)}
+     */
+    @Query("select f.userId, f.goodsId from Favorite f where f.userId in :userIds")
+    List<Object[]> findUserGoodsPairsByUserIdIn(@Param("userIds") Collection<Long> userIds);
 }
@@ -7,6 +7,7 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -238,4 +239,15 @@ public interface GoodsRepository extends JpaRepository<Goods, Long> {
     @Lock(LockModeType.PESSIMISTIC_WRITE)
     @Query("SELECT g FROM Goods g WHERE g.id = :id")
     Optional<Goods> findByIdForUpdate(@Param("id") Long id);
+
+    /**
+     * 条件锁定商品（APPROVED → LOCKED），乐观下单模式的数据库兜底
+     *
+     * @return 受影响行数（0 表示商品已被其他订单锁定或状态已变更）
+     */
+    @Modifying
+    @Query("UPDATE Goods g SET g.status = com.campus.marketplace.common.enums.GoodsStatus.LOCKED, " +
+            "g.updatedAt = CURRENT_TIMESTAMP " +
+            "WHERE g.id = :id AND g.status = com.campus.marketplace.common.enums.GoodsStatus.APPROVED")
+    int lockIfApproved(@Param("id") Long id);
 }
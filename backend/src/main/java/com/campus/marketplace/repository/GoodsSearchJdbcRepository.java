@@ -0,0 +1,159 @@
+package com.campus.marketplace.repository;
+
+import com.campus.marketplace.common.dto.response.GoodsResponse;
+import com.campus.marketplace.common.enums.GoodsStatus;
+import lombok.Builder;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * 商品检索下推查询 Repository
+ *
+ * 关键词（tsvector FTS）、价格区间、分类、排序与分页全部在数据库中执行，
+ * 支持基于 (排序列, id) 的 keyset 分页，避免深翻页的 OFFSET 扫描。
+ *
+ * @author BaSui
+ * @date 2026-10-16
+ */
+@Repository
+@RequiredArgsConstructor
+public class GoodsSearchJdbcRepository {
+
+    private static final String SELECT_COLUMNS =
+            "SELECT g.id, g.title, g.description, g.price, g.category_id, g.seller_id, g.status, " +
+            "g.view_count, g.favorite_count, g.created_at FROM t_goods g ";
+
+    private static final RowMapper<GoodsResponse> ROW_MAPPER = (rs, rowNum) -> {
+        Timestamp createdAt = rs.getTimestamp("created_at");
+        return GoodsResponse.builder()
+                .id(rs.getLong("id"))
+                .title(rs.getString("title"))
+                .description(rs.getString("description"))
+                .price(rs.getBigDecimal("price"))
+                .categoryId(rs.getLong("category_id"))
+                .sellerId(rs.getLong("seller_id"))
+                .status(GoodsStatus.valueOf(rs.getString("status")))
+                .viewCount(rs.getInt("view_count"))
+                .favoriteCount(rs.getInt("favorite_count"))
+                .createdAt(createdAt != null ? createdAt.toLocalDateTime() : null)
+                .build();
+    };
+
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    /**
+     * 排序字段（与索引 idx_goods_approved_*_id 对应）
+     */
+    public enum SortField {
+        CREATED_AT("g.created_at", "c.created_at"),
+        PRICE("g.price", "c.price");
+
+        private final String column;
+        private final String cursorColumn;
+
+        SortField(String column, String cursorColumn) {
+            this.column = column;
+            this.cursorColumn = cursorColumn;
+        }
+
+        /**
+         * 解析前端排序字段，未知值回落到创建时间
+         */
+        public static SortField from(String sortBy) {
+            return "price".equals(sortBy) ? PRICE : CREATED_AT;
+        }
+    }
+
+    /**
+     * 检索条件
+     *
+     * @param keyword    关键词（为空时不走 FTS）
+     * @param minPrice   最低价格
+     * @param maxPrice   最高价格
+     * @param categoryId 分类ID
+     * @param sortField  排序字段
+     * @param ascending  是否升序
+     * @param afterId    keyset 游标：上一页最后一条商品ID（为空时使用 offset）
+     * @param offset     偏移量（仅在 afterId 为空时生效）
+     * @param limit      返回条数
+     */
+    @Builder
+    public record Criteria(String keyword,
+                           BigDecimal minPrice,
+                           BigDecimal maxPrice,
+                           Long categoryId,
+                           SortField sortField,
+                           boolean ascending,
+                           Long afterId,
+                           long offset,
+                           int limit) {
+    }
+
+    /**
+     * 查询一页已上架商品
+     */
+    public List<GoodsResponse> search(Criteria criteria) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        StringBuilder sql = new StringBuilder(512).append(SELECT_COLUMNS);
+        appendFilters(sql, params, criteria);
+
+        SortField sortField = criteria.sortField() != null ? criteria.sortField() : SortField.CREATED_AT;
+        String direction = criteria.ascending() ? "ASC" : "DESC";
+        if (criteria.afterId() != null) {
+            // 行值比较 + 主键子查询取游标值：与 (排序列, id) 复合索引顺序一致，可直接索引定位
+            sql.append(" AND (").append(sortField.column).append(", g.id) ")
+                    .append(criteria.ascending() ? ">" : "<")
+                    .append(" (SELECT ").append(sortField.cursorColumn).append(", c.id FROM t_goods c WHERE c.id = :afterId)");
+            params.addValue("afterId", criteria.afterId());
+        }
+
+        sql.append(" ORDER BY ").append(sortField.column).append(' ').append(direction)
+                .append(", g.id ").append(direction)
+                .append(" LIMIT :limit");
+        params.addValue("limit", criteria.limit());
+        if (criteria.afterId() == null && criteria.offset() > 0) {
+            sql.append(" OFFSET :offset");
+            params.addValue("offset", criteria.offset());
+        }
+
+        return namedParameterJdbcTemplate.query(sql.toString(), params, ROW_MAPPER);
+    }
+
+    /**
+     * 统计命中总数（仅 offset 分页需要）
+     */
+    public long count(Criteria criteria) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        StringBuilder sql = new StringBuilder(256).append("SELECT COUNT(*) FROM t_goods g ");
+        appendFilters(sql, params, criteria);
+        Long total = namedParameterJdbcTemplate.queryForObject(sql.toString(), params, Long.class);
+        return total != null ? total : 0L;
+    }
+
+    private void appendFilters(StringBuilder sql, MapSqlParameterSource params, Criteria criteria) {
+        sql.append("WHERE g.deleted = false AND g.status = 'APPROVED'");
+        if (criteria.keyword() != null && !criteria.keyword().isBlank()) {
+            sql.append(" AND g.search_vector @@ plainto_tsquery('chinese', :q)");
+            params.addValue("q", criteria.keyword());
+        }
+        if (criteria.minPrice() != null) {
+            sql.append(" AND g.price >= :minPrice");
+            params.addValue("minPrice", criteria.minPrice());
+        }
+        if (criteria.maxPrice() != null) {
+            sql.append(" AND g.price <= :maxPrice");
+            params.addValue("maxPrice", criteria.maxPrice());
+        }
+        if (criteria.categoryId() != null) {
+            sql.append(" AND g.category_id = :categoryId");
+            params.addValue("categoryId", criteria.categoryId());
+        }
+    }
+}
@@ -5,6 +5,8 @@ import com.campus.marketplace.common.enums.NotificationChannel;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -17,4 +19,5 @@ import java.util.Optional;
 @Repository
 public interface NotificationPreferenceRepository extends JpaRepository<NotificationPreference, Long> {
     Optional<NotificationPreference> findByUserIdAndChannel(Long userId, NotificationChannel channel);
+    List<NotificationPreference> findByChannelAndUserIdIn(NotificationChannel channel, Collection<Long> userIds);
 }
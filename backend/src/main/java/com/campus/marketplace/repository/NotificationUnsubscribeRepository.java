@@ -5,6 +5,9 @@ import com.campus.marketplace.common.enums.NotificationChannel;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+
 /**
  * Notification Unsubscribe Repository
  *
@@ -16,4 +19,5 @@ import org.springframework.stereotype.Repository;
 public interface NotificationUnsubscribeRepository extends JpaRepository<NotificationUnsubscribe, Long> {
     boolean existsByUserIdAndTemplateCodeAndChannel(Long userId, String templateCode, NotificationChannel channel);
     void deleteByUserIdAndTemplateCodeAndChannel(Long userId, String templateCode, NotificationChannel channel);
+    List<NotificationUnsubscribe> findByTemplateCodeAndUserIdIn(String templateCode, Collection<Long> userIds);
 }
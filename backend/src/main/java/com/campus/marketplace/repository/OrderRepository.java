@@ -6,6 +6,7 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -83,6 +84,47 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
             @Param("createdBefore") LocalDateTime createdBefore
     );
 
+    /**
+     * 查询指定状态订单的ID与创建时间
+     *
+     * 用于启动时重建超时延时队列，只取两列避免加载整个实体
+     *
+     * @param status 订单状态
+     * @return [id, createdAt] 列表
+     */
+    @Query("SELECT o.id, o.createdAt FROM Order o WHERE o.status = :status")
+    List<Object[]> findIdAndCreatedAtByStatus(@Param("status") OrderStatus status);
+
+    /**
+     * 条件更新订单状态（仅当当前状态为 expected 时生效）
+     *
+     * 超时取消与支付回调并发时，只有一方能完成状态迁移
+     *
+     * @return 受影响行数（0 表示状态已被其他流程修改）
+     */
+    @Modifying
+    @Query("UPDATE Order o SET o.status = :target, o.updatedAt = CURRENT_TIMESTAMP WHERE o.id = :id AND o.status = :expected")
+    int compareAndSetStatus(@Param("id") Long id,
+                            @Param("expected") OrderStatus expected,
+                            @Param("target") OrderStatus target);
+
+    /**
+     * 条件标记已支付（仅当当前状态为 PENDING_PAYMENT 时生效），与超时取消共用同一行条件更新
+     *
+     * @return 受影响行数（0 表示订单已被取消或已支付）
+     */
+    @Modifying
+    @Query("UPDATE Order o SET o.status = com.campus.marketplace.common.enums.OrderStatus.PAID, " +
+            "o.paymentTime = :paidAt, o.updatedAt = CURRENT_TIMESTAMP " +
+            "WHERE o.id = :id AND o.status = com.campus.marketplace.common.enums.OrderStatus.PENDING_PAYMENT")
+    int markPaidIfPending(@Param("id") Long id, @Param("paidAt") LocalDateTime paidAt);
+
+    /**
+     * 查询订单当前状态（绕过持久化上下文中的旧实体）
+     */
+    @Query("SELECT o.status FROM Order o WHERE o.id = :id")
+    Optional<OrderStatus> findStatusById(@Param("id") Long id);
+
     /**
      * 查找指定状态且更新时间早于指定时间的订单
      *
@@ -2,6 +2,7 @@ package com.campus.marketplace.repository;
 
 import com.campus.marketplace.common.entity.UserBehaviorLog;
 import com.campus.marketplace.common.enums.BehaviorType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -87,4 +88,30 @@ public interface UserBehaviorLogRepository extends JpaRepository<UserBehaviorLog
             @Param("targetId") Long targetId,
             @Param("behaviorType") BehaviorType behaviorType
     );
+
+    /**
+     * 查询用户交互过的去重目标ID
+     */
+    @Query("SELECT DISTINCT b.targetId FROM UserBehaviorLog b WHERE b.userId = :userId " +
+           "AND b.targetType = :targetType AND b.targetId IS NOT NULL")
+    List<Long> findDistinctTargetIds(
+            @Param("userId") Long userId,
+            @Param("targetType") String targetType
+    );
+
+    /**
+     * 查询指定时间之后有行为的用户ID（按最近行为时间倒序，走 created_at 索引）
+     */
+    @Query("SELECT b.userId FROM UserBehaviorLog b WHERE b.createdAt >= :since " +
+           "GROUP BY b.userId ORDER BY MAX(b.createdAt) DESC")
+    List<Long> findActiveUserIdsSince(@Param("since") LocalDateTime since, Pageable pageable);
+
+    /**
+     * 查询指定时间之后有行为的用户及其最近行为时间（按最近行为时间正序，供增量刷新分轮推进水位）
+     *
+     * @return 每行为 [userId, 最近行为时间]
+     */
+    @Query("SELECT b.userId, MAX(b.createdAt) FROM UserBehaviorLog b WHERE b.createdAt >= :since " +
+           "GROUP BY b.userId ORDER BY MAX(b.createdAt) ASC")
+    List<Object[]> findActiveUsersSinceOldestFirst(@Param("since") LocalDateTime since, Pageable pageable);
 }
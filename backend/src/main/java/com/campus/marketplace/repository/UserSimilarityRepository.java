@@ -1,6 +1,7 @@
 package com.campus.marketplace.repository;
 
 import com.campus.marketplace.common.entity.UserSimilarity;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -25,6 +26,13 @@ public interface UserSimilarityRepository extends JpaRepository<UserSimilarity,
            "ORDER BY us.similarityScore DESC")
     List<UserSimilarity> findTopSimilarUsers(@Param("userId") Long userId);
 
+    /**
+     * 查询与指定用户最相似的前 N 个用户（由分页参数限制条数）
+     */
+    @Query("SELECT us FROM UserSimilarity us WHERE us.userId = :userId " +
+           "ORDER BY us.similarityScore DESC")
+    List<UserSimilarity> findTopSimilarUsers(@Param("userId") Long userId, Pageable pageable);
+
     /**
      * 查询指定用户的相似用户（相似度阈值过滤）
      */
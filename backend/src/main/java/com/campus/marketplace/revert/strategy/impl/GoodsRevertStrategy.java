@@ -5,6 +5,7 @@ import com.campus.marketplace.common.entity.DataBackup;
 import com.campus.marketplace.common.entity.Goods;
 import com.campus.marketplace.common.enums.AuditActionType;
 import com.campus.marketplace.common.enums.GoodsStatus;
+import com.campus.marketplace.event.GoodsChangedEvent;
 import com.campus.marketplace.repository.GoodsRepository;
 import com.campus.marketplace.revert.dto.RevertExecutionResult;
 import com.campus.marketplace.revert.dto.RevertValidationResult;
@@ -12,6 +13,7 @@ import com.campus.marketplace.revert.strategy.RevertStrategy;
 import com.campus.marketplace.service.DataBackupService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDateTime;
@@ -38,6 +40,7 @@ public class GoodsRevertStrategy implements RevertStrategy {
     private final GoodsRepository goodsRepository;
     private final DataBackupService dataBackupService;
     private final com.campus.marketplace.service.CacheService cacheService;
+    private final ApplicationEventPublisher eventPublisher;
     
     @Override
     public String getSupportedEntityType() {
@@ -137,6 +140,7 @@ public class GoodsRevertStrategy implements RevertStrategy {
             
             // 4. 保存恢复的商品
             goodsRepository.save(restoredGoods);
+            eventPublisher.publishEvent(new GoodsChangedEvent(this, goodsId, GoodsChangedEvent.ChangeType.STATUS_CHANGED));
             
             log.info("商品删除撤销成功: goodsId={}, 恢复自备份版本={}", goodsId, backup.getBackupVersion());
             
@@ -176,6 +180,7 @@ public class GoodsRevertStrategy implements RevertStrategy {
             
             // 4. 保存更新
             goodsRepository.save(goods);
+            eventPublisher.publishEvent(new GoodsChangedEvent(this, goodsId, GoodsChangedEvent.ChangeType.UPDATED));
             
             log.info("商品更新撤销成功: goodsId={}", goodsId);
             
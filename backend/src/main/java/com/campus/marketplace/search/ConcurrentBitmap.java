@@ -0,0 +1,72 @@
+package com.campus.marketplace.search;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 可增长位图（单写多读）
+ *
+ * 用于校区/标签过滤与存活文档标记；写操作由索引写线程串行执行，
+ * 读线程通过 volatile 引用读取最新的 {@link AtomicLongArray}，无需加锁。
+ *
+ * @author BaSui
+ * @date 2026-10-16
+ */
+public final class ConcurrentBitmap {
+
+    private volatile AtomicLongArray words;
+
+    public ConcurrentBitmap() {
+        this(64);
+    }
+
+    public ConcurrentBitmap(int initialBits) {
+        this.words = new AtomicLongArray(Math.max(1, (initialBits + 63) >>> 6));
+    }
+
+    /**
+     * 置位（仅写线程调用）
+     */
+    public void set(int bit) {
+        int index = bit >>> 6;
+        AtomicLongArray current = words;
+        if (index >= current.length()) {
+            AtomicLongArray grown = new AtomicLongArray(Math.max(current.length() << 1, index + 1));
+            for (int i = 0; i < current.length(); i++) {
+                grown.set(i, current.get(i));
+            }
+            grown.set(index, grown.get(index) | (1L << bit));
+            words = grown;
+            return;
+        }
+        current.set(index, current.get(index) | (1L << bit));
+    }
+
+    /**
+     * 清位（仅写线程调用）
+     */
+    public void clear(int bit) {
+        int index = bit >>> 6;
+        AtomicLongArray current = words;
+        if (index < current.length()) {
+            current.set(index, current.get(index) & ~(1L << bit));
+        }
+    }
+
+    public boolean get(int bit) {
+        int index = bit >>> 6;
+        AtomicLongArray current = words;
+        return index < current.length() && (current.get(index) & (1L << bit)) != 0;
+    }
+
+    /**
+     * 置位数量
+     */
+    public int cardinality() {
+        AtomicLongArray current = words;
+        int count = 0;
+        for (int i = 0; i < current.length(); i++) {
+            count += Long.bitCount(current.get(i));
+        }
+        return count;
+    }
+}
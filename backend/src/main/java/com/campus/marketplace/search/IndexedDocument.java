@@ -0,0 +1,39 @@
+package com.campus.marketplace.search;
+
+import java.math.BigDecimal;
+
+/**
+ * 内存索引中的文档（只保存检索结果展示所需字段）
+ *
+ * @param id       业务主键（商品ID/帖子ID）
+ * @param title    标题
+ * @param snippet  摘要（描述/正文前若干字符）
+ * @param price    价格（帖子为 null）
+ * @param campusId 校区ID
+ * @param tagIds   绑定的标签ID
+ *
+ * @author BaSui
+ * @date 2026-10-16
+ */
+public record IndexedDocument(long id,
+                              String title,
+                              String snippet,
+                              BigDecimal price,
+                              Long campusId,
+                              long[] tagIds) {
+
+    /**
+     * 摘要最大长度
+     */
+    public static final int SNIPPET_LENGTH = 60;
+
+    /**
+     * 从正文截取摘要
+     */
+    public static String snippetOf(String text) {
+        if (text == null) {
+            return "";
+        }
+        return text.length() > SNIPPET_LENGTH ? text.substring(0, SNIPPET_LENGTH) + "..." : text;
+    }
+}
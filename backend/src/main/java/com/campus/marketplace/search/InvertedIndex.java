@@ -0,0 +1,213 @@
+package com.campus.marketplace.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 内存倒排索引（词元 → 压缩倒排链，校区/标签 → 位图）
+ *
+ * - 每个文档分配单调递增的内部序号，倒排链只需追加；
+ * - 文档更新 = 旧序号打删除标记 + 分配新序号，删除通过存活位图过滤；
+ * - 写操作串行（synchronized），读操作无锁；
+ * - 序号越大文档越新，查询结果按序号倒序返回（新发布优先）。
+ *
+ * @author BaSui
+ * @date 2026-10-16
+ */
+public final class InvertedIndex {
+
+    private final Map<String, PostingList> postings = new ConcurrentHashMap<>();
+    private final Map<Long, ConcurrentBitmap> campusBitmaps = new ConcurrentHashMap<>();
+    private final Map<Long, ConcurrentBitmap> tagBitmaps = new ConcurrentHashMap<>();
+    private final Map<Long, Integer> ordinalById = new ConcurrentHashMap<>();
+    private final ConcurrentBitmap live = new ConcurrentBitmap(1024);
+
+    private volatile IndexedDocument[] documents = new IndexedDocument[1024];
+    private volatile int nextOrdinal;
+
+    /**
+     * 检索结果
+     *
+     * @param total     命中总数
+     * @param documents 当前页文档
+     */
+    public record Hits(long total, List<IndexedDocument> documents) {
+    }
+
+    /**
+     * 新增或替换文档
+     *
+     * @param document 文档
+     * @param terms    文档词元
+     */
+    public synchronized void upsert(IndexedDocument document, Collection<String> terms) {
+        removeInternal(document.id());
+
+        int ordinal = nextOrdinal;
+        IndexedDocument[] docs = documents;
+        if (ordinal >= docs.length) {
+            docs = Arrays.copyOf(docs, docs.length << 1);
+        }
+        docs[ordinal] = document;
+        documents = docs;
+
+        for (String term : terms) {
+            postings.computeIfAbsent(term, key -> new PostingList()).append(ordinal);
+        }
+        if (document.campusId() != null) {
+            campusBitmaps.computeIfAbsent(document.campusId(), key -> new ConcurrentBitmap()).set(ordinal);
+        }
+        if (document.tagIds() != null) {
+            for (long tagId : document.tagIds()) {
+                tagBitmaps.computeIfAbsent(tagId, key -> new ConcurrentBitmap()).set(ordinal);
+            }
+        }
+        ordinalById.put(document.id(), ordinal);
+        live.set(ordinal);
+        // 最后发布序号，读线程看到新序号时以上写入均已可见
+        nextOrdinal = ordinal + 1;
+    }
+
+    /**
+     * 删除文档（打删除标记）
+     */
+    public synchronized void remove(long id) {
+        removeInternal(id);
+    }
+
+    private void removeInternal(long id) {
+        Integer previous = ordinalById.remove(id);
+        if (previous != null) {
+            live.clear(previous);
+        }
+    }
+
+    public boolean contains(long id) {
+        return ordinalById.containsKey(id);
+    }
+
+    /**
+     * 存活文档数
+     */
+    public int size() {
+        return ordinalById.size();
+    }
+
+    /**
+     * 已分配序号数（含删除标记），用于判断是否需要重建压缩
+     */
+    public int ordinalCount() {
+        return nextOrdinal;
+    }
+
+    public int termCount() {
+        return postings.size();
+    }
+
+    /**
+     * 倒排链压缩后总字节数
+     */
+    public long postingBytes() {
+        long bytes = 0;
+        for (PostingList list : postings.values()) {
+            bytes += list.byteSize();
+        }
+        return bytes;
+    }
+
+    /**
+     * 关键词 + 校区 + 标签检索
+     *
+     * @param terms    查询词元（全部命中才算匹配）
+     * @param campusId 校区ID（null 表示不限制）
+     * @param tagIds   标签ID（需全部命中，可为空）
+     * @param offset   偏移量
+     * @param limit    返回条数
+     */
+    public Hits search(Set<String> terms, Long campusId, Collection<Long> tagIds, long offset, int limit) {
+        if (terms.isEmpty()) {
+            return new Hits(0, List.of());
+        }
+        List<PostingList> lists = new ArrayList<>(terms.size());
+        for (String term : terms) {
+            PostingList list = postings.get(term);
+            if (list == null) {
+                return new Hits(0, List.of());
+            }
+            lists.add(list);
+        }
+        lists.sort(Comparator.comparingInt(PostingList::size));
+
+        ConcurrentBitmap campus = null;
+        if (campusId != null) {
+            campus = campusBitmaps.get(campusId);
+            if (campus == null) {
+                return new Hits(0, List.of());
+            }
+        }
+        List<ConcurrentBitmap> tags = new ArrayList<>();
+        if (tagIds != null) {
+            for (Long tagId : tagIds) {
+                ConcurrentBitmap bitmap = tagBitmaps.get(tagId);
+                if (bitmap == null) {
+                    return new Hits(0, List.of());
+                }
+                tags.add(bitmap);
+            }
+        }
+
+        int[] candidates = intersect(lists);
+        IndexedDocument[] docs = documents;
+        int matched = 0;
+        List<IndexedDocument> page = new ArrayList<>(Math.max(0, limit));
+        // 倒序遍历：新文档优先
+        for (int i = candidates.length - 1; i >= 0; i--) {
+            int ordinal = candidates[i];
+            if (!live.get(ordinal) || (campus != null && !campus.get(ordinal)) || !allSet(tags, ordinal)) {
+                continue;
+            }
+            if (matched >= offset && page.size() < limit) {
+                page.add(docs[ordinal]);
+            }
+            matched++;
+        }
+        return new Hits(matched, page);
+    }
+
+    private static boolean allSet(List<ConcurrentBitmap> bitmaps, int ordinal) {
+        for (ConcurrentBitmap bitmap : bitmaps) {
+            if (!bitmap.get(ordinal)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 以最短倒排链为驱动，对其余链做跳跃式归并求交
+     */
+    private static int[] intersect(List<PostingList> lists) {
+        int[] result = lists.get(0).toArray();
+        for (int i = 1; i < lists.size() && result.length > 0; i++) {
+            PostingList.Cursor cursor = lists.get(i).cursor();
+            int size = 0;
+            for (int candidate : result) {
+                int found = cursor.advance(candidate);
+                if (found < 0) {
+                    break;
+                }
+                if (found == candidate) {
+                    result[size++] = candidate;
+                }
+            }
+            result = Arrays.copyOf(result, size);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,92 @@
+package com.campus.marketplace.search;
+
+import com.campus.marketplace.common.config.properties.SearchSuggestProperties;
+import com.campus.marketplace.common.entity.SearchKeyword;
+import com.campus.marketplace.repository.SearchKeywordRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 搜索建议服务（内存前缀树）
+ *
+ * - 定时从热词表全量构建新前缀树并原子替换，读线程始终读取完整快照，不被刷新阻塞；
+ * - 未启用或首次构建完成前返回 empty，调用方回落到数据库前缀查询。
+ *
+ * @author BaSui
+ * @date 2026-10-16
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class KeywordSuggestService {
+
+    private final SearchKeywordRepository searchKeywordRepository;
+    private final SearchSuggestProperties properties;
+
+    private volatile SuggestionTrie trie;
+
+    /**
+     * 应用启动后异步构建
+     */
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        refresh();
+    }
+
+    /**
+     * 定时刷新
+     */
+    @Scheduled(fixedDelayString = "${search.suggest.refresh-interval:300000}",
+            initialDelayString = "${search.suggest.refresh-interval:300000}")
+    public void refresh() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        try {
+            long start = System.currentTimeMillis();
+            List<String> keywords = searchKeywordRepository
+                    .findAllByOrderBySearchCountDesc(PageRequest.of(0, properties.getMaxKeywords()))
+                    .stream()
+                    .map(SearchKeyword::getKeyword)
+                    .toList();
+            trie = SuggestionTrie.build(keywords, properties.getTopK());
+            log.info("搜索建议前缀树刷新完成: keywords={}, costMs={}", keywords.size(), System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.error("搜索建议前缀树刷新失败，继续使用旧快照", e);
+        }
+    }
+
+    /**
+     * 前缀补全（支持原文、全拼、首字母）
+     *
+     * @return 未就绪时返回 empty
+     */
+    public Optional<List<String>> complete(String prefix, int limit) {
+        SuggestionTrie current = snapshot();
+        return current == null ? Optional.empty() : Optional.of(current.complete(prefix, limit));
+    }
+
+    /**
+     * 热门搜索词
+     *
+     * @return 未就绪时返回 empty
+     */
+    public Optional<List<String>> hotKeywords(int limit) {
+        SuggestionTrie current = snapshot();
+        return current == null ? Optional.empty() : Optional.of(current.top(limit));
+    }
+
+    private SuggestionTrie snapshot() {
+        return properties.isEnabled() ? trie : null;
+    }
+}
@@ -0,0 +1,135 @@
+package com.campus.marketplace.search;
+
+import java.util.Arrays;
+
+/**
+ * 压缩倒排链（升序文档序号，差值 + varint 编码）
+ *
+ * - 单写多读：只有索引写线程调用 {@link #append(int)}，读线程通过不可变快照无锁遍历；
+ * - 追加时只写入已发布长度之后的字节，扩容时复制到新数组，因此旧快照永远读到一致的数据。
+ *
+ * @author BaSui
+ * @date 2026-10-16
+ */
+public final class PostingList {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * 已发布快照：data[0, length) 内共 count 个文档序号，最后一个为 lastOrdinal
+     */
+    private record Snapshot(byte[] data, int length, int count, int lastOrdinal) {
+    }
+
+    private volatile Snapshot snapshot = new Snapshot(new byte[INITIAL_CAPACITY], 0, 0, -1);
+
+    /**
+     * 追加文档序号（必须大于已有最大序号，否则忽略）
+     */
+    public void append(int ordinal) {
+        Snapshot current = snapshot;
+        if (ordinal <= current.lastOrdinal()) {
+            return;
+        }
+        byte[] data = current.data();
+        if (current.length() + 5 > data.length) {
+            data = Arrays.copyOf(data, Math.max(data.length << 1, current.length() + 5));
+        }
+        int length = writeVarInt(data, current.length(), ordinal - current.lastOrdinal());
+        snapshot = new Snapshot(data, length, current.count() + 1, ordinal);
+    }
+
+    /**
+     * 文档数（含已删除文档，删除通过存活位图过滤）
+     */
+    public int size() {
+        return snapshot.count();
+    }
+
+    /**
+     * 压缩后占用的字节数
+     */
+    public int byteSize() {
+        return snapshot.length();
+    }
+
+    /**
+     * 获取只读游标
+     */
+    public Cursor cursor() {
+        return new Cursor(snapshot);
+    }
+
+    /**
+     * 解码为升序数组
+     */
+    public int[] toArray() {
+        Cursor cursor = cursor();
+        int[] result = new int[cursor.remaining];
+        int i = 0;
+        while (cursor.hasNext()) {
+            result[i++] = cursor.next();
+        }
+        return result;
+    }
+
+    private static int writeVarInt(byte[] data, int pos, int value) {
+        while ((value & ~0x7F) != 0) {
+            data[pos++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        data[pos++] = (byte) value;
+        return pos;
+    }
+
+    /**
+     * 倒排链顺序游标，支持 advance 跳跃（用于多链求交）
+     */
+    public static final class Cursor {
+
+        private final byte[] data;
+        private final int limit;
+        private int pos;
+        private int remaining;
+        private int current = -1;
+
+        private Cursor(Snapshot snapshot) {
+            this.data = snapshot.data();
+            this.limit = snapshot.length();
+            this.remaining = snapshot.count();
+        }
+
+        public boolean hasNext() {
+            return remaining > 0 && pos < limit;
+        }
+
+        public int next() {
+            int value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data[pos++];
+                value |= (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            remaining--;
+            current += value;
+            return current;
+        }
+
+        /**
+         * 前进到第一个 ≥ target 的序号，不存在时返回 -1
+         */
+        public int advance(int target) {
+            if (current >= target) {
+                return current;
+            }
+            while (hasNext()) {
+                if (next() >= target) {
+                    return current;
+                }
+            }
+            return -1;
+        }
+    }
+}
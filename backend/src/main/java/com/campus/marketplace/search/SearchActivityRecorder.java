@@ -0,0 +1,280 @@
+package com.campus.marketplace.search;
+
+import com.campus.marketplace.common.config.properties.SearchWriteBehindProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 搜索行为异步落库（write-behind）
+ *
+ * - 热词计数写入分段计数器（LongAdder），按周期聚合为批量 UPSERT，同一热词的并发搜索不再争抢同一行锁；
+ * - 搜索日志、搜索历史进入有界队列，按批 JDBC 插入，队列满时直接丢弃并计入指标，不阻塞搜索请求；
+ * - 计数器采用两代轮换：本周期换下的计数器留到下个周期再落库，保证换代瞬间仍在累加的线程不丢计数；
+ * - 入队前按列长截断关键词/用户名、丢弃空关键词；整批失败时逐行重试，只丢弃写不进去的行，
+ *   不因一行坏数据丢掉整批（PostgreSQL 驱动在自动提交下整批同一隐式事务执行，失败时整批回滚，逐行重试不会重复计数）；
+ * - 应用关闭时同步刷盘。
+ *
+ * @author BaSui
+ * @date 2026-10-16
+ */
+@Slf4j
+@Component
+public class SearchActivityRecorder {
+
+    private static final String INSERT_LOG_SQL =
+            "INSERT INTO t_search_log (username, keyword, campus_id, result_count, created_at, updated_at, deleted) " +
+            "VALUES (?, ?, ?, ?, ?, ?, false)";
+
+    private static final String INSERT_HISTORY_SQL =
+            "INSERT INTO t_search_history (user_id, keyword, result_count, has_click, created_at, updated_at, deleted) " +
+            "VALUES (?, ?, ?, ?, ?, ?, false)";
+
+    private static final String UPSERT_KEYWORD_SQL =
+            "INSERT INTO t_search_keyword (keyword, search_count, last_search_time, created_at, updated_at, deleted) " +
+            "VALUES (?, ?, ?, ?, ?, false) " +
+            "ON CONFLICT (keyword) DO UPDATE SET " +
+            "search_count = t_search_keyword.search_count + EXCLUDED.search_count, " +
+            "last_search_time = EXCLUDED.last_search_time, updated_at = EXCLUDED.updated_at";
+
+    /**
+     * t_search_keyword.keyword / t_search_history.keyword 列长
+     */
+    static final int KEYWORD_MAX_LENGTH = 100;
+
+    /**
+     * t_search_log.keyword 列长
+     */
+    static final int LOG_KEYWORD_MAX_LENGTH = 200;
+
+    /**
+     * t_search_log.username 列长
+     */
+    static final int USERNAME_MAX_LENGTH = 50;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SearchWriteBehindProperties properties;
+    private final BlockingQueue<SearchLogRow> logQueue;
+    private final BlockingQueue<SearchHistoryRow> historyQueue;
+    private final Counter droppedLogs;
+    private final Counter droppedHistories;
+    private final Counter droppedKeywords;
+    private final Counter rejectedRows;
+    private final Counter flushedRows;
+    private final Counter flushFailures;
+
+    private volatile Map<String, LongAdder> keywordCounters = new ConcurrentHashMap<>();
+    private Map<String, LongAdder> retiredCounters = Map.of();
+
+    /**
+     * 搜索日志行
+     */
+    public record SearchLogRow(String username, String keyword, Long campusId, long resultCount, LocalDateTime at) {
+    }
+
+    /**
+     * 搜索历史行
+     */
+    public record SearchHistoryRow(Long userId, String keyword, int resultCount, boolean hasClick, LocalDateTime at) {
+    }
+
+    public SearchActivityRecorder(JdbcTemplate jdbcTemplate,
+                                  SearchWriteBehindProperties properties,
+                                  MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.properties = properties;
+        this.logQueue = new ArrayBlockingQueue<>(properties.getQueueCapacity());
+        this.historyQueue = new ArrayBlockingQueue<>(properties.getQueueCapacity());
+        this.droppedLogs = Counter.builder("search.writebehind.dropped").tag("type", "log").register(meterRegistry);
+        this.droppedHistories = Counter.builder("search.writebehind.dropped").tag("type", "history").register(meterRegistry);
+        this.droppedKeywords = Counter.builder("search.writebehind.dropped").tag("type", "keyword").register(meterRegistry);
+        this.rejectedRows = Counter.builder("search.writebehind.dropped").tag("type", "rejected").register(meterRegistry);
+        this.flushedRows = Counter.builder("search.writebehind.flushed").register(meterRegistry);
+        this.flushFailures = Counter.builder("search.writebehind.failures").register(meterRegistry);
+        Gauge.builder("search.writebehind.queue.size", logQueue, BlockingQueue::size)
+                .tag("type", "log").register(meterRegistry);
+        Gauge.builder("search.writebehind.queue.size", historyQueue, BlockingQueue::size)
+                .tag("type", "history").register(meterRegistry);
+        Gauge.builder("search.writebehind.keywords.pending", this, r -> r.keywordCounters.size())
+                .register(meterRegistry);
+    }
+
+    /**
+     * 热词计数 +1
+     */
+    public void incrementKeyword(String keyword) {
+        keyword = truncate(keyword, KEYWORD_MAX_LENGTH);
+        if (keyword == null) {
+            return;
+        }
+        Map<String, LongAdder> counters = keywordCounters;
+        LongAdder adder = counters.get(keyword);
+        if (adder == null) {
+            if (counters.size() >= properties.getMaxPendingKeywords()) {
+                droppedKeywords.increment();
+                return;
+            }
+            adder = counters.computeIfAbsent(keyword, key -> new LongAdder());
+        }
+        adder.increment();
+    }
+
+    /**
+     * 记录搜索日志（队列满时丢弃）
+     */
+    public void recordLog(String username, String keyword, Long campusId, long resultCount) {
+        keyword = truncate(keyword, LOG_KEYWORD_MAX_LENGTH);
+        if (keyword == null) {
+            return;
+        }
+        if (!logQueue.offer(new SearchLogRow(truncate(username, USERNAME_MAX_LENGTH), keyword, campusId, resultCount,
+                LocalDateTime.now()))) {
+            droppedLogs.increment();
+        }
+    }
+
+    /**
+     * 记录搜索历史（队列满时丢弃）
+     */
+    public void recordHistory(Long userId, String keyword, int resultCount, boolean hasClick) {
+        keyword = truncate(keyword, KEYWORD_MAX_LENGTH);
+        if (userId == null || keyword == null) {
+            return;
+        }
+        if (!historyQueue.offer(new SearchHistoryRow(userId, keyword, resultCount, hasClick, LocalDateTime.now()))) {
+            droppedHistories.increment();
+        }
+    }
+
+    /**
+     * 周期刷盘
+     */
+    @Scheduled(fixedDelayString = "${search.write-behind.flush-interval:1000}")
+    public synchronized void flush() {
+        Map<String, LongAdder> toFlush = retiredCounters;
+        retiredCounters = keywordCounters;
+        keywordCounters = new ConcurrentHashMap<>();
+        flushKeywords(toFlush);
+        drainLogs();
+        drainHistories();
+    }
+
+    /**
+     * 应用关闭时落库全部缓冲数据
+     */
+    @PreDestroy
+    public synchronized void shutdown() {
+        flush();
+        flush();
+        log.info("搜索行为缓冲已在关闭前落库");
+    }
+
+    private void flushKeywords(Map<String, LongAdder> counters) {
+        if (counters.isEmpty()) {
+            return;
+        }
+        // 按关键词排序，多实例并发 UPSERT 时加锁顺序一致，避免死锁
+        Map<String, Long> sorted = new TreeMap<>();
+        counters.forEach((keyword, adder) -> {
+            long count = adder.sum();
+            if (count > 0) {
+                sorted.put(keyword, count);
+            }
+        });
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> args = new ArrayList<>(sorted.size());
+        sorted.forEach((keyword, count) -> args.add(new Object[]{keyword, count, now, now, now}));
+        batchUpdate(UPSERT_KEYWORD_SQL, args);
+    }
+
+    private void drainLogs() {
+        List<SearchLogRow> rows = new ArrayList<>(properties.getBatchSize());
+        while (logQueue.drainTo(rows, properties.getBatchSize()) > 0) {
+            List<Object[]> args = new ArrayList<>(rows.size());
+            for (SearchLogRow row : rows) {
+                Timestamp at = Timestamp.valueOf(row.at());
+                args.add(new Object[]{row.username(), row.keyword(), row.campusId(), row.resultCount(), at, at});
+            }
+            batchUpdate(INSERT_LOG_SQL, args);
+            rows.clear();
+        }
+    }
+
+    private void drainHistories() {
+        List<SearchHistoryRow> rows = new ArrayList<>(properties.getBatchSize());
+        while (historyQueue.drainTo(rows, properties.getBatchSize()) > 0) {
+            List<Object[]> args = new ArrayList<>(rows.size());
+            for (SearchHistoryRow row : rows) {
+                Timestamp at = Timestamp.valueOf(row.at());
+                args.add(new Object[]{row.userId(), row.keyword(), row.resultCount(), row.hasClick(), at, at});
+            }
+            batchUpdate(INSERT_HISTORY_SQL, args);
+            rows.clear();
+        }
+    }
+
+    private void batchUpdate(String sql, List<Object[]> args) {
+        if (args.isEmpty()) {
+            return;
+        }
+        try {
+            jdbcTemplate.batchUpdate(sql, args);
+            flushedRows.increment(args.size());
+        } catch (Exception e) {
+            flushFailures.increment();
+            log.warn("搜索行为批量落库失败，逐行重试: rows={}, err={}", args.size(), e.getMessage());
+            updateOneByOne(sql, args);
+        }
+    }
+
+    private void updateOneByOne(String sql, List<Object[]> args) {
+        int rejected = 0;
+        for (Object[] row : args) {
+            try {
+                jdbcTemplate.update(sql, row);
+                flushedRows.increment();
+            } catch (Exception e) {
+                rejected++;
+                log.error("搜索行为落库失败，丢弃该行: err={}", e.getMessage());
+            }
+        }
+        if (rejected > 0) {
+            rejectedRows.increment(rejected);
+        }
+    }
+
+    /**
+     * 去掉首尾空白并按列长截断，空串返回 null
+     */
+    static String truncate(String value, int maxLength) {
+        if (value == null) {
+            return null;
+        }
+        String trimmed = value.trim();
+        if (trimmed.isEmpty()) {
+            return null;
+        }
+        if (trimmed.length() <= maxLength) {
+            return trimmed;
+        }
+        // 不在代理对中间截断
+        int end = Character.isHighSurrogate(trimmed.charAt(maxLength - 1)) ? maxLength - 1 : maxLength;
+        return trimmed.substring(0, end);
+    }
+}
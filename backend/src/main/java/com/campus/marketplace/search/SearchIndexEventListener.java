@@ -0,0 +1,57 @@
+package com.campus.marketplace.search;
+
+import com.campus.marketplace.event.GoodsChangedEvent;
+import com.campus.marketplace.event.PostChangedEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * 检索索引增量更新监听器
+ *
+ * 在业务事务提交后异步回查文档最新状态并更新内存索引，
+ * 避免事务回滚导致索引与数据库不一致；事件本身不携带文档内容，
+ * 同一文档的回查在 {@link SearchIndexService} 内按 ID 串行，乱序执行时以最后一次回查的数据库状态为准
+ *
+ * @author BaSui
+ * @date 2026-10-16
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SearchIndexEventListener {
+
+    private final SearchIndexService searchIndexService;
+
+    /**
+     * 处理商品变更事件
+     *
+     * @param event 商品变更事件
+     */
+    @Async
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onGoodsChanged(GoodsChangedEvent event) {
+        try {
+            searchIndexService.reindexGoods(event.getGoodsId());
+        } catch (Exception e) {
+            log.error("商品索引增量更新失败: {}", event, e);
+        }
+    }
+
+    /**
+     * 处理帖子变更事件
+     *
+     * @param event 帖子变更事件
+     */
+    @Async
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPostChanged(PostChangedEvent event) {
+        try {
+            searchIndexService.reindexPost(event.getPostId());
+        } catch (Exception e) {
+            log.error("帖子索引增量更新失败: {}", event, e);
+        }
+    }
+}
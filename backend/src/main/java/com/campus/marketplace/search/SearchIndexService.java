@@ -0,0 +1,391 @@
+package com.campus.marketplace.search;
+
+import com.campus.marketplace.common.config.properties.SearchIndexProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.sql.Array;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * 内存检索索引服务（商品 + 帖子）
+ *
+ * - 启动后异步全量构建，构建期间的增量变更先记账，切换索引后回放；
+ * - 通过 {@link com.campus.marketplace.event.GoodsChangedEvent} / {@link com.campus.marketplace.event.PostChangedEvent} 增量更新；
+ * - 定时与数据库做文档数一致性校验，偏差或删除标记过多时在后台线程重建，不占用调度线程；
+ * - 抽样查询在后台与数据库 FTS 比对命中数，同时进行的比对数有上限，超出时跳过本次采样；
+ * - 未启用、未就绪或关键词分词后为空（全是停用词/标点）时返回 empty，调用方回落到数据库 FTS。
+ *
+ * @author BaSui
+ * @date 2026-10-16
+ */
+@Slf4j
+@Component
+public class SearchIndexService {
+
+    private static final String GOODS_SELECT =
+            "SELECT g.id, g.title, g.description AS body, g.price, g.campus_id, " +
+            "(SELECT array_agg(gt.tag_id) FROM t_goods_tag gt WHERE gt.goods_id = g.id AND gt.deleted = false) AS tag_ids " +
+            "FROM t_goods g WHERE g.status = 'APPROVED' AND g.deleted = false";
+
+    private static final String POST_SELECT =
+            "SELECT p.id, p.title, p.content AS body, NULL AS price, p.campus_id, " +
+            "(SELECT array_agg(pt.tag_id) FROM t_post_tag pt WHERE pt.post_id = p.id AND pt.deleted = false) AS tag_ids " +
+            "FROM t_post p WHERE p.status = 'APPROVED' AND p.deleted = false";
+
+    private static final int FETCH_SIZE = 2000;
+
+    /**
+     * 同时进行的影子比对上限
+     */
+    private static final int MAX_CONCURRENT_SHADOW_CHECKS = 2;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SearchTokenizer tokenizer;
+    private final SearchIndexProperties properties;
+    private final Executor backgroundExecutor;
+    private final Semaphore shadowPermits = new Semaphore(MAX_CONCURRENT_SHADOW_CHECKS);
+
+    /**
+     * 按文档 ID 分段的回查锁：同一文档的“回查数据库 + 写索引”串行执行，
+     * 避免较早读到的旧状态在较新的删除之后才写入，留下已下架文档
+     */
+    private final ReentrantLock[] reindexLocks = new ReentrantLock[64];
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    private final Timer searchTimer;
+    private final Counter shadowChecks;
+    private final Counter shadowMismatches;
+    private final Counter rebuilds;
+
+    private volatile InvertedIndex goodsIndex = new InvertedIndex();
+    private volatile InvertedIndex postIndex = new InvertedIndex();
+    private volatile boolean ready;
+
+    /**
+     * 重建期间发生变更的文档，切换后回放
+     */
+    private volatile Set<Long> pendingGoods;
+    private volatile Set<Long> pendingPosts;
+
+    public SearchIndexService(JdbcTemplate jdbcTemplate,
+                              SearchTokenizer tokenizer,
+                              SearchIndexProperties properties,
+                              @Qualifier("virtualThreadExecutor") Executor backgroundExecutor,
+                              MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.tokenizer = tokenizer;
+        this.properties = properties;
+        this.backgroundExecutor = backgroundExecutor;
+        for (int i = 0; i < reindexLocks.length; i++) {
+            reindexLocks[i] = new ReentrantLock();
+        }
+        this.searchTimer = Timer.builder("search.index.query")
+                .description("内存索引查询耗时")
+                .register(meterRegistry);
+        this.shadowChecks = Counter.builder("search.index.shadow.checks").register(meterRegistry);
+        this.shadowMismatches = Counter.builder("search.index.shadow.mismatches").register(meterRegistry);
+        this.rebuilds = Counter.builder("search.index.rebuilds").register(meterRegistry);
+        Gauge.builder("search.index.documents", this, s -> s.goodsIndex.size())
+                .tag("type", "goods").register(meterRegistry);
+        Gauge.builder("search.index.documents", this, s -> s.postIndex.size())
+                .tag("type", "post").register(meterRegistry);
+        Gauge.builder("search.index.posting.bytes", this, s -> s.goodsIndex.postingBytes() + s.postIndex.postingBytes())
+                .register(meterRegistry);
+    }
+
+    /**
+     * 应用启动后异步构建索引
+     */
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        try {
+            rebuild();
+        } catch (Exception e) {
+            log.error("内存检索索引构建失败，继续使用数据库 FTS", e);
+        }
+    }
+
+    /**
+     * 全量重建（新索引构建完成后原子切换）
+     */
+    public synchronized void rebuild() {
+        long start = System.currentTimeMillis();
+        pendingGoods = ConcurrentHashMap.newKeySet();
+        pendingPosts = ConcurrentHashMap.newKeySet();
+        try {
+            InvertedIndex newGoods = new InvertedIndex();
+            InvertedIndex newPosts = new InvertedIndex();
+            load(GOODS_SELECT + " ORDER BY g.created_at, g.id", newGoods);
+            load(POST_SELECT + " ORDER BY p.created_at, p.id", newPosts);
+
+            goodsIndex = newGoods;
+            postIndex = newPosts;
+        } finally {
+            Set<Long> goodsToReplay = pendingGoods;
+            Set<Long> postsToReplay = pendingPosts;
+            pendingGoods = null;
+            pendingPosts = null;
+            goodsToReplay.forEach(this::reindexGoods);
+            postsToReplay.forEach(this::reindexPost);
+        }
+        ready = true;
+        rebuilds.increment();
+        log.info("内存检索索引构建完成: goods={}, posts={}, terms={}, costMs={}",
+                goodsIndex.size(), postIndex.size(),
+                goodsIndex.termCount() + postIndex.termCount(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * 增量更新单个商品（不再满足上架条件时移除）
+     */
+    public void reindexGoods(Long goodsId) {
+        if (!properties.isEnabled() || goodsId == null) {
+            return;
+        }
+        Set<Long> pending = pendingGoods;
+        if (pending != null) {
+            pending.add(goodsId);
+        }
+        reindex(GOODS_SELECT + " AND g.id = ?", goodsId, goodsIndex);
+    }
+
+    /**
+     * 增量更新单个帖子
+     */
+    public void reindexPost(Long postId) {
+        if (!properties.isEnabled() || postId == null) {
+            return;
+        }
+        Set<Long> pending = pendingPosts;
+        if (pending != null) {
+            pending.add(postId);
+        }
+        reindex(POST_SELECT + " AND p.id = ?", postId, postIndex);
+    }
+
+    /**
+     * 商品检索
+     *
+     * @return 索引未启用或未就绪时返回 empty
+     */
+    public Optional<InvertedIndex.Hits> searchGoods(String keyword, Long campusId, Collection<Long> tagIds,
+                                                    long offset, int limit) {
+        return search(goodsIndex, keyword, campusId, tagIds, offset, limit);
+    }
+
+    /**
+     * 帖子检索
+     *
+     * @return 索引未启用或未就绪时返回 empty
+     */
+    public Optional<InvertedIndex.Hits> searchPosts(String keyword, Long campusId, long offset, int limit) {
+        return search(postIndex, keyword, campusId, null, offset, limit);
+    }
+
+    /**
+     * 是否对本次查询做数据库影子比对
+     */
+    public boolean shouldShadowCheck() {
+        return ThreadLocalRandom.current().nextDouble() < properties.getShadowSampleRate();
+    }
+
+    /**
+     * 在后台线程执行影子比对，不阻塞本次检索；比对名额已满时跳过
+     *
+     * @param dbTotal 数据库 FTS 命中数查询
+     */
+    public void shadowCheckAsync(String type, String keyword, long indexTotal, LongSupplier dbTotal) {
+        if (!shadowPermits.tryAcquire()) {
+            return;
+        }
+        try {
+            backgroundExecutor.execute(() -> {
+                try {
+                    recordShadowComparison(type, keyword, indexTotal, dbTotal.getAsLong());
+                } catch (Exception e) {
+                    log.warn("检索影子比对失败: type={}, keyword={}", type, keyword, e);
+                } finally {
+                    shadowPermits.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            shadowPermits.release();
+            log.warn("检索影子比对提交失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 记录影子比对结果
+     */
+    public void recordShadowComparison(String type, String keyword, long indexTotal, long dbTotal) {
+        shadowChecks.increment();
+        if (indexTotal != dbTotal) {
+            shadowMismatches.increment();
+            log.debug("内存索引与数据库 FTS 结果数不一致: type={}, keyword={}, index={}, db={}",
+                    type, keyword, indexTotal, dbTotal);
+        }
+    }
+
+    public boolean isReady() {
+        return properties.isEnabled() && ready;
+    }
+
+    /**
+     * 一致性校验：文档数偏差或删除标记过多时重建
+     */
+    @Scheduled(fixedDelayString = "${search.index.consistency-check-interval:600000}",
+            initialDelayString = "${search.index.consistency-check-interval:600000}")
+    public void checkConsistency() {
+        if (!isReady()) {
+            return;
+        }
+        try {
+            long dbGoods = countApproved("t_goods");
+            long dbPosts = countApproved("t_post");
+            boolean drifted = drifted(goodsIndex.size(), dbGoods) || drifted(postIndex.size(), dbPosts);
+            boolean fragmented = fragmented(goodsIndex) || fragmented(postIndex);
+            if (drifted || fragmented) {
+                log.warn("内存检索索引需要重建: goods={}/{}, posts={}/{}, fragmented={}",
+                        goodsIndex.size(), dbGoods, postIndex.size(), dbPosts, fragmented);
+                rebuildAsync();
+            }
+        } catch (Exception e) {
+            log.error("内存检索索引一致性校验失败", e);
+        }
+    }
+
+    /**
+     * 在后台线程重建，已有重建在进行时忽略
+     */
+    void rebuildAsync() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            backgroundExecutor.execute(() -> {
+                try {
+                    rebuild();
+                } catch (Exception e) {
+                    log.error("内存检索索引重建失败", e);
+                } finally {
+                    rebuilding.set(false);
+                }
+            });
+        } catch (RuntimeException e) {
+            rebuilding.set(false);
+            throw e;
+        }
+    }
+
+    private Optional<InvertedIndex.Hits> search(InvertedIndex index, String keyword, Long campusId,
+                                                Collection<Long> tagIds, long offset, int limit) {
+        if (!isReady()) {
+            return Optional.empty();
+        }
+        Set<String> terms = tokenizer.tokenize(keyword);
+        if (terms.isEmpty()) {
+            // 分词后无可检索词项，交给数据库 FTS 按其自身规则处理，而不是直接返回 0 条
+            return Optional.empty();
+        }
+        return Optional.of(searchTimer.record(() -> index.search(terms, campusId, tagIds, offset, limit)));
+    }
+
+    private void load(String sql, InvertedIndex target) {
+        jdbcTemplate.query(connection -> {
+            var statement = connection.prepareStatement(sql);
+            statement.setFetchSize(FETCH_SIZE);
+            return statement;
+        }, rs -> {
+            index(rs, target);
+        });
+    }
+
+    private void reindex(String sql, Long id, InvertedIndex target) {
+        ReentrantLock lock = reindexLocks[Math.floorMod(Long.hashCode(id), reindexLocks.length)];
+        lock.lock();
+        try {
+            boolean[] found = new boolean[1];
+            jdbcTemplate.query(sql, rs -> {
+                found[0] = true;
+                index(rs, target);
+            }, id);
+            if (!found[0]) {
+                target.remove(id);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void index(ResultSet rs, InvertedIndex target) throws SQLException {
+        String title = rs.getString("title");
+        String body = rs.getString("body");
+        BigDecimal price = rs.getBigDecimal("price");
+        long rawCampusId = rs.getLong("campus_id");
+        Long campusId = rs.wasNull() ? null : rawCampusId;
+        IndexedDocument document = new IndexedDocument(
+                rs.getLong("id"),
+                title,
+                IndexedDocument.snippetOf(body),
+                price,
+                campusId,
+                toLongArray(rs.getArray("tag_ids")));
+        Set<String> terms = tokenizer.tokenize(title);
+        terms.addAll(tokenizer.tokenize(body));
+        target.upsert(document, terms);
+    }
+
+    private long[] toLongArray(Array array) throws SQLException {
+        if (array == null) {
+            return new long[0];
+        }
+        Object[] values = (Object[]) array.getArray();
+        long[] result = new long[values.length];
+        for (int i = 0; i < values.length; i++) {
+            result[i] = ((Number) values[i]).longValue();
+        }
+        return result;
+    }
+
+    private long countApproved(String table) {
+        Long count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM " + table + " WHERE status = 'APPROVED' AND deleted = false", Long.class);
+        return count != null ? count : 0L;
+    }
+
+    private boolean drifted(long indexed, long expected) {
+        long diff = Math.abs(indexed - expected);
+        return diff > Math.max(1, expected * properties.getDriftThreshold());
+    }
+
+    private boolean fragmented(InvertedIndex index) {
+        int ordinals = index.ordinalCount();
+        return ordinals > 0 && (ordinals - index.size()) > ordinals * properties.getTombstoneThreshold();
+    }
+}
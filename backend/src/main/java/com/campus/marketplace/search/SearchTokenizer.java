@@ -0,0 +1,49 @@
+package com.campus.marketplace.search;
+
+import com.huaban.analysis.jieba.JiebaSegmenter;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * 检索分词器
+ *
+ * 基于 jieba 精确模式分词，统一小写并去掉标点/空白词元；
+ * 建索引与查询使用同一套规则，查询语义与 plainto_tsquery 一致（所有词元 AND）。
+ *
+ * @author BaSui
+ * @date 2026-10-16
+ */
+@Component
+public class SearchTokenizer {
+
+    private final JiebaSegmenter segmenter = new JiebaSegmenter();
+
+    /**
+     * 分词并去重（保持出现顺序）
+     */
+    public Set<String> tokenize(String text) {
+        Set<String> terms = new LinkedHashSet<>();
+        if (text == null || text.isBlank()) {
+            return terms;
+        }
+        for (String word : segmenter.sentenceProcess(text)) {
+            String term = word.trim().toLowerCase(Locale.ROOT);
+            if (!term.isEmpty() && isMeaningful(term)) {
+                terms.add(term);
+            }
+        }
+        return terms;
+    }
+
+    private boolean isMeaningful(String term) {
+        for (int i = 0; i < term.length(); i++) {
+            if (Character.isLetterOrDigit(term.charAt(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,207 @@
+package com.campus.marketplace.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * 搜索建议前缀树（不可变）
+ *
+ * - 关键词按热度排序后以名次作为编号，名次越小越热门；
+ * - 每个关键词同时以原文、全拼、首字母三种形式插入，输入 "手机" / "shouji" / "sj" 都能命中；
+ * - 构建时为每个节点预计算子树内热度前 K 的关键词，查询只需沿前缀走到节点，耗时与前缀长度成正比。
+ *
+ * @author BaSui
+ * @date 2026-10-16
+ */
+public final class SuggestionTrie {
+
+    private static final int[] EMPTY = new int[0];
+
+    private final String[] keywords;
+    private final Node root;
+    private final int topK;
+
+    private SuggestionTrie(String[] keywords, Node root, int topK) {
+        this.keywords = keywords;
+        this.root = root;
+        this.topK = topK;
+    }
+
+    /**
+     * 构建前缀树
+     *
+     * @param keywordsByPopularity 按热度倒序排列的关键词
+     * @param topK                 每个前缀保留的候选数
+     */
+    public static SuggestionTrie build(List<String> keywordsByPopularity, int topK) {
+        String[] keywords = keywordsByPopularity.toArray(new String[0]);
+        BuildNode root = new BuildNode();
+        for (int rank = 0; rank < keywords.length; rank++) {
+            for (String key : keysOf(keywords[rank])) {
+                BuildNode node = root;
+                for (int i = 0; i < key.length(); i++) {
+                    node = node.children.computeIfAbsent(key.charAt(i), c -> new BuildNode());
+                }
+                node.addTerminal(rank);
+            }
+        }
+        return new SuggestionTrie(keywords, freeze(root, topK), topK);
+    }
+
+    /**
+     * 前缀补全
+     *
+     * @param prefix 用户输入（原文、全拼或首字母）
+     * @param limit  返回条数（不超过构建时的 topK）
+     */
+    public List<String> complete(String prefix, int limit) {
+        String key = normalize(prefix);
+        if (key.isEmpty()) {
+            return List.of();
+        }
+        Node node = root;
+        for (int i = 0; i < key.length() && node != null; i++) {
+            node = node.child(key.charAt(i));
+        }
+        return node == null ? List.of() : resolve(node.top, limit);
+    }
+
+    /**
+     * 热度前 N 的关键词
+     */
+    public List<String> top(int limit) {
+        int size = Math.min(limit, keywords.length);
+        return Arrays.asList(Arrays.copyOf(keywords, size));
+    }
+
+    public int size() {
+        return keywords.length;
+    }
+
+    public int topK() {
+        return topK;
+    }
+
+    /**
+     * 输入归一化：小写、去空白
+     */
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        StringBuilder builder = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (!Character.isWhitespace(c)) {
+                builder.append(c);
+            }
+        }
+        return builder.toString().toLowerCase(Locale.ROOT);
+    }
+
+    private static Set<String> keysOf(String keyword) {
+        Set<String> keys = new LinkedHashSet<>(3);
+        String normalized = normalize(keyword);
+        if (!normalized.isEmpty()) {
+            keys.add(normalized);
+        }
+        if (PinyinUtils.containsChinese(keyword)) {
+            String pinyin = PinyinUtils.toPinyin(keyword);
+            if (!pinyin.isEmpty()) {
+                keys.add(pinyin);
+                keys.add(PinyinUtils.toInitials(keyword));
+            }
+        }
+        return keys;
+    }
+
+    private List<String> resolve(int[] ranks, int limit) {
+        int size = Math.min(limit, ranks.length);
+        List<String> result = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            result.add(keywords[ranks[i]]);
+        }
+        return result;
+    }
+
+    /**
+     * 自底向上冻结节点，合并子树热度前 K
+     */
+    private static Node freeze(BuildNode source, int topK) {
+        int childCount = source.children.size();
+        char[] labels = new char[childCount];
+        Node[] children = new Node[childCount];
+        int[] merged = Arrays.copyOf(source.terminals, source.terminalCount);
+        int index = 0;
+        for (Map.Entry<Character, BuildNode> entry : source.children.entrySet()) {
+            Node child = freeze(entry.getValue(), topK);
+            labels[index] = entry.getKey();
+            children[index] = child;
+            merged = concat(merged, child.top);
+            index++;
+        }
+        return new Node(labels, children, smallestDistinct(merged, topK));
+    }
+
+    private static int[] concat(int[] left, int[] right) {
+        if (right.length == 0) {
+            return left;
+        }
+        int[] result = Arrays.copyOf(left, left.length + right.length);
+        System.arraycopy(right, 0, result, left.length, right.length);
+        return result;
+    }
+
+    private static int[] smallestDistinct(int[] ranks, int limit) {
+        if (ranks.length == 0) {
+            return EMPTY;
+        }
+        Arrays.sort(ranks);
+        int[] result = new int[Math.min(limit, ranks.length)];
+        int size = 0;
+        for (int i = 0; i < ranks.length && size < result.length; i++) {
+            if (i == 0 || ranks[i] != ranks[i - 1]) {
+                result[size++] = ranks[i];
+            }
+        }
+        return size == result.length ? result : Arrays.copyOf(result, size);
+    }
+
+    private static final class Node {
+
+        private final char[] labels;
+        private final Node[] children;
+        private final int[] top;
+
+        private Node(char[] labels, Node[] children, int[] top) {
+            this.labels = labels;
+            this.children = children;
+            this.top = top;
+        }
+
+        private Node child(char label) {
+            int index = Arrays.binarySearch(labels, label);
+            return index >= 0 ? children[index] : null;
+        }
+    }
+
+    private static final class BuildNode {
+
+        private final Map<Character, BuildNode> children = new TreeMap<>();
+        private int[] terminals = EMPTY;
+        private int terminalCount;
+
+        private void addTerminal(int rank) {
+            if (terminalCount == terminals.length) {
+                terminals = Arrays.copyOf(terminals, Math.max(2, terminalCount << 1));
+            }
+            terminals[terminalCount++] = rank;
+        }
+    }
+}
@@ -26,7 +26,7 @@ public interface CouponService {
                         LocalDateTime startTime, LocalDateTime endTime, String description);
 
     /**
-     * 领取优惠券
+     * 领取优惠券（领取引擎开启时记录异步落库，返回的领取记录尚无ID）
      */
     CouponUserRelation receiveCoupon(Long userId, Long couponId);
 
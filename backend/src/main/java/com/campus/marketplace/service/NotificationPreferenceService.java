@@ -3,6 +3,9 @@ package com.campus.marketplace.service;
 import com.campus.marketplace.common.enums.NotificationChannel;
 
 import java.time.LocalTime;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
 /**
  * Notification Preference Service
  *
@@ -19,4 +22,14 @@ public interface NotificationPreferenceService {
     void unsubscribe(Long userId, String templateCode, NotificationChannel channel);
     void resubscribe(Long userId, String templateCode, NotificationChannel channel);
     boolean isUnsubscribed(Long userId, String templateCode, NotificationChannel channel);
+
+    /**
+     * 批量查询退订：一次查询返回每个渠道下已退订该模板的用户
+     */
+    Map<NotificationChannel, Set<Long>> findUnsubscribed(Collection<Long> userIds, String templateCode);
+
+    /**
+     * 批量查询某渠道被关闭或当前处于静默时段的用户
+     */
+    Set<Long> findMuted(Collection<Long> userIds, NotificationChannel channel, LocalTime now);
 }
@@ -113,4 +113,32 @@ public interface NotificationService {
                                   Long relatedId,
                                   String relatedType,
                                   String link);
+
+    /**
+     * 批量发送站内通知：同一内容扇出给多个接收者
+     *
+     * <p>退订一次查询、站内信按批次一条 SQL 写入、未读数通过 Redis 管道累加。</p>
+     *
+     * @param receiverIds 接收者ID列表（重复ID只发送一次）
+     */
+    void sendNotificationBulk(List<Long> receiverIds,
+                              NotificationType type,
+                              String title,
+                              String content,
+                              Long relatedId,
+                              String relatedType,
+                              String link);
+
+    /**
+     * 基于模板批量发送通知：模板只渲染一次，按渠道批量校验偏好/退订后扇出
+     *
+     * @param receiverIds 接收者ID列表（重复ID只发送一次）
+     */
+    void sendTemplateNotificationBulk(List<Long> receiverIds,
+                                      String templateCode,
+                                      Map<String, Object> params,
+                                      NotificationType type,
+                                      Long relatedId,
+                                      String relatedType,
+                                      String link);
 }
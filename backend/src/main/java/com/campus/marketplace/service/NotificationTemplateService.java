@@ -18,4 +18,9 @@ public interface NotificationTemplateService {
     record Rendered(String title, String content, Set<NotificationChannel> channels) {}
 
     Rendered render(String code, Locale locale, Map<String, Object> params);
+
+    /**
+     * 模板被新增、修改或删除后清空已编译模板
+     */
+    void invalidate();
 }
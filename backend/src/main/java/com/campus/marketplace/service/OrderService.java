@@ -51,6 +51,14 @@ public interface OrderService {
      */
     int cancelTimeoutOrders();
 
+    /**
+     * 取消单个超时订单（订单已非待支付或尚未到期时跳过）
+     *
+     * @param orderId 订单ID
+     * @return 是否实际取消
+     */
+    boolean cancelTimeoutOrder(Long orderId);
+
     /**
      * 取消订单（买家/卖家均可在未支付时取消）
      *
@@ -81,6 +81,11 @@ public interface RecommendService {
      */
     void precomputeRecommendations();
 
+    /**
+     * 增量刷新预计算结果（仅重算上次刷新后有新行为的用户，定时任务调用）
+     */
+    void refreshChangedRecommendations();
+
     /**
      * 🎯 BaSui 新增：获取推荐配置
      *
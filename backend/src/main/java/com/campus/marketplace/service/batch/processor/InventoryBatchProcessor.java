@@ -6,6 +6,7 @@ import com.campus.marketplace.common.entity.Goods;
 import com.campus.marketplace.common.enums.BatchType;
 import com.campus.marketplace.common.enums.GoodsStatus;
 import com.campus.marketplace.common.utils.SecurityUtil;
+import com.campus.marketplace.event.GoodsChangedEvent;
 import com.campus.marketplace.repository.GoodsRepository;
 import com.campus.marketplace.service.AuditLogService;
 import com.campus.marketplace.service.CacheService;
@@ -13,6 +14,7 @@ import com.campus.marketplace.service.batch.BatchProcessor;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -36,6 +38,7 @@ public class InventoryBatchProcessor implements BatchProcessor {
     private final AuditLogService auditLogService;
     private final CacheService cacheService;
     private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     public BatchType getSupportedType() {
@@ -82,6 +85,7 @@ public class InventoryBatchProcessor implements BatchProcessor {
             }
 
             goodsRepository.save(goods);
+            eventPublisher.publishEvent(new GoodsChangedEvent(this, goods.getId(), GoodsChangedEvent.ChangeType.STATUS_CHANGED));
 
             // 清除缓存
             cacheService.delete("goods:" + goods.getId());
@@ -5,6 +5,7 @@ import com.campus.marketplace.common.entity.BatchTaskItem;
 import com.campus.marketplace.common.entity.Goods;
 import com.campus.marketplace.common.enums.BatchType;
 import com.campus.marketplace.common.utils.SecurityUtil;
+import com.campus.marketplace.event.GoodsChangedEvent;
 import com.campus.marketplace.repository.GoodsRepository;
 import com.campus.marketplace.service.AuditLogService;
 import com.campus.marketplace.service.CacheService;
@@ -12,6 +13,7 @@ import com.campus.marketplace.service.batch.BatchProcessor;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -37,6 +39,7 @@ public class PriceBatchProcessor implements BatchProcessor {
     private final AuditLogService auditLogService;
     private final CacheService cacheService;
     private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     public BatchType getSupportedType() {
@@ -84,6 +87,7 @@ public class PriceBatchProcessor implements BatchProcessor {
             // 更新商品价格
             goods.setPrice(newPrice);
             goodsRepository.save(goods);
+            eventPublisher.publishEvent(new GoodsChangedEvent(this, goods.getId(), GoodsChangedEvent.ChangeType.UPDATED));
 
             // 清除缓存
             cacheService.delete("goods:" + goods.getId());
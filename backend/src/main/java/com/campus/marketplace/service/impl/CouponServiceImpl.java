@@ -1,5 +1,6 @@
 package com.campus.marketplace.service.impl;
 
+import com.campus.marketplace.common.component.CouponClaimEngine;
 import com.campus.marketplace.common.dto.response.CouponResponse;
 import com.campus.marketplace.common.entity.Coupon;
 import com.campus.marketplace.common.entity.CouponUserRelation;
@@ -22,6 +23,7 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
@@ -45,6 +47,8 @@ public class CouponServiceImpl implements CouponService {
     private final CouponUserRelationRepository relationRepository;
     private final ObjectProvider<ExportService> exportServiceProvider;
     private final ExportJobRepository exportJobRepository;
+    private final CouponClaimEngine couponClaimEngine;
+    private final TransactionTemplate transactionTemplate;
 
     @Override
     @Transactional(rollbackFor = Exception.class)
@@ -89,10 +93,55 @@ public class CouponServiceImpl implements CouponService {
     }
 
     @Override
-    @Transactional(rollbackFor = Exception.class)
     public CouponUserRelation receiveCoupon(Long userId, Long couponId) {
         log.info("领取优惠券: userId={}, couponId={}", userId, couponId);
 
+        // 领取引擎：Redis 原子扣减，命中时不访问数据库、不开事务
+        if (couponClaimEngine.isEnabled()) {
+            return receiveByEngine(userId, couponId);
+        }
+        return transactionTemplate.execute(status -> receiveInTransaction(userId, couponId));
+    }
+
+    /**
+     * 通过领取引擎领取，券未加载时从数据库加载一次后重试
+     */
+    private CouponUserRelation receiveByEngine(Long userId, Long couponId) {
+        CouponClaimEngine.ClaimResult result = couponClaimEngine.claim(userId, couponId);
+        if (result.status() == CouponClaimEngine.Status.NOT_LOADED) {
+            Coupon coupon = couponRepository.findById(couponId)
+                    .orElseThrow(() -> new BusinessException(ErrorCode.NOT_FOUND, "优惠券不存在"));
+            Map<Long, Long> claimedByUser = new HashMap<>();
+            for (Object[] row : relationRepository.countByCouponIdGroupByUser(couponId)) {
+                claimedByUser.put((Long) row[0], (Long) row[1]);
+            }
+            couponClaimEngine.load(coupon, claimedByUser);
+            result = couponClaimEngine.claim(userId, couponId);
+        }
+
+        switch (result.status()) {
+            case CLAIMED -> log.info("优惠券领取成功（待落库）: userId={}, couponId={}", userId, couponId);
+            case NOT_STARTED -> throw new BusinessException(ErrorCode.PARAM_ERROR, "优惠券未开始");
+            case EXPIRED -> throw new BusinessException(ErrorCode.PARAM_ERROR, "优惠券已过期");
+            case INACTIVE -> throw new BusinessException(ErrorCode.PARAM_ERROR, "优惠券已停用");
+            case SOLD_OUT -> throw new BusinessException(ErrorCode.PARAM_ERROR, "优惠券已领完");
+            case LIMIT_REACHED -> throw new BusinessException(ErrorCode.PARAM_ERROR, "已达领取上限");
+            case NOT_LOADED -> throw new BusinessException(ErrorCode.OPERATION_FAILED, "优惠券领取繁忙，请稍后重试");
+        }
+
+        return CouponUserRelation.builder()
+                .userId(userId)
+                .couponId(couponId)
+                .status(CouponStatus.AVAILABLE)
+                .receiveTime(LocalDateTime.now())
+                .expireTime(result.expireAt())
+                .build();
+    }
+
+    /**
+     * 数据库直领（领取引擎关闭时）
+     */
+    private CouponUserRelation receiveInTransaction(Long userId, Long couponId) {
         // 查询优惠券
         Coupon coupon = couponRepository.findById(couponId)
                 .orElseThrow(() -> new BusinessException(ErrorCode.NOT_FOUND, "优惠券不存在"));
@@ -283,6 +332,9 @@ public class CouponServiceImpl implements CouponService {
 
         coupon.setIsActive(false);
         couponRepository.save(coupon);
+        if (couponClaimEngine.isEnabled()) {
+            couponClaimEngine.updateActive(couponId, false);
+        }
 
         log.info("优惠券停用成功: couponId={}", couponId);
     }
@@ -297,6 +349,9 @@ public class CouponServiceImpl implements CouponService {
 
         coupon.setIsActive(true);
         couponRepository.save(coupon);
+        if (couponClaimEngine.isEnabled()) {
+            couponClaimEngine.updateActive(couponId, true);
+        }
 
         log.info("优惠券启用成功: couponId={}", couponId);
     }
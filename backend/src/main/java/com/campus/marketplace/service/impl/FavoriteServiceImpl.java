@@ -10,6 +10,7 @@ import com.campus.marketplace.common.exception.BusinessException;
 import com.campus.marketplace.common.exception.ErrorCode;
 import com.campus.marketplace.common.security.PermissionCodes;
 import com.campus.marketplace.common.utils.SecurityUtil;
+import com.campus.marketplace.event.GoodsEngagementEvent;
 import com.campus.marketplace.repository.CategoryRepository;
 import com.campus.marketplace.repository.FavoriteRepository;
 import com.campus.marketplace.repository.GoodsRepository;
@@ -19,6 +20,7 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -42,6 +44,7 @@ public class FavoriteServiceImpl implements FavoriteService {
     private final GoodsRepository goodsRepository;
     private final UserRepository userRepository;
     private final CategoryRepository categoryRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * 添加收藏
@@ -95,6 +98,8 @@ public class FavoriteServiceImpl implements FavoriteService {
         // 6. 增加物品收藏数
         goods.incrementFavoriteCount();
         goodsRepository.save(goods);
+        eventPublisher.publishEvent(new GoodsEngagementEvent(this, goodsId, goods.getCampusId(),
+                GoodsEngagementEvent.EngagementType.FAVORITE));
 
         log.info("收藏成功: userId={}, goodsId={}", user.getId(), goodsId);
     }
@@ -93,7 +93,7 @@ public class FollowServiceImpl implements FollowService {
     }
 
     @Override
-    @Transactional(readOnly = true)
+    @Transactional
     public void notifyFollowersOnGoodsApproved(Goods goods) {
         List<Follow> followers = followRepository.findBySellerId(goods.getSellerId());
         if (followers.isEmpty()) {
@@ -101,15 +101,15 @@ public class FollowServiceImpl implements FollowService {
         }
         String title = "你关注的卖家发布了新商品";
         String content = String.format("卖家上架了《%s》，快去看看吧～", goods.getTitle());
-        followers.forEach(follow -> notificationService.sendNotification(
-                follow.getFollowerId(),
+        notificationService.sendNotificationBulk(
+                followers.stream().map(Follow::getFollowerId).toList(),
                 NotificationType.FOLLOW_SELLER_NEW_GOODS,
                 title,
                 content,
                 goods.getId(),
                 "GOODS",
                 "/goods/" + goods.getId()
-        ));
+        );
         log.info("通知关注者成功 goodsId={}, followers={}", goods.getId(), followers.size());
 
         // 同步写入用户动态流（targetType=GOODS，feedType=POST）
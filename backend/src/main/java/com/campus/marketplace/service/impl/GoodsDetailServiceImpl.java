@@ -9,6 +9,8 @@ import com.campus.marketplace.common.entity.ViewLog;
 import com.campus.marketplace.common.enums.GoodsStatus;
 import com.campus.marketplace.common.exception.BusinessException;
 import com.campus.marketplace.common.exception.ErrorCode;
+import com.campus.marketplace.event.GoodsEngagementEvent;
+import com.campus.marketplace.recommend.ViewTrafficCounter;
 import com.campus.marketplace.repository.*;
 import com.campus.marketplace.service.GoodsDetailService;
 import com.campus.marketplace.service.ReviewStatisticsService;
@@ -16,6 +18,7 @@ import com.campus.marketplace.service.CreditService;
 import com.campus.marketplace.service.OnlineStatusService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -42,6 +45,8 @@ public class GoodsDetailServiceImpl implements GoodsDetailService {
     private final ViewLogRepository viewLogRepository;
     private final ReviewRepository reviewRepository;
     private final OrderRepository orderRepository;
+    private final ViewTrafficCounter viewTrafficCounter;
+    private final ApplicationEventPublisher eventPublisher;
     
     @org.springframework.context.annotation.Lazy
     private ReviewStatisticsService reviewStatisticsService;
@@ -205,12 +210,15 @@ public class GoodsDetailServiceImpl implements GoodsDetailService {
             .build();
 
         viewLogRepository.save(viewLog);
+        viewTrafficCounter.record();
 
         // 更新商品浏览量
         Goods goods = goodsRepository.findById(goodsId).orElse(null);
         if (goods != null) {
             goods.setViewCount(goods.getViewCount() + 1);
             goodsRepository.save(goods);
+            eventPublisher.publishEvent(new GoodsEngagementEvent(this, goodsId, goods.getCampusId(),
+                    GoodsEngagementEvent.EngagementType.VIEW));
         }
     }
 
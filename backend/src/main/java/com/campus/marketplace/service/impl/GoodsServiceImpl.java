@@ -26,9 +26,12 @@ import com.campus.marketplace.service.GoodsService;
 import com.campus.marketplace.service.FollowService;
 import com.campus.marketplace.service.MessageService;
 import com.campus.marketplace.service.SubscriptionService;
+import com.campus.marketplace.event.GoodsChangedEvent;
+import com.campus.marketplace.event.GoodsEngagementEvent;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -76,6 +79,7 @@ public class GoodsServiceImpl implements GoodsService {
     private final EncryptUtil encryptUtil;
     private final com.campus.marketplace.repository.FavoriteRepository favoriteRepository;  // 🆕 收藏Repository
     private final com.campus.marketplace.repository.ReviewRepository reviewRepository;  // 🆕 评价Repository
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * 发布物品
@@ -136,6 +140,7 @@ public class GoodsServiceImpl implements GoodsService {
         // 5. 保存物品
         goodsRepository.save(goods);
         syncGoodsTags(goods.getId(), request.tagIds());
+        eventPublisher.publishEvent(new GoodsChangedEvent(this, goods.getId(), GoodsChangedEvent.ChangeType.CREATED));
 
         log.info("物品发布成功: goodsId={}, sellerId={}, title={}", 
                 goods.getId(), user.getId(), goods.getTitle());
@@ -311,6 +316,8 @@ public class GoodsServiceImpl implements GoodsService {
         // 3. 增加浏览量
         goods.incrementViewCount();
         goodsRepository.save(goods);
+        eventPublisher.publishEvent(new GoodsEngagementEvent(this, goods.getId(), goods.getCampusId(),
+                GoodsEngagementEvent.EngagementType.VIEW));
 
         // 4. 转换为响应 DTO
         return convertToDetailResponse(goods);
@@ -535,6 +542,8 @@ public class GoodsServiceImpl implements GoodsService {
 
         // 5. 保存物品
         goodsRepository.save(goods);
+        eventPublisher.publishEvent(new GoodsChangedEvent(this, goods.getId(),
+                approved ? GoodsChangedEvent.ChangeType.APPROVED : GoodsChangedEvent.ChangeType.REJECTED));
 
         // 6. 记录审核日志
         log.info("【审核日志】审核人: {}, 物品ID: {}, 审核结果: {}, 拒绝原因: {}, 时间: {}", 
@@ -1,14 +1,15 @@
 package com.campus.marketplace.service.impl;
 
+import com.campus.marketplace.common.component.CampaignStockEngine;
 import com.campus.marketplace.common.entity.MarketingCampaign;
 import com.campus.marketplace.common.exception.BusinessException;
 import com.campus.marketplace.common.exception.ErrorCode;
+import com.campus.marketplace.common.utils.RedisScriptRegistry;
 import com.campus.marketplace.repository.MarketingCampaignRepository;
 import com.campus.marketplace.service.MarketingCampaignService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.data.redis.core.script.DefaultRedisScript;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -29,6 +30,8 @@ public class MarketingCampaignServiceImpl implements MarketingCampaignService {
 
     private final MarketingCampaignRepository marketingCampaignRepository;
     private final RedisTemplate<String, Object> redisTemplate;
+    private final RedisScriptRegistry scriptRegistry;
+    private final CampaignStockEngine campaignStockEngine;
     
     private static final String CAMPAIGN_STOCK_KEY_PREFIX = "campaign:stock:";
     private static final String CAMPAIGN_LOCK_KEY_PREFIX = "campaign:lock:";
@@ -116,6 +119,7 @@ public class MarketingCampaignServiceImpl implements MarketingCampaignService {
         
         campaign.setStatus("PAUSED");
         marketingCampaignRepository.save(campaign);
+        campaignStockEngine.statusChanged(campaignId, false);
         
         log.info("活动{}已暂停", campaignId);
     }
@@ -140,6 +144,7 @@ public class MarketingCampaignServiceImpl implements MarketingCampaignService {
         
         campaign.setStatus("RUNNING");
         marketingCampaignRepository.save(campaign);
+        campaignStockEngine.statusChanged(campaignId, true);
         
         log.info("活动{}已恢复", campaignId);
     }
@@ -158,6 +163,7 @@ public class MarketingCampaignServiceImpl implements MarketingCampaignService {
         
         campaign.setStatus("ENDED");
         marketingCampaignRepository.save(campaign);
+        campaignStockEngine.evict(campaignId);
         
         log.info("活动{}已结束", campaignId);
     }
@@ -182,8 +188,13 @@ public class MarketingCampaignServiceImpl implements MarketingCampaignService {
                 
                 // 初始化Redis库存
                 if (campaign.getStockLimit() != null && campaign.getStockLimit() > 0) {
-                    initializeRedisStock(campaign.getId(), campaign);
+                    if (campaignStockEngine.isEnabled()) {
+                        loadReservationStock(campaign);
+                    } else {
+                        initializeRedisStock(campaign.getId(), campaign);
+                    }
                 }
+                campaignStockEngine.statusChanged(campaign.getId(), true);
                 
                 startedCount++;
                 log.info("活动{}自动启动", campaign.getId());
@@ -207,6 +218,7 @@ public class MarketingCampaignServiceImpl implements MarketingCampaignService {
             String counterKey = "campaign:counter:" + campaign.getId();
             redisTemplate.delete(stockKey);
             redisTemplate.delete(counterKey);
+            campaignStockEngine.evict(campaign.getId());
             
             endedCount++;
             log.info("活动{}自动结束", campaign.getId());
@@ -219,6 +231,10 @@ public class MarketingCampaignServiceImpl implements MarketingCampaignService {
     public boolean deductStock(Long campaignId, int quantity) {
         log.debug("扣减活动{}库存: {}", campaignId, quantity);
         
+        if (campaignStockEngine.isEnabled()) {
+            return reserveStock(campaignId, quantity);
+        }
+        
         // 检查活动状态（从数据库）
         MarketingCampaign campaign = marketingCampaignRepository.findById(campaignId)
             .orElseThrow(() -> new BusinessException(ErrorCode.INVALID_PARAMETER, "活动不存在"));
@@ -235,27 +251,13 @@ public class MarketingCampaignServiceImpl implements MarketingCampaignService {
             initializeRedisStock(campaignId, campaign);
         }
         
-        // 使用Lua脚本原子扣减库存
-        String luaScript = 
-            "local stock = redis.call('get', KEYS[1]) " +
-            "if not stock then " +
-            "    return -1 " +  // 库存未初始化
-            "end " +
-            "stock = tonumber(stock) " +
-            "if stock < tonumber(ARGV[1]) then " +
-            "    return 0 " +  // 库存不足
-            "end " +
-            "redis.call('decrby', KEYS[1], ARGV[1]) " +
-            "return 1";  // 扣减成功
-        
-        DefaultRedisScript<Long> redisScript = new DefaultRedisScript<>();
-        redisScript.setScriptText(luaScript);
-        redisScript.setResultType(Long.class);
-        
-        Long result = redisTemplate.execute(
-            redisScript,
+        // 使用Lua脚本原子扣减库存（见 lua/campaign_stock_deduct.lua）
+        // 数量按数值传入：String 参数经 JSON 序列化后带引号，脚本中 tonumber 会得到 nil
+        Long result = scriptRegistry.execute(
+            redisTemplate,
+            RedisScriptRegistry.CAMPAIGN_STOCK_DEDUCT,
             Collections.singletonList(stockKey),
-            String.valueOf(quantity)
+            quantity
         );
         
         if (result == null || result == -1) {
@@ -275,6 +277,57 @@ public class MarketingCampaignServiceImpl implements MarketingCampaignService {
         return true;
     }
     
+    /**
+     * 秒杀预留：本地状态缓存 → 本地售罄标记 / Redis 原子预留，热路径不访问数据库，
+     * 预留记录由 CampaignReservationStreamConsumer 异步落库
+     */
+    private boolean reserveStock(Long campaignId, int quantity) {
+        String status = campaignStockEngine.cachedStatus(campaignId, id -> marketingCampaignRepository.findById(id)
+            .orElseThrow(() -> new BusinessException(ErrorCode.INVALID_PARAMETER, "活动不存在"))
+            .getStatus());
+        if (!"RUNNING".equals(status)) {
+            throw new BusinessException(ErrorCode.INVALID_PARAMETER, "活动未在进行中");
+        }
+        
+        CampaignStockEngine.Status result = campaignStockEngine.reserve(campaignId, quantity);
+        if (result == CampaignStockEngine.Status.NOT_LOADED) {
+            MarketingCampaign campaign = marketingCampaignRepository.findById(campaignId)
+                .orElseThrow(() -> new BusinessException(ErrorCode.INVALID_PARAMETER, "活动不存在"));
+            loadReservationStock(campaign);
+            result = campaignStockEngine.reserve(campaignId, quantity);
+        }
+        
+        switch (result) {
+            case RESERVED -> {
+                log.debug("活动{}库存预留成功", campaignId);
+                return true;
+            }
+            case SOLD_OUT -> {
+                log.debug("活动{}库存不足", campaignId);
+                return false;
+            }
+            case NOT_RUNNING -> {
+                // 其他节点已暂停/结束活动，本地缓存尚未过期
+                campaignStockEngine.invalidate(campaignId);
+                throw new BusinessException(ErrorCode.INVALID_PARAMETER, "活动未在进行中");
+            }
+            default -> {
+                log.error("活动{}Redis库存未初始化", campaignId);
+                return false;
+            }
+        }
+    }
+    
+    /**
+     * 按数据库剩余库存加载秒杀预留库存
+     */
+    private void loadReservationStock(MarketingCampaign campaign) {
+        if (campaign.getStockRemaining() == null || campaign.getStockRemaining() < 0) {
+            throw new BusinessException(ErrorCode.INVALID_PARAMETER, "活动库存无效");
+        }
+        campaignStockEngine.load(campaign);
+    }
+    
     /**
      * 初始化Redis库存
      */
@@ -25,6 +25,7 @@ import com.campus.marketplace.repository.ConversationRepository;
 import com.campus.marketplace.repository.MessageRepository;
 import com.campus.marketplace.repository.UserRepository;
 import com.campus.marketplace.service.MessageService;
+import com.campus.marketplace.websocket.WebSocketClusterRouter;
 import com.campus.marketplace.websocket.WebSocketSessionManager;
 import com.campus.marketplace.common.dto.websocket.WebSocketMessage;
 
@@ -40,8 +41,6 @@ import org.springframework.data.domain.Sort;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.socket.TextMessage;
-import org.springframework.web.socket.WebSocketSession;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import java.time.Duration;
@@ -77,6 +76,7 @@ public class MessageServiceImpl implements MessageService {
     private final RedisTemplate<String, Object> redisTemplate;
     private final ObjectMapper objectMapper;
     private final com.campus.marketplace.repository.MessageSearchHistoryRepository searchHistoryRepository;
+    private final WebSocketClusterRouter clusterRouter;
 
     /**
      * 构造函数 - 显式注入依赖
@@ -94,7 +94,8 @@ public class MessageServiceImpl implements MessageService {
             @Qualifier("messageSessionManager") WebSocketSessionManager sessionManager,
             RedisTemplate<String, Object> redisTemplate,
             ObjectMapper objectMapper,
-            com.campus.marketplace.repository.MessageSearchHistoryRepository searchHistoryRepository
+            com.campus.marketplace.repository.MessageSearchHistoryRepository searchHistoryRepository,
+            WebSocketClusterRouter clusterRouter
     ) {
         this.userRepository = userRepository;
         this.messageRepository = messageRepository;
@@ -106,6 +107,7 @@ public class MessageServiceImpl implements MessageService {
         this.redisTemplate = redisTemplate;
         this.objectMapper = objectMapper;
         this.searchHistoryRepository = searchHistoryRepository;
+        this.clusterRouter = clusterRouter;
     }
 
     /**
@@ -419,14 +421,7 @@ public class MessageServiceImpl implements MessageService {
      */
     private void pushMessageViaWebSocket(Long receiverId, Message message, User sender) {
         try {
-            // 1. 检查接收者是否在线
-            WebSocketSession receiverSession = sessionManager.getSession(receiverId);
-            if (receiverSession == null || !receiverSession.isOpen()) {
-                log.debug("📴 接收者不在线，无法实时推送：receiverId={}", receiverId);
-                return;
-            }
-
-            // 2. 构建 WebSocket 消息
+            // 1. 构建 WebSocket 消息
             WebSocketMessage wsMessage = WebSocketMessage.builder()
                     .type("NEW_MESSAGE")
                     .content(message.getContent())
@@ -436,9 +431,12 @@ public class MessageServiceImpl implements MessageService {
                     .timestamp(System.currentTimeMillis())
                     .build();
 
-            // 3. 发送消息
+            // 2. 发送消息（接收者连在其他节点时由集群路由转发）
             String json = objectMapper.writeValueAsString(wsMessage);
-            receiverSession.sendMessage(new TextMessage(json));
+            if (!clusterRouter.send(sessionManager, receiverId, json)) {
+                log.debug("📴 接收者不在线，无法实时推送：receiverId={}", receiverId);
+                return;
+            }
 
             log.info("📡 消息已实时推送：receiverId={}, messageId={}", receiverId, message.getId());
         } catch (Exception e) {
@@ -553,12 +551,6 @@ public class MessageServiceImpl implements MessageService {
      */
     private void notifyMessageRecalled(Long receiverId, Long messageId) {
         try {
-            WebSocketSession receiverSession = sessionManager.getSession(receiverId);
-            if (receiverSession == null || !receiverSession.isOpen()) {
-                log.debug("📴 接收者不在线，无法通知撤回：receiverId={}", receiverId);
-                return;
-            }
-
             WebSocketMessage wsMessage = WebSocketMessage.builder()
                     .type("MESSAGE_RECALLED")
                     .messageId(messageId)
@@ -566,7 +558,10 @@ public class MessageServiceImpl implements MessageService {
                     .build();
 
             String json = objectMapper.writeValueAsString(wsMessage);
-            receiverSession.sendMessage(new TextMessage(json));
+            if (!clusterRouter.send(sessionManager, receiverId, json)) {
+                log.debug("📴 接收者不在线，无法通知撤回：receiverId={}", receiverId);
+                return;
+            }
 
             log.info("🔙 撤回通知已发送：receiverId={}, messageId={}", receiverId, messageId);
         } catch (Exception e) {
@@ -11,6 +11,11 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalTime;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Notification Preference Service Impl
@@ -100,4 +105,29 @@ public class NotificationPreferenceServiceImpl implements NotificationPreference
     public boolean isUnsubscribed(Long userId, String templateCode, NotificationChannel channel) {
         return unsubscribeRepository.existsByUserIdAndTemplateCodeAndChannel(userId, templateCode, channel);
     }
+
+    @Override
+    public Map<NotificationChannel, Set<Long>> findUnsubscribed(Collection<Long> userIds, String templateCode) {
+        Map<NotificationChannel, Set<Long>> result = new EnumMap<>(NotificationChannel.class);
+        for (NotificationChannel channel : NotificationChannel.values()) {
+            result.put(channel, new HashSet<>());
+        }
+        if (userIds == null || userIds.isEmpty()) return result;
+        for (NotificationUnsubscribe unsub : unsubscribeRepository.findByTemplateCodeAndUserIdIn(templateCode, userIds)) {
+            result.get(unsub.getChannel()).add(unsub.getUserId());
+        }
+        return result;
+    }
+
+    @Override
+    public Set<Long> findMuted(Collection<Long> userIds, NotificationChannel channel, LocalTime now) {
+        Set<Long> muted = new HashSet<>();
+        if (userIds == null || userIds.isEmpty()) return muted;
+        for (NotificationPreference pref : preferenceRepository.findByChannelAndUserIdIn(channel, userIds)) {
+            if (Boolean.FALSE.equals(pref.getEnabled()) || inQuiet(now, pref.getQuietStart(), pref.getQuietEnd())) {
+                muted.add(pref.getUserId());
+            }
+        }
+        return muted;
+    }
 }
@@ -1,5 +1,6 @@
 package com.campus.marketplace.service.impl;
 
+import com.campus.marketplace.common.component.NotificationChannelLimiter;
 import com.campus.marketplace.common.dto.response.NotificationResponse;
 import com.campus.marketplace.common.entity.Notification;
 import com.campus.marketplace.common.entity.User;
@@ -22,16 +23,29 @@ import org.springframework.core.env.Profiles;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.redis.core.RedisOperations;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 
 /**
  * 通知服务实现类 - 真实实现不使用模拟数据！
@@ -52,10 +66,22 @@ public class NotificationServiceImpl implements NotificationService {
     private final WebPushService webPushService;
     private final com.campus.marketplace.service.NotificationTemplateService templateService;
     private final Environment environment;
+    private final NotificationChannelLimiter channelLimiter;
+    private final JdbcTemplate jdbcTemplate;
 
     private static final String UNREAD_COUNT_KEY = "notification:unread:";
     private static final String EMAIL_RATE_KEY = "notification:email:rate:";
 
+    /**
+     * 批量扇出时每批处理的接收者数量（退订查询、INSERT、Redis 管道均按批）
+     */
+    static final int BULK_CHUNK_SIZE = 1000;
+
+    private static final String BULK_INSERT_SQL =
+            "INSERT INTO t_notification (receiver_id, type, title, content, related_id, related_type, link, " +
+            "status, email_sent, created_at) " +
+            "SELECT r, ?, ?, ?, ?, ?, ?, ?, false, ? FROM unnest(?::bigint[]) AS r";
+
     @org.springframework.beans.factory.annotation.Value("${notifications.email.rate.perMinute:20}")
     private int emailPerMinute;
 
@@ -344,36 +370,257 @@ public class NotificationServiceImpl implements NotificationService {
         // 站内通知（受退订控制）
         if (enableInApp) {
             try {
-                sendNotification(receiverId, type, rendered.title(), rendered.content(), relatedId, relatedType, link);
+                channelLimiter.run(NotificationChannel.IN_APP, () -> sendNotification(receiverId, type,
+                        rendered.title(), rendered.content(), relatedId, relatedType, link));
             } catch (Exception e) {
                 log.warn("站内通知发送失败（模板）：userId={}, tpl={}", receiverId, templateCode, e);
             }
         }
 
-        // 邮件通知（受退订与静默控制）
+        // 邮件通知（受退订与静默控制，事务提交后发送）
         if (enableEmail) {
             boolean unsubEmail = preferenceService.isUnsubscribed(receiverId, type.name(), NotificationChannel.EMAIL);
             if (!unsubEmail) {
-                try {
-                    sendEmailNotification(receiverId, rendered.title(), rendered.content());
-                } catch (Exception e) {
-                    log.warn("邮件通知发送失败（模板）：userId={}, tpl={}", receiverId, templateCode, e);
-                }
+                afterCommit(() -> {
+                    try {
+                        channelLimiter.run(NotificationChannel.EMAIL,
+                                () -> sendEmailNotification(receiverId, rendered.title(), rendered.content()));
+                    } catch (Exception e) {
+                        log.warn("邮件通知发送失败（模板）：userId={}, tpl={}", receiverId, templateCode, e);
+                    }
+                });
             } else {
                 log.debug("用户退订了邮件渠道，跳过：userId={}, template={}", receiverId, templateCode);
             }
         }
 
-        // WebPush（受退订控制）
+        // WebPush（受退订控制，事务提交后发送）
         if (enableWebPush) {
             boolean unsubWebPush = preferenceService.isUnsubscribed(receiverId, type.name(), NotificationChannel.WEB_PUSH);
             if (!unsubWebPush) {
+                afterCommit(() -> {
+                    try {
+                        channelLimiter.run(NotificationChannel.WEB_PUSH,
+                                () -> webPushService.send(receiverId, rendered.title(), rendered.content(), link));
+                    } catch (Exception e) {
+                        log.warn("WebPush 发送失败（模板）：userId={}, tpl={}", receiverId, templateCode, e);
+                    }
+                });
+            }
+        }
+    }
+
+    @Override
+    @Transactional
+    public void sendNotificationBulk(List<Long> receiverIds,
+                                     NotificationType type,
+                                     String title,
+                                     String content,
+                                     Long relatedId,
+                                     String relatedType,
+                                     String link) {
+        fanOut(receiverIds, type, title, content, relatedId, relatedType, link, EnumSet.of(NotificationChannel.IN_APP));
+    }
+
+    @Override
+    @Transactional
+    public void sendTemplateNotificationBulk(List<Long> receiverIds,
+                                             String templateCode,
+                                             Map<String, Object> params,
+                                             NotificationType type,
+                                             Long relatedId,
+                                             String relatedType,
+                                             String link) {
+        // 用户未保存语言偏好，整批按当前请求的 locale 只渲染一次
+        var locale = org.springframework.context.i18n.LocaleContextHolder.getLocale();
+        var rendered = templateService.render(templateCode, locale, params == null ? Map.of() : params);
+        Set<NotificationChannel> channels = rendered.channels() == null ? Set.of() : rendered.channels();
+        fanOut(receiverIds, type, rendered.title(), rendered.content(), relatedId, relatedType, link, channels);
+    }
+
+    /**
+     * 批量扇出：按批查询退订，站内信一条 SQL 写入，邮件/WebPush 在事务提交后经渠道限流异步发送
+     * （调用方事务回滚时不会发出，例如审核通过后通知关注者）
+     */
+    private void fanOut(List<Long> receiverIds, NotificationType type, String title, String content,
+                        Long relatedId, String relatedType, String link, Set<NotificationChannel> channels) {
+        if (receiverIds == null || receiverIds.isEmpty() || channels.isEmpty()) {
+            return;
+        }
+        List<Long> receivers = new ArrayList<>(new LinkedHashSet<>(receiverIds));
+        receivers.removeIf(Objects::isNull);
+
+        long start = System.nanoTime();
+        int inApp = 0;
+        int emails = 0;
+        int pushes = 0;
+        List<Runnable> deliveries = new ArrayList<>();
+        for (int from = 0; from < receivers.size(); from += BULK_CHUNK_SIZE) {
+            List<Long> chunk = receivers.subList(from, Math.min(from + BULK_CHUNK_SIZE, receivers.size()));
+            Map<NotificationChannel, Set<Long>> unsubscribed = preferenceService.findUnsubscribed(chunk, type.name());
+
+            if (channels.contains(NotificationChannel.IN_APP)) {
+                inApp += insertBulk(exclude(chunk, unsubscribed.get(NotificationChannel.IN_APP)),
+                        type, title, content, relatedId, relatedType, link);
+            }
+            if (channels.contains(NotificationChannel.EMAIL)) {
+                emails += sendEmailBulk(exclude(chunk, unsubscribed.get(NotificationChannel.EMAIL)), title, content,
+                        deliveries);
+            }
+            if (channels.contains(NotificationChannel.WEB_PUSH)) {
+                for (Long receiverId : exclude(chunk, unsubscribed.get(NotificationChannel.WEB_PUSH))) {
+                    deliveries.add(() -> channelLimiter.runAsync(NotificationChannel.WEB_PUSH,
+                            () -> webPushService.send(receiverId, title, content, link)));
+                    pushes++;
+                }
+            }
+        }
+        if (!deliveries.isEmpty()) {
+            afterCommit(() -> deliveries.forEach(Runnable::run));
+        }
+        log.info("批量通知扇出完成: type={}, receivers={}, inApp={}, email={}, webPush={}, costMs={}",
+                type, receivers.size(), inApp, emails, pushes, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private static List<Long> exclude(List<Long> receivers, Set<Long> excluded) {
+        if (excluded == null || excluded.isEmpty()) {
+            return receivers;
+        }
+        return receivers.stream().filter(id -> !excluded.contains(id)).toList();
+    }
+
+    private int insertBulk(List<Long> receivers, NotificationType type, String title, String content,
+                           Long relatedId, String relatedType, String link) {
+        if (receivers.isEmpty()) {
+            return 0;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        int inserted = jdbcTemplate.update(con -> {
+            var ps = con.prepareStatement(BULK_INSERT_SQL);
+            ps.setString(1, type.name());
+            ps.setString(2, title);
+            ps.setString(3, content);
+            ps.setObject(4, relatedId, Types.BIGINT);
+            ps.setString(5, relatedType);
+            ps.setString(6, link);
+            ps.setString(7, NotificationStatus.UNREAD.name());
+            ps.setTimestamp(8, now);
+            ps.setArray(9, con.createArrayOf("bigint", receivers.toArray()));
+            return ps;
+        });
+
+        try {
+            redisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public <K, V> Object execute(RedisOperations<K, V> operations) {
+                    RedisOperations<String, Object> ops = (RedisOperations<String, Object>) operations;
+                    receivers.forEach(id -> ops.opsForValue().increment(UNREAD_COUNT_KEY + id));
+                    return null;
+                }
+            });
+        } catch (Exception e) {
+            // 未读数以数据库为准，缓存失效后 getUnreadCount 会回源
+            log.warn("批量累加未读数失败，清理缓存: count={}, err={}", receivers.size(), e.getMessage());
+            redisTemplate.delete(receivers.stream().map(id -> UNREAD_COUNT_KEY + id).toList());
+        }
+        return inserted;
+    }
+
+    /**
+     * 事务提交后执行外部发送；不在事务中时立即执行
+     */
+    private static void afterCommit(Runnable task) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            task.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                task.run();
+            }
+        });
+    }
+
+    /**
+     * 过滤静默与超限用户，把邮件发送加入 deliveries（由调用方在事务提交后执行）
+     *
+     * @return 待发送的邮件数
+     */
+    private int sendEmailBulk(List<Long> candidates, String subject, String text, List<Runnable> deliveries) {
+        if (candidates.isEmpty()) {
+            return 0;
+        }
+        Set<Long> muted = preferenceService.findMuted(candidates, NotificationChannel.EMAIL, LocalTime.now());
+        List<Long> allowed = acquireEmailQuota(exclude(candidates, muted));
+        if (allowed.isEmpty()) {
+            return 0;
+        }
+        int sent = 0;
+        for (User user : userRepository.findAllById(allowed)) {
+            String email = user.getEmail();
+            if (email == null || email.isBlank()) {
+                continue;
+            }
+            Long receiverId = user.getId();
+            deliveries.add(() -> channelLimiter.runAsync(NotificationChannel.EMAIL, () -> {
                 try {
-                    webPushService.send(receiverId, rendered.title(), rendered.content(), link);
+                    emailTemplateService.sendNotification(email, subject, subject, text, null);
                 } catch (Exception e) {
-                    log.warn("WebPush 发送失败（模板）：userId={}, tpl={}", receiverId, templateCode, e);
+                    log.error("❌ 批量邮件通知发送失败: receiverId={}, error={}", receiverId, e.getMessage());
+                }
+            }));
+            sent++;
+        }
+        return sent;
+    }
+
+    /**
+     * 管道批量累加邮件速率计数，返回未超出每分钟上限的用户；Redis 异常时不限流
+     */
+    private List<Long> acquireEmailQuota(List<Long> receivers) {
+        if (receivers.isEmpty()) {
+            return receivers;
+        }
+        try {
+            List<Object> counts = redisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public <K, V> Object execute(RedisOperations<K, V> operations) {
+                    RedisOperations<String, Object> ops = (RedisOperations<String, Object>) operations;
+                    receivers.forEach(id -> ops.opsForValue().increment(EMAIL_RATE_KEY + id));
+                    return null;
+                }
+            });
+            List<Long> allowed = new ArrayList<>(receivers.size());
+            List<String> fresh = new ArrayList<>();
+            for (int i = 0; i < receivers.size(); i++) {
+                long count = counts.get(i) instanceof Number n ? n.longValue() : 0L;
+                if (count == 1) {
+                    fresh.add(EMAIL_RATE_KEY + receivers.get(i));
+                }
+                if (count > emailPerMinute) {
+                    log.debug("达到邮件速率限制: userId={}, perMinute={}", receivers.get(i), emailPerMinute);
+                } else {
+                    allowed.add(receivers.get(i));
                 }
             }
+            if (!fresh.isEmpty()) {
+                redisTemplate.executePipelined(new SessionCallback<Object>() {
+                    @Override
+                    @SuppressWarnings("unchecked")
+                    public <K, V> Object execute(RedisOperations<K, V> operations) {
+                        RedisOperations<String, Object> ops = (RedisOperations<String, Object>) operations;
+                        fresh.forEach(key -> ops.expire(key, Duration.ofMinutes(1)));
+                        return null;
+                    }
+                });
+            }
+            return allowed;
+        } catch (Exception e) {
+            log.warn("批量邮件速率限制检查失败，忽略: {}", e.getMessage());
+            return receivers;
         }
     }
 
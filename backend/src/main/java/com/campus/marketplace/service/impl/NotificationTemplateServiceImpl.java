@@ -6,16 +6,22 @@ import com.campus.marketplace.common.exception.BusinessException;
 import com.campus.marketplace.common.exception.ErrorCode;
 import com.campus.marketplace.repository.NotificationTemplateRepository;
 import com.campus.marketplace.service.NotificationTemplateService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.MessageSource;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.util.*;
-import java.util.stream.Collectors;
 
 /**
  * Notification Template Service Impl
  *
+ * - 模板按 (code, locale) 编译一次：标题/内容拆成字面量与占位符片段，渠道预解析为不可变 EnumSet，
+ *   缓存在本地 Caffeine 中，渲染时单次遍历片段写入预估容量的 StringBuilder；
+ * - 管理端修改模板后调用 {@link #invalidate()} 清空；其他节点依赖 {@link #COMPILED_TTL} 过期后重新编译。
+ *
  * @author BaSui
  * @date 2025-10-29
  */
@@ -24,38 +30,134 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class NotificationTemplateServiceImpl implements NotificationTemplateService {
 
+    /**
+     * 已编译模板的有效期，兼顾多节点模板修改与 messages 热加载
+     */
+    static final Duration COMPILED_TTL = Duration.ofMinutes(10);
+
+    private static final int MAX_COMPILED = 1024;
+
     private final NotificationTemplateRepository repository;
     private final MessageSource messageSource;
 
+    private final Cache<CompiledKey, CompiledTemplate> compiled = Caffeine.newBuilder()
+            .expireAfterWrite(COMPILED_TTL)
+            .maximumSize(MAX_COMPILED)
+            .build();
+
+    private record CompiledKey(String code, Locale locale) {
+    }
+
+    private record CompiledTemplate(CompiledPattern title, CompiledPattern content, Set<NotificationChannel> channels) {
+    }
+
     @Override
     public Rendered render(String code, Locale locale, Map<String, Object> params) {
+        CompiledTemplate tpl = compiled.get(new CompiledKey(code, locale), key -> compile(key.code(), key.locale()));
+        return new Rendered(CompiledPattern.render(tpl.title(), params), CompiledPattern.render(tpl.content(), params),
+                tpl.channels());
+    }
+
+    @Override
+    public void invalidate() {
+        compiled.invalidateAll();
+    }
+
+    private CompiledTemplate compile(String code, Locale locale) {
         NotificationTemplate tpl = repository.findByCode(code)
                 .orElseThrow(() -> new BusinessException(ErrorCode.NOT_FOUND, "模板不存在"));
 
         String titlePattern = messageSource.getMessage(tpl.getTitleKey(), null, locale);
         String contentPattern = messageSource.getMessage(tpl.getContentKey(), null, locale);
 
-        String title = renderNamed(titlePattern, params);
-        String content = renderNamed(contentPattern, params);
-
-        Set<NotificationChannel> channels = Arrays.stream(tpl.getChannels().split(","))
-                .map(String::trim)
-                .filter(s -> !s.isEmpty())
-                .map(NotificationChannel::valueOf)
-                .collect(Collectors.toSet());
+        EnumSet<NotificationChannel> channels = EnumSet.noneOf(NotificationChannel.class);
+        for (String channel : tpl.getChannels().split(",")) {
+            String name = channel.trim();
+            if (!name.isEmpty()) {
+                channels.add(NotificationChannel.valueOf(name));
+            }
+        }
 
-        return new Rendered(title, content, channels);
+        return new CompiledTemplate(CompiledPattern.compile(titlePattern), CompiledPattern.compile(contentPattern),
+                Collections.unmodifiableSet(channels));
     }
 
-    private String renderNamed(String pattern, Map<String, Object> params) {
-        if (pattern == null) return null;
-        if (params == null || params.isEmpty()) return pattern;
-        String rendered = pattern;
-        for (Map.Entry<String, Object> e : params.entrySet()) {
-            String key = e.getKey();
-            String val = String.valueOf(e.getValue());
-            rendered = rendered.replace("{" + key + "}", val);
+    /**
+     * 编译后的命名占位符模板：{name} 替换为参数值，缺少参数的占位符原样保留
+     */
+    static final class CompiledPattern {
+
+        private static final int ESTIMATED_VALUE_LENGTH = 16;
+
+        /**
+         * 片段：偶数下标为字面量，奇数下标为占位符名
+         */
+        private final String[] segments;
+        private final int estimatedLength;
+
+        private CompiledPattern(String[] segments, int estimatedLength) {
+            this.segments = segments;
+            this.estimatedLength = estimatedLength;
+        }
+
+        static CompiledPattern compile(String pattern) {
+            if (pattern == null) {
+                return null;
+            }
+            List<String> segments = new ArrayList<>();
+            int literalLength = 0;
+            StringBuilder literal = new StringBuilder();
+            int i = 0;
+            while (i < pattern.length()) {
+                int open = pattern.indexOf('{', i);
+                int close = open < 0 ? -1 : pattern.indexOf('}', open + 1);
+                if (close < 0) {
+                    literal.append(pattern, i, pattern.length());
+                    break;
+                }
+                String name = pattern.substring(open + 1, close);
+                if (name.isEmpty() || name.indexOf('{') >= 0) {
+                    // 不是合法占位符，左括号按字面量处理
+                    literal.append(pattern, i, open + 1);
+                    i = open + 1;
+                    continue;
+                }
+                literal.append(pattern, i, open);
+                segments.add(literal.toString());
+                segments.add(name);
+                literalLength += literal.length();
+                literal.setLength(0);
+                i = close + 1;
+            }
+            segments.add(literal.toString());
+            literalLength += literal.length();
+            int placeholders = segments.size() / 2;
+            return new CompiledPattern(segments.toArray(String[]::new),
+                    literalLength + placeholders * ESTIMATED_VALUE_LENGTH);
+        }
+
+        static String render(CompiledPattern pattern, Map<String, Object> params) {
+            return pattern == null ? null : pattern.render(params);
+        }
+
+        String render(Map<String, Object> params) {
+            if (segments.length == 1) {
+                return segments[0];
+            }
+            StringBuilder out = new StringBuilder(estimatedLength);
+            for (int i = 0; i < segments.length; i++) {
+                if ((i & 1) == 0) {
+                    out.append(segments[i]);
+                    continue;
+                }
+                String name = segments[i];
+                if (params != null && params.containsKey(name)) {
+                    out.append(params.get(name));
+                } else {
+                    out.append('{').append(name).append('}');
+                }
+            }
+            return out.toString();
         }
-        return rendered;
     }
 }
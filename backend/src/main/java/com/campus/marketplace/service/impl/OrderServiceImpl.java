@@ -13,6 +13,7 @@ import com.campus.marketplace.common.enums.OrderStatus;
 import com.campus.marketplace.common.exception.BusinessException;
 import com.campus.marketplace.common.exception.ErrorCode;
 import com.campus.marketplace.common.security.PermissionCodes;
+import com.campus.marketplace.common.utils.OrderNoGenerator;
 import com.campus.marketplace.common.utils.SecurityUtil;
 import com.campus.marketplace.repository.GoodsRepository;
 import com.campus.marketplace.repository.OrderRepository;
@@ -21,21 +22,27 @@ import com.campus.marketplace.service.OrderService;
 import com.campus.marketplace.service.PaymentService;
 import com.campus.marketplace.service.NotificationService;
 import com.campus.marketplace.common.component.NotificationDispatcher;
+import com.campus.marketplace.common.component.OrderTimeoutBulkCanceller;
+import com.campus.marketplace.common.component.OrderTimeoutQueue;
 import com.campus.marketplace.common.config.properties.OrderProperties;
 import com.campus.marketplace.service.AuditLogService;
 import com.campus.marketplace.repository.CouponUserRelationRepository;
 import com.campus.marketplace.service.CouponService;
+import com.campus.marketplace.event.GoodsChangedEvent;
+import com.campus.marketplace.event.GoodsEngagementEvent;
+import com.campus.marketplace.event.OrderCancelledEvent;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 
 /**
  * 订单服务实现类
@@ -64,6 +71,11 @@ public class OrderServiceImpl implements OrderService {
     private final AuditLogService auditLogService;
     private final CouponUserRelationRepository couponUserRelationRepository;
     private final CouponService couponService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final OrderTimeoutQueue orderTimeoutQueue;
+    private final OrderTimeoutBulkCanceller bulkCanceller;
+    private final OrderNoGenerator orderNoGenerator;
+    private final TransactionTemplate transactionTemplate;
     
 
     /**
@@ -78,8 +90,10 @@ public class OrderServiceImpl implements OrderService {
         User buyer = userRepository.findByUsername(username)
                 .orElseThrow(() -> new BusinessException(ErrorCode.USER_NOT_FOUND));
 
-        // 为避免并发下单，使用行级写锁加载商品
-        Goods goods = goodsRepository.findByIdForUpdate(request.goodsId())
+        // 为避免并发下单，使用行级写锁加载商品；乐观模式下已在事务外由 GoodsPurchaseGate 抢占，无需行锁
+        Goods goods = (orderProperties.isOptimisticPlacement()
+                ? goodsRepository.findById(request.goodsId())
+                : goodsRepository.findByIdForUpdate(request.goodsId()))
                 .orElseThrow(() -> new BusinessException(ErrorCode.GOODS_NOT_FOUND));
         // 校区隔离：普通用户禁止跨校购买
         try {
@@ -118,7 +132,16 @@ public class OrderServiceImpl implements OrderService {
             throw new BusinessException(ErrorCode.GOODS_ALREADY_SOLD);
         }
 
-        String orderNo = generateOrderNo();
+        // 乐观模式没有行锁，Redis 抢占丢失（淘汰/切换/memory 模式）时由条件更新兜底：只有一个事务能把商品置为 LOCKED
+        if (orderProperties.isOptimisticPlacement()) {
+            if (goodsRepository.lockIfApproved(goods.getId()) == 0) {
+                log.warn("物品已被其他订单锁定: goodsId={}", goods.getId());
+                throw new BusinessException(ErrorCode.GOODS_ALREADY_SOLD);
+            }
+            eventPublisher.publishEvent(new GoodsChangedEvent(this, goods.getId(), GoodsChangedEvent.ChangeType.STATUS_CHANGED));
+        }
+
+        String orderNo = orderNoGenerator.next();
         BigDecimal amount = goods.getPrice();
         BigDecimal discountAmount = BigDecimal.ZERO;
         BigDecimal actualAmount = amount.subtract(discountAmount);
@@ -137,14 +160,14 @@ public class OrderServiceImpl implements OrderService {
                 .build();
 
         orderRepository.save(order);
+        orderTimeoutQueue.schedule(order.getId(), order.getCreatedAt());
+        eventPublisher.publishEvent(new GoodsEngagementEvent(this, goods.getId(), goods.getCampusId(),
+                GoodsEngagementEvent.EngagementType.ORDER));
         log.info("订单创建成功: orderNo={}, buyerId={}, sellerId={}, amount={}",
                 orderNo, buyer.getId(), goods.getSellerId(), actualAmount);
 
-        // 注意：不在下单时锁定商品状态（避免 LOCKED 枚举值约束问题）
-
-        // 依赖“存在未取消订单即视为被占用”的业务校验避免并发下单。
-
-
+        // 并发下单防护：默认模式靠商品行锁 + “存在未取消订单即视为被占用”的校验，商品状态保持 APPROVED；
+        // 乐观模式先经 GoodsPurchaseGate 在 Redis 抢占，再由 lockIfApproved 条件更新把商品置为 LOCKED 兜底
 
         // 下单即发送锁定期通知（买家/卖家）
         try {
@@ -250,20 +273,31 @@ public class OrderServiceImpl implements OrderService {
             throw new BusinessException(ErrorCode.PAYMENT_FAILED);
         }
 
+        if (!"SUCCESS".equals(request.status())) {
+            log.warn("支付失败: orderNo={}, status={}", request.orderNo(), request.status());
+            return false;
+        }
+
+        if (order.getStatus() == OrderStatus.CANCELLED) {
+            refundLatePayment(order, request);
+            return false;
+        }
+
         if (order.getStatus() != OrderStatus.PENDING_PAYMENT) {
             log.warn("订单状态不正确: orderNo={}, status={}", order.getOrderNo(), order.getStatus());
             return false;
         }
 
-        if (!"SUCCESS".equals(request.status())) {
-            log.warn("支付失败: orderNo={}, status={}", request.orderNo(), request.status());
+        // 与超时取消同为 PENDING_PAYMENT 上的条件更新，只有一方生效
+        if (orderRepository.markPaidIfPending(order.getId(), LocalDateTime.now()) == 0) {
+            OrderStatus current = orderRepository.findStatusById(order.getId()).orElse(null);
+            log.warn("支付回调时订单状态已变更: orderNo={}, status={}", order.getOrderNo(), current);
+            if (current == OrderStatus.CANCELLED) {
+                refundLatePayment(order, request);
+            }
             return false;
         }
 
-        order.setStatus(OrderStatus.PAID);
-        order.setPaymentTime(LocalDateTime.now());
-        orderRepository.save(order);
-
         // 支付成功后标记商品为 SOLD（不再依赖下单时的 LOCKED，保证幂等）
         try {
             Goods goods = goodsRepository.findById(order.getGoodsId()).orElse(null);
@@ -272,6 +306,7 @@ public class OrderServiceImpl implements OrderService {
                     goods.setStatus(GoodsStatus.SOLD);
                     goods.incrementSoldCount();
                     goodsRepository.save(goods);
+                    eventPublisher.publishEvent(new GoodsChangedEvent(this, goods.getId(), GoodsChangedEvent.ChangeType.STATUS_CHANGED));
                     log.info("支付成功，物品状态更新为 SOLD: goodsId={}, orderNo={}", goods.getId(), order.getOrderNo());
                 } else {
                     log.info("支付成功但商品状态非LOCKED，保持不变: goodsId={}, status={}", goods.getId(), goods.getStatus());
@@ -341,19 +376,54 @@ public class OrderServiceImpl implements OrderService {
         return true;
     }
 
+    /**
+     * 订单已超时取消后才到达的支付成功回调：原路退款
+     *
+     * 以 CANCELLED → REFUNDING 条件更新保证重复回调只退一次；渠道退款失败时保持 REFUNDING，由人工处理
+     */
+    private void refundLatePayment(Order order, PaymentCallbackRequest request) {
+        if (orderRepository.compareAndSetStatus(order.getId(), OrderStatus.CANCELLED, OrderStatus.REFUNDING) == 0) {
+            log.info("已取消订单的支付回调已处理过: orderNo={}, transactionId={}",
+                    order.getOrderNo(), request.transactionId());
+            return;
+        }
+        log.warn("订单已超时取消后收到支付成功回调，发起退款: orderNo={}, transactionId={}, amount={}",
+                order.getOrderNo(), request.transactionId(), request.amount());
+        try {
+            boolean ok = paymentService.refund(order, request.amount(),
+                    com.campus.marketplace.common.enums.PaymentMethod.valueOf(order.getPaymentMethod()));
+            if (ok) {
+                orderRepository.compareAndSetStatus(order.getId(), OrderStatus.REFUNDING, OrderStatus.REFUNDED);
+                log.info("超时取消订单的迟到支付已退款: orderNo={}", order.getOrderNo());
+            } else {
+                log.error("超时取消订单的迟到支付退款失败，需人工处理: orderNo={}", order.getOrderNo());
+            }
+        } catch (Exception e) {
+            log.error("超时取消订单的迟到支付退款异常，需人工处理: orderNo={}, error={}",
+                    order.getOrderNo(), e.getMessage(), e);
+        }
+    }
+
     /**
      * 取消超时订单
      *
-     * 自动取消超过30分钟未支付的订单，并恢复物品状态
+     * 自动取消超过30分钟未支付的订单，并恢复物品状态；
+     * 开启 bulk-cancel 时改为集合式 SQL 分块取消（见 {@link OrderTimeoutBulkCanceller}）；
+     * 不开外层事务，逐单取消时每单独立事务，单笔失败不影响已取消的订单
      */
     @Override
-    @Transactional(rollbackFor = Exception.class)
     public int cancelTimeoutOrders() {
         log.info("开始取消超时订单");
 
         // 查找超时未支付订单：创建时间早于超时阈值
         int minutes = Math.max(1, orderProperties.getMinutes());
         LocalDateTime timeoutThreshold = LocalDateTime.now().minusMinutes(minutes);
+        if (orderProperties.isBulkCancel()) {
+            // 分块集合式取消，每块独立事务提交
+            int cancelled = bulkCanceller.cancelExpired(timeoutThreshold, orderProperties.getBulkChunkSize());
+            log.info("取消超时订单完成: count={}", cancelled);
+            return cancelled;
+        }
         var timeoutOrders = orderRepository.findTimeoutOrders(
                 OrderStatus.PENDING_PAYMENT,
                 timeoutThreshold
@@ -362,54 +432,17 @@ public class OrderServiceImpl implements OrderService {
         int cancelledCount = 0;
         for (Order order : timeoutOrders) {
             try {
-                // 取消订单
-                order.setStatus(OrderStatus.CANCELLED);
-                orderRepository.save(order);
-
-                // 恢复物品状态（仅当处于 LOCKED 时回退到 APPROVED）
-                Goods goods = goodsRepository.findById(order.getGoodsId())
-                        .orElse(null);
-                if (goods != null) {
-                    if (goods.getStatus() == GoodsStatus.LOCKED) {
-                        goods.setStatus(GoodsStatus.APPROVED);
-                        goodsRepository.save(goods);
-                        log.info("超时取消，物品状态由LOCKED→APPROVED: goodsId={}, orderNo={}", goods.getId(), order.getOrderNo());
-                    } else {
-                        log.info("超时取消但商品状态非LOCKED，保持不变: goodsId={}, status={}", goods.getId(), goods.getStatus());
+                // 取消订单（条件更新，支付回调已抢先生效时跳过）
+                Boolean cancelled = transactionTemplate.execute(status -> {
+                    if (orderRepository.compareAndSetStatus(order.getId(),
+                            OrderStatus.PENDING_PAYMENT, OrderStatus.CANCELLED) == 0) {
+                        return false;
                     }
-                }
-
-                // 🎯 BaSui 新增：发送超时取消通知
-                try {
-                    // 通知买家：订单超时未支付已自动取消
-                    if (notificationDispatcher != null) {
-                        java.util.Map<String, Object> params = new java.util.HashMap<>();
-                        params.put("orderNo", order.getOrderNo());
-                        params.put("reason", "超时未支付");
-
-                        notificationDispatcher.enqueueTemplate(
-                                order.getBuyerId(),
-                                "ORDER_TIMEOUT_CANCELLED",
-                                params,
-                                com.campus.marketplace.common.enums.NotificationType.ORDER_CANCELLED.name(),
-                                order.getId(),
-                                "ORDER",
-                                "/orders/" + order.getOrderNo()
-                        );
-
-                        // 通知卖家：订单超时未支付已自动取消
-                        notificationDispatcher.enqueueTemplate(
-                                order.getSellerId(),
-                                "ORDER_TIMEOUT_CANCELLED_SELLER",
-                                params,
-                                com.campus.marketplace.common.enums.NotificationType.ORDER_CANCELLED.name(),
-                                order.getId(),
-                                "ORDER",
-                                "/orders/" + order.getOrderNo()
-                        );
-                    }
-                } catch (Exception e) {
-                    log.warn("发送超时取消通知失败: orderNo={}, error={}", order.getOrderNo(), e.getMessage());
+                    releaseTimedOutOrder(order);
+                    return true;
+                });
+                if (!Boolean.TRUE.equals(cancelled)) {
+                    continue;
                 }
 
                 cancelledCount++;
@@ -424,6 +457,88 @@ public class OrderServiceImpl implements OrderService {
         return cancelledCount;
     }
 
+    /**
+     * 取消单个超时订单（延时队列到期回调，每单独立事务）
+     *
+     * 以条件更新完成 PENDING_PAYMENT → CANCELLED 迁移，与支付回调并发时只有一方生效
+     */
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public boolean cancelTimeoutOrder(Long orderId) {
+        Order order = orderRepository.findById(orderId).orElse(null);
+        if (order == null || order.getStatus() != OrderStatus.PENDING_PAYMENT) {
+            return false;
+        }
+        LocalDateTime deadline = order.getCreatedAt() != null
+                ? order.getCreatedAt().plusMinutes(Math.max(1, orderProperties.getMinutes()))
+                : LocalDateTime.now();
+        if (deadline.isAfter(LocalDateTime.now())) {
+            // 超时配置调大后旧的队列成员提前到期，按新截止时间重新登记
+            orderTimeoutQueue.schedule(order.getId(), order.getCreatedAt());
+            return false;
+        }
+        if (orderRepository.compareAndSetStatus(orderId, OrderStatus.PENDING_PAYMENT, OrderStatus.CANCELLED) == 0) {
+            return false;
+        }
+        releaseTimedOutOrder(order);
+        log.info("订单超时已取消: orderNo={}, createdAt={}", order.getOrderNo(), order.getCreatedAt());
+        return true;
+    }
+
+    /**
+     * 超时取消后的善后：回退商品锁定状态并通知买卖双方
+     */
+    private void releaseTimedOutOrder(Order order) {
+        eventPublisher.publishEvent(new OrderCancelledEvent(this, order.getId(), order.getOrderNo(), order.getGoodsId()));
+
+        // 恢复物品状态（仅当处于 LOCKED 时回退到 APPROVED）
+        Goods goods = goodsRepository.findById(order.getGoodsId())
+                .orElse(null);
+        if (goods != null) {
+            if (goods.getStatus() == GoodsStatus.LOCKED) {
+                goods.setStatus(GoodsStatus.APPROVED);
+                goodsRepository.save(goods);
+                eventPublisher.publishEvent(new GoodsChangedEvent(this, goods.getId(), GoodsChangedEvent.ChangeType.STATUS_CHANGED));
+                log.info("超时取消，物品状态由LOCKED→APPROVED: goodsId={}, orderNo={}", goods.getId(), order.getOrderNo());
+            } else {
+                log.info("超时取消但商品状态非LOCKED，保持不变: goodsId={}, status={}", goods.getId(), goods.getStatus());
+            }
+        }
+
+        // 🎯 BaSui 新增：发送超时取消通知
+        try {
+            // 通知买家：订单超时未支付已自动取消
+            if (notificationDispatcher != null) {
+                java.util.Map<String, Object> params = new java.util.HashMap<>();
+                params.put("orderNo", order.getOrderNo());
+                params.put("reason", "超时未支付");
+
+                notificationDispatcher.enqueueTemplate(
+                        order.getBuyerId(),
+                        "ORDER_TIMEOUT_CANCELLED",
+                        params,
+                        com.campus.marketplace.common.enums.NotificationType.ORDER_CANCELLED.name(),
+                        order.getId(),
+                        "ORDER",
+                        "/orders/" + order.getOrderNo()
+                );
+
+                // 通知卖家：订单超时未支付已自动取消
+                notificationDispatcher.enqueueTemplate(
+                        order.getSellerId(),
+                        "ORDER_TIMEOUT_CANCELLED_SELLER",
+                        params,
+                        com.campus.marketplace.common.enums.NotificationType.ORDER_CANCELLED.name(),
+                        order.getId(),
+                        "ORDER",
+                        "/orders/" + order.getOrderNo()
+                );
+            }
+        } catch (Exception e) {
+            log.warn("发送超时取消通知失败: orderNo={}, error={}", order.getOrderNo(), e.getMessage());
+        }
+    }
+
     /**
      * 取消订单（未支付）并回退资源
      */
@@ -451,12 +566,14 @@ public class OrderServiceImpl implements OrderService {
 
         order.setStatus(OrderStatus.CANCELLED);
         orderRepository.save(order);
+        eventPublisher.publishEvent(new OrderCancelledEvent(this, order.getId(), order.getOrderNo(), order.getGoodsId()));
 
         Goods goods = goodsRepository.findById(order.getGoodsId()).orElse(null);
         if (goods != null) {
             if (goods.getStatus() == GoodsStatus.LOCKED) {
                 goods.setStatus(GoodsStatus.APPROVED);
                 goodsRepository.save(goods);
+                eventPublisher.publishEvent(new GoodsChangedEvent(this, goods.getId(), GoodsChangedEvent.ChangeType.STATUS_CHANGED));
             }
         }
 
@@ -768,15 +885,6 @@ public class OrderServiceImpl implements OrderService {
         } catch (Exception ignored) {}
     }
 
-    /**
-     * 生成唯一订单号
-     */
-    private String generateOrderNo() {
-        String timestamp = LocalDateTime.now()
-                .format(DateTimeFormatter.ofPattern("yyyyMMddHHmmssSSS"));
-        return "ORD" + timestamp;
-    }
-
     /**
      * 转换为响应 DTO
      */
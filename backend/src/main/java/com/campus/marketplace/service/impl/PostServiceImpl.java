@@ -26,8 +26,10 @@ import com.campus.marketplace.common.enums.TargetType;
 import com.campus.marketplace.service.MessageService;
 import com.campus.marketplace.common.dto.request.SendMessageRequest;
 import com.campus.marketplace.common.dto.request.UpdatePostRequest;
+import com.campus.marketplace.event.PostChangedEvent;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -70,6 +72,7 @@ public class PostServiceImpl implements PostService {
     private final MessageService messageService;
     private final UserFollowRepository userFollowRepository;
     private final UserFeedRepository userFeedRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * 每日发帖限制（可配置化）
@@ -169,6 +172,7 @@ public class PostServiceImpl implements PostService {
         // 5. 保存帖子
         postRepository.save(post);
         syncPostTags(post.getId(), request.tagIds());
+        eventPublisher.publishEvent(new PostChangedEvent(this, post.getId()));
 
         // 6. 更新 Redis 发帖计数（+1）
         redisTemplate.opsForValue().increment(limitKey, 1L);
@@ -297,6 +301,7 @@ public class PostServiceImpl implements PostService {
         // 更新状态
         post.setStatus(approved ? GoodsStatus.APPROVED : GoodsStatus.REJECTED);
         postRepository.save(post);
+        eventPublisher.publishEvent(new PostChangedEvent(this, post.getId()));
 
         // 发送审核结果通知给作者（需求 37）
         try {
@@ -337,6 +342,7 @@ public class PostServiceImpl implements PostService {
         // 软删除
         post.markDeleted();
         postRepository.save(post);
+        eventPublisher.publishEvent(new PostChangedEvent(this, post.getId()));
         log.info("帖子软删除成功: postId={}", id);
     }
 
@@ -392,6 +398,7 @@ public class PostServiceImpl implements PostService {
 
         postRepository.save(post);
         syncPostTags(post.getId(), request.tagIds());
+        eventPublisher.publishEvent(new PostChangedEvent(this, post.getId()));
         log.info("帖子修改成功: postId={}, resetToPending={}", id, contentChanged);
     }
 
@@ -13,6 +13,13 @@ import com.campus.marketplace.common.exception.ErrorCode;
 import com.campus.marketplace.common.lock.DistributedLockManager;
 import com.campus.marketplace.common.utils.RedisUtil;
 import com.campus.marketplace.common.utils.SecurityUtil;
+import com.campus.marketplace.recommend.CandidateIdCodec;
+import com.campus.marketplace.recommend.GoodsPopularityLeaderboard;
+import com.campus.marketplace.recommend.ItemSimilarityService;
+import com.campus.marketplace.recommend.LongDoubleScoreMap;
+import com.campus.marketplace.recommend.PrecomputedRecommendationStore;
+import com.campus.marketplace.recommend.UserSimilarityCalculator;
+import com.campus.marketplace.recommend.ViewTrafficCounter;
 import com.campus.marketplace.repository.CategoryRepository;
 import com.campus.marketplace.repository.GoodsRepository;
 import com.campus.marketplace.repository.UserRepository;
@@ -21,6 +28,7 @@ import com.campus.marketplace.repository.ViewLogRepository;
 import com.campus.marketplace.service.RecommendService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -28,11 +36,22 @@ import org.springframework.stereotype.Service;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
 /**
  * 推荐与榜单服务实现
@@ -56,9 +75,27 @@ public class RecommendServiceImpl implements RecommendService {
     private final com.campus.marketplace.repository.UserSimilarityRepository userSimilarityRepository;
     private final com.campus.marketplace.repository.UserBehaviorLogRepository userBehaviorLogRepository;
     private final RecommendConfigProperties recommendConfigProperties;
+    private final UserSimilarityCalculator userSimilarityCalculator;
+    private final PrecomputedRecommendationStore precomputedStore;
+    private final ItemSimilarityService itemSimilarityService;
+    private final ViewTrafficCounter viewTrafficCounter;
+    private final GoodsPopularityLeaderboard popularityLeaderboard;
+    @Qualifier("virtualThreadExecutor")
+    private final Executor hotRefreshExecutor;
+
+    /**
+     * 进行中的热榜刷新（按榜单键单飞）
+     */
+    private final ConcurrentMap<String, CompletableFuture<Void>> hotRefreshes = new ConcurrentHashMap<>();
 
     private static final String HOT_KEY_PREFIX = "goods:rank:"; // goods:rank:{campus}
     private static final long BASE_HOT_TTL_SECONDS = Duration.ofMinutes(5).toSeconds();
+    private static final String CF_CANDIDATE_KEY_PREFIX = "recommend:cf:"; // recommend:cf:{userId}
+    private static final String PRECOMPUTE_LOCK_KEY = "lock:recommend:precompute";
+    private static final String HOT_FRESH_SUFFIX = ":fresh"; // goods:rank:{campus}:fresh，存在即在新鲜期内
+    private static final long HOT_STALE_TTL_FACTOR = 3;
+    private static final long HOT_REFRESH_WAIT_SECONDS = 3;
+    private static final int DEFAULT_HOT_TOP_N = 50;
 
     @Override
     public void refreshHotRanking(Long campusId, int topN) {
@@ -73,29 +110,27 @@ public class RecommendServiceImpl implements RecommendService {
             Pageable pageable = PageRequest.of(0, Math.max(topN, 20));
             List<Goods> goodsList = goodsRepository.findHotGoodsByCampus(GoodsStatus.APPROVED, campusId, pageable);
 
-            // 使用 ZSET 写入排名：score = view*0.7 + fav*0.3
-            // 先清空旧 ZSET
-            redis.delete(key);
-            long rank = 0;
+            // 排名分数：score = view*0.6 + fav*0.3 + 100*时间衰减
+            Map<Object, Double> scores = new HashMap<>();
+            LocalDateTime now = LocalDateTime.now();
             for (Goods g : goodsList) {
                 // 新增时间衰减：越新权重大（简单平滑：24小时半衰）
                 double hours = 0d;
                 if (g.getCreatedAt() != null) {
-                    hours = java.time.Duration.between(g.getCreatedAt(), java.time.LocalDateTime.now()).toHours();
-                    if (hours < 0) hours = 0;
+                    hours = Math.max(0, Duration.between(g.getCreatedAt(), now).toHours());
                 }
                 double timeDecay = 1.0 / (1.0 + (hours / 24.0));
                 double score = g.getViewCount() * 0.6 + g.getFavoriteCount() * 0.3 + 100 * timeDecay;
-                redis.zAdd(key, g.getId(), score);
-                rank++;
-                if (rank >= topN) break;
+                scores.put(g.getId(), score);
+                if (scores.size() >= topN) break;
             }
-            // 设置TTL
-            long recentViewTotal;
-            try { recentViewTotal = Math.max(0L, viewLogRepository.count()); } catch (Exception ignore) { recentViewTotal = 0L; }
-            long ttl = computeHotTtlSeconds(recentViewTotal);
-            redis.expire(key, ttl, TimeUnit.SECONDS);
-            log.info("热榜刷新完成: campusId={}, size={}", campusId, Math.min(goodsList.size(), topN));
+
+            // 临时键整体写入后 RENAME 覆盖（一次 pipeline），读方不会看到空榜或半成品；
+            // 实际保留时长为新鲜期的数倍，过了新鲜期仍可读旧榜，由后台单飞刷新
+            long ttl = computeHotTtlSeconds(viewTrafficCounter.recentViews());
+            redis.zReplace(key, scores, ttl * HOT_STALE_TTL_FACTOR, TimeUnit.SECONDS);
+            redis.set(key + HOT_FRESH_SUFFIX, 1, ttl, TimeUnit.SECONDS);
+            log.info("热榜刷新完成: campusId={}, size={}", campusId, scores.size());
         } catch (Exception e) {
             log.error("热榜刷新失败: campusId={}", campusId, e);
         }
@@ -103,22 +138,42 @@ public class RecommendServiceImpl implements RecommendService {
 
     @Override
     public List<GoodsResponse> getHotList(Long campusId, int size) {
+        // 实时热度榜：排名完全来自 Redis，只批量回表加载在售商品详情（多取一倍以抵消已售出商品）
+        List<Long> popular = popularityLeaderboard.top(campusId, size * 2);
+        if (!popular.isEmpty()) {
+            List<GoodsResponse> live = loadApprovedResponses(
+                    popular.stream().mapToLong(Long::longValue).toArray(), size);
+            if (live.size() >= size) {
+                return live;
+            }
+        }
+
         String key = buildHotKey(campusId);
+        int refreshTopN = Math.max(size, DEFAULT_HOT_TOP_N);
         try {
-            // 优先从缓存读取 ZSET 倒序排名
+            // 优先从缓存读取 ZSET 倒序排名；过了新鲜期先返回旧榜，再后台刷新
             Set<Object> ids = redis.zReverseRange(key, 0, size - 1);
             if (ids != null && !ids.isEmpty()) {
+                if (!Boolean.TRUE.equals(redis.hasKey(key + HOT_FRESH_SUFFIX))) {
+                    refreshHotRankingAsync(campusId, refreshTopN);
+                }
                 return toGoodsResponses(ids);
             }
         } catch (Exception e) {
             log.warn("读取热榜缓存失败，降级到数据库: key={}", key);
         }
 
-        // 降级：直接查询数据库并回填缓存
-        refreshHotRanking(campusId, size);
-        Set<Object> ids = redis.zReverseRange(key, 0, size - 1);
-        if (ids != null && !ids.isEmpty()) {
-            return toGoodsResponses(ids);
+        // 降级：缓存为空时单飞刷新，并发请求等待同一次刷新结果
+        try {
+            refreshHotRankingAsync(campusId, refreshTopN).get(HOT_REFRESH_WAIT_SECONDS, TimeUnit.SECONDS);
+            Set<Object> ids = redis.zReverseRange(key, 0, size - 1);
+            if (ids != null && !ids.isEmpty()) {
+                return toGoodsResponses(ids);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.warn("等待热榜刷新失败，降级到数据库: key={}", key);
         }
 
         // 双重降级：直接查库返回
@@ -127,13 +182,42 @@ public class RecommendServiceImpl implements RecommendService {
         return goodsList.stream().map(this::toResponse).toList();
     }
 
+    /**
+     * 单飞刷新：同一榜单同时只有一个刷新任务，其余调用方复用同一个 Future
+     */
+    private CompletableFuture<Void> refreshHotRankingAsync(Long campusId, int topN) {
+        String key = buildHotKey(campusId);
+        CompletableFuture<Void> created = new CompletableFuture<>();
+        CompletableFuture<Void> existing = hotRefreshes.putIfAbsent(key, created);
+        if (existing != null) {
+            return existing;
+        }
+        hotRefreshExecutor.execute(() -> {
+            try {
+                refreshHotRanking(campusId, topN);
+            } finally {
+                hotRefreshes.remove(key, created);
+                created.complete(null);
+            }
+        });
+        return created;
+    }
+
     @Override
     public List<GoodsResponse> getPersonalRecommendations(int size) {
         String username = SecurityUtil.getCurrentUsername();
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new BusinessException(ErrorCode.USER_NOT_FOUND));
 
-        Long campusId = user.getCampusId();
+        List<GoodsResponse> precomputed = servePrecomputed(PrecomputedRecommendationStore.Kind.PERSONAL,
+                user.getId(), size, () -> loadPersonalRecommendations(user, size));
+        return precomputed != null ? precomputed : loadPersonalRecommendations(user, size);
+    }
+
+    /**
+     * 个性化推荐实时路径：先读 recommend:user 缓存，未命中时召回并回填
+     */
+    private List<GoodsResponse> loadPersonalRecommendations(User user, int size) {
         String cacheKey = "recommend:user:" + user.getId();
 
         try {
@@ -145,25 +229,10 @@ public class RecommendServiceImpl implements RecommendService {
             log.warn("读取个性化缓存失败，降级计算: userId={}", user.getId());
         }
 
-        // 召回：根据收藏最多的分类
-        List<Object[]> topCats = favoriteRepository.findTopCategoryIdsByUserFavorites(user.getId());
-        List<Long> categoryIds = new java.util.ArrayList<>();
-        for (Object[] row : topCats) {
-            if (row != null && row.length > 0 && row[0] != null) {
-                if (row[0] instanceof Long l) categoryIds.add(l);
-                else if (row[0] instanceof Integer i) categoryIds.add(i.longValue());
-            }
-            if (categoryIds.size() >= 5) break; // 取前5个分类
-        }
-
-        List<Goods> recGoods;
-        if (!categoryIds.isEmpty()) {
-            Pageable pageable = PageRequest.of(0, size);
-            recGoods = goodsRepository.findHotGoodsByCampusAndCategories(GoodsStatus.APPROVED, campusId, categoryIds, pageable);
-        } else {
+        List<Goods> recGoods = recallByFavoriteCategories(user, size);
+        if (recGoods == null) {
             // 冷启动：回退热榜
-            List<GoodsResponse> hot = getHotList(campusId, size);
-            return hot;
+            return getHotList(user.getCampusId(), size);
         }
 
         // 回填缓存
@@ -180,6 +249,36 @@ public class RecommendServiceImpl implements RecommendService {
         return recGoods.stream().map(this::toResponse).toList();
     }
 
+    /**
+     * 个性化推荐实时计算（不读写 recommend:user 缓存），预计算与之共用，保证两条路径结果一致
+     */
+    private List<GoodsResponse> computePersonalRecommendations(User user, int size) {
+        List<Goods> recGoods = recallByFavoriteCategories(user, size);
+        return recGoods == null ? getHotList(user.getCampusId(), size) : toResponses(recGoods);
+    }
+
+    /**
+     * 召回：根据收藏最多的分类
+     *
+     * @return 用户没有收藏分类（冷启动）时返回 null
+     */
+    private List<Goods> recallByFavoriteCategories(User user, int size) {
+        List<Object[]> topCats = favoriteRepository.findTopCategoryIdsByUserFavorites(user.getId());
+        List<Long> categoryIds = new java.util.ArrayList<>();
+        for (Object[] row : topCats) {
+            if (row != null && row.length > 0 && row[0] != null) {
+                if (row[0] instanceof Long l) categoryIds.add(l);
+                else if (row[0] instanceof Integer i) categoryIds.add(i.longValue());
+            }
+            if (categoryIds.size() >= 5) break; // 取前5个分类
+        }
+        if (categoryIds.isEmpty()) {
+            return null;
+        }
+        Pageable pageable = PageRequest.of(0, size);
+        return goodsRepository.findHotGoodsByCampusAndCategories(GoodsStatus.APPROVED, user.getCampusId(), categoryIds, pageable);
+    }
+
     private String buildHotKey(Long campusId) {
         return HOT_KEY_PREFIX + (campusId == null ? "global" : campusId);
     }
@@ -208,6 +307,40 @@ public class RecommendServiceImpl implements RecommendService {
 
         // 获取卖家信息（包括头像）
         User seller = userRepository.findById(goods.getSellerId()).orElse(null);
+        return toResponse(goods, categoryName, seller);
+    }
+
+    /**
+     * 批量转换：分类与卖家各一次 IN 查询，避免逐条回表
+     */
+    private List<GoodsResponse> toResponses(List<Goods> goodsList) {
+        if (goodsList.isEmpty()) {
+            return List.of();
+        }
+        Set<Long> categoryIds = new HashSet<>();
+        Set<Long> sellerIds = new HashSet<>();
+        for (Goods goods : goodsList) {
+            categoryIds.add(goods.getCategoryId());
+            sellerIds.add(goods.getSellerId());
+        }
+        Map<Long, String> categoryNames = new HashMap<>();
+        for (Category category : categoryRepository.findAllById(categoryIds)) {
+            categoryNames.put(category.getId(), category.getName());
+        }
+        Map<Long, User> sellers = new HashMap<>();
+        for (User seller : userRepository.findAllById(sellerIds)) {
+            sellers.put(seller.getId(), seller);
+        }
+        List<GoodsResponse> result = new ArrayList<>(goodsList.size());
+        for (Goods goods : goodsList) {
+            result.add(toResponse(goods,
+                    categoryNames.getOrDefault(goods.getCategoryId(), "未知分类"),
+                    sellers.get(goods.getSellerId())));
+        }
+        return result;
+    }
+
+    private GoodsResponse toResponse(Goods goods, String categoryName, User seller) {
         String sellerUsername = seller != null ? seller.getUsername() : "未知用户";
         String sellerAvatar = seller != null ? seller.getAvatar() : null;
 
@@ -253,60 +386,102 @@ public class RecommendServiceImpl implements RecommendService {
     @Override
     public List<GoodsResponse> getCollaborativeFilteringRecommendations(Long userId, int size) {
         log.debug("协同过滤推荐: userId={}, size={}", userId, size);
-        
-        // 1. 查询相似用户（Top 20）
-        List<com.campus.marketplace.common.entity.UserSimilarity> similarUsers = 
-            userSimilarityRepository.findTopSimilarUsers(userId);
-        
-        if (similarUsers.isEmpty()) {
-            log.debug("用户{}没有相似用户，返回空列表", userId);
+        if (size <= 0) {
             return List.of();
         }
-        
-        // 2. 获取当前用户已交互的商品ID（避免重复推荐）
-        Set<Long> interactedGoodsIds = new LinkedHashSet<>();
-        List<com.campus.marketplace.common.entity.UserBehaviorLog> userBehaviors = 
-            userBehaviorLogRepository.findByUserIdOrderByCreatedAtDesc(userId);
-        userBehaviors.forEach(log -> {
-            if ("GOODS".equals(log.getTargetType())) {
-                interactedGoodsIds.add(log.getTargetId());
+
+        // 1. 优先读取缓存的候选列表（一次往返）
+        String cacheKey = CF_CANDIDATE_KEY_PREFIX + userId;
+        long[] candidates = null;
+        try {
+            candidates = CandidateIdCodec.decode(redis.get(cacheKey));
+        } catch (Exception e) {
+            log.warn("读取协同过滤候选缓存失败，降级计算: userId={}", userId);
+        }
+
+        // 2. 未命中时批量计算并回填（空列表同样缓存，避免反复计算）
+        if (candidates == null) {
+            candidates = computeCfCandidates(userId);
+            try {
+                redis.set(cacheKey, CandidateIdCodec.encode(candidates),
+                        recommendConfigProperties.getCf().getCandidateCacheTtl(), TimeUnit.SECONDS);
+            } catch (Exception e) {
+                log.debug("写入协同过滤候选缓存失败: userId={}", userId);
             }
-        });
-        
-        // 3. 收集相似用户喜欢的商品（按相似度加权）
-        List<GoodsScore> goodsScores = new ArrayList<>();
-        for (com.campus.marketplace.common.entity.UserSimilarity similar : similarUsers.subList(0, Math.min(20, similarUsers.size()))) {
-            Long similarUserId = similar.getSimilarUserId();
-            Double similarity = similar.getSimilarityScore();
-            
-            // 获取相似用户购买和收藏的商品
-            List<Goods> favoriteGoods = favoriteRepository.findAll().stream()
-                .filter(fav -> fav.getUserId().equals(similarUserId))
-                .map(fav -> goodsRepository.findById(fav.getGoodsId()).orElse(null))
-                .filter(goods -> goods != null && goods.getStatus() == GoodsStatus.APPROVED)
-                .filter(goods -> !interactedGoodsIds.contains(goods.getId()))
-                .toList();
-            
-            for (Goods goods : favoriteGoods) {
-                goodsScores.add(new GoodsScore(goods, similarity * 1.0)); // 收藏权重1.0
+        }
+        if (candidates.length == 0) {
+            log.debug("用户{}没有协同过滤候选，返回空列表", userId);
+            return List.of();
+        }
+
+        // 3. 按候选顺序批量加载商品，过滤已下架商品
+        return loadApprovedResponses(candidates, size);
+    }
+
+    /**
+     * 按给定ID顺序批量加载在售商品（一次 IN 查询），最多返回 size 条
+     */
+    private List<GoodsResponse> loadApprovedResponses(long[] candidates, int size) {
+        List<Long> ids = new ArrayList<>(candidates.length);
+        for (long id : candidates) {
+            ids.add(id);
+        }
+        Map<Long, Goods> goodsById = new HashMap<>();
+        for (Goods goods : goodsRepository.findAllById(ids)) {
+            goodsById.put(goods.getId(), goods);
+        }
+        List<Goods> available = new ArrayList<>(Math.min(size, ids.size()));
+        for (Long id : ids) {
+            Goods goods = goodsById.get(id);
+            if (goods != null && goods.getStatus() == GoodsStatus.APPROVED) {
+                available.add(goods);
+                if (available.size() >= size) {
+                    break;
+                }
             }
         }
-        
-        // 4. 按加权分数排序并去重
-        Set<Long> addedIds = new LinkedHashSet<>();
-        List<Goods> recommendedGoods = goodsScores.stream()
-            .sorted((a, b) -> Double.compare(b.score, a.score))
-            .map(gs -> gs.goods)
-            .filter(goods -> addedIds.add(goods.getId()))
-            .limit(size)
-            .toList();
-        
-        // 5. 转换为DTO并返回
-        return recommendedGoods.stream()
-            .map(this::toResponse)
-            .toList();
+        return toResponses(available);
     }
-    
+
+    /**
+     * 计算协同过滤候选：相似用户收藏按相似度加权累加，排除当前用户已交互的商品
+     *
+     * 固定 3 次查询：相似用户 Top N、已交互商品ID、相似用户收藏（IN 批量）。
+     */
+    private long[] computeCfCandidates(Long userId) {
+        RecommendConfigProperties.CfConfig cf = recommendConfigProperties.getCf();
+
+        // 1. 查询相似用户（Top N）
+        List<com.campus.marketplace.common.entity.UserSimilarity> similarUsers =
+            userSimilarityRepository.findTopSimilarUsers(userId, PageRequest.of(0, cf.getNeighborLimit()));
+        if (similarUsers.isEmpty()) {
+            return new long[0];
+        }
+        Map<Long, Double> similarityByUser = new HashMap<>();
+        for (com.campus.marketplace.common.entity.UserSimilarity similar : similarUsers) {
+            similarityByUser.put(similar.getSimilarUserId(), similar.getSimilarityScore());
+        }
+
+        // 2. 当前用户已交互的商品ID（避免重复推荐）
+        Set<Long> interactedGoodsIds = new HashSet<>(
+            userBehaviorLogRepository.findDistinctTargetIds(userId, "GOODS"));
+
+        // 3. 一次查出所有相似用户的收藏，按相似度加权累加（收藏权重1.0）
+        List<Object[]> favorites = favoriteRepository.findUserGoodsPairsByUserIdIn(similarityByUser.keySet());
+        LongDoubleScoreMap scores = new LongDoubleScoreMap(favorites.size());
+        for (Object[] row : favorites) {
+            Long goodsId = (Long) row[1];
+            if (interactedGoodsIds.contains(goodsId)) {
+                continue;
+            }
+            Double similarity = similarityByUser.get((Long) row[0]);
+            if (similarity != null) {
+                scores.add(goodsId, similarity * 1.0);
+            }
+        }
+        return scores.topKeys(cf.getCandidateLimit());
+    }
+
     // 内部类：商品评分
     private static class GoodsScore {
         Goods goods;
@@ -321,7 +496,13 @@ public class RecommendServiceImpl implements RecommendService {
     @Override
     public List<GoodsResponse> getSimilarGoods(Long goodsId, int size) {
         log.debug("相似商品推荐: goodsId={}, size={}", goodsId, size);
-        
+
+        // 优先走内存相似度索引（全量商品），未就绪或商品未上架时回落到数据库扫描
+        long[] indexed = itemSimilarityService.similarTo(goodsId, size).orElse(null);
+        if (indexed != null) {
+            return loadApprovedResponses(indexed, size);
+        }
+
         // 1. 获取目标商品
         Goods targetGoods = goodsRepository.findById(goodsId)
             .orElseThrow(() -> new BusinessException(ErrorCode.GOODS_NOT_FOUND));
@@ -400,7 +581,48 @@ public class RecommendServiceImpl implements RecommendService {
     @Override
     public List<GoodsResponse> getHybridRecommendations(Long userId, int size) {
         log.debug("混合推荐: userId={}, size={}", userId, size);
-        
+        Supplier<List<GoodsResponse>> live = () -> {
+            User user = userRepository.findById(userId).orElse(null);
+            return computeHybridRecommendations(userId, user != null ? user.getCampusId() : null, size);
+        };
+        List<GoodsResponse> precomputed = servePrecomputed(PrecomputedRecommendationStore.Kind.HYBRID, userId, size, live);
+        return precomputed != null ? precomputed : live.get();
+    }
+
+    /**
+     * 从预计算结果读取推荐
+     *
+     * 已售出/下架的商品直接跳过，返回剩余在售商品；在售数量低于 minServeRatio 时用实时结果补足
+     *
+     * @param live 实时计算，仅在需要补足时调用
+     * @return 未预计算时返回 null，由调用方实时计算
+     */
+    private List<GoodsResponse> servePrecomputed(PrecomputedRecommendationStore.Kind kind, Long userId, int size,
+                                                 Supplier<List<GoodsResponse>> live) {
+        long[] ids = precomputedStore.read(kind, userId).orElse(null);
+        if (ids == null || ids.length == 0 || size <= 0) {
+            return null;
+        }
+        List<GoodsResponse> result = loadApprovedResponses(ids, size);
+        int minimum = (int) Math.ceil(Math.min(size, ids.length) * recommendConfigProperties.getPrecompute().getMinServeRatio());
+        if (result.size() >= minimum) {
+            return result;
+        }
+        List<GoodsResponse> merged = new ArrayList<>(result);
+        Set<Long> addedIds = new HashSet<>();
+        result.forEach(goods -> addedIds.add(goods.getId()));
+        for (GoodsResponse goods : live.get()) {
+            if (merged.size() >= size) {
+                break;
+            }
+            if (addedIds.add(goods.getId())) {
+                merged.add(goods);
+            }
+        }
+        return merged;
+    }
+
+    private List<GoodsResponse> computeHybridRecommendations(Long userId, Long campusId, int size) {
         // 混合推荐策略：协同过滤40% + 用户画像30% + 热门榜单30%
         int cfSize = (int) (size * 0.4);
         int personaSize = (int) (size * 0.3);
@@ -421,8 +643,6 @@ public class RecommendServiceImpl implements RecommendService {
         // 暂时跳过，后续实现
         
         // 3. 热门榜单补充（30%）
-        User user = userRepository.findById(userId).orElse(null);
-        Long campusId = user != null ? user.getCampusId() : null;
         List<GoodsResponse> hotGoods = campusId != null ? 
             getHotList(campusId, hotSize + (size - result.size())) : List.of();
         for (GoodsResponse goods : hotGoods) {
@@ -438,127 +658,124 @@ public class RecommendServiceImpl implements RecommendService {
     @Override
     public void calculateUserSimilarities() {
         log.info("开始计算用户相似度...");
-        
-        // 1. 获取所有活跃用户（近30天有行为的用户）
-        LocalDateTime thirtyDaysAgo = LocalDateTime.now().minusDays(30);
-        List<Long> activeUserIds = userBehaviorLogRepository.findAll().stream()
-            .filter(log -> log.getCreatedAt().isAfter(thirtyDaysAgo))
-            .map(com.campus.marketplace.common.entity.UserBehaviorLog::getUserId)
-            .distinct()
-            .toList();
-        
-        log.info("活跃用户数量: {}", activeUserIds.size());
-        
-        // 2. 构建用户-商品行为矩阵（Map<userId, Map<goodsId, score>>）
-        java.util.Map<Long, java.util.Map<Long, Double>> userGoodsMatrix = new java.util.HashMap<>();
-        
-        for (Long userId : activeUserIds) {
-            List<com.campus.marketplace.common.entity.UserBehaviorLog> userLogs = 
-                userBehaviorLogRepository.findByUserIdAndTimeRange(userId, thirtyDaysAgo, LocalDateTime.now());
-            
-            java.util.Map<Long, Double> goodsScores = new java.util.HashMap<>();
-            for (com.campus.marketplace.common.entity.UserBehaviorLog log : userLogs) {
-                if ("GOODS".equals(log.getTargetType())) {
-                    Long goodsId = log.getTargetId();
-                    double weight = log.getBehaviorType().getWeight();
-                    goodsScores.put(goodsId, goodsScores.getOrDefault(goodsId, 0.0) + weight);
-                }
+        UserSimilarityCalculator.Summary summary = userSimilarityCalculator.recalculate();
+        log.info("用户相似度计算完成: users={}, items={}, nnz={}, pairs={}, loadMs={}, computeMs={}, writeMs={}",
+                summary.users(), summary.items(), summary.nonZeros(), summary.pairs(),
+                summary.loadMs(), summary.computeMs(), summary.writeMs());
+    }
+
+    @Override
+    public void precomputeRecommendations() {
+        RecommendConfigProperties.PrecomputeConfig config = recommendConfigProperties.getPrecompute();
+        runPrecompute(false, LocalDateTime.now().minusDays(config.getActiveDays()));
+    }
+
+    @Override
+    public void refreshChangedRecommendations() {
+        LocalDateTime since = precomputedStore.readWatermark()
+                .orElseGet(() -> LocalDateTime.now().minusSeconds(recommendConfigProperties.getPrecompute().getStaleAfter()));
+        runPrecompute(true, since);
+    }
+
+    /**
+     * 预计算主流程：筛选活跃用户 → 虚拟线程并发计算（信号量限流）→ 分批 pipeline 写入 Redis
+     *
+     * @param incremental 增量模式下同时清理用户的协同过滤候选缓存（已交互商品已变化）
+     * @param since       行为时间下限
+     */
+    private void runPrecompute(boolean incremental, LocalDateTime since) {
+        RecommendConfigProperties.PrecomputeConfig config = recommendConfigProperties.getPrecompute();
+        try (DistributedLockManager.LockHandle lock = lockManager.tryLock(PRECOMPUTE_LOCK_KEY, 0, 30, TimeUnit.MINUTES)) {
+            if (!lock.acquired()) {
+                log.debug("推荐预计算正在其他节点执行，跳过: incremental={}", incremental);
+                return;
             }
-            
-            if (!goodsScores.isEmpty()) {
-                userGoodsMatrix.put(userId, goodsScores);
+            LocalDateTime startedAt = LocalDateTime.now();
+            long start = System.currentTimeMillis();
+
+            // 1. 活跃用户（走 created_at 索引），超出 maxUsers 时水位只推进到已处理的部分
+            List<Long> userIds;
+            LocalDateTime nextWatermark = startedAt;
+            if (incremental) {
+                // 增量：按最近行为时间正序，页满说明还有用户没轮到，水位停在本页最后一个用户的行为时间，下一轮从那里继续
+                List<Object[]> rows = userBehaviorLogRepository.findActiveUsersSinceOldestFirst(
+                        since, PageRequest.of(0, config.getMaxUsers()));
+                userIds = new ArrayList<>(rows.size());
+                for (Object[] row : rows) {
+                    userIds.add(((Number) row[0]).longValue());
+                }
+                if (rows.size() >= config.getMaxUsers()) {
+                    nextWatermark = (LocalDateTime) rows.get(rows.size() - 1)[1];
+                }
+                if (!userIds.isEmpty()) {
+                    redis.delete(userIds.stream().map(id -> CF_CANDIDATE_KEY_PREFIX + id).toList());
+                }
+            } else {
+                // 全量：优先最近活跃的用户；达到上限时不推进水位，避免把增量尚未处理到的用户一并跳过
+                userIds = userBehaviorLogRepository.findActiveUserIdsSince(
+                        since, PageRequest.of(0, config.getMaxUsers()));
+                if (userIds.size() >= config.getMaxUsers()) {
+                    nextWatermark = null;
+                }
             }
-        }
-        
-        // 3. 计算用户之间的余弦相似度
-        int calculatedCount = 0;
-        for (Long userId : userGoodsMatrix.keySet()) {
-            List<com.campus.marketplace.common.entity.UserSimilarity> similarities = new ArrayList<>();
-            
-            for (Long otherUserId : userGoodsMatrix.keySet()) {
-                if (userId.equals(otherUserId)) continue;
-                
-                double similarity = calculateCosineSimilarity(
-                    userGoodsMatrix.get(userId),
-                    userGoodsMatrix.get(otherUserId)
-                );
-                
-                if (similarity > 0.1) { // 相似度阈值
-                    com.campus.marketplace.common.entity.UserSimilarity us = new com.campus.marketplace.common.entity.UserSimilarity();
-                    us.setUserId(userId);
-                    us.setSimilarUserId(otherUserId);
-                    us.setSimilarityScore(similarity);
-                    us.setLastCalculatedAt(LocalDateTime.now());
-                    similarities.add(us);
+
+            // 2. 虚拟线程并发计算，信号量控制同时计算的用户数
+            Map<Long, long[]> hybridResults = new ConcurrentHashMap<>();
+            Map<Long, long[]> personalResults = new ConcurrentHashMap<>();
+            AtomicInteger failed = new AtomicInteger();
+            Semaphore permits = new Semaphore(Math.max(1, config.getConcurrency()));
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (Long userId : userIds) {
+                    permits.acquireUninterruptibly();
+                    executor.submit(() -> {
+                        try {
+                            User user = userRepository.findById(userId).orElse(null);
+                            Long campusId = user != null ? user.getCampusId() : null;
+                            putIds(hybridResults, userId, computeHybridRecommendations(userId, campusId, config.getSize()));
+                            if (user != null) {
+                                putIds(personalResults, userId, computePersonalRecommendations(user, config.getSize()));
+                            }
+                        } catch (Exception e) {
+                            failed.incrementAndGet();
+                            log.warn("预计算用户{}的推荐结果失败: {}", userId, e.getMessage());
+                        } finally {
+                            permits.release();
+                        }
+                    });
                 }
             }
-            
-            // 4. 保存相似度数据（先删除旧数据）
-            if (!similarities.isEmpty()) {
-                userSimilarityRepository.deleteByUserId(userId);
-                userSimilarityRepository.saveAll(similarities);
-                calculatedCount++;
+
+            // 3. 分批 pipeline 写入
+            writeInBatches(PrecomputedRecommendationStore.Kind.HYBRID, hybridResults, config.getWriteBatchSize());
+            writeInBatches(PrecomputedRecommendationStore.Kind.PERSONAL, personalResults, config.getWriteBatchSize());
+
+            if (nextWatermark != null) {
+                precomputedStore.writeWatermark(nextWatermark);
             }
+            log.info("推荐结果预计算完成: incremental={}, users={}, hybrid={}, personal={}, failed={}, costMs={}",
+                    incremental, userIds.size(), hybridResults.size(), personalResults.size(), failed.get(),
+                    System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.error("推荐结果预计算失败: incremental={}", incremental, e);
         }
-        
-        log.info("用户相似度计算完成，共处理{}个用户", calculatedCount);
     }
-    
-    /**
-     * 计算余弦相似度
-     */
-    private double calculateCosineSimilarity(java.util.Map<Long, Double> vector1, java.util.Map<Long, Double> vector2) {
-        // 计算向量点积
-        double dotProduct = 0.0;
-        for (Long key : vector1.keySet()) {
-            if (vector2.containsKey(key)) {
-                dotProduct += vector1.get(key) * vector2.get(key);
-            }
+
+    private static void putIds(Map<Long, long[]> results, Long userId, List<GoodsResponse> recommendations) {
+        if (!recommendations.isEmpty()) {
+            results.put(userId, recommendations.stream().mapToLong(GoodsResponse::getId).toArray());
         }
-        
-        // 计算向量模长
-        double norm1 = Math.sqrt(vector1.values().stream().mapToDouble(v -> v * v).sum());
-        double norm2 = Math.sqrt(vector2.values().stream().mapToDouble(v -> v * v).sum());
-        
-        if (norm1 == 0 || norm2 == 0) return 0.0;
-        
-        return dotProduct / (norm1 * norm2);
     }
 
-    @Override
-    public void precomputeRecommendations() {
-        log.info("开始预计算推荐结果...");
-        
-        // 1. 获取活跃用户列表（近7天有行为的用户）
-        LocalDateTime sevenDaysAgo = LocalDateTime.now().minusDays(7);
-        List<Long> activeUserIds = userBehaviorLogRepository.findAll().stream()
-            .filter(log -> log.getCreatedAt().isAfter(sevenDaysAgo))
-            .map(com.campus.marketplace.common.entity.UserBehaviorLog::getUserId)
-            .distinct()
-            .limit(1000) // 限制最多预计算1000个用户
-            .toList();
-        
-        log.info("活跃用户数量: {}", activeUserIds.size());
-        
-        // 2. 为每个用户预计算推荐结果并缓存
-        int cachedCount = 0;
-        for (Long userId : activeUserIds) {
-            try {
-                // 生成混合推荐结果
-                List<GoodsResponse> recommendations = getHybridRecommendations(userId, 20);
-                
-                if (!recommendations.isEmpty()) {
-                    // 缓存推荐结果（24小时有效）
-                    // 暂时跳过缓存，后续优化
-                    log.debug("预计算推荐结果: userId={}, size={}", userId, recommendations.size());
-                    cachedCount++;
-                }
-            } catch (Exception e) {
-                log.error("预计算用户{}的推荐结果失败: {}", userId, e.getMessage());
+    private void writeInBatches(PrecomputedRecommendationStore.Kind kind, Map<Long, long[]> results, int batchSize) {
+        Map<Long, long[]> batch = new HashMap<>();
+        for (Map.Entry<Long, long[]> entry : results.entrySet()) {
+            batch.put(entry.getKey(), entry.getValue());
+            if (batch.size() >= batchSize) {
+                precomputedStore.writeAll(kind, batch);
+                batch.clear();
             }
         }
-
-        log.info("推荐结果预计算完成，共缓存{}个用户的推荐结果", cachedCount);
+        precomputedStore.writeAll(kind, batch);
     }
 
     @Override
@@ -4,24 +4,26 @@ import com.campus.marketplace.common.dto.SearchFilterDTO;
 import com.campus.marketplace.common.dto.SearchSuggestionDTO;
 import com.campus.marketplace.common.dto.response.GoodsResponse;
 import com.campus.marketplace.common.dto.response.SearchResultItem;
-import com.campus.marketplace.common.entity.Goods;
 import com.campus.marketplace.common.entity.SearchHistory;
 import com.campus.marketplace.common.entity.SearchKeyword;
-import com.campus.marketplace.common.entity.SearchLog;
 import com.campus.marketplace.common.entity.User;
-import com.campus.marketplace.common.enums.GoodsStatus;
 import com.campus.marketplace.common.exception.BusinessException;
 import com.campus.marketplace.common.exception.ErrorCode;
 import com.campus.marketplace.common.utils.SecurityUtil;
 import com.campus.marketplace.repository.GoodsRepository;
+import com.campus.marketplace.repository.GoodsSearchJdbcRepository;
 import com.campus.marketplace.repository.GoodsTagRepository;
 import com.campus.marketplace.repository.PostRepository;
 import com.campus.marketplace.repository.SearchHistoryRepository;
 import com.campus.marketplace.repository.SearchKeywordRepository;
-import com.campus.marketplace.repository.SearchLogRepository;
 import com.campus.marketplace.repository.UserRepository;
 import com.campus.marketplace.repository.projection.GoodsSearchProjection;
 import com.campus.marketplace.repository.projection.PostSearchProjection;
+import com.campus.marketplace.search.IndexedDocument;
+import com.campus.marketplace.search.InvertedIndex;
+import com.campus.marketplace.search.KeywordSuggestService;
+import com.campus.marketplace.search.SearchActivityRecorder;
+import com.campus.marketplace.search.SearchIndexService;
 import com.campus.marketplace.service.SearchService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -32,10 +34,9 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.math.BigDecimal;
-import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 /**
@@ -52,12 +53,15 @@ import java.util.stream.Collectors;
 public class SearchServiceImpl implements SearchService {
 
     private final GoodsRepository goodsRepository;
+    private final GoodsSearchJdbcRepository goodsSearchJdbcRepository;
     private final GoodsTagRepository goodsTagRepository;
     private final PostRepository postRepository;
     private final UserRepository userRepository;
     private final SearchHistoryRepository searchHistoryRepository;
     private final SearchKeywordRepository searchKeywordRepository;
-    private final SearchLogRepository searchLogRepository;
+    private final SearchIndexService searchIndexService;
+    private final KeywordSuggestService keywordSuggestService;
+    private final SearchActivityRecorder searchActivityRecorder;
 
     @Override
     public Page<SearchResultItem> search(String type, String keyword, int page, int size, List<Long> tagIds) {
@@ -88,7 +92,7 @@ public class SearchServiceImpl implements SearchService {
         }
 
         // 记录搜索日志（异步）
-        recordSearchLog(keyword.trim(), type, (int) result.getTotalElements());
+        recordSearchLog(keyword.trim(), type, campusId, result.getTotalElements());
 
         log.info("搜索完成: type={}, keyword=, campusId={}, totalElements={}",
                 type, keyword, campusId, result.getTotalElements());
@@ -97,9 +101,60 @@ public class SearchServiceImpl implements SearchService {
     }
 
     /**
-     * 搜索商品（FTS）
+     * 搜索商品（优先内存索引，未就绪时回落到数据库 FTS）
      */
     private Page<SearchResultItem> searchGoods(String keyword, Long campusId, List<Long> tagIds, Pageable pageable) {
+        Optional<InvertedIndex.Hits> hits = searchIndexService.searchGoods(
+                keyword, campusId, tagIds, pageable.getOffset(), pageable.getPageSize());
+        if (hits.isEmpty()) {
+            return searchGoodsInDb(keyword, campusId, tagIds, pageable);
+        }
+
+        Page<SearchResultItem> result = toPage(hits.get(), "GOODS", pageable);
+        if (searchIndexService.shouldShadowCheck()) {
+            searchIndexService.shadowCheckAsync("goods", keyword, result.getTotalElements(),
+                    () -> searchGoodsInDb(keyword, campusId, tagIds, pageable).getTotalElements());
+        }
+        return result;
+    }
+
+    /**
+     * 搜索帖子（优先内存索引，未就绪时回落到数据库 FTS）
+     */
+    private Page<SearchResultItem> searchPosts(String keyword, Long campusId, Pageable pageable) {
+        Optional<InvertedIndex.Hits> hits = searchIndexService.searchPosts(
+                keyword, campusId, pageable.getOffset(), pageable.getPageSize());
+        if (hits.isEmpty()) {
+            return searchPostsInDb(keyword, campusId, pageable);
+        }
+
+        Page<SearchResultItem> result = toPage(hits.get(), "POST", pageable);
+        if (searchIndexService.shouldShadowCheck()) {
+            searchIndexService.shadowCheckAsync("post", keyword, result.getTotalElements(),
+                    () -> searchPostsInDb(keyword, campusId, pageable).getTotalElements());
+        }
+        return result;
+    }
+
+    private Page<SearchResultItem> toPage(InvertedIndex.Hits hits, String type, Pageable pageable) {
+        List<SearchResultItem> items = new ArrayList<>(hits.documents().size());
+        for (IndexedDocument document : hits.documents()) {
+            items.add(SearchResultItem.builder()
+                    .type(type)
+                    .id(document.id())
+                    .title(document.title())
+                    .snippet(document.snippet())
+                    .price(document.price())
+                    .campusId(document.campusId())
+                    .build());
+        }
+        return new PageImpl<>(items, pageable, hits.total());
+    }
+
+    /**
+     * 搜索商品（数据库 FTS）
+     */
+    private Page<SearchResultItem> searchGoodsInDb(String keyword, Long campusId, List<Long> tagIds, Pageable pageable) {
         Page<GoodsSearchProjection> goodsPage;
 
         if (tagIds != null && !tagIds.isEmpty()) {
@@ -135,9 +190,9 @@ public class SearchServiceImpl implements SearchService {
     }
 
     /**
-     * 搜索帖子（FTS）
+     * 搜索帖子（数据库 FTS）
      */
-    private Page<SearchResultItem> searchPosts(String keyword, Long campusId, Pageable pageable) {
+    private Page<SearchResultItem> searchPostsInDb(String keyword, Long campusId, Pageable pageable) {
         Page<PostSearchProjection> postPage = postRepository.searchPostsFts(keyword, campusId, pageable);
 
         // 转换为 SearchResultItem
@@ -180,20 +235,11 @@ public class SearchServiceImpl implements SearchService {
     /**
      * 记录搜索日志（异步）
      */
-    private void recordSearchLog(String keyword, String type, int resultCount) {
+    private void recordSearchLog(String keyword, String type, Long campusId, long resultCount) {
         try {
             String username = SecurityUtil.getCurrentUsername();
-            Long campusId = getCurrentUserCampusId();
-
-            SearchLog searchLog = SearchLog.builder()
-                    .username(username)
-                    .keyword(keyword)
-                    .campusId(campusId)
-                    .resultCount((long) resultCount)
-                    .build();
-
-            searchLogRepository.save(searchLog);
-            log.debug("搜索日志保存成功: username={}, keyword={}, type={}, resultCount={}",
+            searchActivityRecorder.recordLog(username, keyword, campusId, resultCount);
+            log.debug("搜索日志已入队: username={}, keyword={}, type={}, resultCount={}",
                     username, keyword, type, resultCount);
         } catch (Exception e) {
             log.warn("记录搜索日志失败: {}", e.getMessage());
@@ -219,24 +265,26 @@ public class SearchServiceImpl implements SearchService {
             suggestion.setHistoryKeywords(new ArrayList<>());
         }
 
-        // 2. 获取热门搜索词（最多10条）
-        List<String> hotKeywords = searchKeywordRepository
-            .findAllByOrderBySearchCountDesc(PageRequest.of(0, 10))
-            .stream()
-            .map(SearchKeyword::getKeyword)
-            .collect(Collectors.toList());
+        // 2. 获取热门搜索词（最多10条，优先内存前缀树快照）
+        List<String> hotKeywords = keywordSuggestService.hotKeywords(10)
+            .orElseGet(() -> searchKeywordRepository
+                .findAllByOrderBySearchCountDesc(PageRequest.of(0, 10))
+                .stream()
+                .map(SearchKeyword::getKeyword)
+                .collect(Collectors.toList()));
         suggestion.setHotKeywords(hotKeywords);
 
-        // 3. 智能补全（根据关键词前缀匹配）
+        // 3. 智能补全（前缀树支持原文/全拼/首字母，未就绪时回落到数据库前缀匹配）
         if (keyword != null && !keyword.trim().isEmpty()) {
-            List<String> autoCompleteKeywords = searchKeywordRepository
-                .findByKeywordStartingWithIgnoreCaseOrderBySearchCountDesc(
-                    keyword.trim(), 
-                    PageRequest.of(0, 10)
-                )
-                .stream()
-                .map(SearchKeyword::getKeyword)
-                .collect(Collectors.toList());
+            List<String> autoCompleteKeywords = keywordSuggestService.complete(keyword.trim(), 10)
+                .orElseGet(() -> searchKeywordRepository
+                    .findByKeywordStartingWithIgnoreCaseOrderBySearchCountDesc(
+                        keyword.trim(),
+                        PageRequest.of(0, 10)
+                    )
+                    .stream()
+                    .map(SearchKeyword::getKeyword)
+                    .collect(Collectors.toList()));
             suggestion.setAutoCompleteKeywords(autoCompleteKeywords);
         } else {
             suggestion.setAutoCompleteKeywords(new ArrayList<>());
@@ -249,110 +297,54 @@ public class SearchServiceImpl implements SearchService {
     public Page<GoodsResponse> searchGoods(String keyword, SearchFilterDTO filter, Pageable pageable, Long userId) {
         log.info("搜索商品: keyword={}, filter={}", keyword, filter);
 
-        // 构建查询条件
-        List<Goods> goodsList = new ArrayList<>();
-        
-        if (keyword == null || keyword.trim().isEmpty()) {
-            // 无关键词，返回所有商品
-            goodsList = goodsRepository.findByStatus(GoodsStatus.APPROVED, pageable).getContent();
-        } else {
-            // 根据关键词搜索（简化版：标题或描述包含关键词）
-            goodsList = goodsRepository.findAll().stream()
-                .filter(g -> g.getStatus() == GoodsStatus.APPROVED)
-                .filter(g -> (g.getTitle() != null && g.getTitle().toLowerCase().contains(keyword.toLowerCase()))
-                        || (g.getDescription() != null && g.getDescription().toLowerCase().contains(keyword.toLowerCase())))
-                .collect(Collectors.toList());
-        }
+        String trimmedKeyword = keyword != null && !keyword.trim().isEmpty() ? keyword.trim() : null;
+        SearchFilterDTO safeFilter = filter != null ? filter : new SearchFilterDTO();
+        Long lastId = safeFilter.getLastId();
+
+        // 关键词/价格/分类/排序/分页全部下推到数据库，避免整表加载到 JVM
+        GoodsSearchJdbcRepository.Criteria criteria = GoodsSearchJdbcRepository.Criteria.builder()
+            .keyword(trimmedKeyword)
+            .minPrice(safeFilter.getMinPrice())
+            .maxPrice(safeFilter.getMaxPrice())
+            .categoryId(safeFilter.getCategoryId())
+            .sortField(GoodsSearchJdbcRepository.SortField.from(safeFilter.getSortBy()))
+            .ascending("ASC".equalsIgnoreCase(safeFilter.getSortDirection()))
+            .afterId(lastId)
+            .offset(lastId == null ? pageable.getOffset() : 0L)
+            .limit(pageable.getPageSize() + 1)
+            .build();
 
-        // 应用筛选条件
-        if (filter != null) {
-            // 价格筛选
-            if (filter.getMinPrice() != null) {
-                BigDecimal minPrice = filter.getMinPrice();
-                goodsList = goodsList.stream()
-                    .filter(g -> g.getPrice().compareTo(minPrice) >= 0)
-                    .collect(Collectors.toList());
-            }
-            if (filter.getMaxPrice() != null) {
-                BigDecimal maxPrice = filter.getMaxPrice();
-                goodsList = goodsList.stream()
-                    .filter(g -> g.getPrice().compareTo(maxPrice) <= 0)
-                    .collect(Collectors.toList());
-            }
+        List<GoodsResponse> rows = goodsSearchJdbcRepository.search(criteria);
+        boolean hasNext = rows.size() > pageable.getPageSize();
+        List<GoodsResponse> responseList = hasNext ? rows.subList(0, pageable.getPageSize()) : rows;
 
-            // 分类筛选
-            if (filter.getCategoryId() != null) {
-                goodsList = goodsList.stream()
-                    .filter(g -> g.getCategoryId().equals(filter.getCategoryId()))
-                    .collect(Collectors.toList());
-            }
+        // keyset 模式不做 COUNT，总数仅用于告知是否还有下一页
+        long total = lastId == null
+            ? goodsSearchJdbcRepository.count(criteria)
+            : pageable.getOffset() + responseList.size() + (hasNext ? 1 : 0);
 
-            // 排序
-            if (filter.getSortBy() != null) {
-                String sortBy = filter.getSortBy();
-                boolean ascending = "ASC".equalsIgnoreCase(filter.getSortDirection());
-                
-                if ("price".equals(sortBy)) {
-                    goodsList.sort((g1, g2) -> ascending 
-                        ? g1.getPrice().compareTo(g2.getPrice())
-                        : g2.getPrice().compareTo(g1.getPrice()));
-                } else if ("createdAt".equals(sortBy)) {
-                    goodsList.sort((g1, g2) -> ascending
-                        ? g1.getCreatedAt().compareTo(g2.getCreatedAt())
-                        : g2.getCreatedAt().compareTo(g1.getCreatedAt()));
-                }
+        if (trimmedKeyword != null) {
+            // 记录搜索历史
+            if (userId != null) {
+                recordSearchHistory(userId, trimmedKeyword, (int) Math.min(total, Integer.MAX_VALUE), false);
             }
+            // 更新热门关键词
+            updateHotKeyword(trimmedKeyword);
         }
 
-        // 转换为 GoodsResponse
-        List<GoodsResponse> responseList = goodsList.stream()
-            .skip((long) pageable.getPageNumber() * pageable.getPageSize())
-            .limit(pageable.getPageSize())
-            .map(this::convertToResponse)
-            .collect(Collectors.toList());
-
-        // 记录搜索历史
-        if (userId != null && keyword != null && !keyword.trim().isEmpty()) {
-            recordSearchHistory(userId, keyword.trim(), goodsList.size(), false);
-        }
-
-        // 更新热门关键词
-        if (keyword != null && !keyword.trim().isEmpty()) {
-            updateHotKeyword(keyword.trim());
-        }
-
-        return new PageImpl<>(responseList, pageable, goodsList.size());
+        return new PageImpl<>(responseList, pageable, total);
     }
 
     @Override
-    @Transactional(rollbackFor = Exception.class)
     public void recordSearchHistory(Long userId, String keyword, int resultCount, boolean hasClick) {
-        log.info("记录搜索历史: userId={}, keyword={}, resultCount={}", userId, keyword, resultCount);
-
-        SearchHistory history = SearchHistory.builder()
-            .userId(userId)
-            .keyword(keyword)
-            .resultCount(resultCount)
-            .hasClick(hasClick)
-            .build();
-
-        searchHistoryRepository.save(history);
+        log.debug("记录搜索历史: userId={}, keyword={}, resultCount={}", userId, keyword, resultCount);
+        searchActivityRecorder.recordHistory(userId, keyword, resultCount, hasClick);
     }
 
     @Override
-    @Transactional(rollbackFor = Exception.class)
     public void updateHotKeyword(String keyword) {
         log.debug("更新热门关键词: keyword={}", keyword);
-
-        SearchKeyword searchKeyword = searchKeywordRepository.findByKeyword(keyword)
-            .orElse(SearchKeyword.builder()
-                .keyword(keyword)
-                .searchCount(0L)
-                .lastSearchTime(LocalDateTime.now())
-                .build());
-
-        searchKeyword.incrementSearchCount();
-        searchKeywordRepository.save(searchKeyword);
+        searchActivityRecorder.incrementKeyword(keyword);
     }
 
     @Override
@@ -380,22 +372,4 @@ public class SearchServiceImpl implements SearchService {
         log.info("清空用户搜索历史: userId={}", userId);
         searchHistoryRepository.deleteByUserId(userId);
     }
-
-    /**
-     * 转换商品实体为响应 DTO
-     */
-    private GoodsResponse convertToResponse(Goods goods) {
-        return GoodsResponse.builder()
-            .id(goods.getId())
-            .title(goods.getTitle())
-            .description(goods.getDescription())
-            .price(goods.getPrice())
-            .categoryId(goods.getCategoryId())
-            .sellerId(goods.getSellerId())
-            .status(goods.getStatus())
-            .viewCount(goods.getViewCount())
-            .favoriteCount(goods.getFavoriteCount())
-            .createdAt(goods.getCreatedAt())
-            .build();
-    }
 }
@@ -1,6 +1,7 @@
 package com.campus.marketplace.service.impl;
 
 import com.campus.marketplace.common.entity.ViewLog;
+import com.campus.marketplace.recommend.ViewTrafficCounter;
 import com.campus.marketplace.repository.UserRepository;
 import com.campus.marketplace.repository.ViewLogRepository;
 import com.campus.marketplace.service.ViewLogService;
@@ -24,6 +25,7 @@ public class ViewLogServiceImpl implements ViewLogService {
 
     private final ViewLogRepository viewLogRepository;
     private final UserRepository userRepository;
+    private final ViewTrafficCounter viewTrafficCounter;
 
     @Override
     public void saveAsync(String username, Long goodsId, long timestampMillis) {
@@ -42,6 +44,7 @@ public class ViewLogServiceImpl implements ViewLogService {
                                 .goodsId(goodsId)
                                 .build();
                         viewLogRepository.save(viewLog);
+                        viewTrafficCounter.record();
                         log.debug("浏览日志保存成功: username={}, userId={}, goodsId={}", username, userId, goodsId);
                     } catch (Exception e) {
                         log.warn("保存浏览日志失败: username={}, goodsId={}", username, goodsId, e);
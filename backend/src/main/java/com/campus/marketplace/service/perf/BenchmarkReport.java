@@ -0,0 +1,62 @@
+package com.campus.marketplace.service.perf;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 单个压测场景的延迟统计结果。
+ *
+ * <p>由 perf Profile 下的基准测试服务产出，百分位基于每次调用的纳秒耗时排序计算。</p>
+ *
+ * @param scenario     场景名称
+ * @param iterations   调用次数
+ * @param p50Ms        P50 延迟（毫秒）
+ * @param p95Ms        P95 延迟（毫秒）
+ * @param p99Ms        P99 延迟（毫秒）
+ * @param maxMs        最大延迟（毫秒）
+ * @param opsPerSecond 吞吐（次/秒）
+ * @param attributes   场景附加信息（数据规模、并发数等）
+ */
+public record BenchmarkReport(String scenario,
+                              int iterations,
+                              double p50Ms,
+                              double p95Ms,
+                              double p99Ms,
+                              double maxMs,
+                              double opsPerSecond,
+                              Map<String, Object> attributes) {
+
+    /**
+     * 根据采样耗时构建报告。
+     *
+     * @param scenario      场景名称
+     * @param samplesNanos  每次调用耗时（纳秒），方法内部会排序
+     * @param wallNanos     整体墙钟耗时（纳秒），用于计算吞吐
+     * @param attributes    附加信息
+     */
+    public static BenchmarkReport of(String scenario, long[] samplesNanos, long wallNanos, Map<String, Object> attributes) {
+        long[] sorted = samplesNanos.clone();
+        Arrays.sort(sorted);
+        int n = sorted.length;
+        double ops = wallNanos > 0 ? n * 1_000_000_000.0 / wallNanos : 0.0;
+        return new BenchmarkReport(
+                scenario,
+                n,
+                percentileMs(sorted, 0.50),
+                percentileMs(sorted, 0.95),
+                percentileMs(sorted, 0.99),
+                n == 0 ? 0.0 : sorted[n - 1] / 1_000_000.0,
+                ops,
+                attributes == null ? Map.of() : new LinkedHashMap<>(attributes)
+        );
+    }
+
+    private static double percentileMs(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0.0;
+        }
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1_000_000.0;
+    }
+}
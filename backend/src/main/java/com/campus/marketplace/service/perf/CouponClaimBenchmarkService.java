@@ -0,0 +1,143 @@
+package com.campus.marketplace.service.perf;
+
+import com.campus.marketplace.common.component.CouponClaimEngine;
+import com.campus.marketplace.common.config.properties.CouponClaimProperties;
+import com.campus.marketplace.common.entity.Coupon;
+import com.campus.marketplace.common.utils.RedisScriptRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 优惠券领取引擎压测服务。
+ *
+ * <p>在独立键空间（perf:coupon:{uuid}:）中加载一张限领 1 张的合成券，多线程以"每个用户领两次"的方式发起领取，
+ * 统计成功数、超发数（成功数 - 库存）与 Stream 中的领取记录数，压测结束后清理全部键，不写数据库。</p>
+ */
+@Slf4j
+@Service
+@Profile("perf")
+public class CouponClaimBenchmarkService {
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final RedisScriptRegistry scriptRegistry;
+    private final MeterRegistry meterRegistry;
+
+    public CouponClaimBenchmarkService(@Qualifier("customStringRedisTemplate") RedisTemplate<String, String> redisTemplate,
+                                       RedisScriptRegistry scriptRegistry,
+                                       MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.scriptRegistry = scriptRegistry;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * 运行领取压测。
+     *
+     * @param threadCounts 并发线程数
+     * @param stock        券库存
+     * @param attempts     每轮领取请求总数
+     * @return 每个并发度一份报告
+     */
+    public List<BenchmarkReport> benchmarkClaim(List<Integer> threadCounts, int stock, int attempts) {
+        List<BenchmarkReport> reports = new ArrayList<>();
+        for (Integer threads : threadCounts.stream().sorted().toList()) {
+            reports.add(run(threads, stock, attempts));
+        }
+        return reports;
+    }
+
+    private BenchmarkReport run(int threads, int stock, int attempts) {
+        CouponClaimProperties properties = new CouponClaimProperties();
+        properties.setKeyPrefix("perf:coupon:" + UUID.randomUUID() + ":");
+        properties.setStreamKey(properties.getKeyPrefix() + "stream");
+        CouponClaimEngine engine = new CouponClaimEngine(redisTemplate, scriptRegistry, properties,
+                meterRegistry, "redis");
+
+        Coupon coupon = Coupon.builder()
+                .totalCount(stock)
+                .limitPerUser(1)
+                .startTime(LocalDateTime.now().minusMinutes(1))
+                .endTime(LocalDateTime.now().plusHours(1))
+                .isActive(true)
+                .build();
+        coupon.setId(1L);
+        engine.load(coupon, Map.of());
+
+        long[] samples = new long[attempts];
+        Map<CouponClaimEngine.Status, AtomicLong> outcomes = new EnumMap<>(CouponClaimEngine.Status.class);
+        for (CouponClaimEngine.Status status : CouponClaimEngine.Status.values()) {
+            outcomes.put(status, new AtomicLong());
+        }
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        long wall;
+        long streamRecords;
+        try {
+            List<Future<?>> futures = new ArrayList<>(threads);
+            for (int t = 0; t < threads; t++) {
+                int worker = t;
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    for (int i = worker; i < attempts; i += threads) {
+                        // 每个用户领取两次，第二次应命中限领
+                        long userId = i / 2;
+                        long begin = System.nanoTime();
+                        CouponClaimEngine.ClaimResult result = engine.claim(userId, coupon.getId());
+                        samples[i] = System.nanoTime() - begin;
+                        outcomes.get(result.status()).incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            long begin = System.nanoTime();
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            wall = System.nanoTime() - begin;
+            Long size = redisTemplate.opsForStream().size(properties.getStreamKey());
+            streamRecords = size == null ? 0 : size;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("优惠券领取压测被中断", e);
+        } catch (Exception e) {
+            throw new IllegalStateException("优惠券领取压测失败", e);
+        } finally {
+            pool.shutdownNow();
+            redisTemplate.delete(List.of(properties.getKeyPrefix() + coupon.getId(),
+                    properties.getKeyPrefix() + coupon.getId() + ":users",
+                    properties.getKeyPrefix() + "loaded",
+                    properties.getStreamKey()));
+        }
+
+        long claimed = outcomes.get(CouponClaimEngine.Status.CLAIMED).get();
+        long oversold = Math.max(0, claimed - stock);
+        log.info("优惠券领取压测完成: threads={}, attempts={}, claimed={}, oversold={}, streamRecords={}",
+                threads, attempts, claimed, oversold, streamRecords);
+        return BenchmarkReport.of("coupon-claim-engine", samples, wall, Map.of(
+                "threads", threads,
+                "stock", stock,
+                "attempts", attempts,
+                "claimed", claimed,
+                "oversold", oversold,
+                "streamRecords", streamRecords,
+                "limitRejected", outcomes.get(CouponClaimEngine.Status.LIMIT_REACHED).get(),
+                "soldOutRejected", outcomes.get(CouponClaimEngine.Status.SOLD_OUT).get()));
+    }
+}
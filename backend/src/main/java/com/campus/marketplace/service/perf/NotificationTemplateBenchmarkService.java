@@ -0,0 +1,134 @@
+package com.campus.marketplace.service.perf;
+
+import com.campus.marketplace.common.entity.NotificationTemplate;
+import com.campus.marketplace.common.enums.NotificationChannel;
+import com.campus.marketplace.repository.NotificationTemplateRepository;
+import com.campus.marketplace.service.NotificationTemplateService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.MessageSource;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.stream.Collectors;
+
+/**
+ * 通知模板渲染微基准服务。
+ *
+ * <p>在订单类模板（中英文）上单线程轮流渲染，对比三种路径的单次耗时：旧实现（每次查库、解析两个 MessageSource 键、
+ * 拆分渠道 CSV、按参数逐个 String.replace）、去掉查库后的旧渲染、以及编译缓存后的单次遍历渲染。
+ * 正式计时前先预热十分之一的轮次。</p>
+ */
+@Slf4j
+@Service
+@Profile("perf")
+public class NotificationTemplateBenchmarkService {
+
+    private static final List<String> ORDER_TEMPLATES = List.of(
+            "ORDER_CREATED", "ORDER_PAID", "ORDER_CANCELLED",
+            "ORDER_CREATED_LOCKED_BUYER", "ORDER_CREATED_LOCKED_SELLER",
+            "ORDER_PAID_SELLER_SHIP", "ORDER_PAID_BUYER_RECEIVE");
+
+    private static final List<Locale> LOCALES = List.of(Locale.SIMPLIFIED_CHINESE, Locale.US);
+
+    private static final Map<String, Object> PARAMS = Map.of(
+            "orderNo", "ORD202610161200000001",
+            "goodsTitle", "九成新 iPad Air 5 64G 蓝色",
+            "price", "2999.00",
+            "expireMinutes", 15,
+            "deliverHint", "请在 48 小时内发货并上传物流单号");
+
+    private final NotificationTemplateService templateService;
+    private final NotificationTemplateRepository repository;
+    private final MessageSource messageSource;
+
+    public NotificationTemplateBenchmarkService(NotificationTemplateService templateService,
+                                                NotificationTemplateRepository repository,
+                                                MessageSource messageSource) {
+        this.templateService = templateService;
+        this.repository = repository;
+        this.messageSource = messageSource;
+    }
+
+    /**
+     * 运行模板渲染基准。
+     *
+     * @param iterations 每种路径的渲染次数
+     * @return 三种路径各一份报告
+     */
+    public List<BenchmarkReport> benchmarkRender(int iterations) {
+        Map<String, NotificationTemplate> templates = ORDER_TEMPLATES.stream()
+                .flatMap(code -> repository.findByCode(code).stream())
+                .collect(Collectors.toMap(NotificationTemplate::getCode, tpl -> tpl));
+        if (templates.isEmpty()) {
+            throw new IllegalStateException("订单通知模板未初始化，请开启 app.init.seed");
+        }
+        List<String> codes = ORDER_TEMPLATES.stream().filter(templates::containsKey).toList();
+
+        List<BenchmarkReport> reports = new ArrayList<>();
+        reports.add(run("template-render-legacy", codes, iterations,
+                (code, locale) -> legacyRender(repository.findByCode(code).orElseThrow(), locale)));
+        reports.add(run("template-render-legacy-no-lookup", codes, iterations,
+                (code, locale) -> legacyRender(templates.get(code), locale)));
+        templateService.invalidate();
+        reports.add(run("template-render-compiled", codes, iterations,
+                (code, locale) -> templateService.render(code, locale, PARAMS)));
+        return reports;
+    }
+
+    private BenchmarkReport run(String scenario, List<String> codes, int iterations,
+                                BiFunction<String, Locale, NotificationTemplateService.Rendered> renderer) {
+        int combos = codes.size() * LOCALES.size();
+        long checksum = 0;
+        for (int i = 0; i < Math.max(1, iterations / 10); i++) {
+            checksum += render(renderer, codes, i, combos);
+        }
+        long[] samples = new long[iterations];
+        long wallStart = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            long begin = System.nanoTime();
+            checksum += render(renderer, codes, i, combos);
+            samples[i] = System.nanoTime() - begin;
+        }
+        long wall = System.nanoTime() - wallStart;
+        log.info("模板渲染基准完成: scenario={}, iterations={}, checksum={}", scenario, iterations, checksum);
+        return BenchmarkReport.of(scenario, samples, wall,
+                Map.of("templates", codes.size(), "locales", LOCALES.size(), "outputChars", checksum));
+    }
+
+    private static int render(BiFunction<String, Locale, NotificationTemplateService.Rendered> renderer,
+                              List<String> codes, int i, int combos) {
+        int combo = i % combos;
+        NotificationTemplateService.Rendered rendered = renderer.apply(codes.get(combo / LOCALES.size()),
+                LOCALES.get(combo % LOCALES.size()));
+        return rendered.title().length() + rendered.content().length() + rendered.channels().size();
+    }
+
+    /**
+     * 编译缓存之前的渲染实现，仅用于对比
+     */
+    private NotificationTemplateService.Rendered legacyRender(NotificationTemplate tpl, Locale locale) {
+        String title = legacyReplace(messageSource.getMessage(tpl.getTitleKey(), null, locale));
+        String content = legacyReplace(messageSource.getMessage(tpl.getContentKey(), null, locale));
+        Set<NotificationChannel> channels = Arrays.stream(tpl.getChannels().split(","))
+                .map(String::trim)
+                .filter(s -> !s.isEmpty())
+                .map(NotificationChannel::valueOf)
+                .collect(Collectors.toSet());
+        return new NotificationTemplateService.Rendered(title, content, channels);
+    }
+
+    private static String legacyReplace(String pattern) {
+        String rendered = pattern;
+        for (Map.Entry<String, Object> e : PARAMS.entrySet()) {
+            rendered = rendered.replace("{" + e.getKey() + "}", String.valueOf(e.getValue()));
+        }
+        return rendered;
+    }
+}
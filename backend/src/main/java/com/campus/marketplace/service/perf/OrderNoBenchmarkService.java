@@ -0,0 +1,90 @@
+package com.campus.marketplace.service.perf;
+
+import com.campus.marketplace.common.utils.OrderNoSequence;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+/**
+ * 订单号生成基准测试服务。
+ *
+ * <p>对比旧实现（每次按 yyyyMMddHHmmssSSS 新建格式化器）与无锁序列实现在多线程下的单次耗时、
+ * 吞吐与重复数；纯内存计算，不访问数据库与 Redis。</p>
+ */
+@Slf4j
+@Service
+@Profile("perf")
+public class OrderNoBenchmarkService {
+
+    /**
+     * 运行订单号生成基准。
+     *
+     * @param threadCounts 并发线程数
+     * @param perThread    每个线程生成的订单号数量
+     * @return 每个并发度下两种实现的报告
+     */
+    public List<BenchmarkReport> benchmarkOrderNo(List<Integer> threadCounts, int perThread) {
+        List<BenchmarkReport> reports = new ArrayList<>();
+        for (Integer threads : threadCounts.stream().sorted().toList()) {
+            reports.add(run("orderno-legacy-formatter", threads, perThread, () -> "ORD" + LocalDateTime.now()
+                    .format(DateTimeFormatter.ofPattern("yyyyMMddHHmmssSSS"))));
+            OrderNoSequence sequence = new OrderNoSequence();
+            reports.add(run("orderno-cas-sequence", threads, perThread, () -> sequence.next(1)));
+        }
+        return reports;
+    }
+
+    private BenchmarkReport run(String scenario, int threads, int perThread, Supplier<String> generator) {
+        long[] samples = new long[threads * perThread];
+        Set<String> seen = ConcurrentHashMap.newKeySet(samples.length);
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        long wall;
+        try {
+            List<Future<?>> futures = new ArrayList<>(threads);
+            for (int t = 0; t < threads; t++) {
+                int offset = t * perThread;
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < perThread; i++) {
+                        long begin = System.nanoTime();
+                        String orderNo = generator.get();
+                        samples[offset + i] = System.nanoTime() - begin;
+                        seen.add(orderNo);
+                    }
+                    return null;
+                }));
+            }
+            long begin = System.nanoTime();
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            wall = System.nanoTime() - begin;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("订单号基准测试被中断", e);
+        } catch (Exception e) {
+            throw new IllegalStateException("订单号基准测试失败", e);
+        } finally {
+            pool.shutdownNow();
+        }
+        int duplicates = samples.length - seen.size();
+        log.info("订单号基准完成: scenario={}, threads={}, duplicates={}", scenario, threads, duplicates);
+        return BenchmarkReport.of(scenario, samples, wall,
+                Map.of("threads", threads, "perThread", perThread, "duplicates", duplicates));
+    }
+}
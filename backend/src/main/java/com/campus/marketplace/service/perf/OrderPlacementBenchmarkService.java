@@ -0,0 +1,120 @@
+package com.campus.marketplace.service.perf;
+
+import com.campus.marketplace.common.utils.RedisUtil;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 下单抢购争用基准测试服务。
+ *
+ * <p>模拟数百买家同时抢购同一商品：行锁方案中每个买家都要排队进入持锁临界区（持锁时长模拟下单事务耗时），
+ * 乐观方案中买家先经 Redis SET NX 抢占，只有胜者执行下单事务，败者立即返回。
+ * 报告每个买家从发起到得到结果的耗时分布。</p>
+ */
+@Slf4j
+@Service
+@Profile("perf")
+@RequiredArgsConstructor
+public class OrderPlacementBenchmarkService {
+
+    private final RedisUtil redisUtil;
+
+    /**
+     * 运行下单争用基准。
+     *
+     * @param buyerCounts 并发买家数
+     * @param holdMillis  模拟下单事务耗时（毫秒）
+     * @return 每个并发规模下两种方案的报告
+     */
+    public List<BenchmarkReport> benchmarkContention(List<Integer> buyerCounts, int holdMillis) {
+        List<BenchmarkReport> reports = new ArrayList<>();
+        for (Integer buyers : buyerCounts.stream().sorted().toList()) {
+            ReentrantLock rowLock = new ReentrantLock(true);
+            AtomicBoolean sold = new AtomicBoolean();
+            reports.add(run("placement-row-lock", buyers, holdMillis, () -> {
+                rowLock.lock();
+                try {
+                    sleep(holdMillis);
+                    return sold.compareAndSet(false, true);
+                } finally {
+                    rowLock.unlock();
+                }
+            }));
+
+            String key = "perf:goods:reserve:" + UUID.randomUUID();
+            reports.add(run("placement-redis-gate", buyers, holdMillis, () -> {
+                if (!Boolean.TRUE.equals(redisUtil.setIfAbsent(key, "1", 1, TimeUnit.MINUTES))) {
+                    return false;
+                }
+                sleep(holdMillis);
+                return true;
+            }));
+            redisUtil.delete(key);
+        }
+        return reports;
+    }
+
+    private BenchmarkReport run(String scenario, int buyers, int holdMillis, Attempt attempt) {
+        long[] samples = new long[buyers];
+        AtomicInteger winners = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        long wall;
+        try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> futures = new ArrayList<>(buyers);
+            for (int i = 0; i < buyers; i++) {
+                int index = i;
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    long begin = System.nanoTime();
+                    if (attempt.tryPlace()) {
+                        winners.incrementAndGet();
+                    }
+                    samples[index] = System.nanoTime() - begin;
+                    return null;
+                }));
+            }
+            long begin = System.nanoTime();
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            wall = System.nanoTime() - begin;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("下单争用基准测试被中断", e);
+        } catch (Exception e) {
+            throw new IllegalStateException("下单争用基准测试失败", e);
+        }
+        log.info("下单争用基准完成: scenario={}, buyers={}, winners={}", scenario, buyers, winners.get());
+        return BenchmarkReport.of(scenario, samples, wall,
+                Map.of("buyers", buyers, "holdMillis", holdMillis, "winners", winners.get()));
+    }
+
+    private static void sleep(int millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @FunctionalInterface
+    private interface Attempt {
+        boolean tryPlace();
+    }
+}
@@ -48,6 +48,9 @@ public class PerfSeedService {
 
     private static final BigDecimal DEFAULT_PRICE = new BigDecimal("199.99");
 
+    private static final String SEARCH_GOODS_TITLE_PREFIX = "性能检索商品 ";
+    private static final int SEARCH_SEED_CHUNK = 50_000;
+
     /**
      * 清理之前压测生成的数据（以 PERF- 前缀标识）。
      *
@@ -141,4 +144,62 @@ public class PerfSeedService {
         log.info("性能环境已生成超时订单数据: orders={}", orderBatch.size());
         return orderBatch.size();
     }
+
+    /**
+     * 将检索压测商品补齐到目标行数（已上架、带 FTS 关键词），用于验证检索延迟随数据规模的变化。
+     *
+     * @param targetRows 目标行数
+     * @return 本次新增的行数
+     */
+    @Transactional
+    public int seedSearchGoods(int targetRows) {
+        Long existing = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM t_goods WHERE title LIKE '" + SEARCH_GOODS_TITLE_PREFIX + "%'", Long.class);
+        long current = existing != null ? existing : 0L;
+        if (targetRows <= current) {
+            return 0;
+        }
+
+        User seller = userRepository.findByUsername(DEFAULT_SELLER_USERNAME)
+                .orElseThrow(() -> new BusinessException(ErrorCode.USER_NOT_FOUND, "性能压测卖家账号缺失: " + DEFAULT_SELLER_USERNAME));
+        Category category = categoryRepository.findAll().stream()
+                .findFirst()
+                .orElseThrow(() -> new BusinessException(ErrorCode.CATEGORY_NOT_FOUND, "性能压测缺少基础分类数据"));
+
+        int inserted = 0;
+        for (long from = current + 1; from <= targetRows; from += SEARCH_SEED_CHUNK) {
+            long to = Math.min(targetRows, from + SEARCH_SEED_CHUNK - 1);
+            inserted += jdbcTemplate.update(
+                    "INSERT INTO t_goods (title, description, price, category_id, seller_id, campus_id, status, " +
+                    "view_count, favorite_count, stock, sold_count, deleted, created_at, updated_at) " +
+                    "SELECT ? || gs, '性能检索数据集 ' || (ARRAY['耳机','教材','自行车','台灯','显示器'])[1 + gs % 5], " +
+                    "(1 + gs % 5000)::numeric(10,2), ?, ?, ?, 'APPROVED', 0, 0, 1, 0, false, " +
+                    "now() - make_interval(secs => gs), now() FROM generate_series(?::bigint, ?::bigint) gs",
+                    SEARCH_GOODS_TITLE_PREFIX, category.getId(), seller.getId(), seller.getCampusId(), from, to);
+        }
+
+        try {
+            // search_vector 若为触发器/生成列维护则此处会跳过
+            jdbcTemplate.update("UPDATE t_goods SET search_vector = to_tsvector('chinese', title || ' ' || description) " +
+                    "WHERE title LIKE '" + SEARCH_GOODS_TITLE_PREFIX + "%' AND search_vector IS NULL");
+        } catch (Exception ex) {
+            log.debug("检索压测数据 search_vector 回填跳过: {}", ex.getMessage());
+        }
+        jdbcTemplate.execute("ANALYZE t_goods");
+
+        log.info("性能环境已补齐检索商品数据: target={}, inserted={}", targetRows, inserted);
+        return inserted;
+    }
+
+    /**
+     * 清理检索压测商品。
+     *
+     * @return 被删除的记录数
+     */
+    @Transactional
+    public int clearSearchFixtures() {
+        int rows = jdbcTemplate.update("DELETE FROM t_goods WHERE title LIKE '" + SEARCH_GOODS_TITLE_PREFIX + "%'");
+        log.info("检索压测商品清理完成: goods={}", rows);
+        return rows;
+    }
 }
@@ -0,0 +1,158 @@
+package com.campus.marketplace.service.perf;
+
+import com.campus.marketplace.common.component.RateLimitLeasePool;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongFunction;
+
+/**
+ * 限流算法对比压测服务。
+ *
+ * <p>按固定速率（默认 10k 次/秒）分别调用挂载了滑动窗口、令牌桶、滑动窗口计数器的空方法，
+ * 请求按计划发送时刻排布，延迟从计划时刻起算（避免协调遗漏）；每种算法结束后用 MEMORY USAGE
+ * 统计该限流键占用的 Redis 内存并清理键。滑动窗口是否经过本地租约层以 localTier 属性标注。</p>
+ */
+@Slf4j
+@Service
+@Profile("perf")
+public class RateLimitBenchmarkService {
+
+    private static final String KEY_PREFIX = "rate_limit:GLOBAL:";
+    private static final long WINDOW_MS = 1000;
+
+    private final RateLimitBenchmarkTarget target;
+    private final StringRedisTemplate redisTemplate;
+    private final RateLimitLeasePool leasePool;
+
+    public RateLimitBenchmarkService(RateLimitBenchmarkTarget target,
+                                     StringRedisTemplate redisTemplate,
+                                     RateLimitLeasePool leasePool) {
+        this.target = target;
+        this.redisTemplate = redisTemplate;
+        this.leasePool = leasePool;
+    }
+
+    /**
+     * 依次压测三种限流算法。
+     *
+     * @param targetRps       目标速率（次/秒）
+     * @param durationSeconds 每种算法的压测时长（秒）
+     * @param threads         发送线程数
+     * @return 每种算法一份报告
+     */
+    public List<BenchmarkReport> benchmarkAlgorithms(int targetRps, int durationSeconds, int threads) {
+        List<BenchmarkReport> reports = new ArrayList<>();
+        reports.add(run("sliding-window", target::slidingWindow, targetRps, durationSeconds, threads,
+                windowStart -> List.of(KEY_PREFIX + "perf:sliding-window")));
+        reports.add(run("token-bucket", target::tokenBucket, targetRps, durationSeconds, threads,
+                windowStart -> List.of(KEY_PREFIX + "perf:token-bucket:tb")));
+        reports.add(run("sliding-window-counter", target::slidingWindowCounter, targetRps, durationSeconds, threads,
+                windowStart -> counterKeys(windowStart)));
+        return reports;
+    }
+
+    private BenchmarkReport run(String algorithm, Runnable call, int targetRps, int durationSeconds, int threads,
+                                LongFunction<List<String>> keysAt) {
+        int total = targetRps * durationSeconds;
+        long intervalNanos = 1_000_000_000L / targetRps;
+        long[] samples = new long[total];
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        long startMs = System.currentTimeMillis();
+        long wall;
+        long memoryBytes;
+        List<String> liveKeys;
+        try {
+            long[] begin = new long[1];
+            List<Future<?>> futures = new ArrayList<>(threads);
+            for (int t = 0; t < threads; t++) {
+                int worker = t;
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    for (int i = worker; i < total; i += threads) {
+                        long scheduled = begin[0] + i * intervalNanos;
+                        long wait = scheduled - System.nanoTime();
+                        if (wait > 0) {
+                            LockSupport.parkNanos(wait);
+                        }
+                        call.run();
+                        samples[i] = System.nanoTime() - scheduled;
+                    }
+                    return null;
+                }));
+            }
+            begin[0] = System.nanoTime();
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            wall = System.nanoTime() - begin[0];
+            liveKeys = keysAt.apply(System.currentTimeMillis());
+            memoryBytes = memoryUsage(liveKeys);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("限流算法压测被中断", e);
+        } catch (Exception e) {
+            throw new IllegalStateException("限流算法压测失败: " + algorithm, e);
+        } finally {
+            pool.shutdownNow();
+            cleanup(keysAt, startMs);
+        }
+
+        Map<String, Object> attributes = new LinkedHashMap<>();
+        attributes.put("algorithm", algorithm);
+        attributes.put("targetRps", targetRps);
+        attributes.put("durationSeconds", durationSeconds);
+        attributes.put("threads", threads);
+        attributes.put("keys", liveKeys.size());
+        attributes.put("memoryBytesPerLimitKey", memoryBytes);
+        if ("sliding-window".equals(algorithm)) {
+            attributes.put("localTier", leasePool.isEnabled());
+        }
+        log.info("限流算法压测完成: algorithm={}, requests={}, memoryBytes={}", algorithm, total, memoryBytes);
+        return BenchmarkReport.of("rate-limit-" + algorithm, samples, wall, attributes);
+    }
+
+    private static List<String> counterKeys(long nowMs) {
+        long index = nowMs / WINDOW_MS;
+        String base = KEY_PREFIX + "perf:sliding-window-counter:swc:";
+        return List.of(base + index, base + (index - 1));
+    }
+
+    private long memoryUsage(List<String> keys) {
+        Long bytes = redisTemplate.execute((RedisCallback<Long>) connection -> {
+            long sum = 0;
+            for (String key : keys) {
+                Object usage = connection.execute("MEMORY",
+                        "USAGE".getBytes(StandardCharsets.UTF_8), key.getBytes(StandardCharsets.UTF_8));
+                if (usage instanceof Number number) {
+                    sum += number.longValue();
+                }
+            }
+            return sum;
+        });
+        return bytes == null ? 0 : bytes;
+    }
+
+    private void cleanup(LongFunction<List<String>> keysAt, long startMs) {
+        List<String> keys = new ArrayList<>();
+        for (long ms = startMs; ms <= System.currentTimeMillis() + WINDOW_MS; ms += WINDOW_MS) {
+            keys.addAll(keysAt.apply(ms));
+        }
+        redisTemplate.delete(keys.stream().distinct().toList());
+    }
+}
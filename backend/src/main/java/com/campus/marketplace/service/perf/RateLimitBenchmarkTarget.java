@@ -0,0 +1,33 @@
+package com.campus.marketplace.service.perf;
+
+import com.campus.marketplace.common.annotation.RateLimit;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+/**
+ * 限流算法压测目标。
+ *
+ * <p>三个空方法分别挂载三种限流算法（全局键、1 秒窗口、阈值足够大不会触发拒绝），
+ * 由 {@link RateLimitBenchmarkService} 通过 Spring 代理调用，使每次调用完整经过 RateLimitAspect。</p>
+ */
+@Component
+@Profile("perf")
+public class RateLimitBenchmarkTarget {
+
+    static final int MAX_REQUESTS = 10_000_000;
+
+    @RateLimit(key = "perf:sliding-window", limitType = RateLimit.LimitType.GLOBAL, maxRequests = MAX_REQUESTS,
+            timeWindow = 1, algorithm = RateLimit.Algorithm.SLIDING_WINDOW)
+    public void slidingWindow() {
+    }
+
+    @RateLimit(key = "perf:token-bucket", limitType = RateLimit.LimitType.GLOBAL, maxRequests = MAX_REQUESTS,
+            timeWindow = 1, algorithm = RateLimit.Algorithm.TOKEN_BUCKET)
+    public void tokenBucket() {
+    }
+
+    @RateLimit(key = "perf:sliding-window-counter", limitType = RateLimit.LimitType.GLOBAL,
+            maxRequests = MAX_REQUESTS, timeWindow = 1, algorithm = RateLimit.Algorithm.SLIDING_WINDOW_COUNTER)
+    public void slidingWindowCounter() {
+    }
+}
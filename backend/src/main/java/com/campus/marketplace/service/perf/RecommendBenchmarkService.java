@@ -0,0 +1,113 @@
+package com.campus.marketplace.service.perf;
+
+import com.campus.marketplace.common.config.RecommendConfigProperties;
+import com.campus.marketplace.common.enums.BehaviorType;
+import com.campus.marketplace.recommend.SparseRatingMatrix;
+import com.campus.marketplace.recommend.UserSimilarityEngine;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * 推荐计算基准测试服务。
+ *
+ * <p>不依赖数据库：按固定种子生成合成行为数据（每个用户 5~35 次交互、商品数为用户数一半、
+ * 商品热度呈长尾分布），分别测量稀疏矩阵构建与 Top-K 相似度计算的耗时，
+ * 用于评估协同过滤离线任务在 1万 / 5万 / 20万 活跃用户下的表现。</p>
+ */
+@Slf4j
+@Service
+@Profile("perf")
+@RequiredArgsConstructor
+public class RecommendBenchmarkService {
+
+    private static final long SEED = 20261016L;
+    private static final int MIN_INTERACTIONS = 5;
+    private static final int MAX_INTERACTIONS = 35;
+
+    private final RecommendConfigProperties recommendConfigProperties;
+
+    /**
+     * 运行用户相似度计算基准。
+     *
+     * @param userCounts 活跃用户规模
+     * @param iterations 每个规模的测量次数
+     * @return 每个规模的矩阵构建与 Top-K 计算报告
+     */
+    public List<BenchmarkReport> benchmarkUserSimilarity(List<Integer> userCounts, int iterations) {
+        RecommendConfigProperties.CfConfig cf = recommendConfigProperties.getCf();
+        UserSimilarityEngine.Options options =
+                new UserSimilarityEngine.Options(cf.getTopK(), cf.getMinSimilarity(), cf.getMaxItemUsers());
+        int parallelism = cf.getParallelism() > 0 ? cf.getParallelism() : Runtime.getRuntime().availableProcessors();
+
+        List<BenchmarkReport> reports = new ArrayList<>();
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            for (Integer users : userCounts.stream().sorted().toList()) {
+                long[] buildSamples = new long[iterations];
+                long[] computeSamples = new long[iterations];
+                SparseRatingMatrix matrix = null;
+                long pairs = 0;
+                for (int i = 0; i < iterations; i++) {
+                    long start = System.nanoTime();
+                    matrix = synthesize(users).build();
+                    buildSamples[i] = System.nanoTime() - start;
+
+                    start = System.nanoTime();
+                    UserSimilarityEngine.Neighbors[] neighbors = UserSimilarityEngine.computeTopK(matrix, options, pool);
+                    computeSamples[i] = System.nanoTime() - start;
+                    pairs = 0;
+                    for (UserSimilarityEngine.Neighbors list : neighbors) {
+                        pairs += list.size();
+                    }
+                }
+                Map<String, Object> attributes = Map.of(
+                        "users", matrix.userCount(),
+                        "items", matrix.itemCount(),
+                        "nonZeros", matrix.nonZeros(),
+                        "pairs", pairs,
+                        "parallelism", parallelism);
+                reports.add(BenchmarkReport.of("cf-matrix-build", buildSamples, sum(buildSamples), attributes));
+                reports.add(BenchmarkReport.of("cf-topk", computeSamples, sum(computeSamples), attributes));
+                log.info("用户相似度基准完成: users={}, nnz={}, pairs={}", users, matrix.nonZeros(), pairs);
+            }
+        } finally {
+            pool.shutdown();
+        }
+        return reports;
+    }
+
+    /**
+     * 生成合成行为数据，热度按 r³ 向低编号商品倾斜以模拟长尾
+     */
+    private SparseRatingMatrix.Builder synthesize(int users) {
+        SplittableRandom random = new SplittableRandom(SEED);
+        BehaviorType[] types = BehaviorType.values();
+        int items = Math.max(1, users / 2);
+        SparseRatingMatrix.Builder builder = SparseRatingMatrix.builder();
+        for (long user = 1; user <= users; user++) {
+            int interactions = random.nextInt(MIN_INTERACTIONS, MAX_INTERACTIONS + 1);
+            for (int k = 0; k < interactions; k++) {
+                double r = random.nextDouble();
+                long item = (long) (r * r * r * items);
+                builder.add(user, item, types[random.nextInt(types.length)].getWeight());
+            }
+        }
+        return builder;
+    }
+
+    private static long sum(long[] samples) {
+        long total = 0;
+        for (long sample : samples) {
+            total += sample;
+        }
+        return total;
+    }
+}
@@ -0,0 +1,114 @@
+package com.campus.marketplace.service.perf;
+
+import com.campus.marketplace.common.dto.SearchFilterDTO;
+import com.campus.marketplace.common.dto.response.GoodsResponse;
+import com.campus.marketplace.service.SearchService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * 商品检索基准测试服务。
+ *
+ * <p>逐级把检索数据集补齐到指定规模（如 1万 → 100万），在每个规模下分别测量
+ * 关键词首页、价格+排序筛选、keyset 深翻页三种场景的延迟分布，用于验证检索下推后延迟不随表规模线性增长。</p>
+ */
+@Slf4j
+@Service
+@Profile("perf")
+@RequiredArgsConstructor
+public class SearchBenchmarkService {
+
+    private static final int WARMUP_ITERATIONS = 20;
+    private static final int PAGE_SIZE = 20;
+    private static final int KEYSET_DEPTH = 50;
+
+    private final PerfSeedService perfSeedService;
+    private final SearchService searchService;
+
+    /**
+     * 运行商品检索规模化基准测试。
+     *
+     * @param tableSizes 数据规模（升序）
+     * @param iterations 每个场景的测量次数
+     * @return 每个规模、每个场景的延迟报告
+     */
+    public List<BenchmarkReport> benchmarkGoodsSearch(List<Integer> tableSizes, int iterations) {
+        List<BenchmarkReport> reports = new ArrayList<>();
+        for (Integer size : tableSizes.stream().sorted().toList()) {
+            perfSeedService.seedSearchGoods(size);
+            Map<String, Object> attributes = Map.of("rows", size, "pageSize", PAGE_SIZE);
+
+            SearchFilterDTO byPrice = SearchFilterDTO.builder()
+                    .minPrice(new BigDecimal("100"))
+                    .maxPrice(new BigDecimal("3000"))
+                    .sortBy("price")
+                    .sortDirection("ASC")
+                    .build();
+
+            reports.add(measure("keyword-first-page", iterations, attributes,
+                    () -> searchService.searchGoods("耳机", new SearchFilterDTO(), PageRequest.of(0, PAGE_SIZE), null)));
+            reports.add(measure("price-range-sorted", iterations, attributes,
+                    () -> searchService.searchGoods(null, byPrice, PageRequest.of(0, PAGE_SIZE), null)));
+
+            Long deepCursor = walkKeyset(byPrice);
+            SearchFilterDTO deepPage = SearchFilterDTO.builder()
+                    .minPrice(byPrice.getMinPrice())
+                    .maxPrice(byPrice.getMaxPrice())
+                    .sortBy(byPrice.getSortBy())
+                    .sortDirection(byPrice.getSortDirection())
+                    .lastId(deepCursor)
+                    .build();
+            reports.add(measure("keyset-deep-page", iterations, attributes,
+                    () -> searchService.searchGoods(null, deepPage, PageRequest.of(0, PAGE_SIZE), null)));
+
+            log.info("商品检索基准完成: rows={}", size);
+        }
+        return reports;
+    }
+
+    /**
+     * 沿 keyset 游标向后翻 {@link #KEYSET_DEPTH} 页，返回深页游标。
+     */
+    private Long walkKeyset(SearchFilterDTO base) {
+        Long cursor = null;
+        for (int i = 0; i < KEYSET_DEPTH; i++) {
+            SearchFilterDTO filter = SearchFilterDTO.builder()
+                    .minPrice(base.getMinPrice())
+                    .maxPrice(base.getMaxPrice())
+                    .sortBy(base.getSortBy())
+                    .sortDirection(base.getSortDirection())
+                    .lastId(cursor)
+                    .build();
+            Page<GoodsResponse> page = searchService.searchGoods(null, filter, PageRequest.of(0, PAGE_SIZE), null);
+            if (page.getContent().isEmpty()) {
+                break;
+            }
+            cursor = page.getContent().get(page.getContent().size() - 1).getId();
+        }
+        return cursor;
+    }
+
+    private BenchmarkReport measure(String scenario, int iterations, Map<String, Object> attributes, Supplier<?> call) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            call.get();
+        }
+        long[] samples = new long[iterations];
+        long wallStart = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            call.get();
+            samples[i] = System.nanoTime() - start;
+        }
+        return BenchmarkReport.of(scenario, samples, System.nanoTime() - wallStart, attributes);
+    }
+}
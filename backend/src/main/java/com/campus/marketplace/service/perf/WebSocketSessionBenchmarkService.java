@@ -0,0 +1,212 @@
+package com.campus.marketplace.service.perf;
+
+import com.campus.marketplace.websocket.UserSessionRegistry;
+import com.campus.marketplace.websocket.WebSocketOutbound;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Service;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketExtension;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.security.Principal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * WebSocket 会话注册表内存与延迟基准服务。
+ *
+ * <p>预先创建桩会话（不计入内存），再按每用户 devicesPerUser 个设备把 connections 个连接包装出站队列后登记到
+ * {@link UserSessionRegistry}，前后各做一次 Full GC 取堆占用差值，得到每连接的常驻字节数（注册表条目 + 出站队列包装）。
+ * 同时记录登记、按用户查询会话、逐个注销的单次耗时，以及首个/最后一个会话触发的在线状态写入次数。</p>
+ */
+@Slf4j
+@Service
+@Profile("perf")
+public class WebSocketSessionBenchmarkService {
+
+    private final WebSocketOutbound outbound;
+
+    public WebSocketSessionBenchmarkService(WebSocketOutbound outbound) {
+        this.outbound = outbound;
+    }
+
+    /**
+     * 运行会话注册表基准。
+     *
+     * @param connections    连接总数
+     * @param devicesPerUser 每个用户的设备数
+     * @return 登记、查询、注销三份报告
+     */
+    public List<BenchmarkReport> benchmarkRegistry(int connections, int devicesPerUser) {
+        int devices = Math.max(1, devicesPerUser);
+        int users = Math.max(1, connections / devices);
+        int total = users * devices;
+        StubSession[] stubs = new StubSession[total];
+        for (int i = 0; i < total; i++) {
+            stubs[i] = new StubSession(Integer.toHexString(i));
+        }
+        long[] registerSamples = new long[total];
+        long[] lookupSamples = new long[users];
+        long[] unregisterSamples = new long[total];
+        AtomicLong onlineWrites = new AtomicLong();
+        AtomicLong offlineWrites = new AtomicLong();
+        UserSessionRegistry registry = new UserSessionRegistry(devices);
+
+        long baseline = usedHeap();
+        long wallStart = System.nanoTime();
+        for (int i = 0; i < total; i++) {
+            long begin = System.nanoTime();
+            registry.add(i / devices + 1, outbound.wrap(stubs[i]), id -> onlineWrites.incrementAndGet());
+            registerSamples[i] = System.nanoTime() - begin;
+        }
+        long registerWall = System.nanoTime() - wallStart;
+        long heapBytes = Math.max(0, usedHeap() - baseline);
+
+        List<BenchmarkReport> reports = new ArrayList<>();
+        reports.add(BenchmarkReport.of("ws-registry-register", registerSamples, registerWall, Map.of(
+                "connections", total,
+                "users", users,
+                "devicesPerUser", devices,
+                "heapBytes", heapBytes,
+                "bytesPerConnection", heapBytes / total,
+                "onlineWrites", onlineWrites.get())));
+
+        long checksum = 0;
+        wallStart = System.nanoTime();
+        for (int i = 0; i < users; i++) {
+            long begin = System.nanoTime();
+            checksum += registry.get(i + 1).length;
+            lookupSamples[i] = System.nanoTime() - begin;
+        }
+        reports.add(BenchmarkReport.of("ws-registry-lookup", lookupSamples, System.nanoTime() - wallStart,
+                Map.of("users", users, "sessionsFound", checksum)));
+
+        wallStart = System.nanoTime();
+        for (int i = 0; i < total; i++) {
+            long begin = System.nanoTime();
+            registry.remove(stubs[i].getId(), id -> offlineWrites.incrementAndGet());
+            unregisterSamples[i] = System.nanoTime() - begin;
+        }
+        reports.add(BenchmarkReport.of("ws-registry-unregister", unregisterSamples, System.nanoTime() - wallStart,
+                Map.of("connections", total, "offlineWrites", offlineWrites.get(), "remaining", registry.sessionCount())));
+
+        log.info("会话注册表基准完成: connections={}, users={}, bytesPerConnection={}, onlineWrites={}, offlineWrites={}",
+                total, users, heapBytes / total, onlineWrites.get(), offlineWrites.get());
+        return reports;
+    }
+
+    private static long usedHeap() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+    /**
+     * 只带 ID 的桩会话，不占用网络资源
+     */
+    private static final class StubSession implements WebSocketSession {
+
+        private final String id;
+
+        private StubSession(String id) {
+            this.id = id;
+        }
+
+        @Override
+        public String getId() {
+            return id;
+        }
+
+        @Override
+        public URI getUri() {
+            return null;
+        }
+
+        @Override
+        public HttpHeaders getHandshakeHeaders() {
+            return HttpHeaders.EMPTY;
+        }
+
+        @Override
+        public Map<String, Object> getAttributes() {
+            return Map.of();
+        }
+
+        @Override
+        public Principal getPrincipal() {
+            return null;
+        }
+
+        @Override
+        public InetSocketAddress getLocalAddress() {
+            return null;
+        }
+
+        @Override
+        public InetSocketAddress getRemoteAddress() {
+            return null;
+        }
+
+        @Override
+        public String getAcceptedProtocol() {
+            return null;
+        }
+
+        @Override
+        public void setTextMessageSizeLimit(int messageSizeLimit) {
+        }
+
+        @Override
+        public int getTextMessageSizeLimit() {
+            return 0;
+        }
+
+        @Override
+        public void setBinaryMessageSizeLimit(int messageSizeLimit) {
+        }
+
+        @Override
+        public int getBinaryMessageSizeLimit() {
+            return 0;
+        }
+
+        @Override
+        public List<WebSocketExtension> getExtensions() {
+            return List.of();
+        }
+
+        @Override
+        public void sendMessage(WebSocketMessage<?> message) {
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public void close(CloseStatus status) {
+        }
+    }
+}
@@ -1,6 +1,5 @@
 package com.campus.marketplace.websocket;
 
-import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Component;
 
 /**
@@ -21,10 +20,16 @@ import org.springframework.stereotype.Component;
 @Component
 public class DisputeSessionManager extends WebSocketSessionManager {
 
-    public DisputeSessionManager(RedisTemplate<String, Object> redisTemplate) {
-        super(redisTemplate);
+    public DisputeSessionManager(WebSocketClusterRouter clusterRouter,
+                                 WebSocketOutbound outbound) {
+        super(clusterRouter, outbound);
     }
 
-    // 继承父类所有功能，无需额外实现
+    @Override
+    public String endpoint() {
+        return "dispute";
+    }
+
+    // 其余功能继承父类
     // 如果未来需要纠纷端点特有的逻辑，可以在这里扩展
 }
@@ -37,6 +37,7 @@ public class DisputeWebSocketHandler extends TextWebSocketHandler {
 
     private final DisputeSessionManager sessionManager;
     private final ObjectMapper objectMapper;
+    private final WebSocketClusterRouter clusterRouter;
 
     /**
      * Called after WebSocket connection is established
@@ -159,7 +160,8 @@ public class DisputeWebSocketHandler extends TextWebSocketHandler {
     private void sendMessage(WebSocketSession session, WebSocketMessage message) throws IOException {
         if (session.isOpen()) {
             String json = objectMapper.writeValueAsString(message);
-            session.sendMessage(new TextMessage(json));
+            // Registered sessions go through the outbound queue, serialized with pushes
+            sessionManager.outbound(session).sendMessage(new TextMessage(json));
         }
     }
 
@@ -191,16 +193,15 @@ public class DisputeWebSocketHandler extends TextWebSocketHandler {
      * @param message notification message
      */
     public void sendDisputeNotification(Long userId, WebSocketMessage message) {
-        WebSocketSession session = sessionManager.getSession(userId);
-        if (session != null && session.isOpen()) {
-            try {
-                sendMessage(session, message);
+        try {
+            // Forwarded to the owning node when the user is connected elsewhere
+            if (clusterRouter.send(sessionManager, userId, objectMapper.writeValueAsString(message))) {
                 log.debug("✅ Dispute notification sent: user ID={}, type={}", userId, message.getType());
-            } catch (IOException e) {
-                log.error("❌ Failed to send dispute notification: user ID={}", userId, e);
+            } else {
+                log.debug("⚠️ User offline, cannot send dispute notification: user ID={}", userId);
             }
-        } else {
-            log.debug("⚠️ User offline, cannot send dispute notification: user ID={}", userId);
+        } catch (IOException e) {
+            log.error("❌ Failed to send dispute notification: user ID={}", userId, e);
         }
     }
 }
@@ -42,6 +42,7 @@ public class MessageWebSocketHandler extends TextWebSocketHandler {
     private final MessageSessionManager sessionManager;
     private final ObjectMapper objectMapper;
     private final MessageService messageService;
+    private final WebSocketClusterRouter clusterRouter;
 
     /**
      * WebSocket 连接建立后调用
@@ -247,7 +248,8 @@ public class MessageWebSocketHandler extends TextWebSocketHandler {
     private void sendMessage(WebSocketSession session, WebSocketMessage message) throws IOException {
         if (session.isOpen()) {
             String json = objectMapper.writeValueAsString(message);
-            session.sendMessage(new TextMessage(json));
+            // 已注册的会话经出站队列发送，与其他线程的推送串行
+            sessionManager.outbound(session).sendMessage(new TextMessage(json));
         }
     }
 
@@ -279,16 +281,15 @@ public class MessageWebSocketHandler extends TextWebSocketHandler {
      * @param message 消息内容
      */
     public void sendMessageToUser(Long userId, WebSocketMessage message) {
-        WebSocketSession session = sessionManager.getSession(userId);
-        if (session != null && session.isOpen()) {
-            try {
-                sendMessage(session, message);
+        try {
+            // 本节点没有该用户的会话时转发给会话所在节点
+            if (clusterRouter.send(sessionManager, userId, objectMapper.writeValueAsString(message))) {
                 log.debug("✅ 消息已推送：用户 ID={}", userId);
-            } catch (IOException e) {
-                log.error("❌ 推送消息失败：用户 ID={}", userId, e);
+            } else {
+                log.debug("⚠️ 用户离线，无法推送消息：用户 ID={}", userId);
             }
-        } else {
-            log.debug("⚠️ 用户离线，无法推送消息：用户 ID={}", userId);
+        } catch (IOException e) {
+            log.error("❌ 推送消息失败：用户 ID={}", userId, e);
         }
     }
 }
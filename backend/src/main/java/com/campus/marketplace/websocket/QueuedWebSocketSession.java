@@ -0,0 +1,183 @@
+package com.campus.marketplace.websocket;
+
+import com.campus.marketplace.common.config.properties.WebSocketOutboundProperties.OverflowPolicy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+
+import java.io.IOException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 带出站队列的 WebSocket 会话
+ *
+ * - sendMessage 只入队、不阻塞调用方；同一会话同一时刻最多一个虚拟线程按入队顺序发送，
+ *   满足原始会话非线程安全的约束；队列空时发送线程退出，不为空闲连接常驻线程；
+ * - 队列满时按 overflow-policy 处理：CLOSE 断开慢连接，DROP_OLDEST 丢弃最早的帧；
+ * - 单帧发送超过 send-time-limit-ms 视为慢消费者并断开：发送线程在该帧完成后检查，
+ *   入队方也会检查当前帧的发送开始时间（同 ConcurrentWebSocketSessionDecorator），发送卡死时不必等它返回；
+ * - 队列按需增长、容量只作上限，空闲连接不预分配槽位数组。
+ *
+ * @author BaSui
+ * @date 2026-10-16
+ */
+@Slf4j
+public class QueuedWebSocketSession extends WebSocketSessionDecorator {
+
+    private final WebSocketOutbound outbound;
+    private final Queue<Frame> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final int capacity;
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private volatile boolean evicted;
+
+    /**
+     * 当前帧的发送开始时间（纳秒），未在发送时为 0
+     */
+    private volatile long sendStartedAt;
+
+    private record Frame(WebSocketMessage<?> message, long enqueuedAt) {
+    }
+
+    QueuedWebSocketSession(WebSocketSession delegate, WebSocketOutbound outbound, int capacity) {
+        super(delegate);
+        this.outbound = outbound;
+        this.capacity = Math.max(1, capacity);
+    }
+
+    @Override
+    public void sendMessage(WebSocketMessage<?> message) throws IOException {
+        if (evicted || !isOpen()) {
+            outbound.dropped();
+            return;
+        }
+        long started = sendStartedAt;
+        if (started != 0 && System.nanoTime() - started > outbound.sendTimeLimitNanos()) {
+            outbound.dropped();
+            evict("slow");
+            return;
+        }
+        Frame frame = new Frame(message, System.nanoTime());
+        while (!offer(frame)) {
+            if (outbound.overflowPolicy() == OverflowPolicy.CLOSE) {
+                outbound.dropped();
+                evict("overflow");
+                return;
+            }
+            if (poll() != null) {
+                outbound.dequeued(1);
+                outbound.dropped();
+            }
+        }
+        outbound.enqueued();
+        scheduleDrain();
+    }
+
+    /**
+     * 当前排队的帧数
+     */
+    public int queueSize() {
+        return size.get();
+    }
+
+    private boolean offer(Frame frame) {
+        if (size.incrementAndGet() > capacity) {
+            size.decrementAndGet();
+            return false;
+        }
+        queue.offer(frame);
+        return true;
+    }
+
+    private Frame poll() {
+        Frame frame = queue.poll();
+        if (frame != null) {
+            size.decrementAndGet();
+        }
+        return frame;
+    }
+
+    private void scheduleDrain() {
+        if (draining.compareAndSet(false, true)) {
+            outbound.execute(this::drain);
+        }
+    }
+
+    private void drain() {
+        try {
+            Frame frame;
+            while ((frame = poll()) != null) {
+                outbound.dequeued(1);
+                WebSocketSession delegate = getDelegate();
+                if (evicted || !delegate.isOpen()) {
+                    outbound.dropped();
+                    continue;
+                }
+                long start = System.nanoTime();
+                sendStartedAt = start;
+                try {
+                    delegate.sendMessage(frame.message());
+                    outbound.sent(start - frame.enqueuedAt(), System.nanoTime() - start);
+                } catch (Exception e) {
+                    outbound.failed();
+                    log.warn("WebSocket 帧发送失败: sessionId={}, err={}", getId(), e.getMessage());
+                } finally {
+                    sendStartedAt = 0;
+                }
+                if (System.nanoTime() - start > outbound.sendTimeLimitNanos()) {
+                    evict("slow");
+                }
+            }
+        } finally {
+            draining.set(false);
+        }
+        // 退出前有新帧入队但未抢到发送权时，由这里补一次调度
+        if (!queue.isEmpty()) {
+            scheduleDrain();
+        }
+    }
+
+    private void evict(String reason) {
+        if (evicted) {
+            return;
+        }
+        evicted = true;
+        outbound.evicted(reason);
+        discard();
+        log.warn("WebSocket 慢消费者被断开: sessionId={}, reason={}", getId(), reason);
+        try {
+            getDelegate().close(CloseStatus.SESSION_NOT_RELIABLE);
+        } catch (IOException | RuntimeException e) {
+            // 容器在发送卡住或连接已断开时可能抛出运行时异常，不能传回入队方或发送线程
+            log.debug("关闭慢连接失败: sessionId={}, err={}", getId(), e.getMessage());
+        }
+    }
+
+    private void discard() {
+        int removed = 0;
+        while (poll() != null) {
+            removed++;
+        }
+        if (removed > 0) {
+            outbound.dequeued(removed);
+            outbound.dropped(removed);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        discard();
+        super.close();
+    }
+
+    @Override
+    public void close(CloseStatus status) throws IOException {
+        discard();
+        super.close(status);
+    }
+}
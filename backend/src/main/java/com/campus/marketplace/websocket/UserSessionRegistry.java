@@ -0,0 +1,187 @@
+package com.campus.marketplace.websocket;
+
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongConsumer;
+
+/**
+ * 用户会话注册表
+ *
+ * - userId -> 会话数组，增删时整体替换数组（写时复制），推送路径只做一次无锁读取；
+ *   绝大多数用户只有 1～3 个设备，数组比集合少一层节点对象；
+ * - 首个会话加入、最后一个会话移除时回调 onFirst / onLast；数组替换（compute）内只记录标记，
+ *   回调在 compute 返回后执行，不在哈希桶锁内做 I/O，回调方自行保证同一用户状态写入的顺序；
+ * - 单用户会话数超过上限时挤掉最早的会话，由调用方关闭。
+ *
+ * @author BaSui
+ * @date 2026-10-16
+ */
+public class UserSessionRegistry {
+
+    private static final WebSocketSession[] EMPTY = new WebSocketSession[0];
+
+    private final Map<Long, WebSocketSession[]> sessions = new ConcurrentHashMap<>();
+    private final Map<String, Long> sessionUsers = new ConcurrentHashMap<>();
+    private final AtomicInteger sessionCount = new AtomicInteger();
+    private final int maxSessionsPerUser;
+
+    public UserSessionRegistry(int maxSessionsPerUser) {
+        this.maxSessionsPerUser = Math.max(1, maxSessionsPerUser);
+    }
+
+    /**
+     * 加入会话
+     *
+     * @param onFirst 该用户首个会话加入时回调
+     * @return 因超过单用户上限被挤掉的会话，没有则为 null
+     */
+    public WebSocketSession add(long userId, WebSocketSession session, LongConsumer onFirst) {
+        WebSocketSession[] evicted = new WebSocketSession[1];
+        boolean[] first = new boolean[1];
+        sessions.compute(userId, (id, current) -> {
+            if (current == null) {
+                first[0] = true;
+                return new WebSocketSession[]{session};
+            }
+            if (current.length >= maxSessionsPerUser) {
+                evicted[0] = current[0];
+                WebSocketSession[] next = Arrays.copyOfRange(current, 1, current.length + 1);
+                next[next.length - 1] = session;
+                return next;
+            }
+            WebSocketSession[] next = Arrays.copyOf(current, current.length + 1);
+            next[current.length] = session;
+            return next;
+        });
+        sessionUsers.put(session.getId(), userId);
+        if (evicted[0] != null) {
+            sessionUsers.remove(evicted[0].getId());
+        } else {
+            sessionCount.incrementAndGet();
+        }
+        if (first[0]) {
+            onFirst.accept(userId);
+        }
+        return evicted[0];
+    }
+
+    /**
+     * 按会话 ID 移除会话
+     *
+     * @param onLast 该用户最后一个会话移除时回调
+     * @return 被移除的会话，不存在则为 null
+     */
+    public WebSocketSession remove(String sessionId, LongConsumer onLast) {
+        Long userId = sessionUsers.remove(sessionId);
+        if (userId == null) {
+            return null;
+        }
+        WebSocketSession[] removed = new WebSocketSession[1];
+        boolean[] last = new boolean[1];
+        sessions.computeIfPresent(userId, (id, current) -> {
+            int index = indexOf(current, sessionId);
+            if (index < 0) {
+                return current;
+            }
+            removed[0] = current[index];
+            if (current.length == 1) {
+                last[0] = true;
+                return null;
+            }
+            WebSocketSession[] next = new WebSocketSession[current.length - 1];
+            System.arraycopy(current, 0, next, 0, index);
+            System.arraycopy(current, index + 1, next, index, current.length - index - 1);
+            return next;
+        });
+        if (removed[0] != null) {
+            sessionCount.decrementAndGet();
+        }
+        if (last[0]) {
+            onLast.accept(userId);
+        }
+        return removed[0];
+    }
+
+    /**
+     * 移除用户的全部会话
+     *
+     * @param onLast 用户存在会话时回调
+     * @return 被移除的会话
+     */
+    public WebSocketSession[] removeUser(long userId, LongConsumer onLast) {
+        WebSocketSession[][] holder = {EMPTY};
+        sessions.computeIfPresent(userId, (id, current) -> {
+            holder[0] = current;
+            return null;
+        });
+        WebSocketSession[] removed = holder[0];
+        for (WebSocketSession session : removed) {
+            sessionUsers.remove(session.getId());
+        }
+        sessionCount.addAndGet(-removed.length);
+        if (removed.length > 0) {
+            onLast.accept(userId);
+        }
+        return removed;
+    }
+
+    /**
+     * 用户在本节点的全部会话，按加入顺序排列；返回的数组不可修改
+     */
+    public WebSocketSession[] get(long userId) {
+        WebSocketSession[] current = sessions.get(userId);
+        return current == null ? EMPTY : current;
+    }
+
+    /**
+     * 按会话 ID 查找已注册的会话
+     */
+    public WebSocketSession find(String sessionId) {
+        Long userId = sessionUsers.get(sessionId);
+        if (userId == null) {
+            return null;
+        }
+        WebSocketSession[] current = get(userId);
+        int index = indexOf(current, sessionId);
+        return index < 0 ? null : current[index];
+    }
+
+    public Long userOf(String sessionId) {
+        return sessionUsers.get(sessionId);
+    }
+
+    public boolean contains(long userId) {
+        return sessions.containsKey(userId);
+    }
+
+    public Iterable<Long> users() {
+        return sessions.keySet();
+    }
+
+    public int userCount() {
+        return sessions.size();
+    }
+
+    public int sessionCount() {
+        return sessionCount.get();
+    }
+
+    public void clear() {
+        sessions.clear();
+        sessionUsers.clear();
+        sessionCount.set(0);
+    }
+
+    private static int indexOf(WebSocketSession[] current, String sessionId) {
+        for (int i = 0; i < current.length; i++) {
+            if (current[i].getId().equals(sessionId)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,316 @@
+package com.campus.marketplace.websocket;
+
+import com.campus.marketplace.common.config.properties.WebSocketClusterProperties;
+import com.campus.marketplace.common.utils.RedisScriptRegistry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * WebSocket 集群路由与在线状态
+ *
+ * - 在线状态 {@value #ONLINE_KEY_PREFIX}{userId} 与会话归属 {routeKeyPrefix}{endpoint}:{userId} 都是 Hash，
+ *   每个持有会话的节点（在线状态按 节点:端点）一个字段，值为租约到期时间；首个会话建立与心跳时续期，
+ *   本节点最后一个会话断开时只删除自己的字段，用户在其他节点上的设备不受影响；
+ * - 推送先投递本节点会话，再 PUBLISH 给其他全部仍在租约内的归属节点 {channelPrefix}{nodeId}，由各节点在本地投递；
+ * - 收到转发但本节点已没有该用户的会话时，说明本节点的归属登记已过时，删除自己的字段，不再转发；
+ * - 指标：websocket.route.deliveries{result=local|forwarded|delivered|offline|dropped}、
+ *   websocket.route.latency{route=local|remote}（跨节点为发布到投递的耗时，依赖节点时钟同步）。
+ *
+ * @author BaSui
+ * @date 2026-10-16
+ */
+@Slf4j
+@Component
+public class WebSocketClusterRouter implements MessageListener {
+
+    /**
+     * 在线状态键前缀
+     */
+    static final String ONLINE_KEY_PREFIX = "ws:online:";
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final RedisScriptRegistry scriptRegistry;
+    private final WebSocketClusterProperties properties;
+    private final ObjectProvider<WebSocketSessionManager> sessionManagers;
+    private final ObjectProvider<RedisConnectionFactory> connectionFactoryProvider;
+    private final boolean useRedis;
+
+    private final Map<String, Counter> deliveries = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+    private final Timer localLatency;
+    private final Timer remoteLatency;
+
+    private volatile Map<String, WebSocketSessionManager> endpoints;
+    private RedisMessageListenerContainer container;
+
+    /**
+     * 跨节点转发的推送
+     *
+     * @param endpoint 端点（对应会话管理器）
+     * @param userId   接收者
+     * @param payload  已序列化的消息
+     * @param sentAt   发布时间（毫秒）
+     */
+    record Envelope(String endpoint, Long userId, String payload, long sentAt) {
+    }
+
+    public WebSocketClusterRouter(@Qualifier("customStringRedisTemplate") RedisTemplate<String, String> redisTemplate,
+                                  ObjectMapper objectMapper,
+                                  RedisScriptRegistry scriptRegistry,
+                                  WebSocketClusterProperties properties,
+                                  ObjectProvider<WebSocketSessionManager> sessionManagers,
+                                  ObjectProvider<RedisConnectionFactory> connectionFactoryProvider,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${app.redis.mode:redis}") String redisMode) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.scriptRegistry = scriptRegistry;
+        this.properties = properties;
+        this.sessionManagers = sessionManagers;
+        this.connectionFactoryProvider = connectionFactoryProvider;
+        this.useRedis = "redis".equalsIgnoreCase(redisMode);
+        this.meterRegistry = meterRegistry;
+        this.localLatency = Timer.builder("websocket.route.latency").tag("route", "local").register(meterRegistry);
+        this.remoteLatency = Timer.builder("websocket.route.latency").tag("route", "remote").register(meterRegistry);
+    }
+
+    /**
+     * 订阅本节点频道
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        RedisConnectionFactory connectionFactory = connectionFactoryProvider.getIfAvailable();
+        if (!isActive() || connectionFactory == null) {
+            return;
+        }
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("ws-route-");
+        executor.setVirtualThreads(true);
+        container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.setTaskExecutor(executor);
+        container.addMessageListener(this, new ChannelTopic(nodeChannel(properties.getNodeId())));
+        container.afterPropertiesSet();
+        container.start();
+        log.info("WebSocket 集群路由已启动: nodeId={}, channel={}", properties.getNodeId(),
+                nodeChannel(properties.getNodeId()));
+    }
+
+    @PreDestroy
+    public void stop() throws Exception {
+        if (container != null) {
+            container.destroy();
+        }
+    }
+
+    /**
+     * 登记（续期）本节点的在线状态与会话归属
+     */
+    public void claim(String endpoint, Long userId) {
+        if (!useRedis) {
+            return;
+        }
+        try {
+            scriptRegistry.execute(redisTemplate, RedisScriptRegistry.WS_PRESENCE_CLAIM, presenceKeys(endpoint, userId),
+                    onlineField(endpoint), properties.getNodeId(), String.valueOf(System.currentTimeMillis()),
+                    String.valueOf(TimeUnit.SECONDS.toMillis(properties.getRouteTtlSeconds())));
+        } catch (Exception e) {
+            log.warn("登记 WebSocket 在线状态失败: endpoint={}, userId={}, err={}", endpoint, userId, e.getMessage());
+        }
+    }
+
+    /**
+     * 释放本节点的在线状态与会话归属，其他节点的登记保持不变
+     */
+    public void release(String endpoint, Long userId) {
+        if (!useRedis) {
+            return;
+        }
+        try {
+            scriptRegistry.execute(redisTemplate, RedisScriptRegistry.WS_PRESENCE_RELEASE,
+                    presenceKeys(endpoint, userId), onlineField(endpoint), properties.getNodeId());
+        } catch (Exception e) {
+            log.warn("释放 WebSocket 在线状态失败: endpoint={}, userId={}, err={}", endpoint, userId, e.getMessage());
+        }
+    }
+
+    /**
+     * 用户是否在任一节点、任一端点在线
+     */
+    public boolean isOnline(Long userId) {
+        if (!useRedis) {
+            return false;
+        }
+        return !liveFields(ONLINE_KEY_PREFIX + userId).isEmpty();
+    }
+
+    /**
+     * 推送给用户：投递本节点会话，并转发给用户有会话的其他节点
+     *
+     * @param sessionManager 端点会话管理器
+     * @param userId         接收者
+     * @param payload        已序列化的消息
+     * @return true=至少在一个节点已投递或已转发，false=用户不在线
+     */
+    public boolean send(WebSocketSessionManager sessionManager, Long userId, String payload) {
+        long start = System.nanoTime();
+        boolean local = sessionManager.sendToUser(userId, payload);
+        if (local) {
+            localLatency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            count("local");
+        }
+        if (!isActive()) {
+            if (!local) {
+                count("offline");
+            }
+            return local;
+        }
+        boolean forwarded = forward(new Envelope(sessionManager.endpoint(), userId, payload,
+                System.currentTimeMillis()));
+        if (!local && !forwarded) {
+            count("offline");
+        }
+        return local || forwarded;
+    }
+
+    /**
+     * 收到其他节点转发的推送
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        Envelope envelope;
+        try {
+            envelope = objectMapper.readValue(message.getBody(), Envelope.class);
+        } catch (Exception e) {
+            log.warn("无法解析 WebSocket 转发消息，丢弃: {}", e.getMessage());
+            count("dropped");
+            return;
+        }
+        WebSocketSessionManager sessionManager = endpoints().get(envelope.endpoint());
+        if (sessionManager != null && sessionManager.sendToUser(envelope.userId(), envelope.payload())) {
+            remoteLatency.record(Math.max(0, System.currentTimeMillis() - envelope.sentAt()), TimeUnit.MILLISECONDS);
+            count("delivered");
+            return;
+        }
+        // 发送方已按归属扇出到全部节点，这里只清理本节点过时的登记
+        log.debug("WebSocket 转发到达时本节点已无会话，丢弃: endpoint={}, userId={}",
+                envelope.endpoint(), envelope.userId());
+        count("dropped");
+        if (sessionManager != null && sessionManager.getSessions(envelope.userId()).isEmpty()) {
+            release(envelope.endpoint(), envelope.userId());
+        }
+    }
+
+    /**
+     * 发布给除本节点外所有仍在租约内的归属节点
+     *
+     * @return 是否至少发布给一个节点
+     */
+    private boolean forward(Envelope envelope) {
+        try {
+            List<String> owners = liveFields(routeKey(envelope.endpoint(), envelope.userId()));
+            String body = null;
+            int published = 0;
+            for (String owner : owners) {
+                if (owner.equals(properties.getNodeId())) {
+                    continue;
+                }
+                if (body == null) {
+                    body = objectMapper.writeValueAsString(envelope);
+                }
+                redisTemplate.convertAndSend(nodeChannel(owner), body);
+                count("forwarded");
+                published++;
+            }
+            return published > 0;
+        } catch (Exception e) {
+            log.warn("WebSocket 推送转发失败: endpoint={}, userId={}, err={}", envelope.endpoint(), envelope.userId(),
+                    e.getMessage());
+            count("dropped");
+            return false;
+        }
+    }
+
+    /**
+     * 读取 Hash 中租约未到期的字段
+     */
+    private List<String> liveFields(String key) {
+        Map<String, String> entries = redisTemplate.<String, String>opsForHash().entries(key);
+        if (entries == null || entries.isEmpty()) {
+            return List.of();
+        }
+        long now = System.currentTimeMillis();
+        List<String> live = new ArrayList<>(entries.size());
+        entries.forEach((field, expiresAt) -> {
+            try {
+                if (Long.parseLong(expiresAt) > now) {
+                    live.add(field);
+                }
+            } catch (NumberFormatException ignored) {
+                // 非本格式的值由下次登记时清理
+            }
+        });
+        return live;
+    }
+
+    private List<String> presenceKeys(String endpoint, Long userId) {
+        String onlineKey = ONLINE_KEY_PREFIX + userId;
+        return isActive() ? List.of(onlineKey, routeKey(endpoint, userId)) : List.of(onlineKey);
+    }
+
+    private String onlineField(String endpoint) {
+        return properties.getNodeId() + ":" + endpoint;
+    }
+
+    private Map<String, WebSocketSessionManager> endpoints() {
+        Map<String, WebSocketSessionManager> resolved = endpoints;
+        if (resolved == null) {
+            resolved = new ConcurrentHashMap<>();
+            for (WebSocketSessionManager manager : sessionManagers) {
+                resolved.putIfAbsent(manager.endpoint(), manager);
+            }
+            endpoints = resolved;
+        }
+        return resolved;
+    }
+
+    private boolean isActive() {
+        return useRedis && properties.isEnabled();
+    }
+
+    private String routeKey(String endpoint, Long userId) {
+        return properties.getRouteKeyPrefix() + endpoint + ":" + userId;
+    }
+
+    private String nodeChannel(String nodeId) {
+        return properties.getChannelPrefix() + nodeId;
+    }
+
+    private void count(String result) {
+        deliveries.computeIfAbsent(result, r -> Counter.builder("websocket.route.deliveries")
+                .tag("result", r).register(meterRegistry)).increment();
+    }
+}
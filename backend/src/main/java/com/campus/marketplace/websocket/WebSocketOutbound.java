@@ -0,0 +1,115 @@
+package com.campus.marketplace.websocket;
+
+import com.campus.marketplace.common.config.properties.WebSocketOutboundProperties;
+import com.campus.marketplace.common.config.properties.WebSocketOutboundProperties.OverflowPolicy;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * WebSocket 出站队列
+ *
+ * - 为每个注册的会话包装 {@link QueuedWebSocketSession}，发送在虚拟线程上进行；
+ * - 指标：websocket.outbound.queue.depth（全部会话排队帧数）、
+ *   websocket.outbound.frames{result=sent|dropped|failed}、
+ *   websocket.outbound.wait（入队到开始发送）、websocket.outbound.send（单帧发送耗时）、
+ *   websocket.outbound.evictions{reason=overflow|slow}。
+ *
+ * @author BaSui
+ * @date 2026-10-16
+ */
+@Component
+public class WebSocketOutbound {
+
+    private final WebSocketOutboundProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final AtomicLong depth = new AtomicLong();
+    private final Counter sent;
+    private final Counter dropped;
+    private final Counter failed;
+    private final Timer waitTimer;
+    private final Timer sendTimer;
+    private final Map<String, Counter> evictions = new ConcurrentHashMap<>();
+
+    public WebSocketOutbound(WebSocketOutboundProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("websocket.outbound.queue.depth", depth, AtomicLong::get).register(meterRegistry);
+        this.sent = Counter.builder("websocket.outbound.frames").tag("result", "sent").register(meterRegistry);
+        this.dropped = Counter.builder("websocket.outbound.frames").tag("result", "dropped").register(meterRegistry);
+        this.failed = Counter.builder("websocket.outbound.frames").tag("result", "failed").register(meterRegistry);
+        this.waitTimer = Timer.builder("websocket.outbound.wait").register(meterRegistry);
+        this.sendTimer = Timer.builder("websocket.outbound.send").register(meterRegistry);
+    }
+
+    /**
+     * 包装会话，已包装的会话原样返回
+     */
+    public QueuedWebSocketSession wrap(WebSocketSession session) {
+        if (session instanceof QueuedWebSocketSession queued) {
+            return queued;
+        }
+        return new QueuedWebSocketSession(session, this, properties.getQueueCapacity());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        senders.shutdown();
+    }
+
+    void execute(Runnable drain) {
+        senders.execute(drain);
+    }
+
+    OverflowPolicy overflowPolicy() {
+        return properties.getOverflowPolicy();
+    }
+
+    long sendTimeLimitNanos() {
+        return TimeUnit.MILLISECONDS.toNanos(properties.getSendTimeLimitMs());
+    }
+
+    void enqueued() {
+        depth.incrementAndGet();
+    }
+
+    void dequeued(int frames) {
+        depth.addAndGet(-frames);
+    }
+
+    void sent(long waitNanos, long sendNanos) {
+        sent.increment();
+        waitTimer.record(waitNanos, TimeUnit.NANOSECONDS);
+        sendTimer.record(sendNanos, TimeUnit.NANOSECONDS);
+    }
+
+    void dropped() {
+        dropped.increment();
+    }
+
+    void dropped(int frames) {
+        dropped.increment(frames);
+    }
+
+    void failed() {
+        failed.increment();
+    }
+
+    void evicted(String reason) {
+        evictions.computeIfAbsent(reason, r -> Counter.builder("websocket.outbound.evictions")
+                .tag("reason", r).register(meterRegistry)).increment();
+    }
+}
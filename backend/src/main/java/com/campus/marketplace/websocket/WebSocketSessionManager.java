@@ -1,17 +1,16 @@
 package com.campus.marketplace.websocket;
 
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Component;
+import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
 
 import java.io.IOException;
-import java.time.Duration;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.List;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * WebSocket 会话管理器
@@ -20,11 +19,16 @@ import java.util.concurrent.TimeUnit;
  * 1. 管理所有活跃的 WebSocket 连接
  * 2. 支持按用户 ID 查找会话
  * 3. 使用虚拟线程处理心跳检测
- * 4. 管理用户在线状态（Redis）
+ * 4. 管理用户在线状态（Redis，经 {@link WebSocketClusterRouter} 按节点登记）
  * 5. 自动清理过期会话
+ * 6. 登记会话归属节点，其他节点经 {@link WebSocketClusterRouter} 转发推送
+ * 7. 会话注册时包装出站队列（{@link QueuedWebSocketSession}），推送不阻塞调用线程
+ * 8. 同一用户可多设备同时在线，推送扇出到该用户的全部会话；
+ *    Redis 在线状态仅在本节点首个会话建立和最后一个会话断开时写入，按用户分段加锁后
+ *    以本节点当前是否还有会话为准同步，同一用户的上线/下线写入不会乱序
  *
  * 技术亮点：
- * - 使用 ConcurrentHashMap 保证线程安全
+ * - 使用 {@link UserSessionRegistry}（ConcurrentHashMap + 写时复制数组）保证线程安全
  * - 使用虚拟线程执行心跳检测（Java 21）
  * - 使用 Redis 存储在线状态（支持分布式部署）
  *
@@ -36,18 +40,18 @@ import java.util.concurrent.TimeUnit;
 public class WebSocketSessionManager {
 
     /**
-     * 存储 userId -> WebSocketSession 的映射
-     * 使用 ConcurrentHashMap 保证线程安全
+     * 单用户同时在线的会话上限，超过时断开最早的会话
      */
-    private final Map<Long, WebSocketSession> sessions = new ConcurrentHashMap<>();
+    static final int MAX_SESSIONS_PER_USER = 8;
 
     /**
-     * 存储 sessionId -> userId 的映射
-     * 用于断开连接时快速查找用户 ID
+     * userId -> 会话数组，sessionId -> userId
      */
-    private final Map<String, Long> sessionUserMap = new ConcurrentHashMap<>();
+    private final UserSessionRegistry sessions = new UserSessionRegistry(MAX_SESSIONS_PER_USER);
 
-    private final RedisTemplate<String, Object> redisTemplate;
+    private final WebSocketClusterRouter clusterRouter;
+
+    private final WebSocketOutbound outbound;
 
     /**
      * 心跳检测定时任务（使用虚拟线程）
@@ -55,17 +59,18 @@ public class WebSocketSessionManager {
     private final ScheduledExecutorService heartbeatExecutor;
 
     /**
-     * Redis Key 前缀：用户在线状态
-     */
-    private static final String ONLINE_USER_KEY = "ws:online:";
-
-    /**
-     * 在线状态过期时间（秒）- 5分钟无心跳则认为离线
+     * 在线状态同步的分段锁（按 userId 取模），保证同一用户的 Redis 写入有序；
+     * 使用 ReentrantLock 而非 synchronized，虚拟线程等待时不会钉住载体线程
      */
-    private static final long ONLINE_EXPIRE_SECONDS = 300;
+    private final ReentrantLock[] presenceLocks = new ReentrantLock[64];
 
-    public WebSocketSessionManager(RedisTemplate<String, Object> redisTemplate) {
-        this.redisTemplate = redisTemplate;
+    public WebSocketSessionManager(WebSocketClusterRouter clusterRouter,
+                                   WebSocketOutbound outbound) {
+        for (int i = 0; i < presenceLocks.length; i++) {
+            presenceLocks[i] = new ReentrantLock();
+        }
+        this.clusterRouter = clusterRouter;
+        this.outbound = outbound;
         // 使用虚拟线程执行心跳检测任务（Java 21 特性！）
         this.heartbeatExecutor = Executors.newScheduledThreadPool(
                 1,
@@ -76,69 +81,130 @@ public class WebSocketSessionManager {
     }
 
     /**
-     * 添加会话
+     * 端点名称，用于区分各端点的会话归属
+     */
+    public String endpoint() {
+        return "default";
+    }
+
+    /**
+     * 添加会话（同一用户的其他设备保持连接）
      *
      * @param userId  用户 ID
      * @param session WebSocket 会话
      */
     public void addSession(Long userId, WebSocketSession session) {
-        // 如果用户已有连接，先关闭旧连接
-        removeSession(userId);
-
-        sessions.put(userId, session);
-        sessionUserMap.put(session.getId(), userId);
-
-        // 设置用户在线状态到 Redis
-        setUserOnline(userId);
+        // 首个会话才写入在线状态，其他设备重连不再触发 Redis 写
+        WebSocketSession evicted = sessions.add(userId, outbound.wrap(session), this::syncPresence);
+        if (evicted != null) {
+            log.warn("⚠️ 用户会话数超过上限，断开最早的会话：用户 ID={}, 会话 ID={}", userId, evicted.getId());
+            close(userId, evicted);
+        }
 
-        log.info("🔗 WebSocket 连接建立：用户 ID={}, 会话 ID={}, 当前在线人数={}",
-                userId, session.getId(), sessions.size());
+        log.info("🔗 WebSocket 连接建立：用户 ID={}, 会话 ID={}, 当前在线人数={}, 连接数={}",
+                userId, session.getId(), sessions.userCount(), sessions.sessionCount());
     }
 
     /**
-     * 移除会话
+     * 移除用户的全部会话
      *
      * @param userId 用户 ID
      */
     public void removeSession(Long userId) {
-        WebSocketSession session = sessions.remove(userId);
-        if (session != null) {
-            sessionUserMap.remove(session.getId());
-            try {
-                if (session.isOpen()) {
-                    session.close();
-                }
-            } catch (IOException e) {
-                log.error("❌ 关闭 WebSocket 会话失败：用户 ID={}", userId, e);
-            }
-
-            // 移除用户在线状态
-            setUserOffline(userId);
-
-            log.info("🔌 WebSocket 连接断开：用户 ID={}, 当前在线人数={}", userId, sessions.size());
+        WebSocketSession[] removed = sessions.removeUser(userId, this::syncPresence);
+        for (WebSocketSession session : removed) {
+            close(userId, session);
+        }
+        if (removed.length > 0) {
+            log.info("🔌 WebSocket 连接断开：用户 ID={}, 会话数={}, 当前在线人数={}",
+                    userId, removed.length, sessions.userCount());
         }
     }
 
     /**
-     * 根据会话 ID 移除会话
+     * 根据会话 ID 移除会话，用户的其他会话不受影响
      *
      * @param sessionId 会话 ID
      */
     public void removeSessionBySessionId(String sessionId) {
-        Long userId = sessionUserMap.get(sessionId);
-        if (userId != null) {
-            removeSession(userId);
+        Long userId = sessions.userOf(sessionId);
+        // 最后一个会话断开时才移除在线状态
+        WebSocketSession session = sessions.remove(sessionId, this::syncPresence);
+        if (session != null) {
+            close(userId, session);
+            log.info("🔌 WebSocket 连接断开：用户 ID={}, 会话 ID={}, 当前在线人数={}",
+                    userId, sessionId, sessions.userCount());
+        }
+    }
+
+    private void close(Long userId, WebSocketSession session) {
+        try {
+            if (session.isOpen()) {
+                session.close();
+            }
+        } catch (IOException e) {
+            log.error("❌ 关闭 WebSocket 会话失败：用户 ID={}", userId, e);
         }
     }
 
     /**
-     * 获取用户的会话
+     * 获取用户最近建立的会话
      *
      * @param userId 用户 ID
      * @return WebSocket 会话，不存在则返回 null
      */
     public WebSocketSession getSession(Long userId) {
-        return sessions.get(userId);
+        WebSocketSession[] current = sessions.get(userId);
+        return current.length == 0 ? null : current[current.length - 1];
+    }
+
+    /**
+     * 获取用户在本节点的全部会话
+     *
+     * @param userId 用户 ID
+     * @return 按建立顺序排列的会话，不存在则返回空列表
+     */
+    public List<WebSocketSession> getSessions(Long userId) {
+        return List.of(sessions.get(userId));
+    }
+
+    /**
+     * 获取会话的出站队列包装，未注册的会话原样返回
+     *
+     * @param session 容器回调传入的原始会话
+     * @return 已注册时返回带出站队列的会话
+     */
+    public WebSocketSession outbound(WebSocketSession session) {
+        WebSocketSession registered = sessions.find(session.getId());
+        return registered != null ? registered : session;
+    }
+
+    /**
+     * 向本节点上该用户的全部会话发送消息（入队后立即返回）
+     *
+     * @param userId  用户 ID
+     * @param payload 已序列化的消息
+     * @return true=至少一个会话已发送，false=本节点没有该用户的可用会话
+     */
+    public boolean sendToUser(Long userId, String payload) {
+        WebSocketSession[] current = sessions.get(userId);
+        if (current.length == 0) {
+            return false;
+        }
+        TextMessage message = new TextMessage(payload);
+        boolean sent = false;
+        for (WebSocketSession session : current) {
+            if (!session.isOpen()) {
+                continue;
+            }
+            try {
+                session.sendMessage(message);
+                sent = true;
+            } catch (IOException e) {
+                log.error("❌ 推送消息失败：用户 ID={}, 会话 ID={}", userId, session.getId(), e);
+            }
+        }
+        return sent;
     }
 
     /**
@@ -148,7 +214,7 @@ public class WebSocketSessionManager {
      * @return 用户 ID，不存在则返回 null
      */
     public Long getUserId(String sessionId) {
-        return sessionUserMap.get(sessionId);
+        return sessions.userOf(sessionId);
     }
 
     /**
@@ -158,7 +224,7 @@ public class WebSocketSessionManager {
      * @return true=在线，false=离线
      */
     public boolean isOnline(Long userId) {
-        return sessions.containsKey(userId);
+        return sessions.contains(userId);
     }
 
     /**
@@ -167,40 +233,50 @@ public class WebSocketSessionManager {
      * @return 在线人数
      */
     public int getOnlineCount() {
-        return sessions.size();
+        return sessions.userCount();
     }
 
     /**
-     * 设置用户在线状态到 Redis
+     * 获取当前连接数（同一用户的多个设备分别计数）
      *
-     * @param userId 用户 ID
+     * @return 连接数
      */
-    private void setUserOnline(Long userId) {
-        String key = ONLINE_USER_KEY + userId;
-        redisTemplate.opsForValue().set(key, System.currentTimeMillis(), Duration.ofSeconds(ONLINE_EXPIRE_SECONDS));
-        log.debug("✅ 用户在线状态已设置：userId={}", userId);
+    public int getSessionCount() {
+        return sessions.sessionCount();
     }
 
     /**
-     * 移除用户在线状态
+     * 按本节点当前会话同步用户在线状态到 Redis：仍有会话则登记（续期），否则释放本节点的登记
+     *
+     * 在会话注册表的 compute 之外调用；加锁后再读取会话状态，
+     * 并发的上线/下线无论回调先后，最终写入的都是最新状态
      *
      * @param userId 用户 ID
      */
-    private void setUserOffline(Long userId) {
-        String key = ONLINE_USER_KEY + userId;
-        redisTemplate.delete(key);
-        log.debug("❌ 用户在线状态已移除：userId={}", userId);
+    private void syncPresence(long userId) {
+        ReentrantLock lock = presenceLocks[Math.floorMod(Long.hashCode(userId), presenceLocks.length)];
+        lock.lock();
+        try {
+            if (sessions.contains(userId)) {
+                clusterRouter.claim(endpoint(), userId);
+                log.debug("✅ 用户在线状态已设置：userId={}", userId);
+            } else {
+                clusterRouter.release(endpoint(), userId);
+                log.debug("❌ 用户在线状态已移除：userId={}", userId);
+            }
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
-     * 检查用户在线状态（从 Redis）
+     * 检查用户在线状态（从 Redis，任一节点、任一端点有会话即为在线）
      *
      * @param userId 用户 ID
      * @return true=在线，false=离线
      */
     public boolean isUserOnlineInRedis(Long userId) {
-        String key = ONLINE_USER_KEY + userId;
-        return Boolean.TRUE.equals(redisTemplate.hasKey(key));
+        return clusterRouter.isOnline(userId);
     }
 
     /**
@@ -208,24 +284,27 @@ public class WebSocketSessionManager {
      *
      * 功能说明：
      * 1. 每 60 秒检查一次所有会话
-     * 2. 移除已关闭的会话
-     * 3. 刷新在线用户的 Redis 过期时间
+     * 2. 移除已关闭的会话（用户最后一个会话移除时清除在线状态）
+     * 3. 刷新在线用户的 Redis 过期时间（每个用户一次，与设备数无关）
      */
     private void startHeartbeatChecker() {
         heartbeatExecutor.scheduleAtFixedRate(() -> {
             try {
                 // log.debug("💓 开始心跳检测，当前在线人数={}", sessions.size()); // 注释掉：减少日志输出，降低资源消耗
 
-                sessions.forEach((userId, session) -> {
-                    if (!session.isOpen()) {
-                        // 会话已关闭，移除
-                        log.warn("⚠️ 检测到已关闭的会话，移除：userId={}", userId);
-                        removeSession(userId);
-                    } else {
-                        // 会话正常，刷新在线状态
-                        setUserOnline(userId);
+                for (Long userId : sessions.users()) {
+                    for (WebSocketSession session : sessions.get(userId)) {
+                        if (!session.isOpen()) {
+                            // 会话已关闭，移除
+                            log.warn("⚠️ 检测到已关闭的会话，移除：userId={}, sessionId={}", userId, session.getId());
+                            sessions.remove(session.getId(), this::syncPresence);
+                        }
+                    }
+                    if (sessions.contains(userId)) {
+                        // 仍有会话，刷新在线状态
+                        syncPresence(userId);
                     }
-                });
+                }
 
                 // log.debug("✅ 心跳检测完成，当前在线人数={}", sessions.size()); // 注释掉：减少日志输出，降低资源消耗
             } catch (Exception e) {
@@ -241,17 +320,12 @@ public class WebSocketSessionManager {
      */
     public void shutdown() {
         heartbeatExecutor.shutdown();
-        sessions.values().forEach(session -> {
-            try {
-                if (session.isOpen()) {
-                    session.close();
-                }
-            } catch (IOException e) {
-                log.error("❌ 关闭会话失败", e);
+        for (Long userId : sessions.users()) {
+            for (WebSocketSession session : sessions.get(userId)) {
+                close(userId, session);
             }
-        });
+        }
         sessions.clear();
-        sessionUserMap.clear();
         log.info("🛑 WebSocket 会话管理器已关闭");
     }
 }
@@ -0,0 +1,24 @@
+-- 商品检索下推 + keyset 分页所需索引
+-- 仅覆盖上架且未删除的商品（部分索引），与 GoodsSearchJdbcRepository 的 ORDER BY (排序列, id) 一一对应
+
+CREATE INDEX IF NOT EXISTS idx_goods_approved_created_id
+    ON t_goods (created_at DESC, id DESC)
+    WHERE status = 'APPROVED' AND deleted = false;
+
+CREATE INDEX IF NOT EXISTS idx_goods_approved_price_id
+    ON t_goods (price, id)
+    WHERE status = 'APPROVED' AND deleted = false;
+
+CREATE INDEX IF NOT EXISTS idx_goods_approved_category_created_id
+    ON t_goods (category_id, created_at DESC, id DESC)
+    WHERE status = 'APPROVED' AND deleted = false;
+
+-- FTS 倒排索引：仅在 search_vector 列存在时创建，兼容尚未启用全文检索的环境
+DO $$
+BEGIN
+    IF EXISTS (SELECT 1 FROM information_schema.columns
+                WHERE table_name = 't_goods' AND column_name = 'search_vector') THEN
+        EXECUTE 'CREATE INDEX IF NOT EXISTS idx_goods_search_vector ON t_goods USING GIN (search_vector)';
+    END IF;
+END
+$$;
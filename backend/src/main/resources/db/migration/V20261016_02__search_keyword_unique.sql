@@ -0,0 +1,19 @@
+-- 热词批量 UPSERT（ON CONFLICT (keyword)）依赖 keyword 唯一索引
+-- 历史库若已由实体唯一约束建出同名列唯一约束则跳过
+
+DO $$
+BEGIN
+    IF EXISTS (SELECT 1 FROM information_schema.tables WHERE table_name = 't_search_keyword')
+       AND NOT EXISTS (
+            SELECT 1
+              FROM pg_index i
+              JOIN pg_class t ON t.oid = i.indrelid
+              JOIN pg_attribute a ON a.attrelid = t.oid AND a.attnum = ANY (i.indkey)
+             WHERE t.relname = 't_search_keyword'
+               AND i.indisunique
+               AND i.indnatts = 1
+               AND a.attname = 'keyword') THEN
+        EXECUTE 'CREATE UNIQUE INDEX uk_search_keyword_keyword ON t_search_keyword (keyword)';
+    END IF;
+END
+$$;
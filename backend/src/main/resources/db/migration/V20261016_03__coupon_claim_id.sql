@@ -0,0 +1,12 @@
+-- 优惠券领取引擎异步落库以 Stream 消息ID 作为幂等键（INSERT ... ON CONFLICT (claim_id) DO NOTHING）
+-- 数据库直领的历史记录 claim_id 为空，唯一索引允许多个 NULL
+
+ALTER TABLE IF EXISTS t_coupon_user_relation ADD COLUMN IF NOT EXISTS claim_id VARCHAR(64);
+
+DO $$
+BEGIN
+    IF EXISTS (SELECT 1 FROM information_schema.tables WHERE table_name = 't_coupon_user_relation') THEN
+        EXECUTE 'CREATE UNIQUE INDEX IF NOT EXISTS uk_coupon_relation_claim_id ON t_coupon_user_relation (claim_id)';
+    END IF;
+END
+$$;
@@ -0,0 +1,13 @@
+-- 秒杀预留明细：Redis Stream 异步落库，Stream 消息ID 作为幂等键（INSERT ... ON CONFLICT (reservation_id) DO NOTHING）
+
+CREATE TABLE IF NOT EXISTS t_campaign_stock_reservation (
+    id             BIGSERIAL PRIMARY KEY,
+    reservation_id VARCHAR(64) NOT NULL,
+    campaign_id    BIGINT      NOT NULL,
+    quantity       INTEGER     NOT NULL,
+    reserved_at    TIMESTAMP   NOT NULL,
+    created_at     TIMESTAMP   NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE UNIQUE INDEX IF NOT EXISTS uk_campaign_reservation_id ON t_campaign_stock_reservation (reservation_id);
+CREATE INDEX IF NOT EXISTS idx_campaign_reservation_campaign ON t_campaign_stock_reservation (campaign_id);
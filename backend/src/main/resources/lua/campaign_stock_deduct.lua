@@ -0,0 +1,13 @@
+-- 营销活动库存原子扣减
+-- KEYS[1] 库存键 ARGV[1] 扣减数量
+-- 返回 1 成功 / 0 库存不足 / -1 库存未初始化
+local stock = redis.call('get', KEYS[1])
+if not stock then
+    return -1
+end
+stock = tonumber(stock)
+if stock < tonumber(ARGV[1]) then
+    return 0
+end
+redis.call('decrby', KEYS[1], ARGV[1])
+return 1
@@ -0,0 +1,9 @@
+-- 秒杀活动加载（已加载时不覆盖）
+-- KEYS[1] 活动 Hash
+-- ARGV[1] 库存 ARGV[2] 是否进行中 ARGV[3] 开始毫秒 ARGV[4] 结束毫秒 ARGV[5] 过期秒数
+if redis.call('EXISTS', KEYS[1]) == 1 then
+    return 0
+end
+redis.call('HSET', KEYS[1], 'stock', ARGV[1], 'running', ARGV[2], 'start', ARGV[3], 'end', ARGV[4])
+redis.call('EXPIRE', KEYS[1], ARGV[5])
+return 1
@@ -0,0 +1,20 @@
+-- 秒杀库存原子预留（状态 + 时间窗 + 库存一次校验）
+-- KEYS[1] 活动 Hash KEYS[2] 预留记录 Stream
+-- ARGV[1] 当前毫秒 ARGV[2] 活动ID ARGV[3] 数量
+-- 返回 {结果码, 剩余库存}：1 成功 / 0 库存不足 / -1 未加载 / -3 未在进行中
+local meta = redis.call('HMGET', KEYS[1], 'stock', 'running', 'start', 'end')
+if not meta[1] then
+    return {-1, 0}
+end
+local stock = tonumber(meta[1])
+local now = tonumber(ARGV[1])
+if meta[2] ~= '1' or now < tonumber(meta[3]) or now > tonumber(meta[4]) then
+    return {-3, stock}
+end
+local quantity = tonumber(ARGV[3])
+if stock < quantity then
+    return {0, stock}
+end
+stock = redis.call('HINCRBY', KEYS[1], 'stock', -quantity)
+redis.call('XADD', KEYS[2], '*', 'c', ARGV[2], 'q', ARGV[3], 't', ARGV[1])
+return {1, stock}
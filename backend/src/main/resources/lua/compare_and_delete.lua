@@ -0,0 +1,6 @@
+-- 仅当值仍为预期值时删除，避免误删其他持有者写入的新值
+-- KEYS[1] 键 ARGV[1] 预期值
+if redis.call('GET', KEYS[1]) == ARGV[1] then
+    return redis.call('DEL', KEYS[1])
+end
+return 0
@@ -0,0 +1,6 @@
+-- 仅当值仍为预期值时重设过期时间，用于租约续期，避免续上已被其他持有者重新占用的键
+-- KEYS[1] 键 ARGV[1] 预期值 ARGV[2] 过期时间（毫秒）
+if redis.call('GET', KEYS[1]) == ARGV[1] then
+    return redis.call('PEXPIRE', KEYS[1], ARGV[2])
+end
+return 0
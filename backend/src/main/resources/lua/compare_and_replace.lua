@@ -0,0 +1,7 @@
+-- 仅当值仍为预期值时替换为新值，保留原有过期时间
+-- KEYS[1] 键 ARGV[1] 预期值 ARGV[2] 新值
+if redis.call('GET', KEYS[1]) == ARGV[1] then
+    redis.call('SET', KEYS[1], ARGV[2], 'KEEPTTL')
+    return 1
+end
+return 0
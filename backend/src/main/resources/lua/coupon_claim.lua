@@ -0,0 +1,31 @@
+-- 优惠券原子领取
+-- KEYS[1] 券 Hash KEYS[2] 用户计数 Hash KEYS[3] 领取 Stream
+-- ARGV[1] 当前毫秒 ARGV[2] 用户ID ARGV[3] 券ID
+-- 返回 {结果码, 券结束时间毫秒}：1 成功 / 0 已领完 / -1 未加载 / -2 达到限领 / -3 未开始 / -4 已过期 / -5 已停用
+local meta = redis.call('HMGET', KEYS[1], 'stock', 'start', 'end', 'active', 'limit')
+if not meta[1] then
+    return {-1, 0}
+end
+local now = tonumber(ARGV[1])
+local endAt = tonumber(meta[3])
+if now < tonumber(meta[2]) then
+    return {-3, endAt}
+end
+if now > endAt then
+    return {-4, endAt}
+end
+if meta[4] ~= '1' then
+    return {-5, endAt}
+end
+if tonumber(meta[1]) <= 0 then
+    return {0, endAt}
+end
+-- 限领 -1 表示不限；0 与数据库直领一致，任何人都不可领取
+local limit = tonumber(meta[5])
+if limit >= 0 and tonumber(redis.call('HGET', KEYS[2], ARGV[2]) or '0') >= limit then
+    return {-2, endAt}
+end
+redis.call('HINCRBY', KEYS[1], 'stock', -1)
+redis.call('HINCRBY', KEYS[2], ARGV[2], 1)
+redis.call('XADD', KEYS[3], '*', 'c', ARGV[3], 'u', ARGV[2], 't', ARGV[1], 'e', meta[3])
+return {1, endAt}
@@ -0,0 +1,15 @@
+-- 优惠券加载（已加载时不覆盖）
+-- KEYS[1] 券 Hash KEYS[2] 用户计数 Hash KEYS[3] 已加载券集合
+-- ARGV[1..5] 库存/开始/结束/启用/限领（-1 不限） ARGV[6] 过期秒数 ARGV[7] 券ID，其后为 用户ID,已领数 成对出现
+if redis.call('EXISTS', KEYS[1]) == 1 then
+    return 0
+end
+redis.call('DEL', KEYS[2])
+for i = 8, #ARGV, 2 do
+    redis.call('HSET', KEYS[2], ARGV[i], ARGV[i + 1])
+end
+redis.call('HSET', KEYS[1], 'stock', ARGV[1], 'start', ARGV[2], 'end', ARGV[3], 'active', ARGV[4], 'limit', ARGV[5])
+redis.call('EXPIRE', KEYS[1], ARGV[6])
+redis.call('EXPIRE', KEYS[2], ARGV[6])
+redis.call('SADD', KEYS[3], ARGV[7])
+return 1
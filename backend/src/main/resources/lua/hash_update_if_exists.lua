@@ -0,0 +1,7 @@
+-- 仅在 Hash 已存在时更新单个字段，避免写出缺字段的 Hash
+-- KEYS[1] Hash ARGV[1] 字段 ARGV[2] 值
+if redis.call('EXISTS', KEYS[1]) == 0 then
+    return 0
+end
+redis.call('HSET', KEYS[1], ARGV[1], ARGV[2])
+return 1
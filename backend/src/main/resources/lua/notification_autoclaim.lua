@@ -0,0 +1,23 @@
+-- 通知队列超时认领：XAUTOCLAIM 接管空闲超过阈值的未确认消息，展开为扁平结构便于解析
+-- KEYS[1] 通知 Stream
+-- ARGV[1] 消费组 ARGV[2] 消费者名 ARGV[3] 最小空闲毫秒 ARGV[4] 起始游标 ARGV[5] 单次最多认领条数 ARGV[6] 负载字段名
+-- 返回 {下一游标, 消息ID1, 负载1, 消息ID2, 负载2, ...}，消息已被删除时负载为空串
+-- Redis 6.2 对已删除的消息返回 nil（Lua 中为 false），拿不到消息 ID，直接跳过；7.0 起已删除的消息由 XAUTOCLAIM 自行移出 PEL
+local reply = redis.call('XAUTOCLAIM', KEYS[1], ARGV[1], ARGV[2], ARGV[3], ARGV[4], 'COUNT', ARGV[5])
+local out = {reply[1]}
+for _, entry in ipairs(reply[2]) do
+    if entry then
+        local payload = ''
+        local fields = entry[2]
+        if fields then
+            for i = 1, #fields, 2 do
+                if fields[i] == ARGV[6] then
+                    payload = fields[i + 1]
+                end
+            end
+        end
+        out[#out + 1] = entry[1]
+        out[#out + 1] = payload
+    end
+end
+return out
@@ -0,0 +1,13 @@
+-- 通知队列续期：本节点仍在排队或发送中的消息 XCLAIM 给自己（JUSTID，不增加投递次数），重置空闲时间，避免被其他节点接管重发
+-- KEYS[1] 通知 Stream
+-- ARGV[1] 消费组 ARGV[2] 消费者名 ARGV[3..] 消息ID
+-- 返回仍在 PEL 中的消息数
+if #ARGV < 3 then
+    return 0
+end
+local args = {KEYS[1], ARGV[1], ARGV[2], 0}
+for i = 3, #ARGV do
+    args[#args + 1] = ARGV[i]
+end
+args[#args + 1] = 'JUSTID'
+return #redis.call('XCLAIM', unpack(args))
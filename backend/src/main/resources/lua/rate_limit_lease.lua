@@ -0,0 +1,23 @@
+-- 滑动窗口额度租约：清理窗口外记录 → 统计 → 按剩余额度的一半（至少 1、至多期望数）批量占位
+-- KEYS[1] 限流 ZSET
+-- ARGV[1] 当前毫秒 ARGV[2] 窗口毫秒 ARGV[3] 窗口内最大请求数 ARGV[4] 期望租约数 ARGV[5] 成员前缀（节点内唯一）
+-- 返回 {授予数, 授予后窗口内计数, 最早记录移出窗口的毫秒}
+local now = tonumber(ARGV[1])
+local window = tonumber(ARGV[2])
+local max = tonumber(ARGV[3])
+redis.call('ZREMRANGEBYSCORE', KEYS[1], 0, now - window)
+local count = redis.call('ZCARD', KEYS[1])
+local grant = 0
+if count < max then
+    grant = math.min(tonumber(ARGV[4]), math.max(1, math.floor((max - count) / 2)))
+    for i = 1, grant do
+        redis.call('ZADD', KEYS[1], now, ARGV[5] .. ':' .. i)
+    end
+    redis.call('PEXPIRE', KEYS[1], window * 2)
+end
+local resetAt = now + window
+local oldest = redis.call('ZRANGE', KEYS[1], 0, 0, 'WITHSCORES')
+if oldest[2] then
+    resetAt = tonumber(oldest[2]) + window
+end
+return {grant, count + grant, resetAt}
@@ -0,0 +1,19 @@
+-- 滑动窗口计数器：上一窗口计数按剩余重叠比例加权 + 当前窗口计数，未超限时当前窗口 +1
+-- KEYS[1] 当前固定窗口计数键 KEYS[2] 上一固定窗口计数键
+-- ARGV[1] 当前毫秒 ARGV[2] 窗口毫秒 ARGV[3] 窗口内最大请求数
+-- 返回 {1 放行 / 0 拒绝, 加权后的窗口内计数（含本次）}
+local now = tonumber(ARGV[1])
+local window = tonumber(ARGV[2])
+local max = tonumber(ARGV[3])
+local current = tonumber(redis.call('GET', KEYS[1]) or '0')
+local previous = tonumber(redis.call('GET', KEYS[2]) or '0')
+local weight = (window - now % window) / window
+local estimated = previous * weight + current
+if estimated + 1 > max then
+    return {0, math.floor(estimated)}
+end
+current = redis.call('INCR', KEYS[1])
+if current == 1 then
+    redis.call('PEXPIRE', KEYS[1], window * 2)
+end
+return {1, math.floor(previous * weight + current)}
@@ -0,0 +1,33 @@
+-- 令牌桶限流
+-- KEYS[1] 桶 Hash { tokens, ts }
+-- ARGV[1] 当前毫秒 ARGV[2] 容量 ARGV[3] 每次补充令牌数 ARGV[4] 补充间隔（毫秒）
+-- 返回 {剩余令牌（-1 表示被限流）, 最近补充时间}
+local key = KEYS[1]
+local now = tonumber(ARGV[1])
+local capacity = tonumber(ARGV[2])
+local refill = tonumber(ARGV[3])
+local interval = tonumber(ARGV[4])
+local data = redis.call('HMGET', key, 'tokens', 'ts')
+local tokens = tonumber(data[1])
+local ts = tonumber(data[2])
+if tokens == nil or ts == nil then
+  tokens = capacity
+  ts = now
+else
+  if now > ts then
+    local elapsed = now - ts
+    local refillCount = math.floor(elapsed / interval)
+    if refillCount > 0 then
+      tokens = math.min(capacity, tokens + refillCount * refill)
+      ts = ts + refillCount * interval
+    end
+  end
+end
+if tokens <= 0 then
+  redis.call('HMSET', key, 'tokens', tokens, 'ts', ts)
+  return {-1, ts}
+else
+  tokens = tokens - 1
+  redis.call('HMSET', key, 'tokens', tokens, 'ts', ts)
+  return {tokens, ts}
+end
@@ -0,0 +1,23 @@
+-- 登记（续期）本节点持有该用户的会话：在线状态与会话归属都是 Hash，字段 -> 租约到期时间（毫秒），顺带清理过期字段
+-- KEYS[1] 在线状态键 KEYS[2] 会话归属键（集群路由关闭时不传）
+-- ARGV[1] 在线状态字段（节点ID:端点） ARGV[2] 会话归属字段（节点ID） ARGV[3] 当前时间（毫秒） ARGV[4] 租约时长（毫秒）
+local now = tonumber(ARGV[3])
+local ttl = tonumber(ARGV[4])
+local fields = {ARGV[1], ARGV[2]}
+for i = 1, #KEYS do
+    local keyType = redis.call('TYPE', KEYS[i]).ok
+    if keyType ~= 'hash' and keyType ~= 'none' then
+        -- 旧版本写入的单值键
+        redis.call('DEL', KEYS[i])
+    end
+    redis.call('HSET', KEYS[i], fields[i], now + ttl)
+    local entries = redis.call('HGETALL', KEYS[i])
+    for j = 1, #entries, 2 do
+        local expiresAt = tonumber(entries[j + 1])
+        if expiresAt == nil or expiresAt <= now then
+            redis.call('HDEL', KEYS[i], entries[j])
+        end
+    end
+    redis.call('PEXPIRE', KEYS[i], ttl)
+end
+return 1
@@ -0,0 +1,10 @@
+-- 移除本节点的在线状态与会话归属字段，其他节点的登记保持不变；字段清空后 Hash 自动删除
+-- KEYS[1] 在线状态键 KEYS[2] 会话归属键（集群路由关闭时不传）
+-- ARGV[1] 在线状态字段（节点ID:端点） ARGV[2] 会话归属字段（节点ID）
+local fields = {ARGV[1], ARGV[2]}
+for i = 1, #KEYS do
+    if redis.call('TYPE', KEYS[i]).ok == 'hash' then
+        redis.call('HDEL', KEYS[i], fields[i])
+    end
+end
+return 1
@@ -1,11 +1,15 @@
 package com.campus.marketplace.common.aspect;
 
 import com.campus.marketplace.common.annotation.RateLimit;
+import com.campus.marketplace.common.component.RateLimitLeasePool;
 import com.campus.marketplace.common.component.RateLimitRuleManager;
+import com.campus.marketplace.common.config.properties.RateLimitLocalProperties;
 import com.campus.marketplace.common.exception.BusinessException;
 import com.campus.marketplace.common.exception.ErrorCode;
+import com.campus.marketplace.common.utils.RedisScriptRegistry;
 import com.campus.marketplace.common.utils.SecurityUtil;
 import com.campus.marketplace.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.reflect.MethodSignature;
 import org.junit.jupiter.api.AfterEach;
@@ -17,6 +21,8 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockedStatic;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.data.redis.core.ZSetOperations;
 import org.springframework.mock.web.MockHttpServletRequest;
@@ -62,13 +68,23 @@ class RateLimitAspectTest {
     @Mock
     private UserRepository userRepository;
 
+    private RedisScriptRegistry scriptRegistry;
+
+    private SimpleMeterRegistry meterRegistry;
+
     @InjectMocks
     private RateLimitAspect aspect;
 
     @BeforeEach
     void setUp() {
         ruleManager = new RateLimitRuleManager();
-        aspect = new RateLimitAspect(redisTemplate, ruleManager, userRepository);
+        @SuppressWarnings("unchecked")
+        ObjectProvider<RedisConnectionFactory> connectionFactoryProvider = org.mockito.Mockito.mock(ObjectProvider.class);
+        meterRegistry = new SimpleMeterRegistry();
+        scriptRegistry = new RedisScriptRegistry(meterRegistry, connectionFactoryProvider, "memory");
+        // 默认关闭本地预过滤层，覆盖逐请求访问 Redis 的滑动窗口路径
+        aspect = new RateLimitAspect(redisTemplate, ruleManager, userRepository, scriptRegistry,
+                leasePool(false));
         org.mockito.Mockito.lenient().when(redisTemplate.opsForZSet()).thenReturn(zSetOperations);
     }
 
@@ -309,6 +325,128 @@ class RateLimitAspectTest {
         assertThat(response.getHeader("RateLimit-Limit")).isEqualTo("3");
     }
 
+    @Test
+    @DisplayName("滑动窗口计数器一次脚本调用完成判定，传入当前与上一窗口计数键")
+    void around_slidingWindowCounter_withinLimit() throws Throwable {
+        configureRateLimitDefaults();
+        org.mockito.Mockito.lenient().when(rateLimit.algorithm()).thenReturn(RateLimit.Algorithm.SLIDING_WINDOW_COUNTER);
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setRemoteAddr("198.51.100.20");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request, response));
+
+        when(redisTemplate.execute(any(), anyList(), any(), any(), any())).thenReturn(List.of(1L, 2L));
+        when(joinPoint.proceed()).thenReturn("PASS");
+
+        try (MockedStatic<SecurityUtil> security = mockStatic(SecurityUtil.class)) {
+            security.when(SecurityUtil::getCurrentUserId).thenReturn(5L);
+
+            assertThat(aspect.around(joinPoint, rateLimit)).isEqualTo("PASS");
+        }
+
+        @SuppressWarnings("unchecked")
+        org.mockito.ArgumentCaptor<List<String>> keys = org.mockito.ArgumentCaptor.forClass(List.class);
+        verify(redisTemplate).execute(any(), keys.capture(), any(), any(), any());
+        long current = Long.parseLong(keys.getValue().get(0).substring(keys.getValue().get(0).lastIndexOf(':') + 1));
+        assertThat(keys.getValue()).containsExactly("rate_limit:USER:5:message:send:swc:" + current,
+                "rate_limit:USER:5:message:send:swc:" + (current - 1));
+        verify(redisTemplate, never()).opsForZSet();
+        verify(redisTemplate, never()).expire(anyString(), anyLong(), any());
+        assertThat(response.getHeader("RateLimit-Limit")).isEqualTo("3");
+        assertThat(response.getHeader("RateLimit-Remaining")).isEqualTo("1");
+    }
+
+    @Test
+    @DisplayName("滑动窗口计数器加权计数已满时抛出 TOO_MANY_REQUESTS")
+    void around_slidingWindowCounter_exceedsLimit() throws Throwable {
+        configureRateLimitDefaults();
+        org.mockito.Mockito.lenient().when(rateLimit.algorithm()).thenReturn(RateLimit.Algorithm.SLIDING_WINDOW_COUNTER);
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setRemoteAddr("198.51.100.21");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request, response));
+
+        when(redisTemplate.execute(any(), anyList(), any(), any(), any())).thenReturn(List.of(0L, 3L));
+
+        try (MockedStatic<SecurityUtil> security = mockStatic(SecurityUtil.class)) {
+            security.when(SecurityUtil::getCurrentUserId).thenReturn(6L);
+
+            assertThatThrownBy(() -> aspect.around(joinPoint, rateLimit))
+                    .isInstanceOf(BusinessException.class)
+                    .hasFieldOrPropertyWithValue("errorCode", ErrorCode.TOO_MANY_REQUESTS);
+        }
+
+        assertThat(response.getHeader("RateLimit-Remaining")).isEqualTo("0");
+        assertThat(Long.parseLong(response.getHeader("RateLimit-Reset"))).isBetween(1L, 60L);
+    }
+
+    @Test
+    @DisplayName("本地预过滤层：一次租约后后续请求在本地放行，不再访问 Redis")
+    void around_leasedSlidingWindow_admitsLocally() throws Throwable {
+        configureRateLimitDefaults();
+        org.mockito.Mockito.lenient().when(rateLimit.maxRequests()).thenReturn(100);
+        RateLimitAspect leased = new RateLimitAspect(redisTemplate, ruleManager, userRepository, scriptRegistry,
+                leasePool(true));
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setRemoteAddr("198.51.100.30");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request, new MockHttpServletResponse()));
+
+        // 租到 3 个额度，窗口内计数 43
+        when(redisTemplate.execute(any(), anyList(), any(), any(), any(), any(), any()))
+                .thenReturn(List.of(3L, 43L, System.currentTimeMillis() + 60_000));
+        when(joinPoint.proceed()).thenReturn("PASS");
+
+        MockHttpServletResponse last = null;
+        try (MockedStatic<SecurityUtil> security = mockStatic(SecurityUtil.class)) {
+            security.when(SecurityUtil::getCurrentUserId).thenReturn(7L);
+            for (int i = 0; i < 3; i++) {
+                last = new MockHttpServletResponse();
+                RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request, last));
+                assertThat(leased.around(joinPoint, rateLimit)).isEqualTo("PASS");
+            }
+        }
+
+        verify(redisTemplate, org.mockito.Mockito.times(1)).execute(any(), anyList(), any(), any(), any(), any(), any());
+        verify(redisTemplate, never()).opsForZSet();
+        assertThat(last.getHeader("RateLimit-Limit")).isEqualTo("100");
+        assertThat(last.getHeader("RateLimit-Remaining")).isEqualTo("57");
+        assertThat(meterRegistry.get("rate_limit.redis.round_trips.saved").counter().count()).isEqualTo(11.0);
+    }
+
+    @Test
+    @DisplayName("本地预过滤层：Redis 判定已满后在租约有效期内本地拒绝")
+    void around_leasedSlidingWindow_rejectsLocallyWhenFull() throws Throwable {
+        configureRateLimitDefaults();
+        RateLimitAspect leased = new RateLimitAspect(redisTemplate, ruleManager, userRepository, scriptRegistry,
+                leasePool(true));
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setRemoteAddr("198.51.100.31");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request, response));
+
+        when(redisTemplate.execute(any(), anyList(), any(), any(), any(), any(), any()))
+                .thenReturn(List.of(0L, 3L, System.currentTimeMillis() + 30_000));
+
+        try (MockedStatic<SecurityUtil> security = mockStatic(SecurityUtil.class)) {
+            security.when(SecurityUtil::getCurrentUserId).thenReturn(8L);
+            for (int i = 0; i < 2; i++) {
+                assertThatThrownBy(() -> leased.around(joinPoint, rateLimit))
+                        .isInstanceOf(BusinessException.class)
+                        .hasFieldOrPropertyWithValue("errorCode", ErrorCode.TOO_MANY_REQUESTS);
+            }
+        }
+
+        verify(redisTemplate, org.mockito.Mockito.times(1)).execute(any(), anyList(), any(), any(), any(), any(), any());
+        assertThat(response.getHeader("RateLimit-Limit")).isEqualTo("3");
+        assertThat(response.getHeader("RateLimit-Remaining")).isEqualTo("0");
+    }
+
+    private RateLimitLeasePool leasePool(boolean enabled) {
+        RateLimitLocalProperties properties = new RateLimitLocalProperties();
+        properties.setEnabled(enabled);
+        return new RateLimitLeasePool(redisTemplate, scriptRegistry, properties, meterRegistry);
+    }
+
     private void configureRateLimitDefaults() {
         org.mockito.Mockito.lenient().when(rateLimit.key()).thenReturn("message:send");
         org.mockito.Mockito.lenient().when(rateLimit.limitType()).thenReturn(RateLimit.LimitType.USER);
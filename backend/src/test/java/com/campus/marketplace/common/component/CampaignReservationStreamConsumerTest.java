@@ -0,0 +1,93 @@
+package com.campus.marketplace.common.component;
+
+import com.campus.marketplace.common.config.properties.CampaignStockProperties;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StreamOperations;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@DisplayName("CampaignReservationStreamConsumer 测试")
+class CampaignReservationStreamConsumerTest {
+
+    @SuppressWarnings("unchecked")
+    private final RedisTemplate<String, String> redisTemplate = mock(RedisTemplate.class);
+    @SuppressWarnings("unchecked")
+    private final StreamOperations<String, Object, Object> streamOps = mock(StreamOperations.class);
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private final CampaignStockEngine stockEngine = mock(CampaignStockEngine.class);
+    private final CampaignReservationStreamConsumer consumer = new CampaignReservationStreamConsumer(
+            redisTemplate, jdbcTemplate, transactionManager, stockEngine, new CampaignStockProperties());
+
+    @Test
+    @SuppressWarnings("unchecked")
+    @DisplayName("一批预留记录一次插入，按活动聚合扣减库存与参与数，提交后确认并删除消息")
+    void handle_persistsBatchThenAcks() {
+        doReturn(streamOps).when(redisTemplate).opsForStream();
+        when(transactionManager.getTransaction(any())).thenReturn(mock(TransactionStatus.class));
+        // 第三条是重复投递，ON CONFLICT 未返回
+        when(jdbcTemplate.query(any(PreparedStatementCreator.class), any(RowMapper.class)))
+                .thenReturn(List.of(new long[]{5L, 2L}, new long[]{5L, 1L}));
+
+        consumer.handle(List.of(reservation("1-0", 5L, 2), reservation("1-1", 5L, 1), reservation("1-2", 5L, 3)));
+
+        ArgumentCaptor<List<Object[]>> updates = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(anyString(), updates.capture());
+        assertThat(updates.getValue()).hasSize(1);
+        assertThat(updates.getValue().get(0)).containsSequence(3L, 2L);
+        assertThat(updates.getValue().get(0)[3]).isEqualTo(5L);
+        verify(transactionManager).commit(any());
+        verify(streamOps).acknowledge(eq("campaign:reserve:stream"), eq("campaign-reserve-persister"),
+                eq(RecordId.of("1-0")), eq(RecordId.of("1-1")), eq(RecordId.of("1-2")));
+        verify(streamOps).delete(eq("campaign:reserve:stream"),
+                eq(RecordId.of("1-0")), eq(RecordId.of("1-1")), eq(RecordId.of("1-2")));
+    }
+
+    @Test
+    @DisplayName("无法解析的记录直接确认丢弃，不写库")
+    void handle_dropsMalformedRecords() {
+        doReturn(streamOps).when(redisTemplate).opsForStream();
+        MapRecord<String, Object, Object> malformed = StreamRecords.newRecord().in("campaign:reserve:stream")
+                .withId(RecordId.of("1-0")).ofMap(Map.<Object, Object>of("c", "x"));
+
+        consumer.handle(List.of(malformed));
+
+        verifyNoInteractions(jdbcTemplate, transactionManager);
+        verify(streamOps).acknowledge(eq("campaign:reserve:stream"), eq("campaign-reserve-persister"),
+                eq(RecordId.of("1-0")));
+    }
+
+    @Test
+    @DisplayName("引擎关闭时不消费")
+    void drain_skipsWhenDisabled() {
+        when(stockEngine.isEnabled()).thenReturn(false);
+
+        consumer.drain();
+
+        verifyNoInteractions(redisTemplate, jdbcTemplate);
+    }
+
+    private static MapRecord<String, Object, Object> reservation(String id, long campaignId, int quantity) {
+        Map<Object, Object> value = Map.of("c", String.valueOf(campaignId), "q", String.valueOf(quantity),
+                "t", "1790000000000");
+        return StreamRecords.newRecord().in("campaign:reserve:stream").withId(RecordId.of(id)).ofMap(value);
+    }
+}
@@ -0,0 +1,197 @@
+package com.campus.marketplace.common.component;
+
+import com.campus.marketplace.common.config.properties.CampaignStockProperties;
+import com.campus.marketplace.common.entity.MarketingCampaign;
+import com.campus.marketplace.common.utils.RedisScriptRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.Limit;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StreamOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@DisplayName("CampaignStockEngine 测试")
+class CampaignStockEngineTest {
+
+    private final ScriptRecordingTemplate redisTemplate = new ScriptRecordingTemplate();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    @SuppressWarnings("unchecked")
+    private final RedisScriptRegistry scriptRegistry = new RedisScriptRegistry(meterRegistry,
+            mock(ObjectProvider.class), "memory");
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final CampaignStockEngine engine = new CampaignStockEngine(redisTemplate, jdbcTemplate, scriptRegistry,
+            new CampaignStockProperties(), meterRegistry, "redis");
+
+    @Test
+    @DisplayName("脚本返回码映射为预留结果，键与参数按约定传入")
+    void reserve_mapsReplyCodes() {
+        redisTemplate.replies.add(List.of(1L, 5L));
+        redisTemplate.replies.add(List.of(-3L, 5L));
+        redisTemplate.replies.add(List.of(-1L, 0L));
+
+        assertThat(engine.reserve(9L, 2)).isEqualTo(CampaignStockEngine.Status.RESERVED);
+        assertThat(redisTemplate.lastScript.getScriptAsString()).contains("XADD");
+        assertThat(redisTemplate.lastKeys).containsExactly("campaign:flash:9", "campaign:reserve:stream");
+        assertThat(redisTemplate.lastArgs.subList(1, 3)).containsExactly("9", "2");
+
+        assertThat(engine.reserve(9L, 2)).isEqualTo(CampaignStockEngine.Status.NOT_RUNNING);
+        assertThat(engine.reserve(9L, 2)).isEqualTo(CampaignStockEngine.Status.NOT_LOADED);
+        assertThat(meterRegistry.get("campaign.stock.reserve").tag("result", "reserved").counter().count())
+                .isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("库存归零后本地售罄，后续请求不再访问 Redis，恢复进行中后清除")
+    void reserve_shortCircuitsAfterSoldOut() {
+        redisTemplate.replies.add(List.of(1L, 0L));
+
+        assertThat(engine.reserve(9L, 1)).isEqualTo(CampaignStockEngine.Status.RESERVED);
+        assertThat(engine.reserve(9L, 1)).isEqualTo(CampaignStockEngine.Status.SOLD_OUT);
+        assertThat(engine.reserve(9L, 1)).isEqualTo(CampaignStockEngine.Status.SOLD_OUT);
+        assertThat(redisTemplate.calls).isEqualTo(1);
+        assertThat(meterRegistry.get("campaign.stock.reserve").tag("result", "sold_out_local").counter().count())
+                .isEqualTo(2.0);
+
+        redisTemplate.replies.add(1L);
+        redisTemplate.replies.add(List.of(1L, 3L));
+        engine.statusChanged(9L, true);
+        assertThat(redisTemplate.lastArgs).containsExactly("running", "1");
+        assertThat(engine.reserve(9L, 1)).isEqualTo(CampaignStockEngine.Status.RESERVED);
+    }
+
+    @Test
+    @DisplayName("剩余库存不足本次数量但未归零时不打售罄标记")
+    void reserve_partialStockIsNotSoldOut() {
+        redisTemplate.replies.add(List.of(0L, 1L));
+        redisTemplate.replies.add(List.of(1L, 0L));
+
+        assertThat(engine.reserve(9L, 2)).isEqualTo(CampaignStockEngine.Status.SOLD_OUT);
+        assertThat(engine.reserve(9L, 1)).isEqualTo(CampaignStockEngine.Status.RESERVED);
+        assertThat(redisTemplate.calls).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("状态走本地缓存，失效后重新查库")
+    void cachedStatus_loadsOnceUntilInvalidated() {
+        int[] loads = {0};
+
+        assertThat(engine.cachedStatus(9L, id -> { loads[0]++; return "RUNNING"; })).isEqualTo("RUNNING");
+        assertThat(engine.cachedStatus(9L, id -> { loads[0]++; return "PAUSED"; })).isEqualTo("RUNNING");
+        engine.invalidate(9L);
+        assertThat(engine.cachedStatus(9L, id -> { loads[0]++; return "PAUSED"; })).isEqualTo("PAUSED");
+        assertThat(loads[0]).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("加载时携带剩余库存、进行中标记与时间窗")
+    void load_passesStockAndWindow() {
+        MarketingCampaign campaign = campaign(80);
+        redisTemplate.replies.add(1L);
+
+        assertThat(engine.load(campaign)).isTrue();
+
+        assertThat(redisTemplate.lastKeys).containsExactly("campaign:flash:9");
+        assertThat(redisTemplate.lastArgs.subList(0, 2)).containsExactly("80", "1");
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    @DisplayName("重新加载时扣除 Stream 与死信中尚未落库的预留")
+    void load_subtractsUnpersistedReservations() {
+        when(redisTemplate.streamOps.range(eq("campaign:reserve:stream"), any(Range.class), any(Limit.class)))
+                .thenReturn(List.of(
+                        reservation("campaign:reserve:stream", "1-0", Map.of("c", "9", "q", "2")),
+                        reservation("campaign:reserve:stream", "1-1", Map.of("c", "10", "q", "5"))));
+        when(redisTemplate.streamOps.range(eq("campaign:reserve:stream:dlq"), any(Range.class), any(Limit.class)))
+                .thenReturn(List.of(reservation("campaign:reserve:stream:dlq", "2-0",
+                        Map.of("c", "9", "q", "1", "id", "0-5"))));
+        when(jdbcTemplate.query(any(PreparedStatementCreator.class), any(RowMapper.class)))
+                .thenReturn(List.of(77L));
+        redisTemplate.replies.add(1L);
+
+        assertThat(engine.load(campaign(80))).isTrue();
+
+        assertThat(redisTemplate.lastArgs.get(0)).isEqualTo("77");
+    }
+
+    @Test
+    @DisplayName("memory 模式下引擎关闭，状态变更不访问 Redis")
+    void disabledInMemoryMode() {
+        CampaignStockEngine memory = new CampaignStockEngine(redisTemplate, jdbcTemplate,
+                scriptRegistry, new CampaignStockProperties(), meterRegistry, "memory");
+
+        memory.statusChanged(9L, false);
+
+        assertThat(memory.isEnabled()).isFalse();
+        assertThat(redisTemplate.calls).isZero();
+    }
+
+    private static MarketingCampaign campaign(int stockRemaining) {
+        MarketingCampaign campaign = MarketingCampaign.builder()
+                .status("RUNNING")
+                .stockRemaining(stockRemaining)
+                .startTime(LocalDateTime.now().minusHours(1))
+                .endTime(LocalDateTime.now().plusHours(1))
+                .build();
+        campaign.setId(9L);
+        return campaign;
+    }
+
+    private static MapRecord<String, Object, Object> reservation(String stream, String id, Map<Object, Object> value) {
+        return StreamRecords.newRecord().in(stream).withId(RecordId.of(id)).ofMap(value);
+    }
+
+    /**
+     * 记录脚本调用并按顺序返回预置结果，Stream 操作交给 mock
+     */
+    private static class ScriptRecordingTemplate extends RedisTemplate<String, String> {
+
+        private final Deque<Object> replies = new ArrayDeque<>();
+        private RedisScript<?> lastScript;
+        private List<String> lastKeys;
+        private List<Object> lastArgs;
+        private int calls;
+        @SuppressWarnings("unchecked")
+        private final StreamOperations<String, Object, Object> streamOps = mock(StreamOperations.class);
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <HK, HV> StreamOperations<String, HK, HV> opsForStream() {
+            return (StreamOperations<String, HK, HV>) (StreamOperations<String, ?, ?>) streamOps;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T execute(RedisScript<T> script, List<String> keys, Object... args) {
+            calls++;
+            lastScript = script;
+            lastKeys = keys;
+            lastArgs = Arrays.asList(args);
+            return (T) replies.poll();
+        }
+    }
+}
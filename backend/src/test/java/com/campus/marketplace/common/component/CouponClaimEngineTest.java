@@ -0,0 +1,146 @@
+package com.campus.marketplace.common.component;
+
+import com.campus.marketplace.common.config.properties.CouponClaimProperties;
+import com.campus.marketplace.common.entity.Coupon;
+import com.campus.marketplace.common.utils.RedisScriptRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+@DisplayName("CouponClaimEngine 测试")
+class CouponClaimEngineTest {
+
+    private final ScriptRecordingTemplate redisTemplate = new ScriptRecordingTemplate();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    @SuppressWarnings("unchecked")
+    private final RedisScriptRegistry scriptRegistry = new RedisScriptRegistry(meterRegistry,
+            mock(ObjectProvider.class), "memory");
+    private final CouponClaimEngine engine = new CouponClaimEngine(redisTemplate, scriptRegistry,
+            new CouponClaimProperties(), meterRegistry, "redis");
+
+    @Test
+    @DisplayName("脚本返回码映射为领取结果，成功时带回券结束时间并计数")
+    void claim_mapsReplyCodes() {
+        long endMillis = CouponClaimEngine.toMillis(LocalDateTime.of(2026, 12, 31, 23, 59));
+        redisTemplate.replies.add(List.of(1L, endMillis));
+        redisTemplate.replies.add(List.of(0L, endMillis));
+        redisTemplate.replies.add(List.of(-2L, endMillis));
+        redisTemplate.replies.add(List.of(-1L, 0L));
+
+        CouponClaimEngine.ClaimResult claimed = engine.claim(7L, 3L);
+        assertThat(claimed.status()).isEqualTo(CouponClaimEngine.Status.CLAIMED);
+        assertThat(claimed.expireAt()).isEqualTo(LocalDateTime.of(2026, 12, 31, 23, 59));
+        assertThat(redisTemplate.lastScript.getScriptAsString()).contains("XADD");
+        assertThat(redisTemplate.lastKeys).containsExactly("coupon:claim:3", "coupon:claim:3:users", "coupon:claim:stream");
+        assertThat(redisTemplate.lastArgs.get(1)).isEqualTo("7");
+        assertThat(redisTemplate.lastArgs.get(2)).isEqualTo("3");
+
+        assertThat(engine.claim(7L, 3L).status()).isEqualTo(CouponClaimEngine.Status.SOLD_OUT);
+        assertThat(engine.claim(7L, 3L).status()).isEqualTo(CouponClaimEngine.Status.LIMIT_REACHED);
+        CouponClaimEngine.ClaimResult notLoaded = engine.claim(7L, 3L);
+        assertThat(notLoaded.status()).isEqualTo(CouponClaimEngine.Status.NOT_LOADED);
+        assertThat(notLoaded.expireAt()).isNull();
+        assertThat(meterRegistry.get("coupon.claim").tag("result", "claimed").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("加载时库存 = 发行量 - 已落库领取数，并携带各用户已领数量")
+    void load_buildsStockAndUserCounts() {
+        Coupon coupon = Coupon.builder()
+                .totalCount(100)
+                .limitPerUser(2)
+                .startTime(LocalDateTime.now().minusDays(1))
+                .endTime(LocalDateTime.now().plusDays(1))
+                .isActive(true)
+                .build();
+        coupon.setId(3L);
+        redisTemplate.replies.add(1L);
+        Map<Long, Long> claimedByUser = new LinkedHashMap<>();
+        claimedByUser.put(7L, 2L);
+        claimedByUser.put(8L, 1L);
+
+        assertThat(engine.load(coupon, claimedByUser)).isTrue();
+
+        assertThat(redisTemplate.lastKeys).containsExactly("coupon:claim:3", "coupon:claim:3:users", "coupon:claim:loaded");
+        assertThat(redisTemplate.lastArgs.get(0)).isEqualTo("97");
+        assertThat(redisTemplate.lastArgs.get(3)).isEqualTo("1");
+        assertThat(redisTemplate.lastArgs.get(4)).isEqualTo("2");
+        assertThat(redisTemplate.lastArgs.get(6)).isEqualTo("3");
+        assertThat(redisTemplate.lastArgs.subList(7, 11)).containsExactly("7", "2", "8", "1");
+    }
+
+    @Test
+    @DisplayName("限领口径与数据库直领一致：null 加载为不限（-1），0 原样加载并由脚本拦截")
+    void load_limitPerUserZeroAndNull() {
+        Coupon unlimited = Coupon.builder()
+                .totalCount(10)
+                .startTime(LocalDateTime.now().minusDays(1))
+                .endTime(LocalDateTime.now().plusDays(1))
+                .isActive(true)
+                .build();
+        unlimited.setId(4L);
+        Coupon blocked = Coupon.builder()
+                .totalCount(10)
+                .limitPerUser(0)
+                .startTime(LocalDateTime.now().minusDays(1))
+                .endTime(LocalDateTime.now().plusDays(1))
+                .isActive(true)
+                .build();
+        blocked.setId(5L);
+        redisTemplate.replies.add(1L);
+        redisTemplate.replies.add(1L);
+
+        engine.load(unlimited, Map.of());
+        assertThat(redisTemplate.lastArgs.get(4)).isEqualTo("-1");
+        engine.load(blocked, Map.of());
+        assertThat(redisTemplate.lastArgs.get(4)).isEqualTo("0");
+
+        redisTemplate.replies.add(List.of(-2L, 0L));
+        engine.claim(7L, 5L);
+        assertThat(redisTemplate.lastScript.getScriptAsString()).contains("limit >= 0");
+    }
+
+    @Test
+    @DisplayName("memory 模式下引擎关闭")
+    void disabledInMemoryMode() {
+        CouponClaimEngine memory = new CouponClaimEngine(redisTemplate, scriptRegistry,
+                new CouponClaimProperties(), meterRegistry, "memory");
+
+        assertThat(memory.isEnabled()).isFalse();
+        assertThat(engine.isEnabled()).isTrue();
+    }
+
+    /**
+     * 记录脚本调用并按顺序返回预置结果
+     */
+    private static class ScriptRecordingTemplate extends RedisTemplate<String, String> {
+
+        private final Deque<Object> replies = new ArrayDeque<>();
+        private RedisScript<?> lastScript;
+        private List<String> lastKeys;
+        private List<Object> lastArgs;
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T execute(RedisScript<T> script, List<String> keys, Object... args) {
+            lastScript = script;
+            lastKeys = keys;
+            lastArgs = Arrays.asList(args);
+            return (T) replies.poll();
+        }
+    }
+}
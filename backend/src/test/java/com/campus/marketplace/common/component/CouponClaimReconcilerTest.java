@@ -0,0 +1,45 @@
+package com.campus.marketplace.common.component;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@DisplayName("CouponClaimReconciler 测试")
+class CouponClaimReconcilerTest {
+
+    private final CouponClaimEngine claimEngine = mock(CouponClaimEngine.class);
+    private final CouponClaimReconciler reconciler = new CouponClaimReconciler(claimEngine, mock(JdbcTemplate.class));
+
+    @Test
+    @DisplayName("Redis 已领数少于已落库数时下调剩余库存")
+    void checkStock_lowersStockWhenRedisLostClaims() {
+        when(claimEngine.remainingStock(3L)).thenReturn(50L);
+
+        reconciler.checkStock(new CouponClaimReconciler.CouponCounts(3L, 100L, 60L));
+
+        verify(claimEngine).updateStock(3L, 40L);
+    }
+
+    @Test
+    @DisplayName("存在在途领取记录时不修正库存")
+    void checkStock_keepsStockWithInFlightClaims() {
+        when(claimEngine.remainingStock(3L)).thenReturn(30L);
+
+        reconciler.checkStock(new CouponClaimReconciler.CouponCounts(3L, 100L, 60L));
+
+        verify(claimEngine, never()).updateStock(anyLong(), anyLong());
+    }
+
+    @Test
+    @DisplayName("券已过期被清理时移出已加载集合")
+    void checkStock_forgetsExpiredCoupon() {
+        when(claimEngine.remainingStock(3L)).thenReturn(null);
+
+        reconciler.checkStock(new CouponClaimReconciler.CouponCounts(3L, 100L, 60L));
+
+        verify(claimEngine).forget(3L);
+    }
+}
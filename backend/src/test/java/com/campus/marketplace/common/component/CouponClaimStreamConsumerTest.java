@@ -0,0 +1,175 @@
+package com.campus.marketplace.common.component;
+
+import com.campus.marketplace.common.config.properties.CouponClaimProperties;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.RedisSystemException;
+import org.springframework.data.redis.connection.stream.Consumer;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.PendingMessage;
+import org.springframework.data.redis.connection.stream.PendingMessages;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.connection.stream.StreamReadOptions;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StreamOperations;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@DisplayName("CouponClaimStreamConsumer 测试")
+class CouponClaimStreamConsumerTest {
+
+    @SuppressWarnings("unchecked")
+    private final RedisTemplate<String, String> redisTemplate = mock(RedisTemplate.class);
+    @SuppressWarnings("unchecked")
+    private final StreamOperations<String, Object, Object> streamOps = mock(StreamOperations.class);
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private final CouponClaimEngine claimEngine = mock(CouponClaimEngine.class);
+    private final CouponClaimStreamConsumer consumer = new CouponClaimStreamConsumer(
+            redisTemplate, jdbcTemplate, transactionManager, claimEngine, new CouponClaimProperties());
+
+    @Test
+    @SuppressWarnings("unchecked")
+    @DisplayName("一批领取记录一次插入，按实际插入行累加领取数，提交后确认并删除消息")
+    void handle_persistsBatchThenAcks() {
+        doReturn(streamOps).when(redisTemplate).opsForStream();
+        when(transactionManager.getTransaction(any())).thenReturn(mock(TransactionStatus.class));
+        // 第三条是重复投递，ON CONFLICT 未返回
+        when(jdbcTemplate.query(any(PreparedStatementCreator.class), any(RowMapper.class)))
+                .thenReturn(List.of(3L, 4L));
+
+        consumer.handle(List.of(claimRecord("1-0", 3L, 7L), claimRecord("1-1", 4L, 8L), claimRecord("1-2", 3L, 9L)));
+
+        ArgumentCaptor<List<Object[]>> increments = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(anyString(), increments.capture());
+        assertThat(increments.getValue()).extracting(args -> args[2] + ":" + args[0])
+                .containsExactlyInAnyOrder("3:1", "4:1");
+        verify(transactionManager).commit(any());
+        verify(streamOps).acknowledge(eq("coupon:claim:stream"), eq("coupon-claim-persister"),
+                eq(RecordId.of("1-0")), eq(RecordId.of("1-1")), eq(RecordId.of("1-2")));
+        verify(streamOps).delete(eq("coupon:claim:stream"),
+                eq(RecordId.of("1-0")), eq(RecordId.of("1-1")), eq(RecordId.of("1-2")));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    @DisplayName("落库失败时不确认消息，留待重新认领")
+    void handle_keepsMessagesWhenPersistFails() {
+        doReturn(streamOps).when(redisTemplate).opsForStream();
+        when(transactionManager.getTransaction(any())).thenReturn(mock(TransactionStatus.class));
+        when(jdbcTemplate.query(any(PreparedStatementCreator.class), any(RowMapper.class)))
+                .thenThrow(new IllegalStateException("db down"));
+
+        assertThat(consumer.handle(List.of(claimRecord("1-0", 3L, 7L)))).isTrue();
+
+        // 整批一次 + 逐条一次
+        verify(transactionManager, times(2)).rollback(any());
+        verifyNoInteractions(streamOps);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    @DisplayName("整批失败后逐条重试，只确认成功的消息")
+    void handle_retriesOneByOneAfterBatchFailure() {
+        doReturn(streamOps).when(redisTemplate).opsForStream();
+        when(transactionManager.getTransaction(any())).thenReturn(mock(TransactionStatus.class));
+        when(jdbcTemplate.query(any(PreparedStatementCreator.class), any(RowMapper.class)))
+                .thenThrow(new IllegalStateException("constraint violation"))
+                .thenReturn(List.of(3L))
+                .thenThrow(new IllegalStateException("constraint violation"));
+
+        consumer.handle(List.of(claimRecord("1-0", 3L, 7L), claimRecord("1-1", 4L, 8L)));
+
+        verify(streamOps).acknowledge("coupon:claim:stream", "coupon-claim-persister", RecordId.of("1-0"));
+        verify(streamOps).delete("coupon:claim:stream", RecordId.of("1-0"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    @DisplayName("逐条重试连续失败视为数据库不可用，中断本轮")
+    void handle_stopsAfterConsecutiveFailures() {
+        doReturn(streamOps).when(redisTemplate).opsForStream();
+        when(transactionManager.getTransaction(any())).thenReturn(mock(TransactionStatus.class));
+        when(jdbcTemplate.query(any(PreparedStatementCreator.class), any(RowMapper.class)))
+                .thenThrow(new IllegalStateException("db down"));
+
+        boolean healthy = consumer.handle(List.of(claimRecord("1-0", 3L, 7L), claimRecord("1-1", 3L, 8L),
+                claimRecord("1-2", 3L, 9L), claimRecord("1-3", 3L, 10L)));
+
+        assertThat(healthy).isFalse();
+        verify(jdbcTemplate, times(1 + AbstractStreamBatchConsumer.MAX_CONSECUTIVE_RECORD_FAILURES))
+                .query(any(PreparedStatementCreator.class), any(RowMapper.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    @DisplayName("超过最大投递次数的消息转入死信 Stream，认领失败不影响读取新消息")
+    void drain_deadLettersPoisonMessages() {
+        doReturn(streamOps).when(redisTemplate).opsForStream();
+        PendingMessage poison = new PendingMessage(RecordId.of("1-0"), Consumer.from("coupon-claim-persister", "a"),
+                Duration.ofMinutes(5), 5);
+        when(streamOps.pending(anyString(), anyString(), any(Range.class), anyLong()))
+                .thenReturn(new PendingMessages("coupon-claim-persister", List.of(poison)));
+        when(streamOps.claim(anyString(), anyString(), anyString(), any(Duration.class), any(RecordId[].class)))
+                .thenReturn(List.of(claimRecord("1-0", 3L, 7L)));
+
+        consumer.drain();
+
+        ArgumentCaptor<MapRecord<String, String, String>> deadLetter = ArgumentCaptor.forClass(MapRecord.class);
+        verify(streamOps).add(deadLetter.capture());
+        assertThat(deadLetter.getValue().getStream()).isEqualTo("coupon:claim:stream:dlq");
+        assertThat(deadLetter.getValue().getValue()).containsEntry("id", "1-0").containsEntry("c", "3");
+        verify(streamOps).acknowledge("coupon:claim:stream", "coupon-claim-persister", RecordId.of("1-0"));
+        verifyNoInteractions(jdbcTemplate);
+        verify(streamOps).read(any(Consumer.class), any(StreamReadOptions.class), any(StreamOffset.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    @DisplayName("NOGROUP 时下一轮重建消费组")
+    void drain_recreatesGroupAfterNoGroup() {
+        doReturn(streamOps).when(redisTemplate).opsForStream();
+        when(streamOps.read(any(Consumer.class), any(StreamReadOptions.class), any(StreamOffset.class)))
+                .thenThrow(new RedisSystemException("NOGROUP No such key", null));
+
+        consumer.drain();
+        consumer.drain();
+
+        verify(redisTemplate, times(2)).execute(any(RedisCallback.class));
+    }
+
+    @Test
+    @DisplayName("引擎关闭时不消费")
+    void drain_skipsWhenDisabled() {
+        when(claimEngine.isEnabled()).thenReturn(false);
+
+        consumer.drain();
+
+        verifyNoInteractions(redisTemplate, jdbcTemplate);
+    }
+
+    private static MapRecord<String, Object, Object> claimRecord(String id, long couponId, long userId) {
+        Map<Object, Object> value = Map.of("c", String.valueOf(couponId), "u", String.valueOf(userId),
+                "t", "1790000000000", "e", "1800000000000");
+        return StreamRecords.newRecord().in("coupon:claim:stream").withId(RecordId.of(id)).ofMap(value);
+    }
+}
@@ -0,0 +1,114 @@
+package com.campus.marketplace.common.component;
+
+import com.campus.marketplace.common.config.properties.OrderProperties;
+import com.campus.marketplace.common.exception.BusinessException;
+import com.campus.marketplace.common.exception.ErrorCode;
+import com.campus.marketplace.common.utils.RedisScriptRegistry;
+import com.campus.marketplace.common.utils.RedisUtil;
+import com.campus.marketplace.event.OrderCancelledEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+@DisplayName("GoodsPurchaseGate 测试")
+class GoodsPurchaseGateTest {
+
+    private final OrderProperties orderProperties = new OrderProperties();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private GoodsPurchaseGate gate;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        orderProperties.setOptimisticPlacement(true);
+        RedisUtil redis = new RedisUtil(mock(ObjectProvider.class), mock(RedisScriptRegistry.class), "memory");
+        gate = new GoodsPurchaseGate(redis, orderProperties, meterRegistry);
+    }
+
+    @Test
+    @DisplayName("数百买家同时抢同一商品，只有一个进入下单逻辑，其余直接拒绝")
+    void place_onlyOneWinnerUnderContention() throws Exception {
+        int buyers = 300;
+        AtomicInteger placed = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(32);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < buyers; i++) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    try {
+                        gate.place(1L, () -> "ORD-" + placed.incrementAndGet());
+                    } catch (BusinessException e) {
+                        rejected.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertThat(placed.get()).isEqualTo(1);
+        assertThat(rejected.get()).isEqualTo(buyers - 1);
+        assertThat(meterRegistry.get("order.placement.reservation").tag("result", "lost").counter().count())
+                .isEqualTo(buyers - 1.0);
+    }
+
+    @Test
+    @DisplayName("下单失败释放抢占，订单取消后也释放抢占")
+    void place_releasesOnFailureAndCancellation() {
+        assertThatThrownBy(() -> gate.place(2L, () -> {
+            throw new BusinessException(ErrorCode.GOODS_NOT_APPROVED);
+        })).isInstanceOf(BusinessException.class);
+        assertThat(gate.place(2L, () -> "ORD-1")).isEqualTo("ORD-1");
+
+        assertThatThrownBy(() -> gate.place(2L, () -> "ORD-2"))
+                .isInstanceOf(BusinessException.class)
+                .hasFieldOrPropertyWithValue("code", ErrorCode.GOODS_ALREADY_SOLD.getCode());
+
+        gate.onOrderCancelled(new OrderCancelledEvent(this, 10L, "ORD-1", 2L));
+        assertThat(gate.place(2L, () -> "ORD-3")).isEqualTo("ORD-3");
+    }
+
+    @Test
+    @DisplayName("迟到的旧订单取消不释放其他买家的新抢占")
+    void onOrderCancelled_ignoresStaleOrder() {
+        assertThat(gate.place(4L, () -> "ORD-1")).isEqualTo("ORD-1");
+        gate.onOrderCancelled(new OrderCancelledEvent(this, 10L, "ORD-1", 4L));
+        assertThat(gate.place(4L, () -> "ORD-2")).isEqualTo("ORD-2");
+
+        gate.onOrderCancelled(new OrderCancelledEvent(this, 10L, "ORD-1", 4L));
+
+        assertThatThrownBy(() -> gate.place(4L, () -> "ORD-3"))
+                .isInstanceOf(BusinessException.class)
+                .hasFieldOrPropertyWithValue("code", ErrorCode.GOODS_ALREADY_SOLD.getCode());
+    }
+
+    @Test
+    @DisplayName("关闭乐观模式时直接放行")
+    void place_passThroughWhenDisabled() {
+        orderProperties.setOptimisticPlacement(false);
+
+        assertThat(gate.place(3L, () -> "A")).isEqualTo("A");
+        assertThat(gate.place(3L, () -> "B")).isEqualTo("B");
+    }
+}
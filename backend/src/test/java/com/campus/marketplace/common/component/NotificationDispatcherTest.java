@@ -1,5 +1,6 @@
 package com.campus.marketplace.common.component;
 
+import com.campus.marketplace.common.config.properties.NotificationQueueProperties;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -8,15 +9,17 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.data.redis.core.ListOperations;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.core.RedisOperations;
 import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StreamOperations;
 
+import java.util.List;
 import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
-import static org.mockito.ArgumentMatchers.anyString;
-import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -24,23 +27,26 @@ import static org.mockito.Mockito.*;
 class NotificationDispatcherTest {
 
     @Mock
-    private RedisTemplate<String, Object> redisTemplate;
+    private RedisTemplate<String, String> redisTemplate;
 
     @Mock
-    private ListOperations<String, Object> listOperations;
+    private StreamOperations<String, Object, Object> streamOperations;
+
+    private final NotificationQueueProperties properties = new NotificationQueueProperties();
 
     private NotificationDispatcher dispatcher;
 
     @BeforeEach
     void setUp() {
-        dispatcher = new NotificationDispatcher(redisTemplate, new ObjectMapper());
-        ReflectionTestUtils.setField(dispatcher, "queueKey", "notifications:test");
+        properties.setStreamKey("notifications:test");
+        dispatcher = new NotificationDispatcher(redisTemplate, new ObjectMapper(), properties);
     }
 
     @Test
-    @DisplayName("入队通知时写入 Redis 列表")
+    @DisplayName("入队通知时写入 Redis Stream")
+    @SuppressWarnings("unchecked")
     void enqueueTemplate_success() {
-        when(redisTemplate.opsForList()).thenReturn(listOperations);
+        doReturn(streamOperations).when(redisTemplate).opsForStream();
 
         dispatcher.enqueueTemplate(
                 1L,
@@ -52,9 +58,11 @@ class NotificationDispatcherTest {
                 "/orders/99"
         );
 
-        ArgumentCaptor<String> captor = ArgumentCaptor.forClass(String.class);
-        verify(listOperations).leftPush(eq("notifications:test"), captor.capture());
-        assertThat(captor.getValue()).contains("\"templateCode\":\"WELCOME\"");
+        ArgumentCaptor<MapRecord<String, Object, Object>> captor = ArgumentCaptor.forClass(MapRecord.class);
+        verify(streamOperations).add(captor.capture());
+        assertThat(captor.getValue().getStream()).isEqualTo("notifications:test");
+        assertThat(captor.getValue().getValue().get(NotificationDispatcher.PAYLOAD_FIELD).toString())
+                .contains("\"templateCode\":\"WELCOME\"");
     }
 
     @Test
@@ -62,11 +70,30 @@ class NotificationDispatcherTest {
     void enqueueTemplate_whenSerializationFails() throws Exception {
         ObjectMapper mapper = mock(ObjectMapper.class);
         when(mapper.writeValueAsString(any())).thenThrow(new RuntimeException("boom"));
-        dispatcher = new NotificationDispatcher(redisTemplate, mapper);
-        ReflectionTestUtils.setField(dispatcher, "queueKey", "notifications:test");
+        dispatcher = new NotificationDispatcher(redisTemplate, mapper, properties);
 
         dispatcher.enqueueTemplate(1L, "FAIL", Map.of(), "SYSTEM", null, null, null);
 
-        verify(listOperations, never()).leftPush(anyString(), any());
+        verify(redisTemplate, never()).opsForStream();
+    }
+
+    @Test
+    @DisplayName("批量入队通过一次 pipeline 写入全部通知")
+    @SuppressWarnings("unchecked")
+    void enqueueAll_pipelinesAllJobs() {
+        RedisOperations<String, String> operations = mock(RedisOperations.class);
+        doReturn(streamOperations).when(operations).opsForStream();
+        when(redisTemplate.executePipelined(any(SessionCallback.class))).thenAnswer(invocation -> {
+            invocation.<SessionCallback<Object>>getArgument(0).execute(operations);
+            return List.of();
+        });
+
+        dispatcher.enqueueAll(List.of(
+                new NotificationDispatcher.Job(1L, "A", Map.of(), "SYSTEM", null, null, null, 0),
+                new NotificationDispatcher.Job(2L, "B", Map.of(), "SYSTEM", null, null, null, 0)));
+
+        verify(redisTemplate, times(1)).executePipelined(any(SessionCallback.class));
+        verify(streamOperations, times(2)).add(any(MapRecord.class));
+        verify(redisTemplate, never()).opsForStream();
     }
 }
@@ -1,25 +1,38 @@
 package com.campus.marketplace.common.component;
 
+import com.campus.marketplace.common.config.properties.NotificationQueueProperties;
 import com.campus.marketplace.common.enums.AuditActionType;
 import com.campus.marketplace.common.enums.NotificationType;
+import com.campus.marketplace.common.utils.RedisScriptRegistry;
 import com.campus.marketplace.service.AuditLogService;
 import com.campus.marketplace.service.NotificationService;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.data.redis.core.ListOperations;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.redis.connection.stream.Consumer;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.connection.stream.StreamRecords;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StreamOperations;
 import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.test.util.ReflectionTestUtils;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
@@ -28,37 +41,52 @@ import static org.mockito.Mockito.*;
 class NotificationQueueConsumerTest {
 
     @Mock
-    private RedisTemplate<String, Object> redisTemplate;
+    private RedisTemplate<String, String> redisTemplate;
     @Mock
-    private ListOperations<String, Object> listOperations;
+    private StreamOperations<String, Object, Object> streamOperations;
     @Mock
-    private ZSetOperations<String, Object> zSetOperations;
+    private ZSetOperations<String, String> zSetOperations;
     @Mock
     private NotificationService notificationService;
     @Mock
     private AuditLogService auditLogService;
+    @Mock
+    private NotificationDispatcher dispatcher;
 
     private NotificationQueueConsumer consumer;
     private StubObjectMapper objectMapper;
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
 
-    private static final String QUEUE_KEY = "notifications:test:queue";
+    private static final String STREAM_KEY = "notifications:test:stream";
+    private static final String GROUP = "notification-test";
     private static final String RETRY_KEY = "notifications:test:retry";
     private static final Map<String, Object> PARAMS = Map.of("foo", "bar");
 
     @BeforeEach
+    @SuppressWarnings("unchecked")
     void setUp() {
-        lenient().when(redisTemplate.opsForList()).thenReturn(listOperations);
+        lenient().doReturn(streamOperations).when(redisTemplate).opsForStream();
         lenient().when(redisTemplate.opsForZSet()).thenReturn(zSetOperations);
 
         objectMapper = new StubObjectMapper();
+        NotificationQueueProperties properties = new NotificationQueueProperties();
+        properties.setStreamKey(STREAM_KEY);
+        properties.setConsumerGroup(GROUP);
+        properties.setBatchSize(5);
+        properties.setBlockMs(10);
+        RedisScriptRegistry scriptRegistry = new RedisScriptRegistry(meterRegistry, mock(ObjectProvider.class), "memory");
 
-        consumer = new NotificationQueueConsumer(redisTemplate, objectMapper, notificationService, auditLogService);
-        ReflectionTestUtils.setField(consumer, "queueKey", QUEUE_KEY);
+        consumer = new NotificationQueueConsumer(redisTemplate, objectMapper, notificationService, auditLogService,
+                dispatcher, scriptRegistry, properties, meterRegistry);
         ReflectionTestUtils.setField(consumer, "retryKey", RETRY_KEY);
-        ReflectionTestUtils.setField(consumer, "batchSize", 5);
         ReflectionTestUtils.setField(consumer, "maxAttempts", 3);
     }
 
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        consumer.stop();
+    }
+
     private String registerJob(int attempts) {
         NotificationDispatcher.Job job = new NotificationDispatcher.Job(
                 10L,
@@ -73,15 +101,8 @@ class NotificationQueueConsumerTest {
         return objectMapper.register(job);
     }
 
-    @Test
-    @DisplayName("consume 可批量处理通知")
-    void consume_shouldProcessEntries() {
-        String payload = registerJob(0);
-        when(listOperations.rightPop(QUEUE_KEY)).thenReturn(payload, (String) null);
-
-        consumer.consume();
-
-        verify(notificationService).sendTemplateNotification(
+    private void verifySent() {
+        verify(notificationService, timeout(1000)).sendTemplateNotification(
                 eq(10L),
                 eq("TPL"),
                 eq(PARAMS),
@@ -93,17 +114,91 @@ class NotificationQueueConsumerTest {
     }
 
     @Test
-    @DisplayName("发送失败时加入重试集合")
-    void handleFailure_shouldEnqueueRetry() {
+    @DisplayName("pollOnce 通过消费组读取并在虚拟线程上发送，发送后确认并删除消息")
+    void pollOnce_shouldDispatchAndAck() throws InterruptedException {
+        String payload = registerJob(0);
+        MapRecord<String, Object, Object> record = StreamRecords.newRecord().in(STREAM_KEY)
+                .withId(RecordId.of("1-0")).ofMap(Map.<Object, Object>of(NotificationDispatcher.PAYLOAD_FIELD, payload));
+        when(streamOperations.read(any(Consumer.class), any(), any(StreamOffset.class)))
+                .thenReturn(List.of(record));
+
+        assertThat(consumer.pollOnce()).isEqualTo(1);
+
+        verifySent();
+        verify(streamOperations, timeout(1000)).acknowledge(STREAM_KEY, GROUP, RecordId.of("1-0"));
+        verify(streamOperations, timeout(1000)).delete(STREAM_KEY, RecordId.of("1-0"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    @DisplayName("XAUTOCLAIM 接管的超时消息重新发送，游标跨轮次保留")
+    void pollOnce_shouldReclaimStaleEntries() throws InterruptedException {
+        String payload = registerJob(0);
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(), any(), any(), any(), any(), any()))
+                .thenReturn(List.of("2-0", "1-0", payload));
+
+        consumer.pollOnce();
+
+        verifySent();
+        verify(streamOperations, timeout(1000)).acknowledge(STREAM_KEY, GROUP, RecordId.of("1-0"));
+        assertThat(ReflectionTestUtils.getField(consumer, "claimCursor")).isEqualTo("2-0");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    @DisplayName("接管时跳过本节点仍在处理中的消息")
+    void pollOnce_shouldSkipReclaimedEntriesStillInFlight() throws InterruptedException {
+        String payload = registerJob(0);
+        ((Set<String>) ReflectionTestUtils.getField(consumer, "inFlightIds")).add("1-0");
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(), any(), any(), any(), any(), any()))
+                .thenReturn(List.of("2-0", "1-0", payload));
+
+        consumer.pollOnce();
+
+        verifyNoInteractions(notificationService);
+        verify(streamOperations, never()).acknowledge(anyString(), anyString(), any(RecordId[].class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    @DisplayName("处理中的消息 XCLAIM 给自己续期，处理完成后移出续期集合")
+    void touchInFlight_shouldRefreshIdleTimeOfTrackedIds() {
+        Set<String> inFlightIds = (Set<String>) ReflectionTestUtils.getField(consumer, "inFlightIds");
+        inFlightIds.add("1-0");
+
+        consumer.touchInFlight();
+
+        verify(redisTemplate).execute(any(RedisScript.class), eq(List.of(STREAM_KEY)), eq(GROUP), anyString(), eq("1-0"));
+
+        consumer.process("1-0", "");
+        assertThat(inFlightIds).isEmpty();
+    }
+
+    @Test
+    @DisplayName("发送失败时加入重试集合并确认原消息")
+    void process_failureShouldEnqueueRetry() {
         ReflectionTestUtils.setField(consumer, "maxAttempts", 5);
         String payload = registerJob(0);
-        when(listOperations.rightPop(QUEUE_KEY)).thenReturn(payload, (String) null);
         doThrow(new RuntimeException("boom")).when(notificationService)
                 .sendTemplateNotification(anyLong(), anyString(), anyMap(), any(), any(), anyString(), anyString());
 
-        consumer.consume();
+        consumer.process("1-0", payload);
 
         verify(zSetOperations).add(eq(RETRY_KEY), anyString(), anyDouble());
+        verify(streamOperations).acknowledge(STREAM_KEY, GROUP, RecordId.of("1-0"));
+        assertThat(meterRegistry.get("notifications.queue.jobs").tag("result", "retry").counter().count())
+                .isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("无法解析的消息直接确认丢弃")
+    void process_dropsMalformedPayload() {
+        consumer.process("1-0", "");
+
+        verifyNoInteractions(notificationService);
+        verify(streamOperations).acknowledge(STREAM_KEY, GROUP, RecordId.of("1-0"));
+        assertThat(meterRegistry.get("notifications.queue.jobs").tag("result", "dropped").counter().count())
+                .isEqualTo(1.0);
     }
 
     @Test
@@ -123,7 +218,7 @@ class NotificationQueueConsumerTest {
     }
 
     @Test
-    @DisplayName("scheduleRetry 会将到期任务回填队列")
+    @DisplayName("scheduleRetry 会将到期任务回填 Stream")
     void scheduleRetry_shouldMoveDueEntries() {
         String payload = registerJob(2);
         when(zSetOperations.rangeByScore(eq(RETRY_KEY), anyDouble(), anyDouble()))
@@ -131,18 +226,23 @@ class NotificationQueueConsumerTest {
 
         consumer.scheduleRetry();
 
-        verify(listOperations).leftPush(QUEUE_KEY, payload);
+        verify(dispatcher).append(payload);
         verify(zSetOperations).remove(RETRY_KEY, payload);
     }
 
     @Test
-    @DisplayName("consume 发生异常时捕获并继续")
-    void consume_shouldHandleRedisException() {
-        when(listOperations.rightPop(QUEUE_KEY)).thenThrow(new RuntimeException("redis down"));
+    @DisplayName("刷新指标时记录队列长度、未确认数与最早消息等待时长")
+    void pollOnce_shouldRefreshQueueGauges() throws InterruptedException {
+        when(streamOperations.size(STREAM_KEY)).thenReturn(7L);
+        long now = System.currentTimeMillis();
+        MapRecord<String, Object, Object> oldest = StreamRecords.newRecord().in(STREAM_KEY)
+                .withId(RecordId.of(now - 5_000, 0)).ofMap(Map.<Object, Object>of("job", "x"));
+        when(streamOperations.range(eq(STREAM_KEY), any(), any())).thenReturn(List.of(oldest));
 
-        consumer.consume();
+        consumer.pollOnce();
 
-        verify(notificationService, never()).sendTemplateNotification(anyLong(), anyString(), anyMap(), any(), any(), anyString(), anyString());
+        assertThat(meterRegistry.get("notifications.queue.depth").gauge().value()).isEqualTo(7.0);
+        assertThat(meterRegistry.get("notifications.queue.lag.ms").gauge().value()).isGreaterThanOrEqualTo(5_000.0);
     }
 
     /**
@@ -0,0 +1,69 @@
+package com.campus.marketplace.common.component;
+
+import com.campus.marketplace.event.GoodsChangedEvent;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@DisplayName("OrderTimeoutBulkCanceller 测试")
+class OrderTimeoutBulkCancellerTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private final NotificationDispatcher notificationDispatcher = mock(NotificationDispatcher.class);
+    private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+    private final OrderTimeoutBulkCanceller canceller = new OrderTimeoutBulkCanceller(
+            jdbcTemplate, transactionManager, notificationDispatcher, eventPublisher);
+
+    @Test
+    @SuppressWarnings("unchecked")
+    @DisplayName("按块提交：满块继续下一块，不满块结束；商品回退与通知按块批量处理")
+    void cancelExpired_processesChunksUntilShort() {
+        when(transactionManager.getTransaction(any())).thenReturn(mock(TransactionStatus.class));
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), any(), any(), any()))
+                .thenReturn(List.of(
+                        new OrderTimeoutBulkCanceller.CancelledOrder(1L, "ORD1", 11L, 100L, 200L),
+                        new OrderTimeoutBulkCanceller.CancelledOrder(2L, "ORD2", 12L, 101L, 200L)))
+                .thenReturn(List.of(
+                        new OrderTimeoutBulkCanceller.CancelledOrder(3L, "ORD3", 13L, 102L, 201L)));
+        when(jdbcTemplate.query(any(PreparedStatementCreator.class), any(RowMapper.class)))
+                .thenReturn(List.of(11L, 12L))
+                .thenReturn(List.of());
+
+        int cancelled = canceller.cancelExpired(LocalDateTime.now().minusMinutes(30), 2);
+
+        assertThat(cancelled).isEqualTo(3);
+        verify(transactionManager, times(2)).commit(any());
+        verify(eventPublisher, times(2)).publishEvent(any(GoodsChangedEvent.class));
+        ArgumentCaptor<List<NotificationDispatcher.Job>> jobs = ArgumentCaptor.forClass(List.class);
+        verify(notificationDispatcher, times(2)).enqueueAll(jobs.capture());
+        assertThat(jobs.getAllValues().get(0)).extracting(NotificationDispatcher.Job::getReceiverId)
+                .containsExactly(100L, 200L, 101L, 200L);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    @DisplayName("没有超时订单时只执行一次查询")
+    void cancelExpired_noBacklog() {
+        when(transactionManager.getTransaction(any())).thenReturn(mock(TransactionStatus.class));
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), any(), any(), any())).thenReturn(List.of());
+
+        assertThat(canceller.cancelExpired(LocalDateTime.now(), 500)).isZero();
+        verify(jdbcTemplate, never()).query(any(PreparedStatementCreator.class), any(RowMapper.class));
+        verifyNoInteractions(notificationDispatcher, eventPublisher);
+    }
+}
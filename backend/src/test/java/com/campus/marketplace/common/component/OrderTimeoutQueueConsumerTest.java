@@ -0,0 +1,36 @@
+package com.campus.marketplace.common.component;
+
+import com.campus.marketplace.service.OrderService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.mockito.Mockito.*;
+
+@DisplayName("OrderTimeoutQueueConsumer 测试")
+class OrderTimeoutQueueConsumerTest {
+
+    private final OrderTimeoutQueue timeoutQueue = mock(OrderTimeoutQueue.class);
+    private final OrderService orderService = mock(OrderService.class);
+    private final OrderTimeoutQueueConsumer consumer = new OrderTimeoutQueueConsumer(timeoutQueue, orderService);
+
+    @Test
+    @DisplayName("逐单取消：成功、跳过、失败分别记录")
+    void drain_handlesEachOrderIndependently() {
+        var cancelled = new OrderTimeoutQueue.DueOrder(1L, 0L);
+        var skipped = new OrderTimeoutQueue.DueOrder(2L, 0L);
+        var failed = new OrderTimeoutQueue.DueOrder(3L, 0L);
+        when(timeoutQueue.claimDue(100)).thenReturn(List.of(cancelled, skipped, failed));
+        when(orderService.cancelTimeoutOrder(1L)).thenReturn(true);
+        when(orderService.cancelTimeoutOrder(2L)).thenReturn(false);
+        when(orderService.cancelTimeoutOrder(3L)).thenThrow(new RuntimeException("db error"));
+
+        consumer.drain();
+
+        verify(timeoutQueue).markCancelled(cancelled);
+        verify(timeoutQueue).markSkipped();
+        verify(timeoutQueue).markFailed(failed);
+        verify(timeoutQueue, times(1)).claimDue(100);
+    }
+}
@@ -0,0 +1,79 @@
+package com.campus.marketplace.common.component;
+
+import com.campus.marketplace.common.config.properties.OrderProperties;
+import com.campus.marketplace.common.enums.OrderStatus;
+import com.campus.marketplace.common.utils.RedisScriptRegistry;
+import com.campus.marketplace.common.utils.RedisUtil;
+import com.campus.marketplace.repository.OrderRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@DisplayName("OrderTimeoutQueue 测试")
+class OrderTimeoutQueueTest {
+
+    private final OrderRepository orderRepository = mock(OrderRepository.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private OrderTimeoutQueue queue;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        RedisUtil redis = new RedisUtil(mock(ObjectProvider.class), mock(RedisScriptRegistry.class), "memory");
+        queue = new OrderTimeoutQueue(redis, orderRepository, new OrderProperties(), meterRegistry);
+    }
+
+    @Test
+    @DisplayName("只认领已到期订单，按截止时间升序且不会重复认领")
+    void claimDue_returnsExpiredInDeadlineOrderOnce() {
+        long now = System.currentTimeMillis();
+        queue.schedule(2L, now - 1_000);
+        queue.schedule(1L, now - 5_000);
+        queue.schedule(3L, now + 60_000);
+
+        List<OrderTimeoutQueue.DueOrder> due = queue.claimDue(10);
+
+        assertThat(due).extracting(OrderTimeoutQueue.DueOrder::orderId).containsExactly(1L, 2L);
+        assertThat(queue.claimDue(10)).isEmpty();
+        assertThat(meterRegistry.get("order.timeout.queue.size").gauge().value()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("失败订单延后重新入队，取消计入吞吐与延迟指标")
+    void markFailed_requeuesLater() {
+        long now = System.currentTimeMillis();
+        queue.schedule(1L, now - 2_000);
+        OrderTimeoutQueue.DueOrder due = queue.claimDue(10).get(0);
+
+        queue.markFailed(due);
+        queue.markCancelled(due);
+
+        assertThat(queue.claimDue(10)).isEmpty();
+        assertThat(queue.pendingSize()).isEqualTo(1);
+        assertThat(meterRegistry.get("order.timeout.processed").tag("result", "failed").counter().count()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("order.timeout.lag").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("启动重建：按创建时间+超时分钟登记待支付订单，重复执行幂等")
+    void recoverPendingOrders_isIdempotent() {
+        when(orderRepository.findIdAndCreatedAtByStatus(OrderStatus.PENDING_PAYMENT)).thenReturn(List.of(
+                new Object[]{10L, LocalDateTime.now().minusMinutes(40)},
+                new Object[]{11L, LocalDateTime.now()}));
+
+        queue.recoverPendingOrders();
+        queue.recoverPendingOrders();
+
+        assertThat(queue.pendingSize()).isEqualTo(2);
+        assertThat(queue.claimDue(10)).extracting(OrderTimeoutQueue.DueOrder::orderId).containsExactly(10L);
+    }
+}
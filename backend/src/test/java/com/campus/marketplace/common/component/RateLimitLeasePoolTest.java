@@ -0,0 +1,106 @@
+package com.campus.marketplace.common.component;
+
+import com.campus.marketplace.common.config.properties.RateLimitLocalProperties;
+import com.campus.marketplace.common.utils.RedisScriptRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+@DisplayName("RateLimitLeasePool 测试")
+class RateLimitLeasePoolTest {
+
+    private final LeaseRecordingTemplate redisTemplate = new LeaseRecordingTemplate();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    @SuppressWarnings("unchecked")
+    private final RedisScriptRegistry scriptRegistry = new RedisScriptRegistry(meterRegistry,
+            mock(ObjectProvider.class), "memory");
+    private final RateLimitLocalProperties properties = new RateLimitLocalProperties();
+    private final RateLimitLeasePool pool = new RateLimitLeasePool(redisTemplate, scriptRegistry, properties,
+            meterRegistry);
+
+    @Test
+    @DisplayName("阈值较大时按配置批量租约，租约用尽后续租")
+    void acquire_renewsWhenLeaseExhausted() {
+        redisTemplate.replies.add(List.of(2L, 10L, 0L));
+        redisTemplate.replies.add(List.of(2L, 12L, 0L));
+        long now = 1_000_000L;
+
+        assertThat(pool.acquire("k", 100, 60_000, now)).isEqualTo(new RateLimitLeasePool.Decision(true, 91));
+        assertThat(redisTemplate.lastArgs.get(3)).isEqualTo("20");
+        assertThat(pool.acquire("k", 100, 60_000, now)).isEqualTo(new RateLimitLeasePool.Decision(true, 90));
+        assertThat(redisTemplate.calls).isEqualTo(1);
+
+        assertThat(pool.acquire("k", 100, 60_000, now).allowed()).isTrue();
+        assertThat(redisTemplate.calls).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("阈值较小时每次只租 1 个额度，避免多节点预占")
+    void acquire_smallLimitLeasesOne() {
+        redisTemplate.replies.add(List.of(1L, 1L, 0L));
+
+        assertThat(pool.acquire("k", 5, 60_000, 1_000_000L)).isEqualTo(new RateLimitLeasePool.Decision(true, 4));
+        assertThat(redisTemplate.lastArgs.get(3)).isEqualTo("1");
+        assertThat(redisTemplate.lastKeys).containsExactly("k");
+    }
+
+    @Test
+    @DisplayName("租约过期后重新访问 Redis")
+    void acquire_expiredLeaseGoesRemote() {
+        redisTemplate.replies.add(List.of(5L, 5L, 0L));
+        redisTemplate.replies.add(List.of(5L, 10L, 0L));
+        long now = 1_000_000L;
+
+        pool.acquire("k", 100, 60_000, now);
+        pool.acquire("k", 100, 60_000, now + properties.getLeaseTtlMs());
+
+        assertThat(redisTemplate.calls).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("拒绝结果最晚保留到最早记录移出窗口")
+    void acquire_denialEndsWhenSlotFrees() {
+        long now = 1_000_000L;
+        redisTemplate.replies.add(List.of(0L, 5L, now + 200));
+        redisTemplate.replies.add(List.of(1L, 5L, now + 60_000));
+
+        assertThat(pool.acquire("k", 5, 60_000, now).allowed()).isFalse();
+        assertThat(pool.acquire("k", 5, 60_000, now + 100).allowed()).isFalse();
+        assertThat(redisTemplate.calls).isEqualTo(1);
+
+        assertThat(pool.acquire("k", 5, 60_000, now + 200).allowed()).isTrue();
+        assertThat(redisTemplate.calls).isEqualTo(2);
+        assertThat(meterRegistry.get("rate_limit.local").tag("result", "rejected").counter().count()).isEqualTo(1.0);
+    }
+
+    /**
+     * 记录脚本调用并按顺序返回预置结果
+     */
+    private static class LeaseRecordingTemplate extends StringRedisTemplate {
+
+        private final Deque<Object> replies = new ArrayDeque<>();
+        private List<String> lastKeys;
+        private List<Object> lastArgs;
+        private int calls;
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T execute(RedisScript<T> script, List<String> keys, Object... args) {
+            calls++;
+            lastKeys = keys;
+            lastArgs = Arrays.asList(args);
+            return (T) replies.poll();
+        }
+    }
+}
@@ -59,4 +59,16 @@ class RecommendSchedulerTest {
         verify(recommendService).refreshHotRanking(null, 20);
         verifyNoInteractions(campusRepository);
     }
+
+    @Test
+    @DisplayName("预计算任务委托给推荐服务，异常不外抛")
+    void precomputeJobs_shouldDelegateAndSwallowExceptions() {
+        doThrow(new IllegalStateException("db down")).when(recommendService).precomputeRecommendations();
+
+        scheduler.precomputeRecommendationsJob();
+        scheduler.refreshChangedRecommendationsJob();
+
+        verify(recommendService).precomputeRecommendations();
+        verify(recommendService).refreshChangedRecommendations();
+    }
 }
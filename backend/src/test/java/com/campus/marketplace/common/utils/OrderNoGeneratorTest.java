@@ -0,0 +1,86 @@
+package com.campus.marketplace.common.utils;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+@DisplayName("OrderNoGenerator 测试")
+class OrderNoGeneratorTest {
+
+    private RedisUtil redisUtil;
+    private final List<OrderNoGenerator> generators = new ArrayList<>();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        redisUtil = new RedisUtil(mock(ObjectProvider.class), mock(RedisScriptRegistry.class), "memory");
+    }
+
+    @AfterEach
+    void tearDown() {
+        generators.forEach(OrderNoGenerator::release);
+    }
+
+    private OrderNoGenerator start() {
+        OrderNoGenerator generator = new OrderNoGenerator(redisUtil);
+        generator.init();
+        generators.add(generator);
+        return generator;
+    }
+
+    @Test
+    @DisplayName("不同节点通过租约拿到不同节点号，订单号互不重复")
+    void init_assignsDistinctWorkerIds() {
+        OrderNoGenerator first = start();
+        OrderNoGenerator second = start();
+
+        assertThat(first.workerId()).isNotEqualTo(second.workerId());
+        assertThat(first.next()).startsWith("ORD").isNotEqualTo(second.next());
+    }
+
+    @Test
+    @DisplayName("租约被他人占用时续约会重新申请节点号")
+    void renewLease_reacquiresWhenLeaseLost() {
+        OrderNoGenerator generator = start();
+        int original = generator.workerId();
+        redisUtil.set(OrderNoGenerator.WORKER_KEY_PREFIX + original, "other-node");
+
+        generator.renewLease();
+
+        assertThat(generator.workerId()).isNotEqualTo(original);
+        assertThat(redisUtil.get(OrderNoGenerator.WORKER_KEY_PREFIX + original)).isEqualTo("other-node");
+    }
+
+    @Test
+    @DisplayName("续约只延长仍属于本节点的租约")
+    void renewLease_extendsOwnLease() {
+        OrderNoGenerator generator = start();
+        String key = OrderNoGenerator.WORKER_KEY_PREFIX + generator.workerId();
+        redisUtil.expire(key, 1, TimeUnit.SECONDS);
+
+        generator.renewLease();
+
+        assertThat(redisUtil.getExpire(key)).isGreaterThan(1L);
+        assertThat(generator.next()).startsWith("ORD");
+    }
+
+    @Test
+    @DisplayName("租约到期且未续上时拒绝生成订单号")
+    void next_failsAfterLeaseExpired() {
+        OrderNoGenerator generator = start();
+        ReflectionTestUtils.setField(generator, "leaseExpiresAt", System.currentTimeMillis() - 1);
+
+        assertThatThrownBy(generator::next).isInstanceOf(IllegalStateException.class);
+    }
+}
@@ -0,0 +1,85 @@
+package com.campus.marketplace.common.utils;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("OrderNoSequence 测试")
+class OrderNoSequenceTest {
+
+    private static final ZoneId ZONE = ZoneId.of("Asia/Shanghai");
+
+    @Test
+    @DisplayName("订单号包含可读的时间前缀、节点号与序号")
+    void next_formatsReadablePrefix() {
+        long millis = ZonedDateTime.of(2026, 10, 16, 9, 5, 7, 42_000_000, ZONE).toInstant().toEpochMilli();
+        OrderNoSequence sequence = new OrderNoSequence(() -> millis, ZONE);
+
+        assertThat(sequence.next(7)).isEqualTo("ORD20261016090507042" + "0007" + "0000");
+        assertThat(sequence.next(7)).isEqualTo("ORD20261016090507042" + "0007" + "0001");
+        assertThat(sequence.next(1023)).hasSize(OrderNoSequence.LENGTH);
+        assertThatThrownBy(() -> sequence.next(1024)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("毫秒内序号用尽或时钟回拨时借用下一毫秒，结果仍严格递增")
+    void nextPacked_staysMonotonicOnOverflowAndClockRollback() {
+        AtomicLong clock = new AtomicLong(1_000_000L);
+        OrderNoSequence sequence = new OrderNoSequence(clock::get, ZONE);
+
+        long previous = -1;
+        for (int i = 0; i <= OrderNoSequence.MAX_SEQUENCE + 10; i++) {
+            long packed = sequence.nextPacked();
+            assertThat(packed).isGreaterThan(previous);
+            previous = packed;
+        }
+        assertThat(previous >>> OrderNoSequence.SEQUENCE_BITS).isEqualTo(1_000_001L);
+
+        clock.set(900_000L);
+        assertThat(sequence.nextPacked()).isGreaterThan(previous);
+    }
+
+    @Test
+    @DisplayName("多线程并发生成：固定时钟下跨越多个毫秒也不重复")
+    void next_isUniqueUnderContention() throws Exception {
+        int threads = 16;
+        int perThread = 20_000;
+        OrderNoSequence sequence = new OrderNoSequence(() -> 1_760_000_000_000L, ZONE);
+        Set<String> seen = ConcurrentHashMap.newKeySet(threads * perThread);
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < perThread; i++) {
+                        seen.add(sequence.next(3));
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertThat(seen).hasSize(threads * perThread);
+    }
+}
@@ -0,0 +1,93 @@
+package com.campus.marketplace.common.utils;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.redis.RedisSystemException;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisScriptingCommands;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@DisplayName("RedisScriptRegistry 测试")
+class RedisScriptRegistryTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    @SuppressWarnings("unchecked")
+    private final ObjectProvider<RedisConnectionFactory> connectionFactoryProvider = mock(ObjectProvider.class);
+
+    @Test
+    @DisplayName("执行时复用同一个脚本实例并记录成功耗时")
+    @SuppressWarnings("unchecked")
+    void execute_reusesScriptAndRecordsSuccess() {
+        RedisScriptRegistry registry = new RedisScriptRegistry(meterRegistry, connectionFactoryProvider, "memory");
+        RedisTemplate<String, Object> template = mock(RedisTemplate.class);
+        when(template.execute(any(RedisScript.class), anyList(), any())).thenReturn(1L);
+
+        Long first = registry.execute(template, RedisScriptRegistry.CAMPAIGN_STOCK_DEDUCT, List.of("stock:1"), 2);
+        registry.execute(template, RedisScriptRegistry.CAMPAIGN_STOCK_DEDUCT, List.of("stock:1"), 2);
+
+        assertThat(first).isEqualTo(1L);
+        ArgumentCaptor<RedisScript> captor = ArgumentCaptor.forClass(RedisScript.class);
+        verify(template, times(2)).execute(captor.capture(), eq(List.of("stock:1")), eq(2));
+        assertThat(captor.getAllValues().get(0)).isSameAs(captor.getAllValues().get(1));
+        assertThat(captor.getValue().getScriptAsString()).contains("decrby");
+        assertThat(meterRegistry.get("redis.script").tag("script", "campaign_stock_deduct")
+                .tag("result", "success").timer().count()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("执行失败时记录失败耗时并原样抛出")
+    @SuppressWarnings("unchecked")
+    void execute_recordsErrorAndRethrows() {
+        RedisScriptRegistry registry = new RedisScriptRegistry(meterRegistry, connectionFactoryProvider, "memory");
+        RedisTemplate<String, Object> template = mock(RedisTemplate.class);
+        when(template.execute(any(RedisScript.class), anyList(), any())).thenThrow(new RedisSystemException("down", null));
+
+        assertThatThrownBy(() -> registry.execute(template, RedisScriptRegistry.CAMPAIGN_STOCK_DEDUCT,
+                List.of("stock:1"), 1)).isInstanceOf(RedisSystemException.class);
+        assertThat(meterRegistry.get("redis.script").tag("script", "campaign_stock_deduct")
+                .tag("result", "error").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Redis 模式下预加载全部脚本并归还连接")
+    void preload_loadsEveryScript() {
+        RedisConnectionFactory connectionFactory = mock(RedisConnectionFactory.class);
+        RedisConnection connection = mock(RedisConnection.class);
+        RedisScriptingCommands scriptingCommands = mock(RedisScriptingCommands.class);
+        when(connectionFactoryProvider.getIfAvailable()).thenReturn(connectionFactory);
+        when(connectionFactory.getConnection()).thenReturn(connection);
+        when(connection.scriptingCommands()).thenReturn(scriptingCommands);
+        when(scriptingCommands.scriptLoad(any(byte[].class))).thenReturn("sha");
+        RedisScriptRegistry registry = new RedisScriptRegistry(meterRegistry, connectionFactoryProvider, "redis");
+
+        registry.preload();
+
+        verify(scriptingCommands, times(11)).scriptLoad(any(byte[].class));
+        verify(connection).close();
+    }
+
+    @Test
+    @DisplayName("memory 模式下跳过预加载")
+    void preload_skippedInMemoryMode() {
+        RedisConnectionFactory connectionFactory = mock(RedisConnectionFactory.class);
+        when(connectionFactoryProvider.getIfAvailable()).thenReturn(connectionFactory);
+        RedisScriptRegistry registry = new RedisScriptRegistry(meterRegistry, connectionFactoryProvider, "memory");
+
+        registry.preload();
+
+        verifyNoInteractions(connectionFactory);
+    }
+}
@@ -94,6 +94,7 @@ class NotificationTemplateAdminControllerTest {
         ArgumentCaptor<NotificationTemplate> captor = ArgumentCaptor.forClass(NotificationTemplate.class);
         verify(repository).save(captor.capture());
         assertThat(captor.getValue().getCode()).isEqualTo("NEW_MESSAGE");
+        verify(templateService).invalidate();
     }
 
     @Test
@@ -104,6 +105,7 @@ class NotificationTemplateAdminControllerTest {
                 .andExpect(status().isOk());
 
         verify(repository).deleteById(9L);
+        verify(templateService).invalidate();
     }
 
     @Test
@@ -1,5 +1,6 @@
 package com.campus.marketplace.controller;
 
+import com.campus.marketplace.common.component.GoodsPurchaseGate;
 import com.campus.marketplace.common.config.JwtAuthenticationFilter;
 import com.campus.marketplace.common.dto.request.CreateOrderRequest;
 import com.campus.marketplace.common.dto.response.OrderResponse;
@@ -21,6 +22,7 @@ import org.springframework.test.web.servlet.MockMvc;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Supplier;
 
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.verify;
@@ -47,12 +49,17 @@ class OrderControllerMockMvcTest {
     @MockBean
     private OrderService orderService;
 
+    @MockBean
+    private GoodsPurchaseGate purchaseGate;
+
     @Test
     @DisplayName("POST /api/orders -> 创建订单返回订单号")
     @WithMockUser(roles = "STUDENT")
     void createOrder_returnsOrderNo() throws Exception {
         CreateOrderRequest request = new CreateOrderRequest(12345L, 888L);
         when(orderService.createOrder(request)).thenReturn("O202510270001");
+        when(purchaseGate.place(eq(12345L), any())).thenAnswer(invocation ->
+                invocation.<Supplier<String>>getArgument(1).get());
 
         mockMvc.perform(post("/orders")
                         .contentType("application/json")
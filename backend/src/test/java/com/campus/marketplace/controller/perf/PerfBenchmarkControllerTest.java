@@ -0,0 +1,175 @@
+package com.campus.marketplace.controller.perf;
+
+import com.campus.marketplace.common.dto.response.ApiResponse;
+import com.campus.marketplace.common.exception.ErrorCode;
+import com.campus.marketplace.service.perf.BenchmarkReport;
+import com.campus.marketplace.service.perf.CouponClaimBenchmarkService;
+import com.campus.marketplace.service.perf.NotificationTemplateBenchmarkService;
+import com.campus.marketplace.service.perf.OrderNoBenchmarkService;
+import com.campus.marketplace.service.perf.OrderPlacementBenchmarkService;
+import com.campus.marketplace.service.perf.RateLimitBenchmarkService;
+import com.campus.marketplace.service.perf.RecommendBenchmarkService;
+import com.campus.marketplace.service.perf.SearchBenchmarkService;
+import com.campus.marketplace.service.perf.WebSocketSessionBenchmarkService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("PerfBenchmarkController 测试")
+class PerfBenchmarkControllerTest {
+
+    @Mock
+    private SearchBenchmarkService searchBenchmarkService;
+
+    @Mock
+    private RecommendBenchmarkService recommendBenchmarkService;
+
+    @Mock
+    private OrderNoBenchmarkService orderNoBenchmarkService;
+
+    @Mock
+    private OrderPlacementBenchmarkService orderPlacementBenchmarkService;
+
+    @Mock
+    private CouponClaimBenchmarkService couponClaimBenchmarkService;
+
+    @Mock
+    private RateLimitBenchmarkService rateLimitBenchmarkService;
+
+    @Mock
+    private NotificationTemplateBenchmarkService notificationTemplateBenchmarkService;
+
+    @Mock
+    private WebSocketSessionBenchmarkService webSocketSessionBenchmarkService;
+
+    private PerfBenchmarkController controller;
+
+    @BeforeEach
+    void setUp() {
+        controller = new PerfBenchmarkController(searchBenchmarkService, recommendBenchmarkService,
+                orderNoBenchmarkService, orderPlacementBenchmarkService,
+                couponClaimBenchmarkService, rateLimitBenchmarkService, notificationTemplateBenchmarkService,
+                webSocketSessionBenchmarkService);
+    }
+
+    @Test
+    @DisplayName("benchmarkGoodsSearch 透传规模与迭代次数并返回报告")
+    void benchmarkGoodsSearch_shouldReturnReports() {
+        BenchmarkReport report = BenchmarkReport.of("keyword-first-page", new long[]{3_000_000L, 1_000_000L, 2_000_000L},
+                6_000_000L, Map.of("rows", 10_000));
+        when(searchBenchmarkService.benchmarkGoodsSearch(List.of(10_000), 3)).thenReturn(List.of(report));
+
+        ApiResponse<List<BenchmarkReport>> response = controller.benchmarkGoodsSearch(List.of(10_000), 3);
+
+        assertThat(response.getCode()).isEqualTo(ErrorCode.SUCCESS.getCode());
+        assertThat(response.getData()).singleElement().satisfies(r -> {
+            assertThat(r.iterations()).isEqualTo(3);
+            assertThat(r.p50Ms()).isEqualTo(2.0);
+            assertThat(r.maxMs()).isEqualTo(3.0);
+            assertThat(r.opsPerSecond()).isEqualTo(500.0);
+        });
+        verify(searchBenchmarkService).benchmarkGoodsSearch(List.of(10_000), 3);
+    }
+
+    @Test
+    @DisplayName("benchmarkUserSimilarity 透传用户规模与迭代次数")
+    void benchmarkUserSimilarity_shouldDelegate() {
+        BenchmarkReport report = BenchmarkReport.of("cf-topk", new long[]{1_000_000L}, 1_000_000L, Map.of("users", 10_000));
+        when(recommendBenchmarkService.benchmarkUserSimilarity(List.of(10_000), 1)).thenReturn(List.of(report));
+
+        ApiResponse<List<BenchmarkReport>> response = controller.benchmarkUserSimilarity(List.of(10_000), 1);
+
+        assertThat(response.getData()).extracting(BenchmarkReport::scenario).containsExactly("cf-topk");
+        verify(recommendBenchmarkService).benchmarkUserSimilarity(List.of(10_000), 1);
+    }
+
+    @Test
+    @DisplayName("benchmarkOrderNo 透传线程数与单线程生成数量")
+    void benchmarkOrderNo_shouldDelegate() {
+        BenchmarkReport report = BenchmarkReport.of("orderno-cas-sequence", new long[]{100L}, 100L,
+                Map.of("threads", 8, "duplicates", 0));
+        when(orderNoBenchmarkService.benchmarkOrderNo(List.of(8), 1000)).thenReturn(List.of(report));
+
+        ApiResponse<List<BenchmarkReport>> response = controller.benchmarkOrderNo(List.of(8), 1000);
+
+        assertThat(response.getData()).extracting(BenchmarkReport::scenario).containsExactly("orderno-cas-sequence");
+        verify(orderNoBenchmarkService).benchmarkOrderNo(List.of(8), 1000);
+    }
+
+    @Test
+    @DisplayName("benchmarkPlacementContention 透传买家数与模拟事务耗时")
+    void benchmarkPlacementContention_shouldDelegate() {
+        BenchmarkReport report = BenchmarkReport.of("placement-redis-gate", new long[]{100L}, 100L,
+                Map.of("buyers", 300, "winners", 1));
+        when(orderPlacementBenchmarkService.benchmarkContention(List.of(300), 20)).thenReturn(List.of(report));
+
+        ApiResponse<List<BenchmarkReport>> response = controller.benchmarkPlacementContention(List.of(300), 20);
+
+        assertThat(response.getData()).extracting(BenchmarkReport::scenario).containsExactly("placement-redis-gate");
+        verify(orderPlacementBenchmarkService).benchmarkContention(List.of(300), 20);
+    }
+
+    @Test
+    @DisplayName("benchmarkCouponClaim 透传线程数、库存与请求数")
+    void benchmarkCouponClaim_shouldDelegate() {
+        BenchmarkReport report = BenchmarkReport.of("coupon-claim-engine", new long[]{100L}, 100L,
+                Map.of("claimed", 1000L, "oversold", 0L));
+        when(couponClaimBenchmarkService.benchmarkClaim(List.of(64), 1000, 20000)).thenReturn(List.of(report));
+
+        ApiResponse<List<BenchmarkReport>> response = controller.benchmarkCouponClaim(List.of(64), 1000, 20000);
+
+        assertThat(response.getData()).singleElement()
+                .satisfies(r -> assertThat(r.attributes()).containsEntry("oversold", 0L));
+        verify(couponClaimBenchmarkService).benchmarkClaim(List.of(64), 1000, 20000);
+    }
+
+    @Test
+    @DisplayName("benchmarkRateLimitAlgorithms 透传目标速率、时长与线程数")
+    void benchmarkRateLimitAlgorithms_shouldDelegate() {
+        BenchmarkReport report = BenchmarkReport.of("rate-limit-sliding-window-counter", new long[]{100L}, 100L,
+                Map.of("memoryBytesPerLimitKey", 112L));
+        when(rateLimitBenchmarkService.benchmarkAlgorithms(10000, 5, 32)).thenReturn(List.of(report));
+
+        ApiResponse<List<BenchmarkReport>> response = controller.benchmarkRateLimitAlgorithms(10000, 5, 32);
+
+        assertThat(response.getData()).extracting(BenchmarkReport::scenario)
+                .containsExactly("rate-limit-sliding-window-counter");
+        verify(rateLimitBenchmarkService).benchmarkAlgorithms(10000, 5, 32);
+    }
+
+    @Test
+    @DisplayName("benchmarkTemplateRender 透传渲染次数")
+    void benchmarkTemplateRender_shouldDelegate() {
+        BenchmarkReport report = BenchmarkReport.of("template-render-compiled", new long[]{100L}, 100L,
+                Map.of("templates", 7));
+        when(notificationTemplateBenchmarkService.benchmarkRender(1000)).thenReturn(List.of(report));
+
+        ApiResponse<List<BenchmarkReport>> response = controller.benchmarkTemplateRender(1000);
+
+        assertThat(response.getData()).extracting(BenchmarkReport::scenario).containsExactly("template-render-compiled");
+        verify(notificationTemplateBenchmarkService).benchmarkRender(1000);
+    }
+
+    @Test
+    @DisplayName("benchmarkWebSocketSessions 透传连接数与设备数")
+    void benchmarkWebSocketSessions_shouldDelegate() {
+        BenchmarkReport report = BenchmarkReport.of("ws-registry-register", new long[]{100L}, 100L,
+                Map.of("connections", 1000));
+        when(webSocketSessionBenchmarkService.benchmarkRegistry(1000, 2)).thenReturn(List.of(report));
+
+        ApiResponse<List<BenchmarkReport>> response = controller.benchmarkWebSocketSessions(1000, 2);
+
+        assertThat(response.getData()).extracting(BenchmarkReport::scenario).containsExactly("ws-registry-register");
+        verify(webSocketSessionBenchmarkService).benchmarkRegistry(1000, 2);
+    }
+}
@@ -0,0 +1,57 @@
+package com.campus.marketplace.recommend;
+
+import com.campus.marketplace.common.config.RecommendConfigProperties;
+import com.campus.marketplace.common.utils.RedisScriptRegistry;
+import com.campus.marketplace.common.utils.RedisUtil;
+import com.campus.marketplace.event.GoodsEngagementEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * 商品实时热度榜测试（内存模式 RedisUtil）
+ *
+ * @author BaSui
+ * @date 2026-10-16
+ */
+@DisplayName("商品实时热度榜测试")
+class GoodsPopularityLeaderboardTest {
+
+    private GoodsPopularityLeaderboard leaderboard;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        RedisUtil redis = new RedisUtil(mock(ObjectProvider.class), mock(RedisScriptRegistry.class), "memory");
+        leaderboard = new GoodsPopularityLeaderboard(redis, new RecommendConfigProperties());
+    }
+
+    @Test
+    @DisplayName("按互动权重累加，校区榜与全局榜分别排名")
+    void record_ranksByWeightedEngagement() {
+        leaderboard.record(1L, 10L, GoodsEngagementEvent.EngagementType.VIEW);
+        leaderboard.record(1L, 10L, GoodsEngagementEvent.EngagementType.VIEW);
+        leaderboard.record(2L, 10L, GoodsEngagementEvent.EngagementType.ORDER);
+        leaderboard.record(3L, 20L, GoodsEngagementEvent.EngagementType.FAVORITE);
+
+        assertThat(leaderboard.top(10L, 10)).containsExactly(2L, 1L);
+        assertThat(leaderboard.top(20L, 10)).containsExactly(3L);
+        assertThat(leaderboard.top(null, 10)).containsExactly(2L, 3L, 1L);
+    }
+
+    @Test
+    @DisplayName("移除后不再出现在榜单中")
+    void remove_dropsGoodsFromAllScopes() {
+        leaderboard.record(1L, 10L, GoodsEngagementEvent.EngagementType.ORDER);
+        leaderboard.record(2L, 10L, GoodsEngagementEvent.EngagementType.VIEW);
+
+        leaderboard.remove(1L, 10L);
+
+        assertThat(leaderboard.top(10L, 10)).containsExactly(2L);
+        assertThat(leaderboard.top(null, 10)).containsExactly(2L);
+    }
+}
@@ -0,0 +1,73 @@
+package com.campus.marketplace.recommend;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * 相似商品索引测试
+ *
+ * @author BaSui
+ * @date 2026-10-16
+ */
+@DisplayName("相似商品索引测试")
+class ItemSimilarityIndexTest {
+
+    @Test
+    @DisplayName("同分类、价格接近、标题相同的商品排在最前，低于阈值的不返回")
+    void similarTo_ranksByCategoryPriceAndTitle() {
+        ItemSimilarityIndex index = new ItemSimilarityIndex(64);
+        index.upsert(1L, 10L, 100, Set.of("机械", "键盘"));
+        index.upsert(2L, 10L, 100, Set.of("机械", "键盘"));
+        index.upsert(3L, 10L, 150, Set.of("蓝牙", "耳机"));
+        index.upsert(4L, 20L, 100, Set.of("机械", "键盘"));
+        index.upsert(5L, 20L, 5000, Set.of("自行车"));
+
+        ItemSimilarityIndex.Neighbors neighbors = index.similarTo(1L, 10, 0.3);
+
+        assertThat(neighbors.ids()).containsExactly(2L, 3L, 4L);
+        assertThat(neighbors.scores()[0]).isCloseTo(1.0f, within(1e-6f));
+        // 0.5（同分类）+ 0.3 × (1 - 50/125)，标题无交集
+        assertThat(neighbors.scores()[1]).isCloseTo(0.68f, within(1e-3f));
+        // 0.3（同价）+ 0.2（同标题）
+        assertThat(neighbors.scores()[2]).isCloseTo(0.5f, within(1e-6f));
+    }
+
+    @Test
+    @DisplayName("Top-K 截断后仍按相似度降序")
+    void similarTo_keepsTopK() {
+        ItemSimilarityIndex index = new ItemSimilarityIndex(32);
+        index.upsert(0L, 1L, 100, Set.of());
+        for (long id = 1; id <= 50; id++) {
+            index.upsert(id, 1L, 100 + id, Set.of());
+        }
+
+        ItemSimilarityIndex.Neighbors neighbors = index.similarTo(0L, 3, 0.3);
+
+        assertThat(neighbors.ids()).containsExactly(1L, 2L, 3L);
+        assertThat(neighbors.scores()[0]).isGreaterThan(neighbors.scores()[1]);
+    }
+
+    @Test
+    @DisplayName("更新与删除后查询结果同步变化，未收录的商品返回 null")
+    void upsertAndRemove_areVisibleToQueries() {
+        ItemSimilarityIndex index = new ItemSimilarityIndex(32);
+        index.upsert(1L, 10L, 100, List.of("相机"));
+        index.upsert(2L, 10L, 100, List.of("相机"));
+        index.upsert(3L, 10L, 100, List.of("镜头"));
+
+        index.upsert(2L, 99L, 9999, List.of("冰箱"));
+        assertThat(index.similarTo(1L, 5, 0.3).ids()).containsExactly(3L);
+
+        index.remove(3L);
+        assertThat(index.similarTo(1L, 5, 0.3).ids()).isEmpty();
+        assertThat(index.size()).isEqualTo(2);
+        assertThat(index.slotCount()).isEqualTo(4);
+        assertThat(index.similarTo(3L, 5, 0.3)).isNull();
+    }
+}
@@ -0,0 +1,96 @@
+package com.campus.marketplace.recommend;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * 用户相似度引擎测试
+ *
+ * @author BaSui
+ * @date 2026-10-16
+ */
+@DisplayName("用户相似度引擎测试")
+class UserSimilarityEngineTest {
+
+    private static final UserSimilarityEngine.Options OPTIONS = new UserSimilarityEngine.Options(20, 0.1, 0);
+
+    @Test
+    @DisplayName("构建矩阵时合并同一用户对同一商品的多次行为")
+    void build_mergesDuplicateEntries() {
+        SparseRatingMatrix matrix = SparseRatingMatrix.builder()
+                .add(7L, 100L, 1f)
+                .add(7L, 100L, 5f)
+                .add(3L, 200L, 2f)
+                .build();
+
+        assertThat(matrix.userCount()).isEqualTo(2);
+        assertThat(matrix.itemCount()).isEqualTo(2);
+        assertThat(matrix.nonZeros()).isEqualTo(2);
+        int row = matrix.rowOf(7L);
+        assertThat(matrix.value(matrix.rowStart(row))).isEqualTo(6f);
+    }
+
+    @Test
+    @DisplayName("余弦相似度与手工计算一致，无共现的用户不产生候选")
+    void computeTopK_matchesCosine() {
+        SparseRatingMatrix matrix = SparseRatingMatrix.builder()
+                .add(1L, 10L, 1f).add(1L, 11L, 2f)
+                .add(2L, 10L, 2f).add(2L, 11L, 4f)
+                .add(3L, 10L, 5f).add(3L, 12L, 1f)
+                .add(4L, 99L, 1f)
+                .build();
+
+        UserSimilarityEngine.Neighbors[] result =
+                UserSimilarityEngine.computeTopK(matrix, OPTIONS, ForkJoinPool.commonPool());
+
+        UserSimilarityEngine.Neighbors user1 = result[matrix.rowOf(1L)];
+        assertThat(user1.size()).isEqualTo(2);
+        assertThat(matrix.userId(user1.rows()[0])).isEqualTo(2L);
+        assertThat((double) user1.scores()[0]).isCloseTo(1.0, within(1e-6));
+        assertThat(user1.commonItems()[0]).isEqualTo(2);
+        // (1*5) / (sqrt(5) * sqrt(26))
+        assertThat(matrix.userId(user1.rows()[1])).isEqualTo(3L);
+        assertThat((double) user1.scores()[1]).isCloseTo(5 / (Math.sqrt(5) * Math.sqrt(26)), within(1e-6));
+
+        assertThat(result[matrix.rowOf(4L)].size()).isZero();
+    }
+
+    @Test
+    @DisplayName("Top-K 截断并按相似度降序")
+    void computeTopK_keepsTopK() {
+        SparseRatingMatrix.Builder builder = SparseRatingMatrix.builder();
+        builder.add(1L, 1L, 1f).add(1L, 2L, 1f).add(1L, 3L, 1f);
+        // 用户 2..4 与用户 1 的共同商品数依次为 3、2、1
+        for (long other = 2; other <= 4; other++) {
+            for (long item = 1; item <= 5 - other; item++) {
+                builder.add(other, item, 1f);
+            }
+            builder.add(other, 100 + other, 1f);
+        }
+
+        UserSimilarityEngine.Neighbors[] result = UserSimilarityEngine.computeTopK(
+                builder.build(), new UserSimilarityEngine.Options(2, 0.0, 0), ForkJoinPool.commonPool());
+
+        UserSimilarityEngine.Neighbors user1 = result[0];
+        assertThat(user1.commonItems()).containsExactly(3, 2);
+        assertThat(user1.scores()[0]).isGreaterThan(user1.scores()[1]);
+    }
+
+    @Test
+    @DisplayName("爆款商品超过用户数上限时不参与共现展开")
+    void computeTopK_skipsPopularItems() {
+        SparseRatingMatrix matrix = SparseRatingMatrix.builder()
+                .add(1L, 10L, 1f).add(2L, 10L, 1f).add(3L, 10L, 1f)
+                .build();
+
+        UserSimilarityEngine.Neighbors[] result = UserSimilarityEngine.computeTopK(
+                matrix, new UserSimilarityEngine.Options(20, 0.1, 2), ForkJoinPool.commonPool());
+
+        assertThat(result).allSatisfy(neighbors -> assertThat(neighbors.size()).isZero());
+    }
+}
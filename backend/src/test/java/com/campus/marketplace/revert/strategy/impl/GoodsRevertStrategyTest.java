@@ -6,6 +6,7 @@ import com.campus.marketplace.common.entity.Goods;
 import com.campus.marketplace.common.enums.AuditActionType;
 import com.campus.marketplace.common.enums.AuditEntityType;
 import com.campus.marketplace.common.enums.GoodsStatus;
+import com.campus.marketplace.event.GoodsChangedEvent;
 import com.campus.marketplace.repository.GoodsRepository;
 import com.campus.marketplace.revert.dto.RevertExecutionResult;
 import com.campus.marketplace.revert.dto.RevertValidationResult;
@@ -18,6 +19,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -54,6 +56,9 @@ class GoodsRevertStrategyTest {
     @Mock
     private CacheService cacheService;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private GoodsRevertStrategy goodsRevertStrategy;
 
@@ -233,6 +238,9 @@ class GoodsRevertStrategyTest {
             g.getId().equals(100L) &&
             g.getStatus() == GoodsStatus.OFFLINE // 恢复后状态为下线
         ));
+        // 验证通知检索索引等派生数据
+        verify(eventPublisher).publishEvent(argThat(event -> event instanceof GoodsChangedEvent changed
+            && changed.getGoodsId().equals(100L)));
     }
 
     @Test
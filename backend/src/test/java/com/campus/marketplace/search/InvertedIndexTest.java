@@ -0,0 +1,98 @@
+package com.campus.marketplace.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 内存倒排索引测试
+ *
+ * @author BaSui
+ * @date 2026-10-16
+ */
+@DisplayName("内存倒排索引测试")
+class InvertedIndexTest {
+
+    private InvertedIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new InvertedIndex();
+        index.upsert(doc(1L, "二手耳机", 1L, 10L), Set.of("二手", "耳机"));
+        index.upsert(doc(2L, "蓝牙耳机", 2L, 10L, 20L), Set.of("蓝牙", "耳机"));
+        index.upsert(doc(3L, "二手教材", 1L), Set.of("二手", "教材"));
+    }
+
+    @Test
+    @DisplayName("多词检索取交集，新文档优先")
+    void search_intersectsTermsNewestFirst() {
+        InvertedIndex.Hits hits = index.search(Set.of("耳机"), null, null, 0, 10);
+
+        assertThat(hits.total()).isEqualTo(2);
+        assertThat(ids(hits)).containsExactly(2L, 1L);
+        assertThat(ids(index.search(Set.of("二手", "耳机"), null, null, 0, 10))).containsExactly(1L);
+        assertThat(index.search(Set.of("二手", "不存在"), null, null, 0, 10).total()).isZero();
+    }
+
+    @Test
+    @DisplayName("校区与标签位图过滤")
+    void search_filtersByCampusAndTags() {
+        assertThat(ids(index.search(Set.of("耳机"), 1L, null, 0, 10))).containsExactly(1L);
+        assertThat(ids(index.search(Set.of("耳机"), null, List.of(10L, 20L), 0, 10))).containsExactly(2L);
+        assertThat(index.search(Set.of("耳机"), 99L, null, 0, 10).total()).isZero();
+    }
+
+    @Test
+    @DisplayName("分页返回总数与当前页")
+    void search_pagesResults() {
+        InvertedIndex.Hits hits = index.search(Set.of("耳机"), null, null, 1, 1);
+
+        assertThat(hits.total()).isEqualTo(2);
+        assertThat(ids(hits)).containsExactly(1L);
+    }
+
+    @Test
+    @DisplayName("更新替换旧词元，删除后不再命中")
+    void upsertAndRemove_updateVisibility() {
+        index.upsert(doc(1L, "二手键盘", 1L), Set.of("二手", "键盘"));
+
+        assertThat(ids(index.search(Set.of("耳机"), null, null, 0, 10))).containsExactly(2L);
+        assertThat(ids(index.search(Set.of("二手"), null, null, 0, 10))).containsExactly(1L, 3L);
+        assertThat(index.size()).isEqualTo(3);
+        assertThat(index.ordinalCount()).isEqualTo(4);
+
+        index.remove(3L);
+
+        assertThat(index.contains(3L)).isFalse();
+        assertThat(ids(index.search(Set.of("二手"), null, null, 0, 10))).containsExactly(1L);
+    }
+
+    @Test
+    @DisplayName("倒排链游标跳跃定位")
+    void postingList_cursorAdvance() {
+        PostingList list = new PostingList();
+        for (int ordinal : new int[]{3, 7, 130, 20000}) {
+            list.append(ordinal);
+        }
+        PostingList.Cursor cursor = list.cursor();
+
+        assertThat(list.toArray()).containsExactly(3, 7, 130, 20000);
+        assertThat(cursor.advance(5)).isEqualTo(7);
+        assertThat(cursor.advance(130)).isEqualTo(130);
+        assertThat(cursor.advance(20001)).isEqualTo(-1);
+    }
+
+    private static IndexedDocument doc(long id, String title, Long campusId, long... tagIds) {
+        return new IndexedDocument(id, title, title, BigDecimal.TEN, campusId, tagIds);
+    }
+
+    private static List<Long> ids(InvertedIndex.Hits hits) {
+        return hits.documents().stream().map(IndexedDocument::id).toList();
+    }
+}
@@ -0,0 +1,151 @@
+package com.campus.marketplace.search;
+
+import com.campus.marketplace.common.config.properties.SearchWriteBehindProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 搜索行为异步落库测试
+ *
+ * @author BaSui
+ * @date 2026-10-16
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("搜索行为异步落库测试")
+class SearchActivityRecorderTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private SimpleMeterRegistry meterRegistry;
+    private SearchActivityRecorder recorder;
+
+    @BeforeEach
+    void setUp() {
+        SearchWriteBehindProperties properties = new SearchWriteBehindProperties();
+        properties.setQueueCapacity(2);
+        properties.setBatchSize(10);
+        properties.setMaxPendingKeywords(2);
+        meterRegistry = new SimpleMeterRegistry();
+        recorder = new SearchActivityRecorder(jdbcTemplate, properties, meterRegistry);
+    }
+
+    @Test
+    @DisplayName("同一热词多次计数合并为一条 UPSERT，换代后下个周期落库")
+    @SuppressWarnings("unchecked")
+    void keywordCountsAreCoalesced() {
+        recorder.incrementKeyword("手机");
+        recorder.incrementKeyword("手机");
+        recorder.incrementKeyword("耳机");
+
+        recorder.flush();
+        verify(jdbcTemplate, never()).batchUpdate(contains("t_search_keyword"), anyList());
+
+        recorder.flush();
+        ArgumentCaptor<List<Object[]>> captor = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(contains("ON CONFLICT (keyword)"), captor.capture());
+        List<Object[]> args = captor.getValue();
+        assertThat(args).hasSize(2);
+        assertThat(args.get(0)[0]).isEqualTo("手机");
+        assertThat(args.get(0)[1]).isEqualTo(2L);
+        assertThat(args.get(1)[0]).isEqualTo("耳机");
+        assertThat(args.get(1)[1]).isEqualTo(1L);
+    }
+
+    @Test
+    @DisplayName("队列满时丢弃并计数，刷盘按批插入")
+    void queueOverflowIsDroppedAndCounted() {
+        recorder.recordLog("alice", "手机", 1L, 3);
+        recorder.recordLog("bob", "耳机", 1L, 0);
+        recorder.recordLog("carol", "键盘", 1L, 5);
+        recorder.recordHistory(7L, "手机", 3, false);
+
+        recorder.flush();
+
+        verify(jdbcTemplate).batchUpdate(contains("t_search_log"), anyList());
+        verify(jdbcTemplate).batchUpdate(contains("t_search_history"), anyList());
+        assertThat(meterRegistry.get("search.writebehind.dropped").tag("type", "log").counter().count())
+                .isEqualTo(1.0);
+        assertThat(meterRegistry.get("search.writebehind.flushed").counter().count()).isEqualTo(3.0);
+    }
+
+    @Test
+    @DisplayName("超过关键词聚合上限的新词被丢弃")
+    void keywordLimitDropsNewKeys() {
+        recorder.incrementKeyword("a");
+        recorder.incrementKeyword("b");
+        recorder.incrementKeyword("c");
+        recorder.incrementKeyword("a");
+
+        assertThat(meterRegistry.get("search.writebehind.dropped").tag("type", "keyword").counter().count())
+                .isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("关闭时落库全部缓冲")
+    void shutdownFlushesEverything() {
+        recorder.incrementKeyword("手机");
+        recorder.recordHistory(7L, "手机", 3, false);
+
+        recorder.shutdown();
+
+        verify(jdbcTemplate, times(1)).batchUpdate(contains("t_search_keyword"), anyList());
+        verify(jdbcTemplate, times(1)).batchUpdate(eq(
+                "INSERT INTO t_search_history (user_id, keyword, result_count, has_click, created_at, updated_at, deleted) " +
+                "VALUES (?, ?, ?, ?, ?, ?, false)"), anyList());
+    }
+
+    @Test
+    @DisplayName("超长关键词按列长截断，空关键词不入队")
+    @SuppressWarnings("unchecked")
+    void longKeywordsAreTruncated() {
+        recorder.recordHistory(7L, "机".repeat(150), 3, false);
+        recorder.recordHistory(8L, "  ", 0, false);
+
+        recorder.flush();
+
+        ArgumentCaptor<List<Object[]>> captor = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(contains("t_search_history"), captor.capture());
+        assertThat(captor.getValue()).hasSize(1);
+        assertThat((String) captor.getValue().get(0)[1]).hasSize(SearchActivityRecorder.KEYWORD_MAX_LENGTH);
+    }
+
+    @Test
+    @DisplayName("整批失败时逐行重试，只丢弃写不进去的行")
+    void batchFailureRetriesRowByRow() {
+        when(jdbcTemplate.batchUpdate(contains("t_search_history"), anyList()))
+                .thenThrow(new DataIntegrityViolationException("batch failed"));
+        when(jdbcTemplate.update(contains("t_search_history"), any(Object[].class)))
+                .thenThrow(new DataIntegrityViolationException("bad row"))
+                .thenReturn(1);
+        recorder.recordHistory(7L, "手机", 3, false);
+        recorder.recordHistory(8L, "耳机", 1, false);
+
+        recorder.flush();
+
+        verify(jdbcTemplate, times(2)).update(contains("t_search_history"), any(Object[].class));
+        assertThat(meterRegistry.get("search.writebehind.dropped").tag("type", "rejected").counter().count())
+                .isEqualTo(1.0);
+        assertThat(meterRegistry.get("search.writebehind.flushed").counter().count()).isEqualTo(1.0);
+    }
+}
@@ -0,0 +1,123 @@
+package com.campus.marketplace.search;
+
+import com.campus.marketplace.common.config.properties.SearchIndexProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 内存检索索引服务测试
+ *
+ * @author BaSui
+ * @date 2026-10-16
+ */
+@DisplayName("内存检索索引服务测试")
+class SearchIndexServiceTest {
+
+    private final SearchTokenizer tokenizer = mock(SearchTokenizer.class);
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<Runnable> submitted = new ArrayList<>();
+    private SearchIndexService service;
+
+    @BeforeEach
+    void setUp() {
+        SearchIndexProperties properties = new SearchIndexProperties();
+        properties.setEnabled(true);
+        service = new SearchIndexService(jdbcTemplate, tokenizer, properties, submitted::add,
+                meterRegistry);
+        ReflectionTestUtils.setField(service, "ready", true);
+    }
+
+    @Test
+    @DisplayName("关键词分词后为空时回落数据库，而不是返回 0 条")
+    void search_fallsBackWhenKeywordHasNoTerms() {
+        when(tokenizer.tokenize(anyString())).thenReturn(new LinkedHashSet<>());
+
+        assertThat(service.searchGoods("的了", null, null, 0, 10)).isEmpty();
+        assertThat(service.searchPosts("！！", null, 0, 10)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("影子比对在后台执行，名额用完时跳过采样")
+    void shadowCheckAsync_runsInBackgroundWithBoundedConcurrency() {
+        service.shadowCheckAsync("goods", "耳机", 1, () -> 2);
+        service.shadowCheckAsync("goods", "耳机", 1, () -> 1);
+        service.shadowCheckAsync("goods", "耳机", 1, () -> 1);
+
+        assertThat(submitted).hasSize(2);
+        assertThat(meterRegistry.get("search.index.shadow.checks").counter().count()).isZero();
+
+        submitted.forEach(Runnable::run);
+
+        assertThat(meterRegistry.get("search.index.shadow.checks").counter().count()).isEqualTo(2.0);
+        assertThat(meterRegistry.get("search.index.shadow.mismatches").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("一致性校验触发的重建提交到后台，重建进行中不重复提交")
+    void rebuildAsync_submitsOnce() {
+        service.rebuildAsync();
+        service.rebuildAsync();
+
+        assertThat(submitted).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("同一商品的回查串行执行：旧状态不会在删除之后写回索引")
+    void reindexGoods_serializesSameDocument() throws Exception {
+        when(tokenizer.tokenize(any())).thenAnswer(invocation -> new LinkedHashSet<>(Set.of("耳机")));
+        ResultSet staleRow = mock(ResultSet.class);
+        when(staleRow.getString("title")).thenReturn("蓝牙耳机");
+        when(staleRow.getString("body")).thenReturn("九成新");
+        when(staleRow.getLong("id")).thenReturn(1L);
+        CountDownLatch staleRead = new CountDownLatch(1);
+        CountDownLatch releaseStale = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+        doAnswer(invocation -> {
+            if (calls.incrementAndGet() == 1) {
+                // 第一次回查读到下架前的旧状态，写索引前被挂起
+                staleRead.countDown();
+                releaseStale.await(5, TimeUnit.SECONDS);
+                invocation.<RowCallbackHandler>getArgument(1).processRow(staleRow);
+            }
+            // 第二次回查：商品已下架，查无结果
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class), eq(1L));
+
+        Thread stale = Thread.ofVirtual().start(() -> service.reindexGoods(1L));
+        assertThat(staleRead.await(5, TimeUnit.SECONDS)).isTrue();
+        Thread removal = Thread.ofVirtual().start(() -> service.reindexGoods(1L));
+        while (removal.getState() != Thread.State.WAITING && removal.getState() != Thread.State.TERMINATED) {
+            Thread.onSpinWait();
+        }
+        releaseStale.countDown();
+        stale.join();
+        removal.join();
+
+        InvertedIndex goodsIndex = (InvertedIndex) ReflectionTestUtils.getField(service, "goodsIndex");
+        assertThat(calls).hasValue(2);
+        assertThat(goodsIndex.size()).isZero();
+    }
+}
@@ -0,0 +1,63 @@
+package com.campus.marketplace.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 搜索建议前缀树测试
+ *
+ * @author BaSui
+ * @date 2026-10-16
+ */
+@DisplayName("搜索建议前缀树测试")
+class SuggestionTrieTest {
+
+    private SuggestionTrie trie;
+
+    @BeforeEach
+    void setUp() {
+        // 按热度倒序
+        trie = SuggestionTrie.build(List.of("手机", "二手手机", "手表", "iPhone 15", "手机壳"), 10);
+    }
+
+    @Test
+    @DisplayName("原文前缀按热度返回")
+    void complete_byOriginalPrefix() {
+        assertThat(trie.complete("手", 10)).containsExactly("手机", "手表", "手机壳");
+        assertThat(trie.complete("手机", 1)).containsExactly("手机");
+    }
+
+    @Test
+    @DisplayName("全拼与首字母前缀")
+    void complete_byPinyinAndInitials() {
+        assertThat(trie.complete("shouji", 10)).containsExactly("手机", "手机壳");
+        assertThat(trie.complete("sj", 10)).containsExactly("手机", "手机壳");
+        assertThat(trie.complete("essj", 10)).containsExactly("二手手机");
+    }
+
+    @Test
+    @DisplayName("忽略大小写与空白")
+    void complete_normalizesInput() {
+        assertThat(trie.complete("IPH", 10)).containsExactly("iPhone 15");
+        assertThat(trie.complete("iphone 1", 10)).containsExactly("iPhone 15");
+    }
+
+    @Test
+    @DisplayName("无匹配或空前缀返回空列表")
+    void complete_noMatch() {
+        assertThat(trie.complete("xyz", 10)).isEmpty();
+        assertThat(trie.complete("  ", 10)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("热门词取前 N")
+    void top_returnsMostPopular() {
+        assertThat(trie.top(2)).containsExactly("手机", "二手手机");
+        assertThat(trie.size()).isEqualTo(5);
+    }
+}
@@ -1,5 +1,6 @@
 package com.campus.marketplace.service;
 
+import com.campus.marketplace.common.component.CouponClaimEngine;
 import com.campus.marketplace.common.entity.Coupon;
 import com.campus.marketplace.common.entity.CouponUserRelation;
 import com.campus.marketplace.common.enums.CouponStatus;
@@ -14,10 +15,15 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.*;
@@ -34,6 +40,12 @@ class CouponServiceTest {
     @Mock
     private CouponUserRelationRepository relationRepository;
 
+    @Mock
+    private CouponClaimEngine couponClaimEngine;
+
+    @Spy
+    private TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+
     @InjectMocks
     private CouponServiceImpl couponService;
 
@@ -131,6 +143,23 @@ class CouponServiceTest {
                 .hasMessageContaining("已达领取上限");
     }
 
+    @Test
+    @DisplayName("领取优惠券-限领为0时不可领取，为null时不限")
+    void receiveCoupon_LimitZeroBlocksAndNullUnlimited() {
+        testCoupon.setLimitPerUser(0);
+        when(couponRepository.findById(1L)).thenReturn(Optional.of(testCoupon));
+        when(relationRepository.countByUserIdAndCouponId(1L, 1L)).thenReturn(0L);
+
+        assertThatThrownBy(() -> couponService.receiveCoupon(1L, 1L))
+                .isInstanceOf(BusinessException.class)
+                .hasMessageContaining("已达领取上限");
+
+        testCoupon.setLimitPerUser(null);
+        when(relationRepository.save(any(CouponUserRelation.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        assertThat(couponService.receiveCoupon(1L, 1L)).isNotNull();
+    }
+
     @Test
     @DisplayName("领取优惠券失败-库存不足")
     void receiveCoupon_NoStock() {
@@ -142,6 +171,56 @@ class CouponServiceTest {
                 .hasMessageContaining("优惠券已领完");
     }
 
+    @Test
+    @DisplayName("领取引擎-命中时不访问数据库，返回待落库的领取记录")
+    void receiveCoupon_Engine_Claimed() {
+        LocalDateTime expireAt = testCoupon.getEndTime();
+        when(couponClaimEngine.isEnabled()).thenReturn(true);
+        when(couponClaimEngine.claim(1L, 1L))
+                .thenReturn(new CouponClaimEngine.ClaimResult(CouponClaimEngine.Status.CLAIMED, expireAt));
+
+        CouponUserRelation result = couponService.receiveCoupon(1L, 1L);
+
+        assertThat(result.getId()).isNull();
+        assertThat(result.getStatus()).isEqualTo(CouponStatus.AVAILABLE);
+        assertThat(result.getExpireTime()).isEqualTo(expireAt);
+        verifyNoInteractions(couponRepository, relationRepository);
+    }
+
+    @Test
+    @DisplayName("领取引擎-券未加载时按已落库记录加载后重试")
+    void receiveCoupon_Engine_LoadsOnMiss() {
+        when(couponClaimEngine.isEnabled()).thenReturn(true);
+        when(couponClaimEngine.claim(1L, 1L))
+                .thenReturn(new CouponClaimEngine.ClaimResult(CouponClaimEngine.Status.NOT_LOADED, null))
+                .thenReturn(new CouponClaimEngine.ClaimResult(CouponClaimEngine.Status.CLAIMED, testCoupon.getEndTime()));
+        when(couponRepository.findById(1L)).thenReturn(Optional.of(testCoupon));
+        when(relationRepository.countByCouponIdGroupByUser(1L)).thenReturn(List.<Object[]>of(new Object[]{2L, 1L}));
+
+        CouponUserRelation result = couponService.receiveCoupon(1L, 1L);
+
+        assertThat(result.getUserId()).isEqualTo(1L);
+        verify(couponClaimEngine).load(testCoupon, Map.of(2L, 1L));
+        verify(couponClaimEngine, times(2)).claim(1L, 1L);
+        verify(relationRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("领取引擎-已领完与已达上限映射为业务异常")
+    void receiveCoupon_Engine_Rejected() {
+        when(couponClaimEngine.isEnabled()).thenReturn(true);
+        when(couponClaimEngine.claim(1L, 1L))
+                .thenReturn(new CouponClaimEngine.ClaimResult(CouponClaimEngine.Status.SOLD_OUT, testCoupon.getEndTime()))
+                .thenReturn(new CouponClaimEngine.ClaimResult(CouponClaimEngine.Status.LIMIT_REACHED, testCoupon.getEndTime()));
+
+        assertThatThrownBy(() -> couponService.receiveCoupon(1L, 1L))
+                .isInstanceOf(BusinessException.class)
+                .hasMessageContaining("优惠券已领完");
+        assertThatThrownBy(() -> couponService.receiveCoupon(1L, 1L))
+                .isInstanceOf(BusinessException.class)
+                .hasMessageContaining("已达领取上限");
+    }
+
     @Test
     @DisplayName("使用优惠券成功")
     void useCoupon_Success() {
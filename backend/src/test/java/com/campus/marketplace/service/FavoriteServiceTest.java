@@ -9,6 +9,7 @@ import com.campus.marketplace.common.enums.GoodsStatus;
 import com.campus.marketplace.common.enums.UserStatus;
 import com.campus.marketplace.common.exception.BusinessException;
 import com.campus.marketplace.common.exception.ErrorCode;
+import com.campus.marketplace.event.GoodsEngagementEvent;
 import com.campus.marketplace.repository.CategoryRepository;
 import com.campus.marketplace.repository.FavoriteRepository;
 import com.campus.marketplace.repository.GoodsRepository;
@@ -25,6 +26,7 @@ import org.mockito.MockedStatic;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import static org.mockito.Mockito.mockStatic;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
@@ -61,6 +63,9 @@ class FavoriteServiceTest {
     @Mock
     private CategoryRepository categoryRepository;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private FavoriteServiceImpl favoriteService;
 
@@ -135,6 +140,9 @@ class FavoriteServiceTest {
         verify(goodsRepository).save(argThat(goods ->
                 goods.getFavoriteCount() == 6  // 原来是 5，增加 1
         ));
+        verify(eventPublisher).publishEvent(argThat(event -> event instanceof GoodsEngagementEvent engagement
+                && engagement.getGoodsId().equals(1L)
+                && engagement.getEngagementType() == GoodsEngagementEvent.EngagementType.FAVORITE));
     }
 
     @Test
@@ -151,7 +151,7 @@ class FollowServiceImplTest {
     }
 
     @Test
-    @DisplayName("商品审核通过会通知所有关注者")
+    @DisplayName("商品审核通过会一次批量通知所有关注者")
     void notifyFollowersOnGoodsApproved_sendsNotifications() {
         Goods goods = Goods.builder().title("MacBook Air").sellerId(20L).build();
         goods.setId(88L);
@@ -162,8 +162,8 @@ class FollowServiceImplTest {
 
         followService.notifyFollowersOnGoodsApproved(goods);
 
-        verify(notificationService, times(2)).sendNotification(
-                anyLong(),
+        verify(notificationService).sendNotificationBulk(
+                eq(List.of(1L, 2L)),
                 eq(NotificationType.FOLLOW_SELLER_NEW_GOODS),
                 anyString(),
                 contains("MacBook Air"),
@@ -1,16 +1,21 @@
 package com.campus.marketplace.service;
 
+import com.campus.marketplace.common.component.CampaignStockEngine;
 import com.campus.marketplace.common.entity.MarketingCampaign;
 import com.campus.marketplace.common.exception.BusinessException;
+import com.campus.marketplace.common.utils.RedisScriptRegistry;
 import com.campus.marketplace.repository.MarketingCampaignRepository;
 import com.campus.marketplace.service.impl.MarketingCampaignServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.core.ValueOperations;
 
@@ -19,6 +24,7 @@ import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Function;
 
 import static org.assertj.core.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -40,9 +46,17 @@ class MarketingCampaignServiceTest {
     @Mock
     private RedisTemplate<String, Object> redisTemplate;
 
+    @Spy
+    @SuppressWarnings("unchecked")
+    private RedisScriptRegistry scriptRegistry = new RedisScriptRegistry(new SimpleMeterRegistry(),
+            mock(ObjectProvider.class), "memory");
+
     @Mock
     private ValueOperations<String, Object> valueOperations;
 
+    @Mock
+    private CampaignStockEngine campaignStockEngine;
+
     @InjectMocks
     private MarketingCampaignServiceImpl marketingCampaignService;
 
@@ -341,6 +355,85 @@ class MarketingCampaignServiceTest {
         assertThat(result).isFalse();
     }
 
+    @Test
+    @DisplayName("秒杀预留 - 状态走本地缓存，库存走 Redis 预留，不查库")
+    void testDeductStock_ReservationEngine() {
+        // Arrange
+        when(campaignStockEngine.isEnabled()).thenReturn(true);
+        when(campaignStockEngine.cachedStatus(eq(1L), any())).thenReturn("RUNNING");
+        when(campaignStockEngine.reserve(1L, 2)).thenReturn(CampaignStockEngine.Status.RESERVED);
+
+        // Act
+        boolean result = marketingCampaignService.deductStock(1L, 2);
+
+        // Assert
+        assertThat(result).isTrue();
+        verifyNoInteractions(marketingCampaignRepository);
+        verify(redisTemplate, never()).execute(any(), anyList(), any());
+    }
+
+    @Test
+    @DisplayName("秒杀预留 - 未加载时按数据库剩余库存加载后重试")
+    void testDeductStock_ReservationLoadsOnFirstUse() {
+        // Arrange
+        testCampaign.setStatus("RUNNING");
+        when(campaignStockEngine.isEnabled()).thenReturn(true);
+        when(campaignStockEngine.cachedStatus(eq(1L), any()))
+                .thenAnswer(i -> i.<Function<Long, String>>getArgument(1).apply(1L));
+        when(marketingCampaignRepository.findById(1L)).thenReturn(Optional.of(testCampaign));
+        when(campaignStockEngine.reserve(1L, 1))
+                .thenReturn(CampaignStockEngine.Status.NOT_LOADED, CampaignStockEngine.Status.RESERVED);
+
+        // Act
+        boolean result = marketingCampaignService.deductStock(1L, 1);
+
+        // Assert
+        assertThat(result).isTrue();
+        verify(campaignStockEngine).load(testCampaign);
+        verify(campaignStockEngine, times(2)).reserve(1L, 1);
+    }
+
+    @Test
+    @DisplayName("秒杀预留 - 售罄返回 false")
+    void testDeductStock_ReservationSoldOut() {
+        // Arrange
+        when(campaignStockEngine.isEnabled()).thenReturn(true);
+        when(campaignStockEngine.cachedStatus(eq(1L), any())).thenReturn("RUNNING");
+        when(campaignStockEngine.reserve(1L, 1)).thenReturn(CampaignStockEngine.Status.SOLD_OUT);
+
+        // Act & Assert
+        assertThat(marketingCampaignService.deductStock(1L, 1)).isFalse();
+    }
+
+    @Test
+    @DisplayName("秒杀预留 - 其他节点已暂停时失效本地缓存并拒绝")
+    void testDeductStock_ReservationPausedElsewhere() {
+        // Arrange
+        when(campaignStockEngine.isEnabled()).thenReturn(true);
+        when(campaignStockEngine.cachedStatus(eq(1L), any())).thenReturn("RUNNING");
+        when(campaignStockEngine.reserve(1L, 1)).thenReturn(CampaignStockEngine.Status.NOT_RUNNING);
+
+        // Act & Assert
+        assertThatThrownBy(() -> marketingCampaignService.deductStock(1L, 1))
+                .isInstanceOf(BusinessException.class)
+                .hasMessageContaining("活动未在进行中");
+        verify(campaignStockEngine).invalidate(1L);
+    }
+
+    @Test
+    @DisplayName("暂停活动 - 同步秒杀预留状态")
+    void testPauseCampaign_SyncsReservationEngine() {
+        // Arrange
+        testCampaign.setStatus("RUNNING");
+        when(marketingCampaignRepository.findById(1L)).thenReturn(Optional.of(testCampaign));
+
+        // Act
+        marketingCampaignService.pauseCampaign(1L);
+
+        // Assert
+        verify(campaignStockEngine).statusChanged(1L, false);
+    }
+
     @Test
     @DisplayName("自动更新活动状态 - 启动和结束")
     void testAutoUpdateCampaignStatus() {
@@ -11,6 +11,7 @@ import com.campus.marketplace.repository.ConversationRepository;
 import com.campus.marketplace.repository.MessageRepository;
 import com.campus.marketplace.repository.UserRepository;
 import com.campus.marketplace.service.impl.MessageServiceImpl;
+import com.campus.marketplace.websocket.WebSocketClusterRouter;
 import com.campus.marketplace.websocket.WebSocketSessionManager;
 import org.junit.jupiter.api.*;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -41,6 +42,7 @@ class MessageServiceCampusTest {
     @Mock private RedisTemplate<String, Object> redisTemplate;
     @Mock private ValueOperations<String, Object> valueOperations;
     @Mock private ObjectMapper objectMapper;
+    @Mock private WebSocketClusterRouter clusterRouter;
 
     @InjectMocks private MessageServiceImpl messageService;
 
@@ -18,6 +18,7 @@ import com.campus.marketplace.repository.MessageRepository;
 import com.campus.marketplace.repository.UserRepository;
 import com.campus.marketplace.service.ComplianceService.TextResult;
 import com.campus.marketplace.service.impl.MessageServiceImpl;
+import com.campus.marketplace.websocket.WebSocketClusterRouter;
 import com.campus.marketplace.websocket.WebSocketSessionManager;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.AfterEach;
@@ -38,8 +39,6 @@ import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.core.ValueOperations;
-import org.springframework.web.socket.TextMessage;
-import org.springframework.web.socket.WebSocketSession;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -65,6 +64,7 @@ class MessageServiceImplTest {
     @Mock private RedisTemplate<String, Object> redisTemplate;
     @Mock private ValueOperations<String, Object> valueOperations;
     @Mock private ObjectMapper objectMapper;
+    @Mock private WebSocketClusterRouter clusterRouter;
 
     @InjectMocks
     private MessageServiceImpl messageService;
@@ -113,17 +113,15 @@ class MessageServiceImplTest {
         });
         when(conversationRepository.save(any(Conversation.class))).thenReturn(conversation);
 
-        WebSocketSession session = mock(WebSocketSession.class);
-        when(sessionManager.getSession(2L)).thenReturn(session);
-        when(session.isOpen()).thenReturn(true);
         when(objectMapper.writeValueAsString(any())).thenReturn("{}");
+        when(clusterRouter.send(sessionManager, 2L, "{}")).thenReturn(true);
 
         Long messageId = messageService.sendMessage(new SendMessageRequest(2L, MessageType.TEXT, "你好"));
 
         assertThat(messageId).isEqualTo(200L);
         verify(valueOperations).increment("msg:unread:2");
         verify(redisTemplate).expire(eq("msg:unread:2"), any());
-        verify(session).sendMessage(isA(TextMessage.class));
+        verify(clusterRouter).send(sessionManager, 2L, "{}");
 
         ArgumentCaptor<Message> messageCaptor = ArgumentCaptor.forClass(Message.class);
         verify(messageRepository).save(messageCaptor.capture());
@@ -14,6 +14,7 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.time.LocalTime;
+import java.util.List;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -66,4 +67,34 @@ class NotificationPreferenceServiceImplTest {
         verify(unsubRepo).deleteByUserIdAndTemplateCodeAndChannel(1L, "ORDER_PAID", NotificationChannel.EMAIL);
         assertThat(service.isUnsubscribed(1L, "ORDER_PAID", NotificationChannel.EMAIL)).isFalse();
     }
+
+    @Test
+    @DisplayName("findUnsubscribed: 一次查询按渠道分组退订用户")
+    void findUnsubscribed_groupsByChannel() {
+        List<Long> users = List.of(1L, 2L, 3L);
+        when(unsubRepo.findByTemplateCodeAndUserIdIn("GOODS_APPROVED", users)).thenReturn(List.of(
+                NotificationUnsubscribe.builder().userId(1L).templateCode("GOODS_APPROVED").channel(NotificationChannel.EMAIL).build(),
+                NotificationUnsubscribe.builder().userId(2L).templateCode("GOODS_APPROVED").channel(NotificationChannel.IN_APP).build()));
+
+        var result = service.findUnsubscribed(users, "GOODS_APPROVED");
+
+        assertThat(result.get(NotificationChannel.EMAIL)).containsExactly(1L);
+        assertThat(result.get(NotificationChannel.IN_APP)).containsExactly(2L);
+        assertThat(result.get(NotificationChannel.WEB_PUSH)).isEmpty();
+        verify(unsubRepo, never()).existsByUserIdAndTemplateCodeAndChannel(anyLong(), anyString(), any());
+    }
+
+    @Test
+    @DisplayName("findMuted: 关闭渠道或处于静默时段的用户被过滤")
+    void findMuted_disabledOrQuiet() {
+        List<Long> users = List.of(1L, 2L, 3L);
+        when(prefRepo.findByChannelAndUserIdIn(NotificationChannel.EMAIL, users)).thenReturn(List.of(
+                NotificationPreference.builder().userId(1L).channel(NotificationChannel.EMAIL).enabled(false).build(),
+                NotificationPreference.builder().userId(2L).channel(NotificationChannel.EMAIL).enabled(true)
+                        .quietStart(LocalTime.of(22, 0)).quietEnd(LocalTime.of(7, 0)).build(),
+                NotificationPreference.builder().userId(3L).channel(NotificationChannel.EMAIL).enabled(true).build()));
+
+        assertThat(service.findMuted(users, NotificationChannel.EMAIL, LocalTime.of(23, 0))).containsExactlyInAnyOrder(1L, 2L);
+        assertThat(service.findMuted(users, NotificationChannel.EMAIL, LocalTime.of(12, 0))).containsExactly(1L);
+    }
 }
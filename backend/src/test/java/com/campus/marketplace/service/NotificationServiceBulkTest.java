@@ -0,0 +1,154 @@
+package com.campus.marketplace.service;
+
+import com.campus.marketplace.common.component.NotificationChannelLimiter;
+import com.campus.marketplace.common.entity.User;
+import com.campus.marketplace.common.enums.NotificationChannel;
+import com.campus.marketplace.common.enums.NotificationType;
+import com.campus.marketplace.repository.NotificationRepository;
+import com.campus.marketplace.repository.UserRepository;
+import com.campus.marketplace.service.impl.NotificationServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.env.Environment;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.LongStream;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("通知批量扇出测试")
+class NotificationServiceBulkTest {
+
+    @Mock
+    NotificationRepository notificationRepository;
+    @Mock
+    UserRepository userRepository;
+    @Mock
+    EmailTemplateService emailTemplateService;
+    @Mock
+    RedisTemplate<String, Object> redisTemplate;
+    @Mock
+    NotificationPreferenceService preferenceService;
+    @Mock
+    WebPushService webPushService;
+    @Mock
+    NotificationTemplateService templateService;
+    @Mock
+    Environment environment;
+    @Mock
+    NotificationChannelLimiter channelLimiter;
+    @Mock
+    JdbcTemplate jdbcTemplate;
+
+    @InjectMocks
+    NotificationServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(service, "emailPerMinute", 20);
+        lenient().when(jdbcTemplate.update(any(PreparedStatementCreator.class))).thenReturn(1);
+        lenient().when(preferenceService.findUnsubscribed(anyCollection(), anyString())).thenReturn(unsubscribed(Map.of()));
+    }
+
+    private static Map<NotificationChannel, Set<Long>> unsubscribed(Map<NotificationChannel, Set<Long>> given) {
+        Map<NotificationChannel, Set<Long>> result = new EnumMap<>(NotificationChannel.class);
+        for (NotificationChannel channel : NotificationChannel.values()) {
+            result.put(channel, new HashSet<>(given.getOrDefault(channel, Set.of())));
+        }
+        return result;
+    }
+
+    @Test
+    @DisplayName("站内信按批一条 SQL 写入，退订按批一次查询，未读数走管道")
+    void sendNotificationBulk_batchesPerChunk() {
+        List<Long> receivers = LongStream.rangeClosed(1, 2500).boxed().toList();
+
+        service.sendNotificationBulk(receivers, NotificationType.FOLLOW_SELLER_NEW_GOODS, "t", "c", 1L, "GOODS", "/goods/1");
+
+        verify(preferenceService, times(3)).findUnsubscribed(anyCollection(), eq("FOLLOW_SELLER_NEW_GOODS"));
+        verify(jdbcTemplate, times(3)).update(any(PreparedStatementCreator.class));
+        verify(redisTemplate, times(3)).executePipelined(any(SessionCallback.class));
+        verify(preferenceService, never()).isUnsubscribed(anyLong(), anyString(), any());
+        verifyNoInteractions(notificationRepository, channelLimiter);
+    }
+
+    @Test
+    @DisplayName("重复接收者去重，全部退订站内信时不写库")
+    void sendNotificationBulk_skipsUnsubscribed() {
+        when(preferenceService.findUnsubscribed(anyCollection(), anyString()))
+                .thenReturn(unsubscribed(Map.of(NotificationChannel.IN_APP, Set.of(1L, 2L))));
+
+        service.sendNotificationBulk(List.of(1L, 2L, 1L), NotificationType.SYSTEM_ANNOUNCEMENT, "t", "c", null, null, null);
+
+        verify(preferenceService).findUnsubscribed(eq(List.of(1L, 2L)), anyString());
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    @DisplayName("模板只渲染一次，邮件过滤静默与超限用户，WebPush 跳过退订用户")
+    void sendTemplateNotificationBulk_rendersOnceAndFiltersChannels() {
+        when(templateService.render(eq("GOODS_APPROVED"), any(Locale.class), anyMap()))
+                .thenReturn(new NotificationTemplateService.Rendered("标题", "内容",
+                        EnumSet.of(NotificationChannel.IN_APP, NotificationChannel.EMAIL, NotificationChannel.WEB_PUSH)));
+        when(preferenceService.findUnsubscribed(anyCollection(), anyString()))
+                .thenReturn(unsubscribed(Map.of(NotificationChannel.WEB_PUSH, Set.of(3L))));
+        when(preferenceService.findMuted(eq(List.of(1L, 2L, 3L)), eq(NotificationChannel.EMAIL), any()))
+                .thenReturn(Set.of(1L));
+        when(redisTemplate.executePipelined(any(SessionCallback.class)))
+                .thenReturn(List.of())
+                .thenReturn(List.of(1L, 21L));
+        when(userRepository.findAllById(List.of(2L)))
+                .thenReturn(List.of(User.builder().id(2L).email("u2@campus.edu").build()));
+
+        service.sendTemplateNotificationBulk(List.of(1L, 2L, 3L), "GOODS_APPROVED", Map.of("goodsTitle", "iPad"),
+                NotificationType.GOODS_APPROVED, 9L, "GOODS", "/goods/9");
+
+        verify(templateService, times(1)).render(anyString(), any(), anyMap());
+        verify(jdbcTemplate).update(any(PreparedStatementCreator.class));
+        verify(userRepository).findAllById(List.of(2L));
+        verify(channelLimiter, times(1)).runAsync(eq(NotificationChannel.EMAIL), any());
+        verify(channelLimiter, times(2)).runAsync(eq(NotificationChannel.WEB_PUSH), any());
+    }
+
+    @Test
+    @DisplayName("事务中扇出时 WebPush 在事务提交后才发送")
+    void fanOut_defersExternalSendsUntilCommit() {
+        when(templateService.render(eq("GOODS_APPROVED"), any(Locale.class), anyMap()))
+                .thenReturn(new NotificationTemplateService.Rendered("标题", "内容",
+                        EnumSet.of(NotificationChannel.WEB_PUSH)));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            service.sendTemplateNotificationBulk(List.of(1L, 2L), "GOODS_APPROVED", Map.of(),
+                    NotificationType.GOODS_APPROVED, 9L, "GOODS", "/goods/9");
+            verifyNoInteractions(channelLimiter);
+
+            List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+            synchronizations.forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        verify(channelLimiter, times(2)).runAsync(eq(NotificationChannel.WEB_PUSH), any());
+    }
+}
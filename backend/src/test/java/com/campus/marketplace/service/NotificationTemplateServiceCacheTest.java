@@ -0,0 +1,97 @@
+package com.campus.marketplace.service;
+
+import com.campus.marketplace.common.entity.NotificationTemplate;
+import com.campus.marketplace.common.enums.NotificationChannel;
+import com.campus.marketplace.common.exception.BusinessException;
+import com.campus.marketplace.repository.NotificationTemplateRepository;
+import com.campus.marketplace.service.impl.NotificationTemplateServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.MessageSource;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("通知模板编译缓存测试")
+class NotificationTemplateServiceCacheTest {
+
+    @Mock
+    NotificationTemplateRepository repo;
+
+    @Mock
+    MessageSource messageSource;
+
+    NotificationTemplateServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        service = new NotificationTemplateServiceImpl(repo, messageSource);
+        NotificationTemplate tpl = NotificationTemplate.builder()
+                .code("ORDER_PAID")
+                .titleKey("t")
+                .contentKey("c")
+                .channels(" IN_APP, EMAIL ,")
+                .build();
+        lenient().when(repo.findByCode("ORDER_PAID")).thenReturn(Optional.of(tpl));
+        lenient().when(messageSource.getMessage(eq("t"), isNull(), any(Locale.class))).thenReturn("订单已支付 {orderNo}");
+        lenient().when(messageSource.getMessage(eq("c"), isNull(), any(Locale.class)))
+                .thenReturn("订单 {orderNo}「{goodsTitle}」{missing} {} {a{b} 结束");
+    }
+
+    @Test
+    @DisplayName("单次遍历替换占位符，缺少参数与非法占位符原样保留")
+    void render_substitutesInSinglePass() {
+        var rendered = service.render("ORDER_PAID", Locale.SIMPLIFIED_CHINESE,
+                Map.of("orderNo", "A001", "goodsTitle", "iPhone"));
+
+        assertThat(rendered.title()).isEqualTo("订单已支付 A001");
+        assertThat(rendered.content()).isEqualTo("订单 A001「iPhone」{missing} {} {a{b} 结束");
+        assertThat(rendered.channels()).containsExactlyInAnyOrder(NotificationChannel.IN_APP, NotificationChannel.EMAIL);
+    }
+
+    @Test
+    @DisplayName("同一 (code, locale) 只编译一次，不同 locale 分别编译")
+    void render_compilesOncePerCodeAndLocale() {
+        service.render("ORDER_PAID", Locale.SIMPLIFIED_CHINESE, Map.of("orderNo", "1"));
+        service.render("ORDER_PAID", Locale.SIMPLIFIED_CHINESE, Map.of("orderNo", "2"));
+        service.render("ORDER_PAID", Locale.US, Map.of("orderNo", "3"));
+
+        verify(repo, times(2)).findByCode("ORDER_PAID");
+        verify(messageSource, times(2)).getMessage(eq("t"), isNull(), any(Locale.class));
+    }
+
+    @Test
+    @DisplayName("模板修改后清空编译缓存，下次渲染重新加载")
+    void invalidate_reloadsTemplate() {
+        service.render("ORDER_PAID", Locale.SIMPLIFIED_CHINESE, Map.of());
+
+        service.invalidate();
+        service.render("ORDER_PAID", Locale.SIMPLIFIED_CHINESE, Map.of());
+
+        verify(repo, times(2)).findByCode("ORDER_PAID");
+    }
+
+    @Test
+    @DisplayName("模板不存在时抛出异常且不缓存")
+    void render_missingTemplateIsNotCached() {
+        when(repo.findByCode("UNKNOWN")).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> service.render("UNKNOWN", Locale.US, Map.of())).isInstanceOf(BusinessException.class);
+        assertThatThrownBy(() -> service.render("UNKNOWN", Locale.US, Map.of())).isInstanceOf(BusinessException.class);
+
+        verify(repo, times(2)).findByCode("UNKNOWN");
+    }
+}
@@ -37,6 +37,10 @@ class OrderCampusIsolationTest {
     @Mock private PaymentService paymentService;
     @Mock private com.campus.marketplace.repository.ReviewRepository reviewRepository;
     @Mock private com.campus.marketplace.common.utils.SensitiveWordFilter sensitiveWordFilter;
+    @Mock private org.springframework.context.ApplicationEventPublisher eventPublisher;
+    @Mock private com.campus.marketplace.common.component.OrderTimeoutQueue orderTimeoutQueue;
+    @Mock private com.campus.marketplace.common.utils.OrderNoGenerator orderNoGenerator;
+    @Mock private com.campus.marketplace.common.config.properties.OrderProperties orderProperties;
 
     @InjectMocks private OrderServiceImpl orderService;
 
@@ -109,6 +113,8 @@ class OrderCampusIsolationTest {
         securityUtilMock.when(() -> com.campus.marketplace.common.utils.SecurityUtil.hasAuthority("system:campus:cross"))
                 .thenReturn(true);
 
+        when(orderNoGenerator.next()).thenReturn("ORD2026101612000012300070001");
+
         String orderNo = orderService.createOrder(new CreateOrderRequest(100L, null));
         assertThat(orderNo).isNotBlank();
         verify(orderRepository).save(any(Order.class));
@@ -51,6 +51,7 @@ class OrderServicePayAndCallbackTest {
     @Mock private AuditLogService auditLogService;
     @Mock private com.campus.marketplace.repository.CouponUserRelationRepository couponUserRelationRepository;
     @Mock private com.campus.marketplace.service.CouponService couponService;
+    @Mock private org.springframework.context.ApplicationEventPublisher eventPublisher;
 
     @InjectMocks
     private OrderServiceImpl orderService;
@@ -180,9 +181,45 @@ class OrderServicePayAndCallbackTest {
         Order order = newPendingOrder();
         when(orderRepository.findByOrderNo("O1")).thenReturn(Optional.of(order));
 
+        when(orderRepository.markPaidIfPending(eq(10L), any())).thenReturn(1);
+
         PaymentCallbackRequest req = new PaymentCallbackRequest("O1", "T1", new BigDecimal("100"), "SUCCESS", "sig");
         boolean ok = orderService.handlePaymentCallback(req, true);
         assertThat(ok).isTrue();
-        verify(orderRepository, atLeastOnce()).save(argThat(o -> o.getStatus() == OrderStatus.PAID));
+        verify(orderRepository).markPaidIfPending(eq(10L), any());
+        verify(orderRepository, never()).save(any(Order.class));
+    }
+
+    @Test
+    @DisplayName("handlePaymentCallback 与超时取消并发：条件更新落空且已取消时原路退款")
+    void callback_lostRaceToTimeoutCancel_refunds() {
+        Order order = newPendingOrder();
+        order.setPaymentMethod("ALIPAY");
+        when(orderRepository.findByOrderNo("O1")).thenReturn(Optional.of(order));
+        when(orderRepository.markPaidIfPending(eq(10L), any())).thenReturn(0);
+        when(orderRepository.findStatusById(10L)).thenReturn(Optional.of(OrderStatus.CANCELLED));
+        when(orderRepository.compareAndSetStatus(10L, OrderStatus.CANCELLED, OrderStatus.REFUNDING)).thenReturn(1);
+        when(paymentService.refund(order, new BigDecimal("100"), PaymentMethod.ALIPAY)).thenReturn(true);
+
+        PaymentCallbackRequest req = new PaymentCallbackRequest("O1", "T1", new BigDecimal("100"), "SUCCESS", "sig");
+        assertThat(orderService.handlePaymentCallback(req, true)).isFalse();
+
+        verify(orderRepository).compareAndSetStatus(10L, OrderStatus.REFUNDING, OrderStatus.REFUNDED);
+        verify(orderRepository, never()).save(any(Order.class));
+        verifyNoInteractions(notificationDispatcher);
+    }
+
+    @Test
+    @DisplayName("handlePaymentCallback 已取消订单的重复回调只退款一次")
+    void callback_cancelledOrder_refundsOnce() {
+        Order order = newPendingOrder();
+        order.setStatus(OrderStatus.CANCELLED);
+        when(orderRepository.findByOrderNo("O1")).thenReturn(Optional.of(order));
+        when(orderRepository.compareAndSetStatus(10L, OrderStatus.CANCELLED, OrderStatus.REFUNDING)).thenReturn(0);
+
+        PaymentCallbackRequest req = new PaymentCallbackRequest("O1", "T1", new BigDecimal("100"), "SUCCESS", "sig");
+        assertThat(orderService.handlePaymentCallback(req, true)).isFalse();
+
+        verify(paymentService, never()).refund(any(), any(), any());
     }
 }
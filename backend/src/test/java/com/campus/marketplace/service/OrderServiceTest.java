@@ -1,5 +1,8 @@
 package com.campus.marketplace.service;
 
+import com.campus.marketplace.common.component.OrderTimeoutBulkCanceller;
+import com.campus.marketplace.common.component.OrderTimeoutQueue;
+import com.campus.marketplace.common.config.properties.OrderProperties;
 import com.campus.marketplace.common.dto.request.CreateOrderRequest;
 import com.campus.marketplace.common.dto.request.ReviewOrderRequest;
 import com.campus.marketplace.common.entity.Goods;
@@ -11,6 +14,7 @@ import com.campus.marketplace.common.enums.OrderStatus;
 import com.campus.marketplace.common.enums.UserStatus;
 import com.campus.marketplace.common.exception.BusinessException;
 import com.campus.marketplace.common.exception.ErrorCode;
+import com.campus.marketplace.common.utils.OrderNoGenerator;
 import com.campus.marketplace.repository.GoodsRepository;
 import com.campus.marketplace.repository.OrderRepository;
 import com.campus.marketplace.repository.ReviewRepository;
@@ -25,6 +29,9 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockedStatic;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -52,6 +59,19 @@ class OrderServiceTest {
     @Mock
     private com.campus.marketplace.common.utils.SensitiveWordFilter sensitiveWordFilter;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @Mock
+    private OrderTimeoutQueue orderTimeoutQueue;
+    @Mock
+    private OrderTimeoutBulkCanceller bulkCanceller;
+    @Mock
+    private OrderNoGenerator orderNoGenerator;
+    @Mock
+    private OrderProperties orderProperties;
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
     @InjectMocks
     private OrderServiceImpl orderService;
 
@@ -65,6 +85,8 @@ class OrderServiceTest {
         securityUtilMock = mockStatic(com.campus.marketplace.common.utils.SecurityUtil.class);
         securityUtilMock.when(com.campus.marketplace.common.utils.SecurityUtil::getCurrentUsername)
                 .thenReturn("buyer");
+        lenient().when(transactionTemplate.execute(any()))
+                .thenAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
 
         testBuyer = User.builder()
                 .username("buyer")
@@ -114,6 +136,7 @@ class OrderServiceTest {
             return order;
         });
         when(goodsRepository.save(any(Goods.class))).thenReturn(testGoods);
+        when(orderNoGenerator.next()).thenReturn("ORD2026101612000012300070001");
 
         String orderNo = orderService.createOrder(new CreateOrderRequest(1L, null));
 
@@ -289,6 +312,22 @@ class OrderServiceTest {
                 .hasFieldOrPropertyWithValue("code", ErrorCode.PERMISSION_DENIED.getCode());
     }
 
+    @Test
+    @DisplayName("乐观下单 - 商品条件锁定落空时拒绝，不写订单")
+    void createOrder_OptimisticLockLost() {
+        when(orderProperties.isOptimisticPlacement()).thenReturn(true);
+        when(userRepository.findByUsername("buyer")).thenReturn(Optional.of(testBuyer));
+        when(goodsRepository.findById(1L)).thenReturn(Optional.of(testGoods));
+        when(orderRepository.existsByGoodsIdAndStatusNot(1L, OrderStatus.CANCELLED)).thenReturn(false);
+        when(goodsRepository.lockIfApproved(1L)).thenReturn(0);
+
+        assertThatThrownBy(() -> orderService.createOrder(new CreateOrderRequest(1L, null)))
+                .isInstanceOf(BusinessException.class)
+                .hasFieldOrPropertyWithValue("code", ErrorCode.GOODS_ALREADY_SOLD.getCode());
+        verify(orderRepository, never()).save(any(Order.class));
+        verify(goodsRepository, never()).findByIdForUpdate(anyLong());
+    }
+
     @Test
     @DisplayName("取消超时订单成功")
     void cancelTimeoutOrders_Success() {
@@ -313,7 +352,8 @@ class OrderServiceTest {
                 any(LocalDateTime.class)
         )).thenReturn(List.of(timeoutOrder));
         when(goodsRepository.findById(1L)).thenReturn(Optional.of(testGoods));
-        when(orderRepository.save(any(Order.class))).thenReturn(timeoutOrder);
+        when(orderRepository.compareAndSetStatus(1L, OrderStatus.PENDING_PAYMENT, OrderStatus.CANCELLED))
+                .thenReturn(1);
         when(goodsRepository.save(any(Goods.class))).thenReturn(testGoods);
 
         // Act - 执行取消超时订单
@@ -321,9 +361,8 @@ class OrderServiceTest {
 
         // Assert - 验证结果
         assertThat(cancelledCount).isEqualTo(1);
-        verify(orderRepository).save(argThat(order ->
-                order.getStatus() == OrderStatus.CANCELLED
-        ));
+        verify(orderRepository).compareAndSetStatus(1L, OrderStatus.PENDING_PAYMENT, OrderStatus.CANCELLED);
+        verify(orderRepository, never()).save(any(Order.class));
         verify(goodsRepository).save(argThat(goods ->
                 goods.getStatus() == GoodsStatus.APPROVED
         ));
@@ -357,6 +396,7 @@ class OrderServiceTest {
                 .goodsId(1L)
                 .status(OrderStatus.PENDING_PAYMENT)
                 .build();
+        order1.setId(1L);
         order1.setCreatedAt(timeoutTime);
 
         Order order2 = Order.builder()
@@ -364,6 +404,7 @@ class OrderServiceTest {
                 .goodsId(999L) // 不存在的物品
                 .status(OrderStatus.PENDING_PAYMENT)
                 .build();
+        order2.setId(2L);
         order2.setCreatedAt(timeoutTime);
 
         when(orderRepository.findTimeoutOrders(
@@ -372,13 +413,104 @@ class OrderServiceTest {
         )).thenReturn(List.of(order1, order2));
         when(goodsRepository.findById(1L)).thenReturn(Optional.of(testGoods));
         when(goodsRepository.findById(999L)).thenReturn(Optional.empty());
-        when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(orderRepository.compareAndSetStatus(anyLong(), eq(OrderStatus.PENDING_PAYMENT), eq(OrderStatus.CANCELLED)))
+                .thenReturn(1);
 
         // Act
         int cancelledCount = orderService.cancelTimeoutOrders();
 
         // Assert - 两个订单都应该被取消（即使物品不存在）
         assertThat(cancelledCount).isEqualTo(2);
-        verify(orderRepository, times(2)).save(any(Order.class));
+        verify(orderRepository, times(2))
+                .compareAndSetStatus(anyLong(), eq(OrderStatus.PENDING_PAYMENT), eq(OrderStatus.CANCELLED));
+        // 每单独立事务
+        verify(transactionTemplate, times(2)).execute(any());
+    }
+
+    @Test
+    @DisplayName("取消超时订单 - 支付回调已抢先生效时跳过")
+    void cancelTimeoutOrders_SkipsPaidOrder() {
+        Order order = Order.builder()
+                .orderNo("ORD20251027100000004")
+                .goodsId(1L)
+                .status(OrderStatus.PENDING_PAYMENT)
+                .build();
+        order.setId(4L);
+        order.setCreatedAt(LocalDateTime.now().minusMinutes(31));
+        when(orderRepository.findTimeoutOrders(eq(OrderStatus.PENDING_PAYMENT), any(LocalDateTime.class)))
+                .thenReturn(List.of(order));
+        when(orderRepository.compareAndSetStatus(4L, OrderStatus.PENDING_PAYMENT, OrderStatus.CANCELLED))
+                .thenReturn(0);
+
+        assertThat(orderService.cancelTimeoutOrders()).isZero();
+        verify(goodsRepository, never()).findById(anyLong());
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    @DisplayName("取消超时订单 - 批量模式委托集合式分块取消")
+    void cancelTimeoutOrders_BulkMode() {
+        when(orderProperties.getMinutes()).thenReturn(30);
+        when(orderProperties.isBulkCancel()).thenReturn(true);
+        when(orderProperties.getBulkChunkSize()).thenReturn(500);
+        when(bulkCanceller.cancelExpired(any(LocalDateTime.class), eq(500))).thenReturn(1200);
+
+        assertThat(orderService.cancelTimeoutOrders()).isEqualTo(1200);
+        verify(orderRepository, never()).findTimeoutOrders(any(), any());
+        verify(orderRepository, never()).save(any(Order.class));
+    }
+
+    @Test
+    @DisplayName("延时队列到期 - 条件更新成功后回退商品")
+    void cancelTimeoutOrder_Success() {
+        Order order = Order.builder()
+                .orderNo("ORD20251027100000003")
+                .goodsId(1L)
+                .buyerId(1L)
+                .sellerId(2L)
+                .status(OrderStatus.PENDING_PAYMENT)
+                .build();
+        order.setId(3L);
+        order.setCreatedAt(LocalDateTime.now().minusMinutes(31));
+        testGoods.setStatus(GoodsStatus.LOCKED);
+        when(orderProperties.getMinutes()).thenReturn(30);
+        when(orderRepository.findById(3L)).thenReturn(Optional.of(order));
+        when(orderRepository.compareAndSetStatus(3L, OrderStatus.PENDING_PAYMENT, OrderStatus.CANCELLED)).thenReturn(1);
+        when(goodsRepository.findById(1L)).thenReturn(Optional.of(testGoods));
+
+        assertThat(orderService.cancelTimeoutOrder(3L)).isTrue();
+        verify(goodsRepository).save(argThat(goods -> goods.getStatus() == GoodsStatus.APPROVED));
+        verify(orderRepository, never()).save(any(Order.class));
+    }
+
+    @Test
+    @DisplayName("延时队列到期 - 已支付或并发支付时跳过")
+    void cancelTimeoutOrder_SkipWhenNoLongerPending() {
+        Order paid = Order.builder().goodsId(1L).status(OrderStatus.PAID).build();
+        Order racing = Order.builder().goodsId(1L).status(OrderStatus.PENDING_PAYMENT).build();
+        racing.setCreatedAt(LocalDateTime.now().minusMinutes(31));
+        when(orderProperties.getMinutes()).thenReturn(30);
+        when(orderRepository.findById(4L)).thenReturn(Optional.of(paid));
+        when(orderRepository.findById(5L)).thenReturn(Optional.of(racing));
+        when(orderRepository.compareAndSetStatus(5L, OrderStatus.PENDING_PAYMENT, OrderStatus.CANCELLED)).thenReturn(0);
+
+        assertThat(orderService.cancelTimeoutOrder(4L)).isFalse();
+        assertThat(orderService.cancelTimeoutOrder(5L)).isFalse();
+        verify(goodsRepository, never()).findById(anyLong());
+    }
+
+    @Test
+    @DisplayName("延时队列到期 - 尚未到截止时间则重新登记")
+    void cancelTimeoutOrder_RescheduleWhenNotDue() {
+        Order order = Order.builder().goodsId(1L).status(OrderStatus.PENDING_PAYMENT).build();
+        order.setId(6L);
+        LocalDateTime createdAt = LocalDateTime.now().minusMinutes(10);
+        order.setCreatedAt(createdAt);
+        when(orderProperties.getMinutes()).thenReturn(30);
+        when(orderRepository.findById(6L)).thenReturn(Optional.of(order));
+
+        assertThat(orderService.cancelTimeoutOrder(6L)).isFalse();
+        verify(orderTimeoutQueue).schedule(6L, createdAt);
+        verify(orderRepository, never()).compareAndSetStatus(anyLong(), any(), any());
     }
 }
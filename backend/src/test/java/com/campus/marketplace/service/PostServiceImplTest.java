@@ -65,12 +65,13 @@ class PostServiceImplTest {
     @Mock private com.campus.marketplace.service.ComplianceService complianceService;
     @Mock private com.campus.marketplace.repository.UserFollowRepository userFollowRepository;
     @Mock private com.campus.marketplace.repository.UserFeedRepository userFeedRepository;
+    @Mock private org.springframework.context.ApplicationEventPublisher eventPublisher;
 
     private PostServiceImpl postService;
 
     @BeforeEach
     void setUp() {
-        postService = new PostServiceImpl(postRepository, postTagRepository, tagRepository, userRepository, postLikeRepository, postCollectRepository, sensitiveWordFilter, complianceService, redisTemplate, messageService, userFollowRepository, userFeedRepository);
+        postService = new PostServiceImpl(postRepository, postTagRepository, tagRepository, userRepository, postLikeRepository, postCollectRepository, sensitiveWordFilter, complianceService, redisTemplate, messageService, userFollowRepository, userFeedRepository, eventPublisher);
         lenient().when(redisTemplate.opsForValue()).thenReturn(valueOperations);
     }
 
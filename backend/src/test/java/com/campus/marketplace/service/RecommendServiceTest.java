@@ -1,14 +1,22 @@
 package com.campus.marketplace.service;
 
+import com.campus.marketplace.common.config.RecommendConfigProperties;
 import com.campus.marketplace.common.entity.Goods;
+import com.campus.marketplace.common.entity.UserSimilarity;
 import com.campus.marketplace.common.enums.GoodsStatus;
 import com.campus.marketplace.common.exception.BusinessException;
 import com.campus.marketplace.common.exception.ErrorCode;
 import com.campus.marketplace.common.lock.DistributedLockManager;
 import com.campus.marketplace.common.utils.RedisUtil;
+import com.campus.marketplace.recommend.GoodsPopularityLeaderboard;
+import com.campus.marketplace.recommend.ItemSimilarityService;
+import com.campus.marketplace.recommend.PrecomputedRecommendationStore;
+import com.campus.marketplace.recommend.ViewTrafficCounter;
 import com.campus.marketplace.repository.CategoryRepository;
 import com.campus.marketplace.repository.GoodsRepository;
+import com.campus.marketplace.repository.UserBehaviorLogRepository;
 import com.campus.marketplace.repository.UserRepository;
+import com.campus.marketplace.repository.UserSimilarityRepository;
 import com.campus.marketplace.repository.ViewLogRepository;
 import com.campus.marketplace.repository.FavoriteRepository;
 import com.campus.marketplace.service.impl.RecommendServiceImpl;
@@ -19,8 +27,10 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockedStatic;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 
 import java.math.BigDecimal;
 import java.util.*;
@@ -49,6 +59,20 @@ class RecommendServiceTest {
     private DistributedLockManager lockManager;
     @Mock
     private DistributedLockManager.LockHandle lockHandle;
+    @Mock
+    private UserSimilarityRepository userSimilarityRepository;
+    @Mock
+    private UserBehaviorLogRepository userBehaviorLogRepository;
+    @Mock
+    private PrecomputedRecommendationStore precomputedStore;
+    @Mock
+    private ItemSimilarityService itemSimilarityService;
+    @Mock
+    private ViewTrafficCounter viewTrafficCounter;
+    @Mock
+    private GoodsPopularityLeaderboard popularityLeaderboard;
+    @Spy
+    private RecommendConfigProperties recommendConfigProperties = new RecommendConfigProperties();
 
     @InjectMocks
     private RecommendServiceImpl recommendService;
@@ -57,6 +81,9 @@ class RecommendServiceTest {
 
     @BeforeEach
     void setup() {
+        // 热榜刷新在调用线程内同步执行
+        org.springframework.test.util.ReflectionTestUtils.setField(recommendService, "hotRefreshExecutor",
+                (java.util.concurrent.Executor) Runnable::run);
         org.mockito.Mockito.lenient().when(lockManager.tryLock(anyString(), anyLong(), anyLong(), any())).thenReturn(lockHandle);
         org.mockito.Mockito.lenient().when(lockHandle.acquired()).thenReturn(true);
     }
@@ -67,6 +94,7 @@ class RecommendServiceTest {
         // 缓存返回两个ID
         when(redis.zReverseRange(eq("goods:rank:1"), eq(0L), eq(1L)))
                 .thenReturn(new LinkedHashSet<>(Arrays.asList(1L, 2L)));
+        when(redis.hasKey("goods:rank:1:fresh")).thenReturn(true);
 
         Goods g1 = Goods.builder().title("A").price(new BigDecimal("10"))
                 .categoryId(1L).sellerId(1L).status(GoodsStatus.APPROVED).build();
@@ -183,4 +211,287 @@ class RecommendServiceTest {
         verify(redis).expire(eq("recommend:user:9"), anyLong(), any());
         if (secMock != null) secMock.close();
     }
+
+    @Test
+    @DisplayName("协同过滤-缓存未命中：批量查询收藏并按相似度加权，候选列表回填缓存")
+    void cf_cache_miss_batched() {
+        when(redis.get("recommend:cf:9")).thenReturn(null);
+        when(userSimilarityRepository.findTopSimilarUsers(eq(9L), any(Pageable.class)))
+                .thenReturn(List.of(similarity(9L, 20L, 0.9), similarity(9L, 30L, 0.5)));
+        when(userBehaviorLogRepository.findDistinctTargetIds(9L, "GOODS")).thenReturn(List.of(3L));
+        when(favoriteRepository.findUserGoodsPairsByUserIdIn(anyCollection())).thenReturn(List.of(
+                new Object[]{20L, 1L}, new Object[]{20L, 3L},
+                new Object[]{30L, 1L}, new Object[]{30L, 2L}));
+        Goods g1 = approvedGoods(1L);
+        Goods g2 = approvedGoods(2L);
+        when(goodsRepository.findAllById(List.of(1L, 2L))).thenReturn(List.of(g2, g1));
+        when(categoryRepository.findAllById(anyCollection())).thenReturn(List.of());
+        when(userRepository.findAllById(anyCollection())).thenReturn(List.of());
+
+        var list = recommendService.getCollaborativeFilteringRecommendations(9L, 5);
+
+        // 商品1 = 0.9 + 0.5，商品2 = 0.5，商品3 已交互被排除
+        assertThat(list).extracting("id").containsExactly(1L, 2L);
+        verify(redis).set(eq("recommend:cf:9"), eq("1,2"), anyLong(), any());
+        verify(favoriteRepository, never()).findAll();
+        verify(goodsRepository, never()).findById(anyLong());
+    }
+
+    @Test
+    @DisplayName("协同过滤-缓存命中：跳过相似度计算，过滤已下架商品")
+    void cf_cache_hit_filters_unavailable() {
+        when(redis.get("recommend:cf:9")).thenReturn("5,6,7");
+        Goods g5 = approvedGoods(5L);
+        g5.setStatus(GoodsStatus.SOLD);
+        Goods g6 = approvedGoods(6L);
+        Goods g7 = approvedGoods(7L);
+        when(goodsRepository.findAllById(List.of(5L, 6L, 7L))).thenReturn(List.of(g5, g6, g7));
+        when(categoryRepository.findAllById(anyCollection())).thenReturn(List.of());
+        when(userRepository.findAllById(anyCollection())).thenReturn(List.of());
+
+        var list = recommendService.getCollaborativeFilteringRecommendations(9L, 1);
+
+        assertThat(list).extracting("id").containsExactly(6L);
+        verifyNoInteractions(userSimilarityRepository, userBehaviorLogRepository, favoriteRepository);
+    }
+
+    @Test
+    @DisplayName("混合推荐-优先读取预计算结果")
+    void hybrid_served_from_precomputed_store() {
+        when(precomputedStore.read(PrecomputedRecommendationStore.Kind.HYBRID, 9L))
+                .thenReturn(Optional.of(new long[]{2L, 1L}));
+        when(goodsRepository.findAllById(List.of(2L, 1L))).thenReturn(List.of(approvedGoods(1L), approvedGoods(2L)));
+        when(categoryRepository.findAllById(anyCollection())).thenReturn(List.of());
+        when(userRepository.findAllById(anyCollection())).thenReturn(List.of());
+
+        var list = recommendService.getHybridRecommendations(9L, 2);
+
+        assertThat(list).extracting("id").containsExactly(2L, 1L);
+        verifyNoInteractions(userSimilarityRepository, favoriteRepository);
+        verify(userRepository, never()).findById(anyLong());
+    }
+
+    @Test
+    @DisplayName("预计算-活跃用户并发计算后批量写入存储")
+    void precompute_writes_results_to_store() {
+        when(userBehaviorLogRepository.findActiveUserIdsSince(any(), any(Pageable.class))).thenReturn(List.of(9L));
+        when(redis.get("recommend:cf:9")).thenReturn("1");
+        when(goodsRepository.findAllById(List.of(1L))).thenReturn(List.of(approvedGoods(1L)));
+        when(categoryRepository.findAllById(anyCollection())).thenReturn(List.of());
+        when(userRepository.findAllById(anyCollection())).thenReturn(List.of());
+        when(userRepository.findById(9L)).thenReturn(Optional.empty());
+
+        recommendService.precomputeRecommendations();
+
+        verify(precomputedStore).writeAll(eq(PrecomputedRecommendationStore.Kind.HYBRID),
+                argThat(map -> map.size() == 1 && Arrays.equals(map.get(9L), new long[]{1L})));
+        verify(precomputedStore).writeWatermark(any());
+        verify(userBehaviorLogRepository, never()).findAll();
+    }
+
+    @Test
+    @DisplayName("预计算-同时写入个性化推荐结果，与实时计算口径一致")
+    void precompute_writes_personal_results() {
+        var user = com.campus.marketplace.common.entity.User.builder().username("u1").build();
+        user.setId(9L);
+        when(userBehaviorLogRepository.findActiveUserIdsSince(any(), any(Pageable.class))).thenReturn(List.of(9L));
+        when(userRepository.findById(9L)).thenReturn(Optional.of(user));
+        when(redis.get("recommend:cf:9")).thenReturn("");
+        when(favoriteRepository.findTopCategoryIdsByUserFavorites(9L))
+                .thenReturn(List.<Object[]>of(new Object[]{1L, 3L}));
+        when(goodsRepository.findHotGoodsByCampusAndCategories(eq(GoodsStatus.APPROVED), isNull(), anyList(), any(PageRequest.class)))
+                .thenReturn(List.of(approvedGoods(4L), approvedGoods(3L)));
+        lenient().when(categoryRepository.findAllById(anyCollection())).thenReturn(List.of());
+        lenient().when(userRepository.findAllById(anyCollection())).thenReturn(List.of());
+
+        recommendService.precomputeRecommendations();
+
+        verify(precomputedStore).writeAll(eq(PrecomputedRecommendationStore.Kind.PERSONAL),
+                argThat(map -> Arrays.equals(map.get(9L), new long[]{4L, 3L})));
+    }
+
+    @Test
+    @DisplayName("个性化推荐-优先读取个性化预计算结果，而非混合推荐结果")
+    void personal_served_from_precomputed_store() {
+        secMock = mockStatic(com.campus.marketplace.common.utils.SecurityUtil.class);
+        secMock.when(com.campus.marketplace.common.utils.SecurityUtil::getCurrentUsername)
+                .thenReturn("u1");
+        var user = com.campus.marketplace.common.entity.User.builder().username("u1").build();
+        user.setId(9L);
+        user.setCampusId(1L);
+        when(userRepository.findByUsername("u1")).thenReturn(Optional.of(user));
+        when(precomputedStore.read(PrecomputedRecommendationStore.Kind.PERSONAL, 9L))
+                .thenReturn(Optional.of(new long[]{3L}));
+        when(goodsRepository.findAllById(List.of(3L))).thenReturn(List.of(approvedGoods(3L)));
+        when(categoryRepository.findAllById(anyCollection())).thenReturn(List.of());
+        when(userRepository.findAllById(anyCollection())).thenReturn(List.of());
+
+        try {
+            var list = recommendService.getPersonalRecommendations(5);
+
+            assertThat(list).extracting("id").containsExactly(3L);
+            verify(precomputedStore, never()).read(eq(PrecomputedRecommendationStore.Kind.HYBRID), anyLong());
+            verifyNoInteractions(favoriteRepository);
+        } finally {
+            secMock.close();
+        }
+    }
+
+    @Test
+    @DisplayName("增量预计算-从 Redis 中的共享水位继续")
+    void incremental_refresh_uses_shared_watermark() {
+        java.time.LocalDateTime watermark = java.time.LocalDateTime.of(2026, 10, 16, 12, 0);
+        when(precomputedStore.readWatermark()).thenReturn(Optional.of(watermark));
+        when(userBehaviorLogRepository.findActiveUsersSinceOldestFirst(eq(watermark), any(Pageable.class))).thenReturn(List.of());
+
+        recommendService.refreshChangedRecommendations();
+
+        verify(userBehaviorLogRepository).findActiveUsersSinceOldestFirst(eq(watermark), any(Pageable.class));
+        verify(precomputedStore).writeWatermark(argThat(next -> next.isAfter(watermark)));
+    }
+
+    @Test
+    @DisplayName("增量预计算-用户数达到上限时水位只推进到最后处理的用户")
+    void incremental_refresh_keeps_unprocessed_users_behind_watermark() {
+        recommendConfigProperties.getPrecompute().setMaxUsers(1);
+        java.time.LocalDateTime watermark = java.time.LocalDateTime.of(2026, 10, 16, 12, 0);
+        java.time.LocalDateTime lastActive = watermark.plusMinutes(3);
+        when(precomputedStore.readWatermark()).thenReturn(Optional.of(watermark));
+        when(userBehaviorLogRepository.findActiveUsersSinceOldestFirst(eq(watermark), any(Pageable.class)))
+                .thenReturn(List.<Object[]>of(new Object[]{9L, lastActive}));
+        when(userRepository.findById(9L)).thenReturn(Optional.empty());
+        when(redis.get("recommend:cf:9")).thenReturn("");
+
+        recommendService.refreshChangedRecommendations();
+
+        verify(precomputedStore).writeWatermark(lastActive);
+    }
+
+    @Test
+    @DisplayName("预计算-部分商品已售出时返回剩余在售商品，不触发实时计算")
+    void precomputed_serves_remaining_goods() {
+        when(precomputedStore.read(PrecomputedRecommendationStore.Kind.HYBRID, 9L))
+                .thenReturn(Optional.of(new long[]{1L, 2L, 3L, 4L}));
+        Goods sold = approvedGoods(4L);
+        sold.setStatus(GoodsStatus.SOLD);
+        when(goodsRepository.findAllById(List.of(1L, 2L, 3L, 4L)))
+                .thenReturn(List.of(approvedGoods(1L), approvedGoods(2L), approvedGoods(3L), sold));
+        when(categoryRepository.findAllById(anyCollection())).thenReturn(List.of());
+        when(userRepository.findAllById(anyCollection())).thenReturn(List.of());
+
+        var list = recommendService.getHybridRecommendations(9L, 4);
+
+        assertThat(list).extracting("id").containsExactly(1L, 2L, 3L);
+        verify(userRepository, never()).findById(anyLong());
+        verify(redis, never()).get("recommend:cf:9");
+    }
+
+    @Test
+    @DisplayName("预计算-在售商品低于下限时用实时结果补足")
+    void precomputed_topped_up_from_live_when_below_minimum() {
+        when(precomputedStore.read(PrecomputedRecommendationStore.Kind.HYBRID, 9L))
+                .thenReturn(Optional.of(new long[]{1L, 2L, 3L, 4L}));
+        Goods sold2 = approvedGoods(2L);
+        sold2.setStatus(GoodsStatus.SOLD);
+        Goods sold3 = approvedGoods(3L);
+        sold3.setStatus(GoodsStatus.SOLD);
+        Goods sold4 = approvedGoods(4L);
+        sold4.setStatus(GoodsStatus.SOLD);
+        when(goodsRepository.findAllById(List.of(1L, 2L, 3L, 4L)))
+                .thenReturn(List.of(approvedGoods(1L), sold2, sold3, sold4));
+        when(userRepository.findById(9L)).thenReturn(Optional.empty());
+        when(redis.get("recommend:cf:9")).thenReturn("5");
+        when(goodsRepository.findAllById(List.of(5L))).thenReturn(List.of(approvedGoods(5L)));
+        when(categoryRepository.findAllById(anyCollection())).thenReturn(List.of());
+        when(userRepository.findAllById(anyCollection())).thenReturn(List.of());
+
+        var list = recommendService.getHybridRecommendations(9L, 4);
+
+        assertThat(list).extracting("id").containsExactly(1L, 5L);
+    }
+
+    @Test
+    @DisplayName("相似商品-命中内存索引时不再扫描数据库")
+    void similar_goods_served_from_index() {
+        when(itemSimilarityService.similarTo(1L, 2)).thenReturn(Optional.of(new long[]{3L, 2L}));
+        when(goodsRepository.findAllById(List.of(3L, 2L))).thenReturn(List.of(approvedGoods(2L), approvedGoods(3L)));
+        when(categoryRepository.findAllById(anyCollection())).thenReturn(List.of());
+        when(userRepository.findAllById(anyCollection())).thenReturn(List.of());
+
+        var list = recommendService.getSimilarGoods(1L, 2);
+
+        assertThat(list).extracting("id").containsExactly(3L, 2L);
+        verify(goodsRepository, never()).findByStatus(any(), any());
+        verify(goodsRepository, never()).findById(anyLong());
+    }
+
+    @Test
+    @DisplayName("热榜刷新-临时键整体替换并写入新鲜期标记，不再全表 COUNT")
+    void refresh_hot_ranking_replaces_atomically() {
+        Goods g1 = Goods.builder().title("A").price(new BigDecimal("10"))
+                .categoryId(1L).sellerId(1L).status(GoodsStatus.APPROVED).viewCount(100).favoriteCount(10).build();
+        g1.setId(1L);
+        Goods g2 = Goods.builder().title("B").price(new BigDecimal("10"))
+                .categoryId(1L).sellerId(1L).status(GoodsStatus.APPROVED).viewCount(1).favoriteCount(0).build();
+        g2.setId(2L);
+        when(goodsRepository.findHotGoodsByCampus(eq(GoodsStatus.APPROVED), eq(1L), any(PageRequest.class)))
+                .thenReturn(List.of(g1, g2));
+        when(viewTrafficCounter.recentViews()).thenReturn(500L);
+
+        recommendService.refreshHotRanking(1L, 1);
+
+        verify(redis).zReplace(eq("goods:rank:1"), argThat(map -> map.size() == 1 && map.containsKey(1L)),
+                eq(900L), eq(java.util.concurrent.TimeUnit.SECONDS));
+        verify(redis).set("goods:rank:1:fresh", 1, 300L, java.util.concurrent.TimeUnit.SECONDS);
+        verify(redis, never()).delete("goods:rank:1");
+        verify(redis, never()).zAdd(anyString(), any(), anyDouble());
+        verifyNoInteractions(viewLogRepository);
+    }
+
+    @Test
+    @DisplayName("热榜-过了新鲜期先返回旧榜，后台刷新")
+    void hot_stale_served_while_revalidating() {
+        when(redis.zReverseRange(eq("goods:rank:1"), eq(0L), eq(0L)))
+                .thenReturn(new LinkedHashSet<>(List.of(1L)));
+        when(redis.hasKey("goods:rank:1:fresh")).thenReturn(false);
+        when(goodsRepository.findById(1L)).thenReturn(Optional.of(approvedGoods(1L)));
+        when(categoryRepository.findById(anyLong())).thenReturn(Optional.empty());
+        when(userRepository.findById(anyLong())).thenReturn(Optional.empty());
+        lenient().when(goodsRepository.findHotGoodsByCampus(eq(GoodsStatus.APPROVED), eq(1L), any(PageRequest.class)))
+                .thenReturn(List.of(approvedGoods(1L)));
+
+        var list = recommendService.getHotList(1L, 1);
+
+        assertThat(list).extracting("id").containsExactly(1L);
+        verify(redis, timeout(3000)).zReplace(eq("goods:rank:1"), anyMap(), anyLong(), any());
+    }
+
+    @Test
+    @DisplayName("热榜-实时热度榜足量时直接返回，不读定时榜")
+    void hot_served_from_live_leaderboard() {
+        when(popularityLeaderboard.top(1L, 4)).thenReturn(List.of(7L, 8L, 9L));
+        Goods sold = approvedGoods(8L);
+        sold.setStatus(GoodsStatus.SOLD);
+        when(goodsRepository.findAllById(List.of(7L, 8L, 9L)))
+                .thenReturn(List.of(approvedGoods(7L), sold, approvedGoods(9L)));
+        when(categoryRepository.findAllById(anyCollection())).thenReturn(List.of());
+        when(userRepository.findAllById(anyCollection())).thenReturn(List.of());
+
+        var list = recommendService.getHotList(1L, 2);
+
+        assertThat(list).extracting("id").containsExactly(7L, 9L);
+        verify(redis, never()).zReverseRange(anyString(), anyLong(), anyLong());
+        verify(goodsRepository, never()).findHotGoodsByCampus(any(), any(), any());
+    }
+
+    private UserSimilarity similarity(Long userId, Long similarUserId, double score) {
+        return UserSimilarity.builder().userId(userId).similarUserId(similarUserId).similarityScore(score).build();
+    }
+
+    private Goods approvedGoods(Long id) {
+        Goods goods = Goods.builder().title("G" + id).price(new BigDecimal("10"))
+                .categoryId(1L).sellerId(1L).status(GoodsStatus.APPROVED).build();
+        goods.setId(id);
+        return goods;
+    }
 }
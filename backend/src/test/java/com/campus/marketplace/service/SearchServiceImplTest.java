@@ -1,13 +1,18 @@
 package com.campus.marketplace.service;
 
+import com.campus.marketplace.common.dto.SearchFilterDTO;
+import com.campus.marketplace.common.dto.response.GoodsResponse;
 import com.campus.marketplace.common.entity.User;
 import com.campus.marketplace.common.enums.UserStatus;
 import com.campus.marketplace.common.exception.BusinessException;
 import com.campus.marketplace.common.exception.ErrorCode;
 import com.campus.marketplace.common.utils.SecurityUtil;
 import com.campus.marketplace.repository.GoodsRepository;
+import com.campus.marketplace.repository.GoodsSearchJdbcRepository;
 import com.campus.marketplace.repository.GoodsTagRepository;
 import com.campus.marketplace.repository.PostRepository;
+import com.campus.marketplace.repository.SearchHistoryRepository;
+import com.campus.marketplace.repository.SearchKeywordRepository;
 import com.campus.marketplace.repository.SearchLogRepository;
 import com.campus.marketplace.repository.UserRepository;
 import com.campus.marketplace.repository.projection.GoodsSearchProjection;
@@ -18,6 +23,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockedStatic;
@@ -42,10 +48,16 @@ import static org.mockito.Mockito.*;
 class SearchServiceImplTest {
 
     @Mock private GoodsRepository goodsRepository;
+    @Mock private GoodsSearchJdbcRepository goodsSearchJdbcRepository;
     @Mock private GoodsTagRepository goodsTagRepository;
     @Mock private PostRepository postRepository;
     @Mock private UserRepository userRepository;
     @Mock private SearchLogRepository searchLogRepository;
+    @Mock private SearchHistoryRepository searchHistoryRepository;
+    @Mock private SearchKeywordRepository searchKeywordRepository;
+    @Mock private com.campus.marketplace.search.SearchIndexService searchIndexService;
+    @Mock private com.campus.marketplace.search.KeywordSuggestService keywordSuggestService;
+    @Mock private com.campus.marketplace.search.SearchActivityRecorder searchActivityRecorder;
 
     @InjectMocks
     private SearchServiceImpl searchService;
@@ -154,4 +166,54 @@ class SearchServiceImplTest {
                 .isInstanceOf(BusinessException.class)
                 .hasFieldOrPropertyWithValue("code", ErrorCode.PARAM_ERROR.getCode());
     }
+
+    @Test
+    @DisplayName("商品筛选检索下推到数据库并返回总数")
+    void searchGoods_pushdownWithOffset() {
+        GoodsResponse item = GoodsResponse.builder().id(1L).title("iPad").price(new BigDecimal("1999.00")).build();
+        when(goodsSearchJdbcRepository.search(any())).thenReturn(List.of(item));
+        when(goodsSearchJdbcRepository.count(any())).thenReturn(1L);
+
+        SearchFilterDTO filter = SearchFilterDTO.builder()
+                .minPrice(new BigDecimal("100"))
+                .categoryId(3L)
+                .sortBy("price")
+                .sortDirection("ASC")
+                .build();
+        Page<GoodsResponse> page = searchService.searchGoods(" ipad ", filter, PageRequest.of(2, 10), 7L);
+
+        assertThat(page.getTotalElements()).isEqualTo(1);
+        assertThat(page.getContent()).extracting(GoodsResponse::getId).containsExactly(1L);
+
+        ArgumentCaptor<GoodsSearchJdbcRepository.Criteria> captor =
+                ArgumentCaptor.forClass(GoodsSearchJdbcRepository.Criteria.class);
+        verify(goodsSearchJdbcRepository).search(captor.capture());
+        GoodsSearchJdbcRepository.Criteria criteria = captor.getValue();
+        assertThat(criteria.keyword()).isEqualTo("ipad");
+        assertThat(criteria.sortField()).isEqualTo(GoodsSearchJdbcRepository.SortField.PRICE);
+        assertThat(criteria.ascending()).isTrue();
+        assertThat(criteria.offset()).isEqualTo(20L);
+        assertThat(criteria.limit()).isEqualTo(11);
+        assertThat(criteria.afterId()).isNull();
+        verify(goodsRepository, never()).findAll();
+        verify(searchActivityRecorder).recordHistory(7L, "ipad", 1, false);
+        verify(searchActivityRecorder).incrementKeyword("ipad");
+    }
+
+    @Test
+    @DisplayName("keyset 游标检索跳过 COUNT 并按多取一条判断下一页")
+    void searchGoods_keysetSkipsCount() {
+        List<GoodsResponse> rows = java.util.stream.LongStream.rangeClosed(1, 3)
+                .mapToObj(id -> GoodsResponse.builder().id(id).build())
+                .toList();
+        when(goodsSearchJdbcRepository.search(any())).thenReturn(rows);
+
+        SearchFilterDTO filter = SearchFilterDTO.builder().lastId(99L).build();
+        Page<GoodsResponse> page = searchService.searchGoods(null, filter, PageRequest.of(0, 2), null);
+
+        assertThat(page.getContent()).hasSize(2);
+        assertThat(page.hasNext()).isTrue();
+        verify(goodsSearchJdbcRepository, never()).count(any());
+        verify(searchActivityRecorder, never()).incrementKeyword(any());
+    }
 }
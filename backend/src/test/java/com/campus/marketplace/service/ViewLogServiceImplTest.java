@@ -2,6 +2,7 @@ package com.campus.marketplace.service;
 
 import com.campus.marketplace.common.entity.User;
 import com.campus.marketplace.common.entity.ViewLog;
+import com.campus.marketplace.recommend.ViewTrafficCounter;
 import com.campus.marketplace.repository.UserRepository;
 import com.campus.marketplace.repository.ViewLogRepository;
 import com.campus.marketplace.service.impl.ViewLogServiceImpl;
@@ -32,6 +33,9 @@ class ViewLogServiceImplTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private ViewTrafficCounter viewTrafficCounter;
+
     @InjectMocks
     private ViewLogServiceImpl viewLogService;
 
@@ -26,8 +26,10 @@ import java.util.concurrent.CopyOnWriteArrayList;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
@@ -147,4 +149,32 @@ class PerfSeedServiceTest {
         assertThat(created).isZero();
         verifyNoInteractions(goodsRepository, orderRepository, jdbcTemplate);
     }
+
+    @Test
+    @DisplayName("seedSearchGoods 已达到目标规模时不再插入")
+    void shouldSkipSearchSeedWhenTargetReached() {
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class))).thenReturn(10_000L);
+
+        int inserted = perfSeedService.seedSearchGoods(10_000);
+
+        assertThat(inserted).isZero();
+        verify(jdbcTemplate, never()).execute(anyString());
+        verifyNoInteractions(userRepository, categoryRepository);
+    }
+
+    @Test
+    @DisplayName("seedSearchGoods 按分块补齐差额并刷新统计信息")
+    void shouldTopUpSearchGoodsInChunks() {
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class))).thenReturn(0L);
+        when(userRepository.findByUsername("seller_north")).thenReturn(Optional.of(seller));
+        when(categoryRepository.findAll()).thenReturn(List.of(category));
+        when(jdbcTemplate.update(anyString(), any(), any(), any(), any(), any(), any())).thenReturn(50_000, 20_000);
+        when(jdbcTemplate.update(anyString())).thenReturn(70_000);
+
+        int inserted = perfSeedService.seedSearchGoods(70_000);
+
+        assertThat(inserted).isEqualTo(70_000);
+        verify(jdbcTemplate, times(2)).update(anyString(), any(), any(), any(), any(), any(), any());
+        verify(jdbcTemplate).execute("ANALYZE t_goods");
+    }
 }
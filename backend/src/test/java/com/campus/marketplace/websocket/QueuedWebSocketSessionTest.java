@@ -0,0 +1,213 @@
+package com.campus.marketplace.websocket;
+
+import com.campus.marketplace.common.config.properties.WebSocketOutboundProperties;
+import com.campus.marketplace.common.config.properties.WebSocketOutboundProperties.OverflowPolicy;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@DisplayName("WebSocket 出站队列测试")
+class QueuedWebSocketSessionTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final WebSocketOutboundProperties properties = new WebSocketOutboundProperties();
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private WebSocketOutbound outbound;
+    private WebSocketSession delegate;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        delegate = mock(WebSocketSession.class);
+        when(delegate.getId()).thenReturn("s1");
+        when(delegate.isOpen()).thenReturn(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        if (outbound != null) {
+            outbound.shutdown();
+        }
+    }
+
+    private QueuedWebSocketSession session() {
+        outbound = new WebSocketOutbound(properties, meterRegistry);
+        return outbound.wrap(delegate);
+    }
+
+    /**
+     * 第一帧发送时阻塞，模拟慢客户端
+     */
+    private void blockFirstSend() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        doAnswer(inv -> {
+            if (calls.getAndIncrement() == 0) {
+                started.countDown();
+                release.await(5, TimeUnit.SECONDS);
+            }
+            return null;
+        }).when(delegate).sendMessage(any());
+    }
+
+    private double frames(String result) {
+        return meterRegistry.get("websocket.outbound.frames").tag("result", result).counter().count();
+    }
+
+    @Test
+    @DisplayName("慢客户端不阻塞调用方，帧按入队顺序发送")
+    void sendMessage_doesNotBlockCaller() throws Exception {
+        blockFirstSend();
+        QueuedWebSocketSession session = session();
+
+        long begin = System.nanoTime();
+        session.sendMessage(new TextMessage("1"));
+        assertThat(started.await(1, TimeUnit.SECONDS)).isTrue();
+        session.sendMessage(new TextMessage("2"));
+        session.sendMessage(new TextMessage("3"));
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin)).isLessThan(1000);
+        assertThat(session.queueSize()).isEqualTo(2);
+
+        release.countDown();
+        verify(delegate, timeout(1000).times(3)).sendMessage(any());
+        InOrder order = inOrder(delegate);
+        order.verify(delegate).sendMessage(new TextMessage("1"));
+        order.verify(delegate).sendMessage(new TextMessage("2"));
+        order.verify(delegate).sendMessage(new TextMessage("3"));
+        assertThat(meterRegistry.get("websocket.outbound.queue.depth").gauge().value()).isZero();
+    }
+
+    @Test
+    @DisplayName("多线程并发推送时同一会话同一时刻只有一个发送")
+    void sendMessage_serializesConcurrentSenders() throws Exception {
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger maxActive = new AtomicInteger();
+        doAnswer(inv -> {
+            maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+            Thread.sleep(1);
+            active.decrementAndGet();
+            return null;
+        }).when(delegate).sendMessage(any());
+        QueuedWebSocketSession session = session();
+
+        Thread[] threads = new Thread[8];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = Thread.ofVirtual().start(() -> {
+                for (int j = 0; j < 20; j++) {
+                    try {
+                        session.sendMessage(new TextMessage("x"));
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+            });
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        verify(delegate, timeout(5000).times(160)).sendMessage(any());
+        assertThat(maxActive.get()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("队列满且策略为 CLOSE 时断开慢连接")
+    void overflow_closeEvictsSession() throws Exception {
+        properties.setQueueCapacity(2);
+        blockFirstSend();
+        QueuedWebSocketSession session = session();
+
+        session.sendMessage(new TextMessage("1"));
+        assertThat(started.await(1, TimeUnit.SECONDS)).isTrue();
+        for (int i = 2; i <= 4; i++) {
+            session.sendMessage(new TextMessage(String.valueOf(i)));
+        }
+
+        verify(delegate).close(CloseStatus.SESSION_NOT_RELIABLE);
+        assertThat(session.queueSize()).isZero();
+        assertThat(frames("dropped")).isEqualTo(3.0);
+        assertThat(meterRegistry.get("websocket.outbound.evictions").tag("reason", "overflow").counter().count())
+                .isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("队列满且策略为 DROP_OLDEST 时丢弃最早排队的帧")
+    void overflow_dropOldestKeepsLatest() throws Exception {
+        properties.setQueueCapacity(1);
+        properties.setOverflowPolicy(OverflowPolicy.DROP_OLDEST);
+        blockFirstSend();
+        QueuedWebSocketSession session = session();
+
+        session.sendMessage(new TextMessage("1"));
+        assertThat(started.await(1, TimeUnit.SECONDS)).isTrue();
+        session.sendMessage(new TextMessage("2"));
+        session.sendMessage(new TextMessage("3"));
+        release.countDown();
+
+        verify(delegate, timeout(1000)).sendMessage(new TextMessage("3"));
+        verify(delegate, never()).sendMessage(new TextMessage("2"));
+        verify(delegate, never()).close(any(CloseStatus.class));
+        assertThat(frames("dropped")).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("单帧发送超过时限时断开连接")
+    void slowSend_evictsSession() throws Exception {
+        properties.setSendTimeLimitMs(0);
+        QueuedWebSocketSession session = session();
+
+        session.sendMessage(new TextMessage("1"));
+
+        verify(delegate, timeout(1000)).close(CloseStatus.SESSION_NOT_RELIABLE);
+        assertThat(meterRegistry.get("websocket.outbound.evictions").tag("reason", "slow").counter().count())
+                .isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("发送卡住超过时限时由入队方断开，不等待发送返回")
+    void stuckSend_evictedByProducer() throws Exception {
+        properties.setSendTimeLimitMs(50);
+        blockFirstSend();
+        QueuedWebSocketSession session = session();
+
+        session.sendMessage(new TextMessage("1"));
+        assertThat(started.await(1, TimeUnit.SECONDS)).isTrue();
+        Thread.sleep(100);
+        session.sendMessage(new TextMessage("2"));
+
+        verify(delegate).close(CloseStatus.SESSION_NOT_RELIABLE);
+        assertThat(session.queueSize()).isZero();
+        assertThat(meterRegistry.get("websocket.outbound.evictions").tag("reason", "slow").counter().count())
+                .isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("断开慢连接时关闭抛出运行时异常不影响调用方")
+    void evict_swallowsRuntimeExceptionFromClose() throws Exception {
+        properties.setQueueCapacity(1);
+        blockFirstSend();
+        doThrow(new IllegalStateException("closed")).when(delegate).close(any(CloseStatus.class));
+        QueuedWebSocketSession session = session();
+
+        session.sendMessage(new TextMessage("1"));
+        assertThat(started.await(1, TimeUnit.SECONDS)).isTrue();
+        session.sendMessage(new TextMessage("2"));
+        session.sendMessage(new TextMessage("3"));
+
+        verify(delegate).close(CloseStatus.SESSION_NOT_RELIABLE);
+    }
+}
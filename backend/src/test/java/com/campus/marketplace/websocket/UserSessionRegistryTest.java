@@ -0,0 +1,110 @@
+package com.campus.marketplace.websocket;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@DisplayName("用户会话注册表测试")
+class UserSessionRegistryTest {
+
+    private final UserSessionRegistry registry = new UserSessionRegistry(3);
+    private final List<Long> online = new ArrayList<>();
+    private final List<Long> offline = new ArrayList<>();
+
+    private static WebSocketSession session(String id) {
+        WebSocketSession session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn(id);
+        return session;
+    }
+
+    @Test
+    @DisplayName("多设备登录时仅首个会话和最后一个会话触发在线状态变更")
+    void multiDevice_refCountsOnlineStatus() {
+        WebSocketSession phone = session("phone");
+        WebSocketSession web = session("web");
+
+        registry.add(1L, phone, online::add);
+        registry.add(1L, web, online::add);
+
+        assertThat(online).containsExactly(1L);
+        assertThat(registry.userCount()).isEqualTo(1);
+        assertThat(registry.sessionCount()).isEqualTo(2);
+
+        assertThat(registry.remove("phone", offline::add)).isSameAs(phone);
+        assertThat(offline).isEmpty();
+        assertThat(registry.contains(1L)).isTrue();
+
+        assertThat(registry.remove("web", offline::add)).isSameAs(web);
+        assertThat(offline).containsExactly(1L);
+        assertThat(registry.contains(1L)).isFalse();
+        assertThat(registry.sessionCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("上线/下线回调在注册表更新完成后执行，回调内可读到最新状态")
+    void callbacks_runAfterUpdate() {
+        List<Boolean> seen = new ArrayList<>();
+
+        registry.add(1L, session("a"), id -> seen.add(registry.contains(id)));
+        registry.remove("a", id -> seen.add(registry.contains(id)));
+        registry.add(2L, session("b"), online::add);
+        registry.removeUser(2L, id -> seen.add(registry.contains(id)));
+
+        assertThat(seen).containsExactly(true, false, false);
+    }
+
+    @Test
+    @DisplayName("按加入顺序返回用户的全部会话，并可按会话 ID 反查")
+    void get_returnsSessionsInOrder() {
+        WebSocketSession a = session("a");
+        WebSocketSession b = session("b");
+        registry.add(1L, a, online::add);
+        registry.add(1L, b, online::add);
+
+        assertThat(registry.get(1L)).containsExactly(a, b);
+        assertThat(registry.get(2L)).isEmpty();
+        assertThat(registry.find("b")).isSameAs(b);
+        assertThat(registry.userOf("a")).isEqualTo(1L);
+        assertThat(registry.remove("missing", offline::add)).isNull();
+    }
+
+    @Test
+    @DisplayName("超过单用户上限时挤掉最早的会话")
+    void add_evictsOldestOverCap() {
+        WebSocketSession first = session("1");
+        registry.add(1L, first, online::add);
+        registry.add(1L, session("2"), online::add);
+        registry.add(1L, session("3"), online::add);
+
+        WebSocketSession evicted = registry.add(1L, session("4"), online::add);
+
+        assertThat(evicted).isSameAs(first);
+        assertThat(registry.get(1L)).extracting(WebSocketSession::getId).containsExactly("2", "3", "4");
+        assertThat(registry.userOf("1")).isNull();
+        assertThat(registry.sessionCount()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("移除用户时返回全部会话并只触发一次下线")
+    void removeUser_removesAllSessions() {
+        registry.add(1L, session("a"), online::add);
+        registry.add(1L, session("b"), online::add);
+        registry.add(2L, session("c"), online::add);
+
+        WebSocketSession[] removed = registry.removeUser(1L, offline::add);
+
+        assertThat(removed).extracting(WebSocketSession::getId).containsExactly("a", "b");
+        assertThat(offline).containsExactly(1L);
+        assertThat(registry.userOf("a")).isNull();
+        assertThat(registry.sessionCount()).isEqualTo(1);
+        assertThat(registry.removeUser(1L, offline::add)).isEmpty();
+        assertThat(offline).containsExactly(1L);
+    }
+}
@@ -0,0 +1,159 @@
+package com.campus.marketplace.websocket;
+
+import com.campus.marketplace.common.config.properties.WebSocketClusterProperties;
+import com.campus.marketplace.common.utils.RedisScriptRegistry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.HashOperations;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("WebSocket 集群路由测试")
+class WebSocketClusterRouterTest {
+
+    @Mock
+    RedisTemplate<String, String> redisTemplate;
+    @Mock
+    HashOperations<String, String, String> hashOperations;
+    @Mock
+    ObjectProvider<WebSocketSessionManager> sessionManagers;
+    @Mock
+    MessageSessionManager messageSessionManager;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private WebSocketClusterRouter router;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        WebSocketClusterProperties properties = new WebSocketClusterProperties();
+        properties.setNodeId("node-a");
+        RedisScriptRegistry scriptRegistry = new RedisScriptRegistry(meterRegistry, mock(ObjectProvider.class), "memory");
+        router = new WebSocketClusterRouter(redisTemplate, objectMapper, scriptRegistry, properties, sessionManagers,
+                mock(ObjectProvider.class), meterRegistry, "redis");
+        lenient().when(redisTemplate.<String, String>opsForHash()).thenReturn(hashOperations);
+        lenient().when(messageSessionManager.endpoint()).thenReturn("message");
+        lenient().when(sessionManagers.iterator()).thenAnswer(inv -> List.of(messageSessionManager).iterator());
+    }
+
+    private double deliveries(String result) {
+        return meterRegistry.get("websocket.route.deliveries").tag("result", result).counter().count();
+    }
+
+    private static String live() {
+        return String.valueOf(System.currentTimeMillis() + 60_000);
+    }
+
+    private static String expired() {
+        return String.valueOf(System.currentTimeMillis() - 1);
+    }
+
+    @Test
+    @DisplayName("用户只在本节点有会话时直接投递，不发布")
+    void send_deliversLocally() {
+        when(messageSessionManager.sendToUser(7L, "{}")).thenReturn(true);
+        when(hashOperations.entries("ws:route:message:7")).thenReturn(Map.of("node-a", live()));
+
+        assertThat(router.send(messageSessionManager, 7L, "{}")).isTrue();
+
+        verify(redisTemplate, never()).convertAndSend(anyString(), any());
+        assertThat(deliveries("local")).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("会话在其他节点时发布到归属节点频道")
+    void send_forwardsToOwningNode() throws Exception {
+        when(hashOperations.entries("ws:route:message:7")).thenReturn(Map.of("node-b", live()));
+
+        assertThat(router.send(messageSessionManager, 7L, "{\"type\":\"NEW_MESSAGE\"}")).isTrue();
+
+        ArgumentCaptor<String> body = ArgumentCaptor.forClass(String.class);
+        verify(redisTemplate).convertAndSend(eq("ws:node:node-b"), body.capture());
+        WebSocketClusterRouter.Envelope envelope = objectMapper.readValue(body.getValue(), WebSocketClusterRouter.Envelope.class);
+        assertThat(envelope.userId()).isEqualTo(7L);
+        assertThat(deliveries("forwarded")).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("用户在多个节点有设备时本地投递并扇出到其他全部节点，跳过过期归属")
+    void send_fansOutToEveryOtherOwner() {
+        when(messageSessionManager.sendToUser(7L, "{}")).thenReturn(true);
+        when(hashOperations.entries("ws:route:message:7")).thenReturn(Map.of(
+                "node-a", live(), "node-b", live(), "node-c", live(), "node-d", expired()));
+
+        assertThat(router.send(messageSessionManager, 7L, "{}")).isTrue();
+
+        verify(redisTemplate).convertAndSend(eq("ws:node:node-b"), anyString());
+        verify(redisTemplate).convertAndSend(eq("ws:node:node-c"), anyString());
+        verify(redisTemplate, never()).convertAndSend(eq("ws:node:node-a"), anyString());
+        verify(redisTemplate, never()).convertAndSend(eq("ws:node:node-d"), anyString());
+        assertThat(deliveries("local")).isEqualTo(1.0);
+        assertThat(deliveries("forwarded")).isEqualTo(2.0);
+    }
+
+    @Test
+    @DisplayName("没有其他归属节点且本节点无会话时视为离线")
+    void send_offlineWhenNoOwner() {
+        when(hashOperations.entries("ws:route:message:7")).thenReturn(Map.of(), Map.of("node-a", live()));
+
+        assertThat(router.send(messageSessionManager, 7L, "{}")).isFalse();
+        assertThat(router.send(messageSessionManager, 7L, "{}")).isFalse();
+
+        verify(redisTemplate, never()).convertAndSend(anyString(), any());
+        assertThat(deliveries("offline")).isEqualTo(2.0);
+    }
+
+    @Test
+    @DisplayName("任一节点的在线登记未过期即为在线")
+    void isOnline_checksLiveFields() {
+        when(hashOperations.entries("ws:online:7")).thenReturn(Map.of("node-a:message", expired(), "node-b:default", live()));
+        when(hashOperations.entries("ws:online:8")).thenReturn(Map.of("node-a:message", expired()));
+
+        assertThat(router.isOnline(7L)).isTrue();
+        assertThat(router.isOnline(8L)).isFalse();
+    }
+
+    @Test
+    @DisplayName("收到转发后在本节点投递并记录延迟")
+    void onMessage_deliversAndRecordsLatency() throws Exception {
+        when(messageSessionManager.sendToUser(7L, "{}")).thenReturn(true);
+        String body = objectMapper.writeValueAsString(
+                new WebSocketClusterRouter.Envelope("message", 7L, "{}", System.currentTimeMillis()));
+
+        router.onMessage(new DefaultMessage("ws:node:node-a".getBytes(StandardCharsets.UTF_8),
+                body.getBytes(StandardCharsets.UTF_8)), null);
+
+        assertThat(deliveries("delivered")).isEqualTo(1.0);
+        assertThat(meterRegistry.get("websocket.route.latency").tag("route", "remote").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("转发到达时本节点已无会话则丢弃，不再转发")
+    void onMessage_dropsWithoutRerouting() throws Exception {
+        when(messageSessionManager.getSessions(7L)).thenReturn(List.of());
+
+        router.onMessage(new DefaultMessage(new byte[0], objectMapper.writeValueAsString(
+                new WebSocketClusterRouter.Envelope("message", 7L, "{}", 0L)).getBytes(StandardCharsets.UTF_8)), null);
+
+        verify(redisTemplate, never()).convertAndSend(anyString(), any());
+        assertThat(deliveries("dropped")).isEqualTo(1.0);
+    }
+}